@@ -0,0 +1,126 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures compiling a package of classes with the in-process compiler, once it is warm
+ * (as it is for every compilation after the first in a BlueJ session).  The classes are
+ * compiled together, as when the user compiles a project, each using the one before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilerBenchmark
+{
+    @Param({"1", "20"})
+    public int classes;
+
+    @Param({"EXPLICIT_USER_COMPILE", "ERROR_CHECK_ONLY"})
+    public CompileType compileType;
+
+    private Path dir;
+    private File[] sources;
+    private CompilerAPICompiler compiler;
+    private final CompileObserver observer = new CompileObserver()
+    {
+        @Override
+        public void startCompile(CompileInputFile[] sources, CompileReason reason, CompileType type, int compilationSequence) { }
+
+        @Override
+        public void compilerMessage(Diagnostic diagnostic, CompileType type)
+        {
+            throw new IllegalStateException(diagnostic.getMessage());
+        }
+
+        @Override
+        public void endCompile(CompileInputFile[] sources, boolean succesful, CompileType type, int compilationSequence) { }
+    };
+
+    @Setup
+    public void setup() throws IOException
+    {
+        dir = Files.createTempDirectory("compilerbenchmark");
+        sources = new File[classes];
+        for (int i = 0; i < classes; i++)
+        {
+            StringBuilder source = new StringBuilder("import java.util.*;\n\npublic class Class" + i + "\n{\n");
+            source.append("    private final List<String> items = new ArrayList<>();\n\n");
+            for (int m = 0; m < 20; m++)
+            {
+                source.append("    public int method").append(m).append("(int count)\n    {\n");
+                source.append("        int total = ").append(i == 0 ? "count" : "new Class" + (i - 1) + "().method" + m + "(count)").append(";\n");
+                source.append("        for (String s : items)\n        {\n");
+                source.append("            total += s.length();\n        }\n");
+                source.append("        return total;\n    }\n\n");
+            }
+            source.append("}\n");
+            sources[i] = dir.resolve("Class" + i + ".java").toFile();
+            Files.writeString(sources[i].toPath(), source);
+        }
+
+        compiler = new CompilerAPICompiler();
+        // As in BlueJ, the classes are written alongside the sources:
+        compiler.setDestDir(dir.toFile());
+        compiler.setClasspath(Collections.emptyList());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(dir))
+        {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public boolean compile()
+    {
+        return compiler.compile(sources, observer, false, Collections.emptyList(), StandardCharsets.UTF_8, compileType);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.fixes;
+
+import bluej.editor.fixes.Correction.CorrectionInfo;
+import bluej.editor.fixes.Correction.SimpleCorrectionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures finding the corrections for a misspelt type name, as the editor does
+ * for an "unknown type" error, against the names of all the classes in java.base.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrectionBenchmark
+{
+    @Param({"Strng", "ArrayLsit", "ConcurrentHashMpa"})
+    public String misspelt;
+
+    private List<CorrectionInfo> candidates;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        try (Stream<Path> files = Files.walk(jrt.getPath("/modules/java.base")))
+        {
+            candidates = files.map(p -> p.getFileName().toString())
+                .filter(n -> n.endsWith(".class") && !n.contains("$") && !n.contains("-"))
+                .map(n -> n.substring(0, n.length() - ".class".length()))
+                .distinct()
+                .<CorrectionInfo>map(SimpleCorrectionInfo::new)
+                .collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public List<Correction> winnowAndCreateCorrections()
+    {
+        return Correction.winnowAndCreateCorrections(misspelt, candidates.stream(), c -> {}, true);
+    }
+}
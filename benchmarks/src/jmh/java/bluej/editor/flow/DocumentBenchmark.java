@@ -0,0 +1,145 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.flow.Document.Bias;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Document implementations on the operations the editor performs
+ * for each keystroke: replacing text near the top of a large file (with the caret
+ * and anchor being tracked), mapping positions to lines and back, and finding
+ * the longest line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentBenchmark
+{
+    @Param({"PieceTree", "Hole", "Slow"})
+    public String documentType;
+
+    @Param({"1000", "20000"})
+    public int lines;
+
+    private Document document;
+    private TrackedPosition caret;
+    private TrackedPosition anchor;
+    private int[] positions;
+    private int nextPosition;
+
+    @Setup
+    public void setup()
+    {
+        switch (documentType)
+        {
+            case "PieceTree": document = new PieceTreeDocument(); break;
+            case "Hole": document = new HoleDocument(); break;
+            default: document = new SlowDocument(); break;
+        }
+        document.replaceText(0, 0, makeSource(lines));
+        caret = document.trackPosition(document.getLineStart(10), Bias.FORWARD);
+        anchor = document.trackPosition(document.getLineStart(10), Bias.FORWARD);
+
+        Random random = new Random(1);
+        positions = new int[1024];
+        for (int i = 0; i < positions.length; i++)
+        {
+            positions[i] = random.nextInt(document.getLength());
+        }
+    }
+
+    /**
+     * Generate a Java-like source file with the given number of lines.
+     */
+    static String makeSource(int lines)
+    {
+        StringBuilder source = new StringBuilder("public class Generated\n{\n");
+        for (int i = 2; i < lines - 1; i++)
+        {
+            source.append("    private int field").append(i).append(" = ").append(i * 31 % 1000).append(";\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Type a character near the top of the document, then delete it again.
+     */
+    @Benchmark
+    public void typeNearTop()
+    {
+        int pos = caret.getPosition();
+        document.replaceText(pos, pos, "x");
+        document.replaceText(pos, pos + 1, "");
+        anchor.moveTo(caret.getPosition());
+    }
+
+    /**
+     * Insert a new line near the top of the document, then remove it again.
+     */
+    @Benchmark
+    public void insertLineNearTop()
+    {
+        int pos = caret.getPosition();
+        document.replaceText(pos, pos, "int x;\n");
+        document.replaceText(pos, pos + 7, "");
+    }
+
+    @Benchmark
+    public void positionToLineAndBack(Blackhole blackhole)
+    {
+        int pos = positions[nextPosition++ & (positions.length - 1)];
+        int line = document.getLineFromPosition(pos);
+        blackhole.consume(document.getLineStart(line) + document.getColumnFromPosition(pos));
+    }
+
+    @Benchmark
+    public void getLongestLineAfterEdit(Blackhole blackhole)
+    {
+        typeNearTop();
+        if (document instanceof PieceTreeDocument)
+        {
+            blackhole.consume(((PieceTreeDocument) document).getLongestLine());
+        }
+        else if (document instanceof HoleDocument)
+        {
+            blackhole.consume(((HoleDocument) document).getLongestLine());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import bluej.Boot;
+import bluej.Config;
+import bluej.editor.flow.HoleDocument;
+import bluej.editor.flow.JavaSyntaxView;
+import bluej.editor.flow.ScopeColors;
+import bluej.parser.entity.ClassLoaderResolver;
+import bluej.parser.entity.EntityResolver;
+import bluej.parser.entity.PackageResolver;
+import bluej.parser.lexer.LexerBenchmark;
+import bluej.parser.nodes.ParsedCUNode;
+import bluej.parser.symtab.ClassInfo;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsers: a full parse of a source file for its class information (as
+ * done when a package is opened), a full parse by the editor (as done when a file is
+ * loaded into the editor), and the incremental re-parse after typing in the editor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark
+{
+    @Param({"100", "1000"})
+    public int methods;
+
+    private String source;
+    private EntityResolver resolver;
+    private HoleDocument document;
+    private JavaSyntaxView syntaxView;
+    private int editPosition;
+
+    @Setup
+    public void setup()
+    {
+        // The editor's parser reads the preferences, so needs the configuration:
+        Config.initialise(Boot.getBluejLibDir(), new Properties(), false);
+
+        source = LexerBenchmark.makeSource(methods);
+        resolver = new PackageResolver(new ClassLoaderResolver(getClass().getClassLoader()), "generated");
+
+        document = new HoleDocument();
+        document.replaceText(0, 0, source);
+        // No display, so the re-parse only happens when we flush the queue:
+        syntaxView = new JavaSyntaxView(document, null, ScopeColors.dummy(), resolver, new ReadOnlyBooleanWrapper(true));
+        syntaxView.enableParser(true);
+        syntaxView.flushReparseQueue();
+
+        // Edit a statement in a method half way down the file:
+        editPosition = source.indexOf("String label", source.length() / 2);
+    }
+
+    @Benchmark
+    public ClassInfo infoParse()
+    {
+        return InfoParser.parse(new StringReader(source), resolver, "generated");
+    }
+
+    /**
+     * Replace the whole of the document's text, and parse all of it again.
+     */
+    @Benchmark
+    public ParsedCUNode editorFullParse()
+    {
+        document.replaceText(0, document.getLength(), source);
+        syntaxView.flushReparseQueue();
+        return syntaxView.getParser();
+    }
+
+    /**
+     * Type a modifier into a method, and re-parse; then remove it again, and re-parse.
+     */
+    @Benchmark
+    public ParsedCUNode editorIncrementalParse()
+    {
+        document.replaceText(editPosition, editPosition, "final ");
+        syntaxView.flushReparseQueue();
+        document.replaceText(editPosition, editPosition + 6, "");
+        syntaxView.flushReparseQueue();
+        return syntaxView.getParser();
+    }
+}
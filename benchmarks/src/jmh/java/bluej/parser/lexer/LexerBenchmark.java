@@ -0,0 +1,125 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.lexer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lexing a source file through a Reader, directly from the source, and
+ * directly into a TokenBuffer.  Run with "-prof gc" to see the allocation per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark
+{
+    @Param({"100", "2000"})
+    public int methods;
+
+    private String source;
+    private final TokenBuffer buffer = new TokenBuffer();
+
+    @Setup
+    public void setup()
+    {
+        source = makeSource(methods);
+    }
+
+    /**
+     * Generate a Java source file with the given number of methods.
+     */
+    public static String makeSource(int methods)
+    {
+        StringBuilder source = new StringBuilder("package generated;\n\nimport java.util.List;\n\n"
+                + "/**\n * A generated class.\n */\npublic class Generated extends Object\n{\n");
+        for (int i = 0; i < methods; i++)
+        {
+            source.append("    // Method number ").append(i).append("\n");
+            source.append("    public int method").append(i).append("(List<String> items, int count)\n    {\n");
+            source.append("        String label = \"item \" + count;\n");
+            source.append("        for (int j = 0; j < count; j++)\n        {\n");
+            source.append("            count += items.get(j).length() * ").append(i % 97).append(";\n");
+            source.append("        }\n        return count >= 0x7F ? count : -1;\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Lex through a Reader, as the parser did before; the text of each token is made as it is read.
+     */
+    @Benchmark
+    public void readerTokens(Blackhole blackhole)
+    {
+        JavaLexer lexer = new JavaLexer(new StringReader(source));
+        for (LocatableToken token = lexer.nextToken(); token.getType() != JavaTokenTypes.EOF; token = lexer.nextToken())
+        {
+            blackhole.consume(token);
+        }
+    }
+
+    /**
+     * Lex directly from the source, asking for the text of identifiers only (as the parser mostly does).
+     */
+    @Benchmark
+    public void sourceTokens(Blackhole blackhole)
+    {
+        JavaLexer lexer = new JavaLexer(source);
+        for (LocatableToken token = lexer.nextToken(); token.getType() != JavaTokenTypes.EOF; token = lexer.nextToken())
+        {
+            if (token.getType() == JavaTokenTypes.IDENT)
+            {
+                blackhole.consume(token.getText());
+            }
+            blackhole.consume(token);
+        }
+    }
+
+    /**
+     * Lex directly from the source into a re-used buffer.
+     */
+    @Benchmark
+    public void scanIntoBuffer(Blackhole blackhole)
+    {
+        new JavaLexer(source).scanInto(buffer);
+        for (int i = 0; i < buffer.size(); i++)
+        {
+            blackhole.consume(buffer.getType(i));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.nodes;
+
+import bluej.editor.flow.ReparseRecord;
+import bluej.parser.nodes.NodeTree.NodeAndPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the NodeTree operations which the parser performs on each edit: finding
+ * the node at a position, iterating over the nodes from a position, resizing a node
+ * (which moves all the nodes after it), and inserting and removing a node.
+ *
+ * The tree holds nodes of size 5, every 10 characters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeTreeBenchmark
+{
+    private static final int SPACING = 10;
+    private static final int NODE_SIZE = 5;
+
+    @Param({"1000", "100000"})
+    public int nodes;
+
+    private NodeTree<ReparseRecord> tree;
+    private int[] positions;
+    private int nextPosition;
+
+    @Setup
+    public void setup()
+    {
+        tree = new NodeTree<>();
+        for (int i = 0; i < nodes; i++)
+        {
+            tree.insertNode(new ReparseRecord(), i * SPACING, NODE_SIZE);
+        }
+
+        Random random = new Random(1);
+        positions = new int[1024];
+        for (int i = 0; i < positions.length; i++)
+        {
+            // The start of a random node:
+            positions[i] = random.nextInt(nodes) * SPACING;
+        }
+    }
+
+    private int nextPosition()
+    {
+        return positions[nextPosition++ & (positions.length - 1)];
+    }
+
+    @Benchmark
+    public NodeAndPosition<ReparseRecord> findNode()
+    {
+        return tree.findNode(nextPosition());
+    }
+
+    @Benchmark
+    public void iterateTwentyNodes(Blackhole blackhole)
+    {
+        Iterator<NodeAndPosition<ReparseRecord>> i = tree.iterator(nextPosition());
+        for (int n = 0; n < 20 && i.hasNext(); n++)
+        {
+            blackhole.consume(i.next());
+        }
+    }
+
+    /**
+     * Grow a node near the start of the tree by one, then shrink it back again.
+     */
+    @Benchmark
+    public void resizeNearStart()
+    {
+        ReparseRecord node = tree.findNode(SPACING * 2).getNode();
+        node.resize(NODE_SIZE + 1);
+        node.resize(NODE_SIZE);
+    }
+
+    /**
+     * Insert a node into the gap after a random node, then remove it again.
+     */
+    @Benchmark
+    public void insertAndRemove()
+    {
+        ReparseRecord node = new ReparseRecord();
+        tree.insertNode(node, nextPosition() + NODE_SIZE + 1, 2);
+        node.remove();
+    }
+}
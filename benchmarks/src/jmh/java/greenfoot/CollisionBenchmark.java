@@ -0,0 +1,102 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the collision checker implementations on each of the synthetic worlds:
+ * a whole act cycle, in which the actors move and make the collision queries they
+ * would in a scenario, and a set of queries (intersecting objects, objects in range
+ * and objects at a location) for 1,000 of the actors, without any movement.
+ * BVHInsChecker is left out, as it no longer works without actors' bounding circles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark
+{
+    @Param({"ColManager", "GridCollisionChecker", "IBSPColChecker"})
+    public String checker;
+
+    @Param({SyntheticWorlds.PARTICLES, SyntheticWorlds.TILES, SyntheticWorlds.FLOCK})
+    public String world;
+
+    private World theWorld;
+    // The range for getObjectsInRange: about 50 pixels, whatever the cell size
+    private int range;
+    private final List<Actor> queryActors = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        HeadlessRuntime.initialise(null);
+        theWorld = SyntheticWorlds.create(world, SyntheticWorlds.newCollisionChecker(checker));
+        range = 48 / theWorld.getCellSize();
+        List<Actor> actors = theWorld.getObjects(null);
+        queryActors.clear();
+        for (int i = 0; i < 1000; i++)
+        {
+            queryActors.add(actors.get(i * actors.size() / 1000));
+        }
+    }
+
+    @Benchmark
+    public World actCycle()
+    {
+        HeadlessRuntime.actCycle(theWorld);
+        return theWorld;
+    }
+
+    @Benchmark
+    public int queries()
+    {
+        int found = 0;
+        for (Actor actor : queryActors)
+        {
+            int x = actor.getX();
+            int y = actor.getY();
+            found += theWorld.getIntersectingObjects(actor, null).size();
+            found += theWorld.getObjectsInRange(x, y, range, null).size();
+            found += theWorld.getObjectsAt(x, y, null).size();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the GreenfootImage operations which scenarios commonly do every act cycle:
+ * copying an image, then scaling, rotating or mirroring the copy; drawing an image
+ * (opaque or partly transparent) onto a larger one; filling; and making an image of
+ * some text, as score counters do.  The operations which change the image are done
+ * on a copy, so the copy benchmark gives the part of their time which is copying.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreenfootImageBenchmark
+{
+    @Param({"32", "256"})
+    public int size;
+
+    private GreenfootImage sprite;
+    private GreenfootImage transparentSprite;
+    private GreenfootImage canvas;
+    private GreenfootImage background;
+    private int score;
+
+    @Setup
+    public void setup()
+    {
+        sprite = new GreenfootImage(size, size);
+        sprite.setColor(Color.BLUE);
+        sprite.fillOval(0, 0, size, size);
+        transparentSprite = new GreenfootImage(sprite);
+        transparentSprite.setTransparency(128);
+        canvas = new GreenfootImage(800, 600);
+        background = new GreenfootImage(size, size);
+        background.setColor(Color.GREEN);
+    }
+
+    @Benchmark
+    public GreenfootImage copy()
+    {
+        return new GreenfootImage(sprite);
+    }
+
+    @Benchmark
+    public GreenfootImage scale()
+    {
+        GreenfootImage image = new GreenfootImage(sprite);
+        image.scale(size * 3 / 2, size * 3 / 2);
+        return image;
+    }
+
+    @Benchmark
+    public GreenfootImage rotate()
+    {
+        GreenfootImage image = new GreenfootImage(sprite);
+        image.rotate(30);
+        return image;
+    }
+
+    @Benchmark
+    public GreenfootImage mirror()
+    {
+        GreenfootImage image = new GreenfootImage(sprite);
+        image.mirrorHorizontally();
+        return image;
+    }
+
+    @Benchmark
+    public GreenfootImage drawImage()
+    {
+        canvas.drawImage(sprite, 100, 100);
+        return canvas;
+    }
+
+    @Benchmark
+    public GreenfootImage drawTransparentImage()
+    {
+        canvas.drawImage(transparentSprite, 100, 100);
+        return canvas;
+    }
+
+    @Benchmark
+    public GreenfootImage fill()
+    {
+        background.fill();
+        return background;
+    }
+
+    @Benchmark
+    public GreenfootImage textImage()
+    {
+        return new GreenfootImage("Score: " + score++, size / 2, Color.WHITE, Color.BLACK);
+    }
+}
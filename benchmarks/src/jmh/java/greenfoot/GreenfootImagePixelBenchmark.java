@@ -0,0 +1,106 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of processing every pixel of a GreenfootImage: getColorAt and
+ * setColorAt for each pixel, a PixelCursor, and copying the pixels out and back
+ * with getPixels and setPixels.  Each benchmark inverts the colours of the image,
+ * as a typical image-processing scenario would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreenfootImagePixelBenchmark
+{
+    @Param({"100", "600"})
+    public int size;
+
+    private GreenfootImage image;
+    private int[] pixels;
+
+    @Setup
+    public void setup()
+    {
+        image = new GreenfootImage(size, size);
+        image.setColor(Color.ORANGE);
+        image.fill();
+        image.setColor(Color.BLUE);
+        image.fillOval(0, 0, size, size);
+        pixels = new int[size * size];
+    }
+
+    @Benchmark
+    public GreenfootImage perPixelColor()
+    {
+        for (int y = 0; y < size; y++)
+        {
+            for (int x = 0; x < size; x++)
+            {
+                Color c = image.getColorAt(x, y);
+                image.setColorAt(x, y, new Color(255 - c.getRed(), 255 - c.getGreen(), 255 - c.getBlue(), c.getAlpha()));
+            }
+        }
+        return image;
+    }
+
+    @Benchmark
+    public GreenfootImage pixelCursor()
+    {
+        PixelCursor cursor = image.getPixelCursor();
+        do
+        {
+            cursor.setARGB(cursor.getARGB() ^ 0x00FFFFFF);
+        }
+        while (cursor.next());
+        return image;
+    }
+
+    @Benchmark
+    public GreenfootImage region()
+    {
+        image.getPixels(0, 0, size, size, pixels, 0, size);
+        for (int i = 0; i < pixels.length; i++)
+        {
+            pixels[i] ^= 0x00FFFFFF;
+        }
+        image.setPixels(0, 0, size, size, pixels, 0, size);
+        return image;
+    }
+}
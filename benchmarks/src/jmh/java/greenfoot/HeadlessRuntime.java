@@ -0,0 +1,244 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import greenfoot.core.ReadOnlyProjectProperties;
+import greenfoot.core.Simulation;
+import greenfoot.core.WorldHandler;
+import greenfoot.platforms.GreenfootUtilDelegate;
+import greenfoot.platforms.WorldHandlerDelegate;
+import greenfoot.util.GreenfootUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Sets up the Greenfoot runtime to run worlds without a GUI, for the benchmarks and
+ * the scenario replay: resources are found in the scenario directory (if any) and then
+ * on the classpath, the world is never shown, and act cycles are run directly rather
+ * than on the simulation thread.
+ */
+public class HeadlessRuntime
+{
+    /**
+     * Initialise the runtime.  This can be done again, for instance to change scenario,
+     * as long as no world is being run at the time.
+     *
+     * @param scenarioDir  The scenario directory, containing the project.greenfoot file
+     *                     and the images and sounds directories; null if there is none.
+     */
+    public static void initialise(File scenarioDir) throws IOException
+    {
+        GreenfootUtil.initialise(new HeadlessUtilDelegate(scenarioDir));
+        if (scenarioDir != null)
+        {
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(new File(scenarioDir, "project.greenfoot")))
+            {
+                properties.load(in);
+            }
+            ReadOnlyProjectProperties projectProperties = properties::getProperty;
+            ActorVisitor.setDelegate(projectProperties::getImage);
+        }
+        else
+        {
+            ActorVisitor.setDelegate(className -> null);
+        }
+        Simulation.initialize();
+        WorldHandler.initialise(new HeadlessWorldHandlerDelegate());
+    }
+
+    /**
+     * Set the given world as the current world.
+     */
+    public static void setWorld(World world)
+    {
+        WorldHandler.getInstance().setWorld(world, false);
+    }
+
+    /**
+     * Run one act cycle on the given world, as the simulation thread does: first the
+     * world acts, then each actor in the world in act order.
+     */
+    public static void actCycle(World world)
+    {
+        WorldVisitor.startSequence(world);
+        world.act();
+        // Take a copy, as the actors may add and remove actors as they act:
+        List<Actor> actors = new ArrayList<>(WorldVisitor.getObjectsListInActOrder(world));
+        for (Actor actor : actors)
+        {
+            if (ActorVisitor.getWorld(actor) == world)
+            {
+                actor.act();
+            }
+        }
+        WorldHandler.getInstance().getKeyboardManager().clearLatchedKeys();
+    }
+
+    /**
+     * Finds resources in the scenario directory, and then on the classpath.
+     * There is no storage support.
+     */
+    private static class HeadlessUtilDelegate implements GreenfootUtilDelegate
+    {
+        private final File scenarioDir;
+
+        private HeadlessUtilDelegate(File scenarioDir)
+        {
+            this.scenarioDir = scenarioDir;
+        }
+
+        @Override
+        public URL getResource(String path)
+        {
+            if (scenarioDir != null)
+            {
+                File file = new File(scenarioDir, path);
+                if (file.isFile())
+                {
+                    try
+                    {
+                        return file.toURI().toURL();
+                    }
+                    catch (MalformedURLException e)
+                    {
+                        // Fall back to the classpath
+                    }
+                }
+            }
+            return getClass().getClassLoader().getResource(path);
+        }
+
+        @Override
+        public Iterable<String> getSoundFiles()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Iterable<String> getImageFiles()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getGreenfootLogoPath()
+        {
+            // As copied into the resources by the Greenfoot build:
+            return "images/greenfoot-icon-16.png";
+        }
+
+        @Override
+        public boolean isStorageSupported()
+        {
+            return false;
+        }
+
+        @Override
+        public UserInfo getCurrentUserInfo()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean storeCurrentUserInfo(UserInfo data)
+        {
+            return false;
+        }
+
+        @Override
+        public List<UserInfo> getTopUserInfo(int limit)
+        {
+            return null;
+        }
+
+        @Override
+        public GreenfootImage getUserImage(String userName)
+        {
+            return null;
+        }
+
+        @Override
+        public String getUserName()
+        {
+            return null;
+        }
+
+        @Override
+        public List<UserInfo> getNearbyUserInfo(int maxAmount)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * A world handler delegate for a world which is not shown: painting is left
+     * to whoever is running the world, and Greenfoot.ask() gets no answer.
+     */
+    private static class HeadlessWorldHandlerDelegate implements WorldHandlerDelegate
+    {
+        @Override
+        public void setWorld(World oldWorld, World newWorld)
+        {
+        }
+
+        @Override
+        public void instantiateNewWorld(String className, Runnable runIfError)
+        {
+        }
+
+        @Override
+        public void discardWorld(World world)
+        {
+        }
+
+        @Override
+        public void objectAddedToWorld(Actor actor)
+        {
+        }
+
+        @Override
+        public String ask(String prompt)
+        {
+            return "";
+        }
+
+        @Override
+        public void paint(World drawWorld, boolean forcePaint)
+        {
+        }
+
+        @Override
+        public void notifyStoppedWithError()
+        {
+        }
+    }
+}
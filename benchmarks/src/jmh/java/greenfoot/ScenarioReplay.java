@@ -0,0 +1,216 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import greenfoot.core.Simulation;
+import greenfoot.core.WorldHandler;
+import greenfoot.gui.WorldRenderer;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs a Java scenario without a GUI, for a number of act cycles, and reports the
+ * number of act cycles per second.  The scenario's sources are compiled to a temporary
+ * directory first.  Each act cycle is painted into an image, as when the scenario is
+ * shown, unless --no-paint is given.  Usage:
+ * <pre>
+ *   ScenarioReplay [--cycles N] [--warmup N] [--world WorldClass] [--no-paint] scenarioDir
+ * </pre>
+ * If the world class is not given, the scenario must have exactly one world class with a
+ * public no-argument constructor.  The replay ends early if the scenario calls Greenfoot.stop().
+ * There is no keyboard or mouse input, and Greenfoot.ask() returns an empty string.
+ */
+public class ScenarioReplay
+{
+    public static void main(String[] args) throws Exception
+    {
+        int cycles = 1000;
+        int warmup = 100;
+        String worldClassName = null;
+        boolean paint = true;
+        File scenarioDir = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--cycles": cycles = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+                case "--world": worldClassName = args[++i]; break;
+                case "--no-paint": paint = false; break;
+                default: scenarioDir = new File(args[i]); break;
+            }
+        }
+        if (scenarioDir == null || !new File(scenarioDir, "project.greenfoot").isFile())
+        {
+            System.err.println("Usage: ScenarioReplay [--cycles N] [--warmup N] [--world WorldClass] [--no-paint] scenarioDir");
+            System.exit(2);
+        }
+
+        Path classesDir = Files.createTempDirectory("replay");
+        try
+        {
+            List<String> worldClasses = compile(scenarioDir, classesDir);
+            if (worldClassName == null)
+            {
+                if (worldClasses.size() != 1)
+                {
+                    System.err.println("Give the world class to use with --world; found: " + worldClasses);
+                    System.exit(2);
+                }
+                worldClassName = worldClasses.get(0);
+            }
+
+            HeadlessRuntime.initialise(scenarioDir);
+            // Greenfoot.stop() pauses the simulation, so start unpaused to be able to tell:
+            Simulation.getInstance().setPaused(false);
+            try (URLClassLoader loader = new URLClassLoader(new URL[] {classesDir.toUri().toURL()},
+                    ScenarioReplay.class.getClassLoader()))
+            {
+                Thread.currentThread().setContextClassLoader(loader);
+                Constructor<?> constructor = loader.loadClass(worldClassName).getConstructor();
+                WorldHandler worldHandler = WorldHandler.getInstance();
+                worldHandler.clearWorldSet();
+                World world = (World) constructor.newInstance();
+                // As in the standalone viewer, the constructor may have set a different world:
+                if (!worldHandler.checkWorldSet())
+                {
+                    worldHandler.setWorld(world, false);
+                }
+
+                Replay replay = new Replay(paint);
+                replay.run(warmup);
+                long start = System.nanoTime();
+                int done = replay.run(cycles);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%s: %d act cycles%s in %.2f s: %.1f acts/second%s%n", scenarioDir.getName(),
+                        done, paint ? ", painted," : "", seconds, done / seconds,
+                        done < cycles ? " (stopped by the scenario)" : "");
+                System.out.println(worldHandler.getWorld().numberOfObjects() + " actors at the end");
+            }
+        }
+        finally
+        {
+            try (Stream<Path> files = Files.walk(classesDir))
+            {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Compile the Java sources in the scenario directory.
+     *
+     * @return The names of the world classes which can be instantiated with no arguments.
+     */
+    private static List<String> compile(File scenarioDir, Path classesDir) throws IOException, ClassNotFoundException
+    {
+        File[] sources = scenarioDir.listFiles((dir, name) -> name.endsWith(".java"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> options = new ArrayList<>(List.of("-d", classesDir.toString(),
+                "-cp", System.getProperty("java.class.path"), "-encoding", "UTF-8", "-nowarn"));
+        for (File source : sources)
+        {
+            options.add(source.getPath());
+        }
+        if (compiler.run(null, null, null, options.toArray(new String[0])) != 0)
+        {
+            throw new IOException("Could not compile the scenario in " + scenarioDir);
+        }
+
+        // Look for the world classes with a separate loader, so as not to initialise anything yet:
+        List<String> worldClasses = new ArrayList<>();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classesDir.toUri().toURL()},
+                ScenarioReplay.class.getClassLoader()))
+        {
+            for (File source : sources)
+            {
+                String name = source.getName().substring(0, source.getName().length() - ".java".length());
+                Class<?> cls = Class.forName(name, false, loader);
+                if (World.class.isAssignableFrom(cls) && !Modifier.isAbstract(cls.getModifiers())
+                        && Stream.of(cls.getConstructors()).anyMatch(c -> c.getParameterCount() == 0))
+                {
+                    worldClasses.add(name);
+                }
+            }
+        }
+        return worldClasses;
+    }
+
+    /**
+     * Runs act cycles on the current world, painting each one if required.
+     */
+    private static class Replay
+    {
+        private final WorldRenderer renderer;
+        private BufferedImage image;
+
+        Replay(boolean paint)
+        {
+            renderer = paint ? new WorldRenderer() : null;
+        }
+
+        /**
+         * Run the given number of act cycles, or until the scenario stops.
+         *
+         * @return The number of act cycles run.
+         */
+        int run(int cycles)
+        {
+            for (int i = 0; i < cycles; i++)
+            {
+                if (Simulation.getInstance().isPaused())
+                {
+                    return i;
+                }
+                // The world may be changed by the scenario, so get it each time:
+                World world = WorldHandler.getInstance().getWorld();
+                HeadlessRuntime.actCycle(world);
+                if (renderer != null)
+                {
+                    world = WorldHandler.getInstance().getWorld();
+                    int width = WorldVisitor.getWidthInPixels(world);
+                    int height = WorldVisitor.getHeightInPixels(world);
+                    if (image == null || image.getWidth() != width || image.getHeight() != height)
+                    {
+                        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+                    }
+                    renderer.renderWorld(world, image);
+                }
+            }
+            return cycles;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import greenfoot.collision.ColManager;
+import greenfoot.collision.CollisionChecker;
+import greenfoot.collision.GridCollisionChecker;
+import greenfoot.collision.ibsp.IBSPColChecker;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic worlds for the Greenfoot runtime benchmarks, each typical of a kind of
+ * scenario:
+ * <ul>
+ *   <li>"particles": 10,000 small particles moving in straight lines, bouncing off
+ *       the edges of the world and off each other.</li>
+ *   <li>"tiles": a 100x100 tile map of floor and walls, with 500 walkers which move
+ *       from cell to cell and turn when there is a wall ahead.</li>
+ *   <li>"flock": 1,000 boids, each steering according to the others in range.</li>
+ * </ul>
+ * The worlds are made with a fixed random seed, so that they are the same for each run.
+ * {@link HeadlessRuntime#initialise} must have been called first.
+ */
+public class SyntheticWorlds
+{
+    public static final String PARTICLES = "particles";
+    public static final String TILES = "tiles";
+    public static final String FLOCK = "flock";
+
+    /**
+     * Create a new instance of the collision checker class with the given (unqualified) name.
+     */
+    public static CollisionChecker newCollisionChecker(String name)
+    {
+        switch (name)
+        {
+            case "ColManager": return new ColManager();
+            case "GridCollisionChecker": return new GridCollisionChecker();
+            case "IBSPColChecker": return new IBSPColChecker();
+            default: throw new IllegalArgumentException("Unknown collision checker: " + name);
+        }
+    }
+
+    /**
+     * Create one of the synthetic worlds, using the default collision checker,
+     * and make it the current world.
+     *
+     * @param kind  One of PARTICLES, TILES or FLOCK.
+     */
+    public static World create(String kind)
+    {
+        return create(kind, null);
+    }
+
+    /**
+     * Create one of the synthetic worlds, and make it the current world.
+     *
+     * @param kind  One of PARTICLES, TILES or FLOCK.
+     * @param checker  The collision checker for the world to use, or null for the default.
+     */
+    public static World create(String kind, CollisionChecker checker)
+    {
+        Random random = new Random(42);
+        World world;
+        switch (kind)
+        {
+            case PARTICLES:
+                world = new EmptyWorld(1000, 1000, 1, checker);
+                GreenfootImage particleImage = filledImage(4, 4, Color.RED);
+                for (int i = 0; i < 10000; i++)
+                {
+                    world.addObject(new Particle(particleImage, random), random.nextInt(1000), random.nextInt(1000));
+                }
+                break;
+            case TILES:
+                world = new EmptyWorld(100, 100, 16, checker);
+                GreenfootImage floorImage = filledImage(16, 16, Color.LIGHT_GRAY);
+                GreenfootImage wallImage = filledImage(16, 16, Color.DARK_GRAY);
+                boolean[][] walls = new boolean[100][100];
+                for (int x = 0; x < 100; x++)
+                {
+                    for (int y = 0; y < 100; y++)
+                    {
+                        walls[x][y] = x == 0 || y == 0 || x == 99 || y == 99 || random.nextInt(8) == 0;
+                        world.addObject(walls[x][y] ? new Wall(wallImage) : new Floor(floorImage), x, y);
+                    }
+                }
+                GreenfootImage walkerImage = filledImage(12, 12, Color.BLUE);
+                for (int i = 0; i < 500; i++)
+                {
+                    int x, y;
+                    do
+                    {
+                        x = random.nextInt(100);
+                        y = random.nextInt(100);
+                    }
+                    while (walls[x][y]);
+                    world.addObject(new Walker(walkerImage, random), x, y);
+                }
+                world.setPaintOrder(Walker.class);
+                break;
+            case FLOCK:
+                world = new EmptyWorld(800, 600, 1, checker);
+                GreenfootImage boidImage = filledImage(10, 5, Color.BLACK);
+                for (int i = 0; i < 1000; i++)
+                {
+                    Boid boid = new Boid(boidImage);
+                    boid.setRotation(random.nextInt(360));
+                    world.addObject(boid, random.nextInt(800), random.nextInt(600));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown world: " + kind);
+        }
+        HeadlessRuntime.setWorld(world);
+        return world;
+    }
+
+    private static GreenfootImage filledImage(int width, int height, Color color)
+    {
+        GreenfootImage image = new GreenfootImage(width, height);
+        image.setColor(color);
+        image.fill();
+        return image;
+    }
+
+    /**
+     * A world with no background image and nothing in it to begin with.
+     */
+    private static class EmptyWorld extends World
+    {
+        EmptyWorld(int width, int height, int cellSize, CollisionChecker checker)
+        {
+            super(width, height, cellSize);
+            if (checker != null)
+            {
+                setCollisionChecker(checker);
+            }
+        }
+    }
+
+    /**
+     * Moves in a straight line, bouncing off the edges of the world and off other particles.
+     */
+    private static class Particle extends Actor
+    {
+        private int dx;
+        private int dy;
+
+        Particle(GreenfootImage image, Random random)
+        {
+            setImage(image);
+            dx = random.nextInt(7) - 3;
+            dy = random.nextInt(7) - 3;
+        }
+
+        @Override
+        public void act()
+        {
+            int x = getX() + dx;
+            int y = getY() + dy;
+            if (x < 0 || x >= getWorld().getWidth())
+            {
+                dx = -dx;
+            }
+            if (y < 0 || y >= getWorld().getHeight())
+            {
+                dy = -dy;
+            }
+            setLocation(x, y);
+            if (getOneIntersectingObject(Particle.class) != null)
+            {
+                dx = -dx;
+                dy = -dy;
+            }
+        }
+    }
+
+    private static class Floor extends Actor
+    {
+        Floor(GreenfootImage image)
+        {
+            setImage(image);
+        }
+    }
+
+    private static class Wall extends Actor
+    {
+        Wall(GreenfootImage image)
+        {
+            setImage(image);
+        }
+    }
+
+    /**
+     * Moves one cell at a time in one of the four directions, turning when there
+     * is a wall ahead.
+     */
+    private static class Walker extends Actor
+    {
+        private final Random random;
+
+        Walker(GreenfootImage image, Random random)
+        {
+            setImage(image);
+            this.random = random;
+            setRotation(90 * random.nextInt(4));
+        }
+
+        @Override
+        public void act()
+        {
+            int dx = getRotation() == 0 ? 1 : getRotation() == 180 ? -1 : 0;
+            int dy = getRotation() == 90 ? 1 : getRotation() == 270 ? -1 : 0;
+            if (getOneObjectAtOffset(dx, dy, Wall.class) != null)
+            {
+                setRotation(90 * random.nextInt(4));
+            }
+            else
+            {
+                setLocation(getX() + dx, getY() + dy);
+            }
+        }
+    }
+
+    /**
+     * Steers towards the centre of the nearby boids, and then moves forward,
+     * jumping across the world when it reaches an edge.
+     */
+    private static class Boid extends Actor
+    {
+        Boid(GreenfootImage image)
+        {
+            setImage(image);
+        }
+
+        @Override
+        public void act()
+        {
+            List<Boid> neighbours = getObjectsInRange(40, Boid.class);
+            if (!neighbours.isEmpty())
+            {
+                int sumX = 0;
+                int sumY = 0;
+                for (Boid neighbour : neighbours)
+                {
+                    sumX += neighbour.getX();
+                    sumY += neighbour.getY();
+                }
+                int centreX = sumX / neighbours.size();
+                int centreY = sumY / neighbours.size();
+                if (centreX != getX() || centreY != getY())
+                {
+                    // Turn a little towards the centre, or away from it if crowded:
+                    int rotation = getRotation();
+                    turnTowards(centreX, centreY);
+                    int target = getRotation() + (neighbours.size() > 6 ? 180 : 0);
+                    int difference = ((target - rotation) % 360 + 540) % 360 - 180;
+                    setRotation(rotation + Integer.signum(difference) * 5);
+                }
+            }
+            move(3);
+            int width = getWorld().getWidth();
+            int height = getWorld().getHeight();
+            if (isAtEdge())
+            {
+                setLocation((getX() + width / 2) % width, (getY() + height / 2) % height);
+            }
+        }
+    }
+}
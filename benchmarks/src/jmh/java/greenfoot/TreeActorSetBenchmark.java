@@ -0,0 +1,127 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the TreeActorSet operations done by the world: iterating over the set (for
+ * painting), copying it to a list (at the start of each act cycle) and removing and
+ * re-adding actors.  The actors are of three classes, and the set either has no class
+ * order, or an order given for two of the classes (as after setPaintOrder or setActOrder).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeActorSetBenchmark
+{
+    @Param({"100", "10000"})
+    public int actors;
+
+    @Param({"false", "true"})
+    public boolean classOrder;
+
+    private TreeActorSet set;
+    private final List<Actor> churn = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        HeadlessRuntime.initialise(null);
+        set = new TreeActorSet();
+        if (classOrder)
+        {
+            set.setClassOrder(true, Player.class, Enemy.class);
+        }
+        churn.clear();
+        for (int i = 0; i < actors; i++)
+        {
+            Actor actor = i % 10 == 0 ? new Player() : i % 3 == 0 ? new Enemy() : new Scenery();
+            set.add(actor);
+            if (i % 100 == 0)
+            {
+                churn.add(actor);
+            }
+        }
+    }
+
+    @Benchmark
+    public int iterate()
+    {
+        int total = 0;
+        for (Actor actor : set)
+        {
+            total += ActorVisitor.getSequenceNumber(actor);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public List<Actor> copy()
+    {
+        return new ArrayList<>(set);
+    }
+
+    @Benchmark
+    public TreeActorSet removeAndAdd()
+    {
+        for (Actor actor : churn)
+        {
+            set.remove(actor);
+        }
+        for (Actor actor : churn)
+        {
+            set.add(actor);
+        }
+        return set;
+    }
+
+    private static class Player extends Actor
+    {
+    }
+
+    private static class Enemy extends Actor
+    {
+    }
+
+    private static class Scenery extends Actor
+    {
+    }
+}
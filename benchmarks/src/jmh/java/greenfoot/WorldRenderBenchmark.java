@@ -0,0 +1,87 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import greenfoot.gui.WorldRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures painting each of the synthetic worlds into an image, as is done for every
+ * frame: once with nothing moving between frames (so that after the first few frames,
+ * the static layer holds all the actors), and once after an act cycle each time, as
+ * when the scenario is running.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldRenderBenchmark
+{
+    @Param({SyntheticWorlds.PARTICLES, SyntheticWorlds.TILES, SyntheticWorlds.FLOCK})
+    public String world;
+
+    private World theWorld;
+    private WorldRenderer renderer;
+    private BufferedImage image;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        HeadlessRuntime.initialise(null);
+        theWorld = SyntheticWorlds.create(world);
+        renderer = new WorldRenderer();
+        // As in the standalone viewer:
+        image = new BufferedImage(WorldVisitor.getWidthInPixels(theWorld), WorldVisitor.getHeightInPixels(theWorld),
+                BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    @Benchmark
+    public BufferedImage render()
+    {
+        renderer.renderWorld(theWorld, image);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage actAndRender()
+    {
+        HeadlessRuntime.actCycle(theWorld);
+        renderer.renderWorld(theWorld, image);
+        return image;
+    }
+}
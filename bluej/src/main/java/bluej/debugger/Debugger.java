@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -175,6 +175,29 @@ public abstract class Debugger
      */
     public abstract Map<String,DebuggerObject> getObjects();
 
+    /**
+     * Start sampling the stacks of the running user threads, discarding any
+     * previous profile. Profiling stops if the VM is restarted.
+     */
+    @OnThread(Tag.Any)
+    public abstract void startProfiling();
+
+    /**
+     * Stop sampling. The profile collected so far remains available.
+     */
+    @OnThread(Tag.Any)
+    public abstract void stopProfiling();
+
+    /**
+     * Get the samples collected by the profiler since they were last fetched
+     * (or since profiling was started), to add to a Profile.
+     * 
+     * @return  the update, or null if profiling has not been started on the
+     *          current VM (or there is no VM).
+     */
+    @OnThread(Tag.Any)
+    public abstract Profile.Update getProfileUpdate();
+
     /**
      * Guess a suitable name for an object about to be put on the object bench.
      * 
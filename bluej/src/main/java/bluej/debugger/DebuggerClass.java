@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2011,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,7 @@
  */
 package bluej.debugger;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -49,6 +50,20 @@ public abstract class DebuggerClass
     {
         return getStaticFields().get(slot);
     }
+
+    /**
+     * Get string representations (as per DebuggerField.getValueString) of the values of all
+     * static fields, in the same order as getStaticFields().  Implementations should fetch
+     * the values in as few round trips to the remote VM as possible.
+     */
+    public List<String> getStaticFieldValueStrings()
+    {
+        List<String> values = new ArrayList<>();
+        for (DebuggerField field : getStaticFields()) {
+            values.add(field.getValueString());
+        }
+        return values;
+    }
     
     /**
      * Returns true if this represents a Java interface
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2013,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,6 +22,7 @@
 package bluej.debugger;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 
 import bluej.debugger.gentype.GenTypeClass;
@@ -128,6 +129,36 @@ public abstract class DebuggerObject
      */
     public abstract String getElementValueString(int index);
 
+    /**
+     * Return string representations (as per getElementValueString) of the array elements
+     * at the given indexes, in the same order.  Implementations should fetch the values in
+     * as few round trips to the remote VM as possible; this may be called from any thread.
+     */
+    @OnThread(Tag.Any)
+    public List<String> getElementValueStrings(List<Integer> indexes)
+    {
+        List<String> values = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            values.add(getElementValueString(index));
+        }
+        return values;
+    }
+
+    /**
+     * Return string representations (as per DebuggerField.getValueString) of the values of
+     * the given fields of this object, in the same order.  Implementations should fetch the
+     * values in as few round trips to the remote VM as possible; this may be called from any thread.
+     */
+    @OnThread(Tag.Any)
+    public List<String> getFieldValueStrings(List<DebuggerField> fields)
+    {
+        List<String> values = new ArrayList<>(fields.size());
+        for (DebuggerField field : fields) {
+            values.add(field.getValueString());
+        }
+        return values;
+    }
+
     /**
      * Return the JDI object. This exposes the JDI to Inspectors.
      * If JDI is not being used, it should return null.
@@ -0,0 +1,431 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A CPU profile of the user's program, built from the stack samples taken by the
+ * profiler in the debug VM (bluej.runtime.Profiler). The samples are arranged into a
+ * call tree, with one node per method for each path by which it was called, and are
+ * also counted per method and per source line.
+ *
+ * <p>The profiler sends the samples taken since it was last asked (see {@link Update}),
+ * and these are added to the profile with {@link #addUpdate(Update)}.
+ *
+ * <p>All counts are numbers of thread samples: if two threads were running when a
+ * sample was taken, both are counted.
+ */
+@OnThread(Tag.Any)
+public final class Profile
+{
+    private int sampleRounds;
+    private long samplingNanos;
+    private long elapsedNanos;
+    // The number of the next update we expect, and the frames from all updates so far:
+    private int nextUpdate;
+    private final Map<Integer, Frame> frames = new HashMap<>();
+    private final Node root = new Node("", "");
+    private final Map<String, MethodStats> methods = new HashMap<>();
+    // Outermost class name -> (line -> count)
+    private final Map<String, Map<Integer, Integer>> lineSamples = new HashMap<>();
+
+    /**
+     * Create an empty profile.
+     */
+    public Profile()
+    {
+    }
+
+    /**
+     * Build a profile from the first text produced by bluej.runtime.Profiler.getSnapshot().
+     * Malformed lines are ignored.
+     */
+    public static Profile parse(String snapshot)
+    {
+        Profile profile = new Profile();
+        profile.addUpdate(Update.parse(snapshot));
+        return profile;
+    }
+
+    /**
+     * Add the samples from an update to this profile. Updates must be added in the
+     * order that the profiler produced them, starting from the first.
+     *
+     * @return  true if the update was added; false (leaving the profile unchanged) if
+     *          it is not the next update, e.g. because profiling was started again.
+     */
+    public boolean addUpdate(Update update)
+    {
+        if (update.number != nextUpdate) {
+            return false;
+        }
+        nextUpdate++;
+        sampleRounds = update.sampleRounds;
+        samplingNanos = update.samplingNanos;
+        elapsedNanos = update.elapsedNanos;
+        frames.putAll(update.frames);
+        for (Map.Entry<int[], Integer> entry : update.stacks.entrySet()) {
+            List<Frame> stack = new ArrayList<>(entry.getKey().length);
+            for (int id : entry.getKey()) {
+                Frame frame = frames.get(id);
+                if (frame == null) {
+                    // Malformed; ignore the stack rather than mis-attribute it:
+                    stack = null;
+                    break;
+                }
+                stack.add(frame);
+            }
+            if (stack != null) {
+                addStack(stack, entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    private void addStack(List<Frame> stack, int count)
+    {
+        if (stack.isEmpty()) {
+            return;
+        }
+
+        Node node = root;
+        root.total += count;
+        Set<String> methodsSeen = new HashSet<>();
+        Set<Frame> linesSeen = new HashSet<>();
+        for (Frame frame : stack) {
+            node = node.children.computeIfAbsent(frame.className + "." + frame.methodName,
+                    k -> new Node(frame.className, frame.methodName));
+            node.total += count;
+            node.lineCounts.merge(frame.line, count, Integer::sum);
+
+            // Recursive calls are only counted once per stack towards the totals:
+            String methodKey = frame.className + "." + frame.methodName;
+            MethodStats stats = methods.computeIfAbsent(methodKey,
+                    k -> new MethodStats(frame.className, frame.methodName));
+            if (methodsSeen.add(methodKey)) {
+                stats.total += count;
+            }
+            // Likewise lines, for the per-line counts:
+            if (linesSeen.add(frame)) {
+                stats.lineCounts.merge(frame.line, count, Integer::sum);
+                if (frame.line > 0) {
+                    lineSamples.computeIfAbsent(getSourceClassName(frame.className), k -> new HashMap<>())
+                            .merge(frame.line, count, Integer::sum);
+                }
+            }
+        }
+        node.self += count;
+        Frame top = stack.get(stack.size() - 1);
+        methods.get(top.className + "." + top.methodName).self += count;
+    }
+
+    /**
+     * Get the name of the class whose source contains the given class: the outermost
+     * class, if it is a nested class.
+     */
+    public static String getSourceClassName(String className)
+    {
+        int dollar = className.indexOf('$');
+        return dollar == -1 ? className : className.substring(0, dollar);
+    }
+
+    /**
+     * Get the root of the call tree. The root itself does not represent a method;
+     * its children are the outermost methods of the user threads.
+     */
+    public Node getCallTree()
+    {
+        return root;
+    }
+
+    /**
+     * The total number of thread samples in the profile.
+     */
+    public int getTotalSamples()
+    {
+        return root.total;
+    }
+
+    /**
+     * The number of times the profiler sampled the threads.
+     */
+    public int getSampleRounds()
+    {
+        return sampleRounds;
+    }
+
+    /**
+     * The fraction of the elapsed time which the profiler spent taking samples.
+     */
+    public double getOverhead()
+    {
+        return elapsedNanos == 0 ? 0 : (double)samplingNanos / elapsedNanos;
+    }
+
+    /**
+     * The time elapsed since profiling started, in nanoseconds.
+     */
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get the statistics for each method which appeared in the samples,
+     * those with most time in the method itself first.
+     */
+    public List<MethodStats> getMethods()
+    {
+        List<MethodStats> result = new ArrayList<>(methods.values());
+        result.sort(Comparator.comparingInt((MethodStats m) -> m.self).thenComparingInt(m -> m.total).reversed());
+        return result;
+    }
+
+    /**
+     * Get the names of the (outermost) classes with line information in the profile.
+     */
+    public Set<String> getClassesWithLines()
+    {
+        return Collections.unmodifiableSet(lineSamples.keySet());
+    }
+
+    /**
+     * Get, for each line of the source of the given (outermost) class, the number of
+     * samples in which the line was being executed, including the time in any methods
+     * called from it.
+     * 
+     * @return a map from line number to sample count; empty if the class was not seen.
+     */
+    public Map<Integer, Integer> getLineSamples(String className)
+    {
+        return Collections.unmodifiableMap(lineSamples.getOrDefault(className, Collections.emptyMap()));
+    }
+
+    /**
+     * The samples taken by the profiler since it was last asked for them, parsed
+     * from the text produced by bluej.runtime.Profiler.getSnapshot().
+     */
+    @OnThread(Tag.Any)
+    public static final class Update
+    {
+        private final int number;
+        private final int sampleRounds;
+        private final long samplingNanos;
+        private final long elapsedNanos;
+        private final Map<Integer, Frame> frames = new HashMap<>();
+        // The frame ids of each stack (outermost first), and its count:
+        private final Map<int[], Integer> stacks = new LinkedHashMap<>();
+
+        private Update(int number, int sampleRounds, long samplingNanos, long elapsedNanos)
+        {
+            this.number = number;
+            this.sampleRounds = sampleRounds;
+            this.samplingNanos = samplingNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Parse the text produced by bluej.runtime.Profiler.getSnapshot().
+         * Malformed lines are ignored.
+         */
+        public static Update parse(String snapshot)
+        {
+            String[] lines = snapshot.split("\n");
+            Update update = null;
+            for (String line : lines) {
+                String[] fields = line.split("\t");
+                try {
+                    if (fields[0].equals("P") && fields.length == 5) {
+                        update = new Update(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                                Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+                    }
+                    else if (fields[0].equals("F") && fields.length == 5 && update != null) {
+                        update.frames.put(Integer.parseInt(fields[1]),
+                                new Frame(fields[2], fields[3], Integer.parseInt(fields[4])));
+                    }
+                    else if (fields[0].equals("S") && fields.length == 3 && update != null) {
+                        String[] ids = fields[2].split(",");
+                        int[] stack = new int[ids.length];
+                        for (int i = 0; i < ids.length; i++) {
+                            stack[i] = Integer.parseInt(ids[i]);
+                        }
+                        update.stacks.put(stack, Integer.parseInt(fields[1]));
+                    }
+                }
+                catch (NumberFormatException nfe) {
+                    // Ignore the line
+                }
+            }
+            return update == null ? new Update(-1, 0, 0, 0) : update;
+        }
+    }
+
+    /**
+     * One frame of a sampled stack.
+     */
+    private static final class Frame
+    {
+        private final String className;
+        private final String methodName;
+        private final int line;
+
+        private Frame(String className, String methodName, int line)
+        {
+            this.className = className;
+            this.methodName = methodName;
+            this.line = line;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Frame)) {
+                return false;
+            }
+            Frame f = (Frame) o;
+            return line == f.line && className.equals(f.className) && methodName.equals(f.methodName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (className.hashCode() * 31 + methodName.hashCode()) * 31 + line;
+        }
+    }
+
+    /**
+     * A method, and the samples in which it appeared.
+     */
+    @OnThread(Tag.Any)
+    public static abstract class MethodSamples
+    {
+        private final String className;
+        private final String methodName;
+        int total;
+        int self;
+        final Map<Integer, Integer> lineCounts = new HashMap<>();
+
+        MethodSamples(String className, String methodName)
+        {
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        public String getClassName()
+        {
+            return className;
+        }
+
+        public String getMethodName()
+        {
+            return methodName;
+        }
+
+        /**
+         * A name for display: the class name without its package, and the method name.
+         */
+        public String getDisplayName()
+        {
+            return className.substring(className.lastIndexOf('.') + 1) + "." + methodName;
+        }
+
+        /**
+         * The number of samples in which the method was running, including time in the methods it called.
+         */
+        public int getTotal()
+        {
+            return total;
+        }
+
+        /**
+         * The number of samples in which the method itself was running (it was at the top of the stack).
+         */
+        public int getSelf()
+        {
+            return self;
+        }
+
+        /**
+         * Get the line of the method which was executing in most samples, or -1 if not known.
+         */
+        public int getHottestLine()
+        {
+            int best = -1;
+            int bestCount = 0;
+            for (Map.Entry<Integer, Integer> entry : lineCounts.entrySet()) {
+                if (entry.getKey() > 0 && entry.getValue() > bestCount) {
+                    best = entry.getKey();
+                    bestCount = entry.getValue();
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * The samples for a method, over all the paths by which it was called.
+     */
+    @OnThread(Tag.Any)
+    public static final class MethodStats extends MethodSamples
+    {
+        private MethodStats(String className, String methodName)
+        {
+            super(className, methodName);
+        }
+    }
+
+    /**
+     * A node in the call tree: a method, when called via the path from the root to this node.
+     */
+    @OnThread(Tag.Any)
+    public static final class Node extends MethodSamples
+    {
+        private final Map<String, Node> children = new LinkedHashMap<>();
+
+        private Node(String className, String methodName)
+        {
+            super(className, methodName);
+        }
+
+        /**
+         * Get the methods called from this one, most samples first.
+         */
+        public List<Node> getChildren()
+        {
+            List<Node> result = new ArrayList<>(children.values());
+            result.sort(Comparator.comparingInt((Node n) -> n.total).reversed());
+            return result;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2000-2009,2010,2011,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 2000-2009,2010,2011,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,9 @@
  */
 package bluej.debugger.jdi;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import bluej.debugger.DebuggerObject;
 import bluej.debugger.gentype.GenTypeArray;
 import bluej.debugger.gentype.GenTypeArrayClass;
@@ -184,6 +187,29 @@ public class JdiArray extends JdiObject
         return JdiUtils.getJdiUtils().getValueString(val);
     }
 
+    /**
+     * Fetch the requested elements with one request to the remote VM for each run of
+     * consecutive indexes, rather than one request per element.
+     */
+    @Override
+    @OnThread(Tag.Any)
+    public List<String> getElementValueStrings(List<Integer> indexes)
+    {
+        ArrayReference array = (ArrayReference) obj;
+        List<Value> values = new ArrayList<>(indexes.size());
+        int i = 0;
+        while (i < indexes.size()) {
+            int start = indexes.get(i);
+            int end = i + 1;
+            while (end < indexes.size() && indexes.get(end) == start + (end - i)) {
+                end++;
+            }
+            values.addAll(array.getValues(start, end - i));
+            i = end;
+        }
+        return valueStrings.toStrings(values);
+    }
+
     /*
      * Return the object in object field 'slot'.
      *
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2011,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,6 +23,7 @@ package bluej.debugger.jdi;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import bluej.debugger.DebuggerClass;
 import bluej.debugger.DebuggerField;
@@ -32,6 +33,7 @@ import com.sun.jdi.ClassType;
 import com.sun.jdi.Field;
 import com.sun.jdi.InterfaceType;
 import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
 
 /**
  * Represents an class running on the user (remote) machine.
@@ -43,6 +45,7 @@ public class JdiClass extends DebuggerClass
 {
     ReferenceType remoteClass;  // the remote class represented
     List<Field> staticFields;
+    private final JdiValueStrings valueStrings = new JdiValueStrings();
 
     // -- instance methods --
 
@@ -80,6 +83,21 @@ public class JdiClass extends DebuggerClass
         return rlist;
     }
 
+    /**
+     * Fetch the values of all static fields with a single request to the remote VM,
+     * rather than one request per field.
+     */
+    @Override
+    public List<String> getStaticFieldValueStrings()
+    {
+        Map<Field, Value> values = remoteClass.getValues(staticFields);
+        List<Value> orderedValues = new ArrayList<>(staticFields.size());
+        for (Field field : staticFields) {
+            orderedValues.add(values.get(field));
+        }
+        return valueStrings.toStrings(orderedValues);
+    }
+
     /*
      * Returns true if this represents a Java interface
      */
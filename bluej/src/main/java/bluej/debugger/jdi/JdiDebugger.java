@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2014,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2014,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -427,6 +427,35 @@ public class JdiDebugger extends Debugger
         }
     }
 
+    @Override
+    @OnThread(Tag.Any)
+    public void startProfiling()
+    {
+        VMReference vmr = getVMNoWait();
+        if (vmr != null) {
+            vmr.startProfiling();
+        }
+    }
+
+    @Override
+    @OnThread(Tag.Any)
+    public void stopProfiling()
+    {
+        VMReference vmr = getVMNoWait();
+        if (vmr != null) {
+            vmr.stopProfiling();
+        }
+    }
+
+    @Override
+    @OnThread(Tag.Any)
+    public Profile.Update getProfileUpdate()
+    {
+        VMReference vmr = getVMNoWait();
+        String snapshot = vmr == null ? null : vmr.getProfile();
+        return snapshot == null ? null : Profile.Update.parse(snapshot);
+    }
+
     /**
      * Return the debugger objects that exist in the debugger.
      * 
@@ -617,37 +646,12 @@ public class JdiDebugger extends Debugger
                 while (i < arrayRef.length())
                 {
                     
-                    String actualMethodName = ((StringReference) arrayRef.getValue(i)).value();
-                    String displayTestName = ((StringReference) arrayRef.getValue(i + 1)).value();
-                    String failureType = ((StringReference) arrayRef.getValue(i + 8)).value();
-                    
-                    if (failureType.equals("success"))
+                    String[] details = new String[9];
+                    for (int j = 0; j < details.length; j++)
                     {
-                        results.add(new JdiTestResult(className, actualMethodName, displayTestName, 0));
-                        
-                    }
-                    else
-                    {
-                        String exMsg = ((StringReference) arrayRef.getValue(i + 2)).value();
-                        String traceMsg = ((StringReference) arrayRef.getValue(i + 3)).value();
-                        String failureClass = ((StringReference) arrayRef.getValue(i + 4)).value();
-                        String failureSource = ((StringReference) arrayRef.getValue(i + 5)).value();
-                        String failureMethod = ((StringReference) arrayRef.getValue(i + 6)).value();
-                        int lineNo = Integer.parseInt(((StringReference) arrayRef.getValue(i + 7)).value());
-                        SourceLocation failPoint = new SourceLocation(failureClass, failureSource,
-                                failureMethod, lineNo);
-
-                        if (failureType.equals("failure"))
-                        {
-                            results.add(new JdiTestResultFailure(className, actualMethodName, displayTestName, exMsg, traceMsg,
-                                    failPoint, 0));
-                        }
-                        else
-                        {
-                            results.add(new JdiTestResultError(className, actualMethodName, displayTestName, exMsg, traceMsg,
-                                    failPoint, 0));
-                        }
+                        details[j] = ((StringReference) arrayRef.getValue(i + j)).value();
                     }
+                    results.add(JdiTestResult.fromDetails(className, details));
 
                     i = i + 9;
                 }
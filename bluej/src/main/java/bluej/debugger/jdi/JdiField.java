@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2011,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 2011,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -121,6 +121,15 @@ public class JdiField extends DebuggerField
         return null;
     }
 
+    /**
+     * Get the underlying JDI field.
+     */
+    @OnThread(Tag.Any)
+    Field getJdiField()
+    {
+        return field;
+    }
+
     @Override
     public DebuggerClass getDeclaringClass()
     {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,6 +23,7 @@ package bluej.debugger.jdi;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import bluej.debugger.DebuggerClass;
@@ -36,6 +37,7 @@ import com.sun.jdi.ArrayReference;
 import com.sun.jdi.Field;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -111,6 +113,8 @@ public class JdiObject extends DebuggerObject
     GenTypeClass genType = null; // the generic type, if known
     @OnThread(Tag.Any)
     private final List<Field> fields = new ArrayList<>();
+    @OnThread(Tag.Any)
+    protected final JdiValueStrings valueStrings = new JdiValueStrings();
     
     // used by JdiArray.
     protected JdiObject()
@@ -276,6 +280,26 @@ public class JdiObject extends DebuggerObject
         return rlist;
     }
 
+    /**
+     * Fetch the values of all the given fields with a single request to the remote VM,
+     * rather than one request per field.
+     */
+    @Override
+    @OnThread(Tag.Any)
+    public List<String> getFieldValueStrings(List<DebuggerField> fields)
+    {
+        List<Field> jdiFields = new ArrayList<>(fields.size());
+        for (DebuggerField field : fields) {
+            jdiFields.add(((JdiField) field).getJdiField());
+        }
+        Map<Field, Value> values = obj.getValues(jdiFields);
+        List<Value> orderedValues = new ArrayList<>(jdiFields.size());
+        for (Field field : jdiFields) {
+            orderedValues.add(values.get(field));
+        }
+        return valueStrings.toStrings(orderedValues);
+    }
+
     @OnThread(Tag.Any)
     private static boolean checkIgnoreField(Field f)
     {
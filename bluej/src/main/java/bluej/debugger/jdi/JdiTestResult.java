@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2019  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2011,2012,2019,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -57,6 +57,47 @@ public class JdiTestResult extends DebuggerTestResult
         this.traceMsg = null;
     }
 
+    /**
+     * Create a test result from the details of a single test, as produced by
+     * ExecServer.runTestMethod: method name, display name, exception message, stack trace,
+     * failure class, source file, method and line number, and finally "success",
+     * "failure" or "error".
+     * 
+     * @param className  the name of the test class
+     * @param details    the nine detail strings
+     */
+    public static JdiTestResult fromDetails(String className, String[] details)
+    {
+        String actualMethodName = details[0];
+        String displayTestName = details[1];
+        String failureType = details[8];
+
+        if (failureType.equals("success"))
+        {
+            return new JdiTestResult(className, actualMethodName, displayTestName, 0);
+        }
+
+        String exMsg = details[2];
+        String traceMsg = details[3];
+        String failureClass = details[4];
+        String failureSource = details[5];
+        String failureMethod = details[6];
+        int lineNo = Integer.parseInt(details[7]);
+        SourceLocation failPoint = new SourceLocation(failureClass, failureSource,
+                failureMethod, lineNo);
+
+        if (failureType.equals("failure"))
+        {
+            return new JdiTestResultFailure(className, actualMethodName, displayTestName, exMsg, traceMsg,
+                    failPoint, 0);
+        }
+        else
+        {
+            return new JdiTestResultError(className, actualMethodName, displayTestName, exMsg, traceMsg,
+                    failPoint, 0);
+        }
+    }
+
     public String getQualifiedClassName()
     {
         return className;
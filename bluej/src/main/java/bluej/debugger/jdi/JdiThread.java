@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2018,2019,2020,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2018,2019,2020,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -27,6 +27,7 @@ import java.util.function.Supplier;
 import bluej.Config;
 import bluej.debugger.*;
 import bluej.debugger.gentype.JavaType;
+import bluej.runtime.Profiler;
 import bluej.utility.Debug;
 
 import bluej.utility.javafx.FXPlatformSupplier;
@@ -285,6 +286,7 @@ class JdiThread extends DebuggerThread
             if (name.startsWith("AWT-") ||
                     name.equals("DestroyJavaVM") ||
                     name.equals("BlueJ worker thread") ||
+                    name.equals(Profiler.THREAD_NAME) ||
                     name.equals("Timer Queue") ||
                     name.equals("Screen Updater") ||
                     name.startsWith("SunToolkit.") ||
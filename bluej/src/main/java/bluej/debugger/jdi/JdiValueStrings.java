@@ -0,0 +1,82 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger.jdi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bluej.debugger.DebuggerObject;
+
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.Value;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Converts values fetched in bulk from the remote VM into their string representations
+ * (see JdiUtils.getValueString), remembering the representation of immutable values
+ * (strings and enum constants) between successive conversions.
+ *
+ * <p>Fetching the content of a string or the name of an enum constant costs a round trip
+ * to the remote VM for each value.  An inspector which refreshes periodically will
+ * usually see the same string objects again, so it need only pay that cost when a field
+ * is assigned a different object.  Entries for objects which are not seen again in the
+ * next conversion are discarded, so the cache stays the size of the inspected object.
+ */
+@OnThread(Tag.Any)
+class JdiValueStrings
+{
+    private Map<ObjectReference, String> previous = new HashMap<>();
+
+    /**
+     * Get the string representations of the given values, in the same order.
+     */
+    public synchronized List<String> toStrings(List<? extends Value> values)
+    {
+        JdiUtils jdiUtils = JdiUtils.getJdiUtils();
+        Map<ObjectReference, String> current = new HashMap<>();
+        List<String> result = new ArrayList<>(values.size());
+        for (Value value : values) {
+            if (value instanceof ObjectReference) {
+                ObjectReference ref = (ObjectReference) value;
+                String valueString = current.get(ref);
+                if (valueString == null) {
+                    valueString = previous.get(ref);
+                }
+                if (valueString == null) {
+                    valueString = jdiUtils.getValueString(value);
+                }
+                if (! DebuggerObject.OBJECT_REFERENCE.equals(valueString)) {
+                    current.put(ref, valueString);
+                }
+                result.add(valueString);
+            }
+            else {
+                result.add(jdiUtils.getValueString(value));
+            }
+        }
+        previous = current;
+        return result;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -1964,6 +1964,63 @@ public class VMReference
         }
     }
 
+    /**
+     * Start the sampling profiler on the debug VM (see bluej.runtime.Profiler),
+     * discarding any previous profile.
+     */
+    void startProfiling()
+    {
+        runProfilerAction(ExecServer.START_PROFILER);
+    }
+
+    /**
+     * Stop the sampling profiler on the debug VM. The profile so far can still be retrieved.
+     */
+    void stopProfiling()
+    {
+        runProfilerAction(ExecServer.STOP_PROFILER);
+    }
+
+    private void runProfilerAction(int action)
+    {
+        synchronized(workerThread) {
+            try {
+                workerThreadReadyWait();
+                setStaticFieldValue(serverClass, ExecServer.WORKER_ACTION_NAME, machine.mirrorOf(action));
+                workerThreadReady = false;
+                workerThread.resume();
+            }
+            catch(VMDisconnectedException vmde) { }
+        }
+    }
+
+    /**
+     * Get the samples since the last call from the debug VM, in the form described by
+     * bluej.runtime.Profiler.getSnapshot(). Returns null if the profiler has not been
+     * started on this VM, or the VM has gone.
+     */
+    String getProfile()
+    {
+        synchronized(workerThread) {
+            try {
+                workerThreadReadyWait();
+                workerThreadReserved = true;
+                setStaticFieldValue(serverClass, ExecServer.WORKER_ACTION_NAME, machine.mirrorOf(ExecServer.GET_PROFILE));
+                workerThreadReady = false;
+                workerThread.resume();
+                workerThreadFinishWait();
+
+                StringReference profile = (StringReference) getStaticFieldObject(serverClass, ExecServer.WORKER_RETURN_NAME);
+                workerThreadReserved = false;
+                workerThread.notify();
+                return profile == null ? null : profile.value();
+            }
+            catch(VMDisconnectedException vmde) {
+                return null;
+            }
+        }
+    }
+
     /**
      * Check whether a thread is sitting on the server thread breakpoint. 
      */
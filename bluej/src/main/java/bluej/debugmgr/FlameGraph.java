@@ -0,0 +1,274 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bluej.Config;
+import bluej.debugger.Profile;
+import bluej.debugger.Profile.Node;
+import bluej.utility.javafx.FXPlatformConsumer;
+import bluej.utility.javafx.JavaFXUtil;
+import bluej.utility.javafx.ResizableCanvas;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A flame graph of a profile's call tree. Each method is drawn as a box, with the
+ * methods it called in a row beneath it (so the root is at the top), and the width
+ * of each box is proportional to the number of samples in which the method was running.
+ *
+ * Clicking a box zooms in, so that it takes the whole width; clicking the top box
+ * zooms back out.  Double-clicking a box passes its node to the given handler.
+ */
+@OnThread(Tag.FXPlatform)
+class FlameGraph extends Region
+{
+    private static final double ROW_HEIGHT = 18;
+    // Rough width of a character, for deciding how much of a label fits in a box:
+    private static final double CHAR_WIDTH = 7;
+
+    private final ResizableCanvas canvas;
+    private final Tooltip tooltip = new Tooltip();
+    private Profile profile;
+    private Node zoomRoot;
+    // The boxes drawn in the last repaint, for finding what is under the mouse:
+    private final List<Box> boxes = new ArrayList<>();
+
+    private static class Box
+    {
+        private final double x, y, width;
+        private final Node node;
+
+        private Box(double x, double y, double width, Node node)
+        {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.node = node;
+        }
+
+        private boolean contains(double px, double py)
+        {
+            return px >= x && px < x + width && py >= y && py < y + ROW_HEIGHT;
+        }
+    }
+
+    FlameGraph(FXPlatformConsumer<Node> onOpen)
+    {
+        canvas = new ResizableCanvas(this::repaint);
+        getChildren().add(canvas);
+        JavaFXUtil.addStyleClass(this, "profiler-flame-graph");
+        Tooltip.install(canvas, tooltip);
+
+        canvas.setOnMouseMoved(e -> {
+            Box box = boxAt(e.getX(), e.getY());
+            if (box == null)
+            {
+                tooltip.setText("");
+                return;
+            }
+            tooltip.setText(labelFor(box.node) + "\n" + Config.getString("profiler.flamegraph.tooltip")
+                    .replace("$", percent(box.node.getTotal())).replace("#", percent(box.node.getSelf())));
+        });
+        canvas.setOnMouseClicked(e -> {
+            Box box = boxAt(e.getX(), e.getY());
+            if (box == null)
+            {
+                return;
+            }
+            if (e.getClickCount() == 2)
+            {
+                if (box.node != profile.getCallTree())
+                {
+                    onOpen.accept(box.node);
+                }
+            }
+            else
+            {
+                zoomRoot = box.node == zoomRoot ? profile.getCallTree() : box.node;
+                requestLayout();
+                repaint();
+            }
+        });
+    }
+
+    /**
+     * Show a new profile.  If we were zoomed in to a method, we stay zoomed
+     * in if the method is in the same place in the new profile's call tree.
+     */
+    void setProfile(Profile newProfile)
+    {
+        Node newZoomRoot = newProfile.getCallTree();
+        if (profile != null && zoomRoot != profile.getCallTree())
+        {
+            Node found = findEquivalent(profile.getCallTree(), newZoomRoot);
+            if (found != null)
+            {
+                newZoomRoot = found;
+            }
+        }
+        profile = newProfile;
+        zoomRoot = newZoomRoot;
+        requestLayout();
+        repaint();
+    }
+
+    /**
+     * Find the node in newNode's tree which is reached by the same path as zoomRoot
+     * is from oldNode.  Returns null if there isn't one.
+     */
+    private Node findEquivalent(Node oldNode, Node newNode)
+    {
+        if (oldNode == zoomRoot)
+        {
+            return newNode;
+        }
+        for (Node oldChild : oldNode.getChildren())
+        {
+            for (Node newChild : newNode.getChildren())
+            {
+                if (newChild.getClassName().equals(oldChild.getClassName())
+                        && newChild.getMethodName().equals(oldChild.getMethodName()))
+                {
+                    Node found = findEquivalent(oldChild, newChild);
+                    if (found != null)
+                    {
+                        return found;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Box boxAt(double x, double y)
+    {
+        for (Box box : boxes)
+        {
+            if (box.contains(x, y))
+            {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    private String labelFor(Node node)
+    {
+        return node == profile.getCallTree() ? Config.getString("profiler.flamegraph.all") : node.getDisplayName();
+    }
+
+    private String percent(int samples)
+    {
+        int total = profile.getTotalSamples();
+        return String.format("%.1f", total == 0 ? 0.0 : samples * 100.0 / total);
+    }
+
+    private void repaint()
+    {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        boxes.clear();
+        if (profile == null || zoomRoot.getTotal() == 0)
+        {
+            return;
+        }
+        g.setFont(Font.font(11));
+        g.setTextBaseline(VPos.CENTER);
+        draw(g, zoomRoot, 0, canvas.getWidth(), 0, canvas.getWidth() / zoomRoot.getTotal());
+    }
+
+    private void draw(GraphicsContext g, Node node, double x, double width, int depth, double pixelsPerSample)
+    {
+        double y = depth * ROW_HEIGHT;
+        boxes.add(new Box(x, y, width, node));
+        g.setFill(colorFor(node));
+        g.fillRect(x, y, Math.max(width - 1, 1), ROW_HEIGHT - 1);
+
+        String label = labelFor(node);
+        int chars = (int)((width - 6) / CHAR_WIDTH);
+        if (chars >= 3)
+        {
+            if (label.length() > chars)
+            {
+                label = label.substring(0, chars - 1) + "\u2026";
+            }
+            g.setFill(Color.BLACK);
+            g.fillText(label, x + 3, y + ROW_HEIGHT / 2);
+        }
+
+        double childX = x;
+        for (Node child : node.getChildren())
+        {
+            double childWidth = child.getTotal() * pixelsPerSample;
+            // Leave out boxes too narrow to see; the children are sorted, so the rest are too:
+            if (childWidth < 1)
+            {
+                break;
+            }
+            draw(g, child, childX, childWidth, depth + 1, pixelsPerSample);
+            childX += childWidth;
+        }
+    }
+
+    /**
+     * Boxes are coloured in reds and yellows, varying by class so that methods of the
+     * same class have the same colour.
+     */
+    private Color colorFor(Node node)
+    {
+        int hash = node.getClassName().hashCode() & 0xffff;
+        return Color.hsb(10 + (hash % 45), 0.5 + (hash % 7) / 20.0, 0.95);
+    }
+
+    private int depth(Node node)
+    {
+        int max = 0;
+        for (Node child : node.getChildren())
+        {
+            max = Math.max(max, depth(child));
+        }
+        return max + 1;
+    }
+
+    @Override
+    @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+    protected double computePrefHeight(double width)
+    {
+        return zoomRoot == null ? 0 : depth(zoomRoot) * ROW_HEIGHT;
+    }
+
+    @Override
+    @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+    protected void layoutChildren()
+    {
+        canvas.resizeRelocate(0, 0, getWidth(), getHeight());
+    }
+}
@@ -0,0 +1,504 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import bluej.BlueJTheme;
+import bluej.Config;
+import bluej.debugger.Debugger;
+import bluej.debugger.Profile;
+import bluej.debugger.Profile.MethodSamples;
+import bluej.debugger.Profile.MethodStats;
+import bluej.debugger.Profile.Node;
+import bluej.editor.Editor;
+import bluej.extensions2.SourceType;
+import bluej.parser.SourceLocation;
+import bluej.pkgmgr.Package;
+import bluej.pkgmgr.Project;
+import bluej.pkgmgr.target.ClassTarget;
+import bluej.pkgmgr.target.Target;
+import bluej.utility.Utility.BackgroundRunnable;
+import bluej.utility.javafx.FXRunnable;
+import bluej.utility.javafx.JavaFXUtil;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeTableColumn;
+import javafx.scene.control.TreeTableView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A window for profiling the user's program.  While profiling, the profiler in the
+ * debug VM samples the running user threads, and this window fetches the new samples once
+ * a second and shows it as a call tree, a list of methods and a flame graph.
+ * The lines on which time was spent are also marked in the margin of any open editors.
+ *
+ * If the debug VM is restarted while profiling, profiling is started again on the new VM.
+ */
+@OnThread(Tag.FXPlatform)
+public class ProfilerWindow
+{
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+    // Call tree nodes with at least this fraction of the samples are initially expanded:
+    private static final double EXPAND_FRACTION = 0.1;
+    // All calls to the debugger's profiler are made on this one thread, so that they reach
+    // the debug VM, and their results reach the FX thread, in the order they were made:
+    private static final ExecutorService profilerCalls = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "BlueJ profiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Project project;
+    private final Stage window;
+    private final Button startStop;
+    private final Label status;
+    private final TreeTableView<Node> callTree;
+    private final TableView<MethodStats> methods;
+    private final FlameGraph flameGraph;
+
+    private boolean profiling = false;
+    private boolean fetching = false;
+    private FXRunnable cancelRefresh;
+    // The profile being shown, and the one which updates are being added to (the same,
+    // once an update has been shown):
+    private Profile profile;
+    private Profile collecting = new Profile();
+    // Paths of call tree items which the user has expanded or collapsed (see pathOf):
+    private final Set<String> expandedPaths = new HashSet<>();
+    private final Set<String> collapsedPaths = new HashSet<>();
+    // Classes whose editors are showing profile marks:
+    private Set<ClassTarget> heatShown = new HashSet<>();
+
+    public ProfilerWindow(Project project)
+    {
+        this.project = project;
+        window = new Stage();
+        window.setTitle(Config.getString("profiler.title") + " - " + project.getProjectName());
+        BlueJTheme.setWindowIconFX(window);
+        Config.loadAndTrackPositionAndSize(window, "bluej.profiler");
+
+        startStop = new Button(Config.getString("profiler.start"));
+        startStop.setOnAction(e -> {
+            if (profiling)
+            {
+                stopProfiling();
+            }
+            else
+            {
+                startProfiling();
+            }
+        });
+        status = new Label(Config.getString("profiler.idle"));
+        HBox controls = new HBox(8, startStop, status);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        callTree = new TreeTableView<>(new TreeItem<>());
+        callTree.setShowRoot(false);
+        callTree.getColumns().add(makeTreeColumn("profiler.column.method", 320, MethodSamples::getDisplayName));
+        callTree.getColumns().add(makeTreeColumn("profiler.column.total", 70, n -> percent(n.getTotal())));
+        callTree.getColumns().add(makeTreeColumn("profiler.column.self", 70, n -> percent(n.getSelf())));
+        callTree.setOnMouseClicked(e -> {
+            TreeItem<Node> selected = callTree.getSelectionModel().getSelectedItem();
+            if (e.getClickCount() == 2 && selected != null)
+            {
+                showSource(selected.getValue());
+            }
+        });
+
+        methods = new TableView<>();
+        methods.getColumns().add(makeTableColumn("profiler.column.method", 320, MethodSamples::getDisplayName));
+        methods.getColumns().add(makeTableColumn("profiler.column.self", 70, m -> percent(m.getSelf())));
+        methods.getColumns().add(makeTableColumn("profiler.column.total", 70, m -> percent(m.getTotal())));
+        methods.setOnMouseClicked(e -> {
+            MethodStats selected = methods.getSelectionModel().getSelectedItem();
+            if (e.getClickCount() == 2 && selected != null)
+            {
+                showSource(selected);
+            }
+        });
+
+        flameGraph = new FlameGraph(this::showSource);
+        ScrollPane flameScroll = new ScrollPane(flameGraph);
+        flameScroll.setFitToWidth(true);
+
+        TabPane tabs = new TabPane(
+                new Tab(Config.getString("profiler.calltree"), callTree),
+                new Tab(Config.getString("profiler.methods"), methods),
+                new Tab(Config.getString("profiler.flamegraph"), flameScroll));
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        VBox.setVgrow(tabs, Priority.ALWAYS);
+
+        Label hint = new Label(Config.getString("profiler.hint"));
+        hint.setWrapText(true);
+        VBox content = new VBox(6, controls, tabs, hint);
+        content.setPadding(new Insets(8));
+        JavaFXUtil.addStyleClass(content, "profiler");
+        content.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.ESCAPE)
+            {
+                window.hide();
+                e.consume();
+            }
+        });
+        window.setScene(new Scene(new BorderPane(content), 600, 500));
+        window.setOnHidden(e -> {
+            if (profiling)
+            {
+                stopProfiling();
+            }
+            showHeatInEditors();
+        });
+        JavaFXUtil.addMacMinimiseShortcutHandler(window);
+    }
+
+    private static <T> TreeTableColumn<T, String> makeTreeColumn(String labelKey, double width, Function<T, String> value)
+    {
+        TreeTableColumn<T, String> column = new TreeTableColumn<>(Config.getString(labelKey));
+        column.setPrefWidth(width);
+        // The tree is already sorted by total time:
+        column.setSortable(false);
+        column.setCellValueFactory(p -> new ReadOnlyStringWrapper(value.apply(p.getValue().getValue())));
+        return column;
+    }
+
+    private static <T> TableColumn<T, String> makeTableColumn(String labelKey, double width, Function<T, String> value)
+    {
+        TableColumn<T, String> column = new TableColumn<>(Config.getString(labelKey));
+        column.setPrefWidth(width);
+        column.setSortable(false);
+        column.setCellValueFactory(p -> new ReadOnlyStringWrapper(value.apply(p.getValue())));
+        return column;
+    }
+
+    public void show()
+    {
+        window.show();
+        window.toFront();
+        showHeatInEditors();
+    }
+
+    public void hide()
+    {
+        window.hide();
+    }
+
+    private void startProfiling()
+    {
+        Debugger debugger = project.getDebugger();
+        profiling = true;
+        startStop.setText(Config.getString("profiler.stop"));
+        status.setText(Config.getString("profiler.waiting"));
+        collecting = new Profile();
+        runProfilerCall(debugger::startProfiling);
+        cancelRefresh = JavaFXUtil.runRegular(REFRESH_INTERVAL, this::refresh);
+    }
+
+    private void stopProfiling()
+    {
+        Debugger debugger = project.getDebugger();
+        profiling = false;
+        startStop.setText(Config.getString("profiler.start"));
+        cancelRefresh.run();
+        cancelRefresh = null;
+        runProfilerCall(() -> {
+            debugger.stopProfiling();
+            Profile.Update last = debugger.getProfileUpdate();
+            Platform.runLater(() -> {
+                if (last != null && !profiling && collecting.addUpdate(last))
+                {
+                    showProfile(collecting);
+                }
+            });
+        });
+    }
+
+    /**
+     * Fetch the samples since the last refresh from the debug VM, and show the updated profile.
+     */
+    private void refresh()
+    {
+        if (fetching)
+        {
+            return;
+        }
+        fetching = true;
+        Debugger debugger = project.getDebugger();
+        runProfilerCall(() -> {
+            Profile.Update latest = debugger.getProfileUpdate();
+            Platform.runLater(() -> {
+                fetching = false;
+                if (!profiling)
+                {
+                    // Stopped while we were fetching.  Profiler calls are made in order, so
+                    // this update comes before the final one:
+                    if (latest != null && collecting.addUpdate(latest))
+                    {
+                        showProfile(collecting);
+                    }
+                    return;
+                }
+                if (latest == null)
+                {
+                    // The VM has been restarted since we started profiling:
+                    collecting = new Profile();
+                    runProfilerCall(debugger::startProfiling);
+                }
+                else if (collecting.addUpdate(latest))
+                {
+                    showProfile(collecting);
+                }
+                else
+                {
+                    // Profiling has been started again without us (e.g. on a new VM), or we
+                    // have missed an update; either way, start afresh:
+                    collecting = new Profile();
+                    if (collecting.addUpdate(latest))
+                    {
+                        showProfile(collecting);
+                    }
+                    else
+                    {
+                        runProfilerCall(debugger::startProfiling);
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Run a call to the profiler in the debugger, after any calls made before it.
+     */
+    @OnThread(Tag.Any)
+    private static void runProfilerCall(BackgroundRunnable call)
+    {
+        profilerCalls.execute(call);
+    }
+
+    private void showProfile(Profile newProfile)
+    {
+        profile = newProfile;
+        if (profile.getTotalSamples() == 0)
+        {
+            status.setText(Config.getString(profiling ? "profiler.waiting" : "profiler.idle"));
+        }
+        else
+        {
+            status.setText(Config.getString("profiler.samples")
+                    .replace("$", Integer.toString(profile.getTotalSamples()))
+                    .replace("#", String.format("%.1f", profile.getElapsedNanos() / 1.0e9))
+                    + ", " + Config.getString("profiler.overhead")
+                    .replace("$", String.format("%.1f", profile.getOverhead() * 100.0)));
+        }
+
+        // Rebuild the tree, keeping the same items expanded and selected:
+        TreeItem<Node> selected = callTree.getSelectionModel().getSelectedItem();
+        String selectedPath = selected == null ? null : pathOf(selected);
+        TreeItem<Node> root = new TreeItem<>(profile.getCallTree());
+        addChildren(root, "");
+        callTree.setRoot(root);
+        if (selectedPath != null)
+        {
+            TreeItem<Node> toSelect = findItem(root, selectedPath);
+            if (toSelect != null)
+            {
+                callTree.getSelectionModel().select(toSelect);
+            }
+        }
+
+        MethodStats selectedMethod = methods.getSelectionModel().getSelectedItem();
+        methods.getItems().setAll(profile.getMethods());
+        if (selectedMethod != null)
+        {
+            methods.getItems().stream()
+                    .filter(m -> m.getClassName().equals(selectedMethod.getClassName())
+                            && m.getMethodName().equals(selectedMethod.getMethodName()))
+                    .findFirst().ifPresent(m -> methods.getSelectionModel().select(m));
+        }
+
+        flameGraph.setProfile(profile);
+        showHeatInEditors();
+    }
+
+    private void addChildren(TreeItem<Node> parent, String parentPath)
+    {
+        int total = profile.getTotalSamples();
+        for (Node node : parent.getValue().getChildren())
+        {
+            TreeItem<Node> item = new TreeItem<>(node);
+            String path = parentPath + "/" + node.getClassName() + "." + node.getMethodName();
+            item.setExpanded(expandedPaths.contains(path)
+                    || (!collapsedPaths.contains(path) && node.getTotal() >= total * EXPAND_FRACTION));
+            JavaFXUtil.addChangeListenerPlatform(item.expandedProperty(), expanded -> {
+                (expanded ? expandedPaths : collapsedPaths).add(path);
+                (expanded ? collapsedPaths : expandedPaths).remove(path);
+            });
+            addChildren(item, path);
+            parent.getChildren().add(item);
+        }
+    }
+
+    /**
+     * Get a string identifying the position of an item in the call tree, which
+     * stays the same when the tree is rebuilt with a newer profile.
+     */
+    private static String pathOf(TreeItem<Node> item)
+    {
+        String path = "";
+        for (TreeItem<Node> i = item; i.getParent() != null; i = i.getParent())
+        {
+            path = "/" + i.getValue().getClassName() + "." + i.getValue().getMethodName() + path;
+        }
+        return path;
+    }
+
+    private static TreeItem<Node> findItem(TreeItem<Node> item, String path)
+    {
+        if (pathOf(item).equals(path))
+        {
+            return item;
+        }
+        for (TreeItem<Node> child : item.getChildren())
+        {
+            if (path.startsWith(pathOf(child)))
+            {
+                TreeItem<Node> found = findItem(child, path);
+                if (found != null)
+                {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String percent(int samples)
+    {
+        int total = profile == null ? 0 : profile.getTotalSamples();
+        return String.format("%.1f%%", total == 0 ? 0.0 : samples * 100.0 / total);
+    }
+
+    /**
+     * Mark the lines where time was spent in the editors of the profiled classes which
+     * are open, and remove the marks from any others.  If the window is not showing,
+     * all marks are removed.
+     */
+    private void showHeatInEditors()
+    {
+        Set<ClassTarget> nowShown = new HashSet<>();
+        if (profile != null && window.isShowing() && profile.getTotalSamples() > 0)
+        {
+            double total = profile.getTotalSamples();
+            for (String className : profile.getClassesWithLines())
+            {
+                ClassTarget ct = findClassTarget(className);
+                Editor editor = ct == null ? null : ct.getEditorIfOpen();
+                if (editor != null && ct.getSourceType() == SourceType.Java)
+                {
+                    Map<Integer, Double> fractions = new HashMap<>();
+                    profile.getLineSamples(className).forEach((line, count) -> fractions.put(line, count / total));
+                    editor.setProfileHeat(fractions);
+                    nowShown.add(ct);
+                }
+            }
+        }
+        for (ClassTarget ct : heatShown)
+        {
+            Editor editor = ct.getEditorIfOpen();
+            if (!nowShown.contains(ct) && editor != null)
+            {
+                editor.setProfileHeat(Collections.emptyMap());
+            }
+        }
+        heatShown = nowShown;
+    }
+
+    /**
+     * Show the line of the given method where most time was spent, in the
+     * editor for its class.
+     */
+    private void showSource(MethodSamples method)
+    {
+        ClassTarget ct = findClassTarget(Profile.getSourceClassName(method.getClassName()));
+        if (ct == null)
+        {
+            return;
+        }
+        ct.open();
+        Editor editor = ct.getEditor();
+        if (editor != null && ct.getSourceType() == SourceType.Java)
+        {
+            showHeatInEditors();
+            int line = method.getHottestLine();
+            if (line > 0)
+            {
+                try
+                {
+                    editor.assumeText().setCaretLocation(new SourceLocation(line, 1));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // The source has changed since it was profiled, and the line no longer exists.
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the class target for the given fully-qualified class name, or null if
+     * the class is not part of the project (e.g. a library class).
+     */
+    private ClassTarget findClassTarget(String className)
+    {
+        int dot = className.lastIndexOf('.');
+        Package pkg = project.getPackage(dot == -1 ? "" : className.substring(0, dot));
+        Target target = pkg == null ? null : pkg.getTarget(className.substring(dot + 1));
+        return target instanceof ClassTarget ? (ClassTarget) target : null;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2013,2014,2016,2017,2018,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2013,2014,2016,2017,2018,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -190,15 +190,22 @@ public class ClassInspector extends Inspector
     protected List<FieldInfo> getListData()
     {
         List<DebuggerField> fields = myClass.getStaticFields();
+        List<String> values = myClass.getStaticFieldValueStrings();
         List<FieldInfo> fieldInfos = new ArrayList<FieldInfo>(fields.size());
-        for (DebuggerField field : fields) {
-            String desc = Inspector.fieldToString(field);
-            String value = field.getValueString();
-            fieldInfos.add(new FieldInfo(desc, value));
+        for (int i = 0; i < fields.size(); i++) {
+            String desc = Inspector.fieldToString(fields.get(i));
+            fieldInfos.add(new FieldInfo(desc, values.get(i)));
         }
         return fieldInfos;
     }
 
+    @Override
+    protected ValueFetcher prepareValueFetch()
+    {
+        DebuggerClass debuggerClass = myClass;
+        return () -> debuggerClass.getStaticFieldValueStrings();
+    }
+
     /**
      * An element in the field list was selected.
      */
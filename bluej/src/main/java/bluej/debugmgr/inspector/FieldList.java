@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2016,2017,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2013,2016,2017,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -102,22 +102,28 @@ public class FieldList extends ScrollPane
 
     /**
      * Sets the new fields and values.  If this is identical, the update is skipped.
+     * If only the values have changed, just the changed rows are updated.
      */
     public void setData(List<FieldInfo> listData)
     {
         if (listData.equals(curData))
             return;
+
+        if (hasSameDescriptions(listData))
+        {
+            for (int i = 0; i < listData.size(); i++)
+            {
+                updateValue(i, listData.get(i));
+            }
+            return;
+        }
         
         List<Node> children = new ArrayList<>();
         for (int i = 0; i < listData.size(); i++)
         {
             FieldInfo field = listData.get(i);
-            Label valueLabel = new Label(field.getValue());
-            if (OBJECT_REFERENCE.equals(valueLabel.getText()))
-            {
-                valueLabel.setGraphic(new ImageView(objectrefIcon));
-                valueLabel.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
-            }
+            Label valueLabel = new Label();
+            setValueText(valueLabel, field.getValue());
             Pane wrapper = new BorderPane(valueLabel);
             JavaFXUtil.addStyleClass(wrapper, "inspector-field-value-wrapper");
             JavaFXUtil.addStyleClass(valueLabel, "inspector-field-value-label");
@@ -142,6 +148,70 @@ public class FieldList extends ScrollPane
         select(sel);
         requestLayout();
     }
+
+    /**
+     * Sets new values for the existing rows, leaving the descriptions as they are.
+     * Only the rows whose value has changed are updated.
+     * 
+     * @return false (having done nothing) if the number of values does not match the number of rows.
+     */
+    public boolean setValues(List<String> values)
+    {
+        if (values.size() != curData.size())
+            return false;
+
+        for (int i = 0; i < values.size(); i++)
+        {
+            updateValue(i, new FieldInfo(curData.get(i).getDescription(), values.get(i)));
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the given data has the same rows (by description) as the current data.
+     */
+    private boolean hasSameDescriptions(List<FieldInfo> listData)
+    {
+        if (listData.size() != curData.size() || listData.isEmpty())
+            return false;
+        for (int i = 0; i < listData.size(); i++)
+        {
+            if (!listData.get(i).getDescription().equals(curData.get(i).getDescription()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Updates the value label of the given row, if the value differs from the one displayed.
+     */
+    private void updateValue(int row, FieldInfo field)
+    {
+        if (field.equals(curData.get(row)))
+            return;
+
+        BorderPane wrapper = (BorderPane)content.getChildren().get(row * 2 + 1);
+        setValueText((Label)wrapper.getCenter(), field.getValue());
+        curData.set(row, field);
+    }
+
+    /**
+     * Sets the text of a value label, showing an icon instead for object references.
+     */
+    private static void setValueText(Label valueLabel, String value)
+    {
+        valueLabel.setText(value);
+        if (OBJECT_REFERENCE.equals(value))
+        {
+            valueLabel.setGraphic(new ImageView(objectrefIcon));
+            valueLabel.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        }
+        else
+        {
+            valueLabel.setGraphic(null);
+            valueLabel.setContentDisplay(ContentDisplay.LEFT);
+        }
+    }
     
     /**
      * Sets the text to show when the list is empty
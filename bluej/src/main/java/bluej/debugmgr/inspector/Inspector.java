@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2014,2015,2016,2017,2018,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2014,2015,2016,2017,2018,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,10 +24,11 @@ package bluej.debugmgr.inspector;
 import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.event.EventType;
 import javafx.scene.Cursor;
@@ -55,6 +56,7 @@ import bluej.testmgr.record.GetInvokerRecord;
 import bluej.testmgr.record.InvokerRecord;
 import bluej.testmgr.record.ObjectInspectInvokerRecord;
 import bluej.utility.DialogManager;
+import bluej.utility.Utility;
 import bluej.utility.javafx.JavaFXUtil;
 import javafx.stage.WindowEvent;
 import javafx.util.Duration;
@@ -112,6 +114,16 @@ public abstract class Inspector extends Stage
     private static final int MAX_LIST_WIDTH = 400;
     private final ResizeListener resizeListener;
 
+    // The auto-update (see shouldAutoUpdate) happens at most once a second, but
+    // if fetching the values is slow, we back off so that we spend no more than
+    // around 1/AUTO_UPDATE_COST_FACTOR of the time fetching:
+    private static final long MIN_AUTO_UPDATE_MILLIS = 1000;
+    private static final long MAX_AUTO_UPDATE_MILLIS = 10000;
+    private static final long AUTO_UPDATE_COST_FACTOR = 20;
+    private final PauseTransition autoUpdate;
+    // Whether auto-update is active (the window is showing):
+    private boolean autoUpdating = false;
+
     /**
      * Convert a field to a string representation, used to display the field in the inspector value list.
      */
@@ -175,23 +187,24 @@ public abstract class Inspector extends Stage
 
         //setOnShown(e -> org.scenicview.ScenicView.show(getScene()));
 
-        // If appropriate (object/class inspector in Greenfoot), update the
-        // inspector content every second while the window is showing:
-        final Timeline autoUpdate = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            update();
-        }));
-        autoUpdate.setCycleCount(Timeline.INDEFINITE);
+        // If appropriate (object/class inspector in Greenfoot), keep the
+        // inspector content up to date while the window is showing:
+        autoUpdate = new PauseTransition(Duration.millis(MIN_AUTO_UPDATE_MILLIS));
+        autoUpdate.setOnFinished(e -> autoUpdate());
         addEventHandler(WindowEvent.ANY, e -> {
             boolean shown = e.getEventType() == WindowEvent.WINDOW_SHOWN;
             boolean hidden = e.getEventType() == WindowEvent.WINDOW_HIDDEN;
             
             if (hidden)
             {
+                autoUpdating = false;
                 autoUpdate.stop();
             }
             else if (shown && shouldAutoUpdate())
             {
                 // Start updating:
+                autoUpdating = true;
+                autoUpdate.setDuration(Duration.millis(MIN_AUTO_UPDATE_MILLIS));
                 autoUpdate.playFromStart();
             }
         });
@@ -202,11 +215,100 @@ public abstract class Inspector extends Stage
     }
 
     /**
-     * Should we auto-update the inspector window every second while it is showing?
+     * Should we auto-update the inspector window periodically while it is showing?
      * Currently true for class and object inspectors in Greenfoot only.
      */
     protected abstract boolean shouldAutoUpdate();
 
+    /**
+     * Prepares a background fetch of the values currently shown in the field list, for
+     * the auto-update.  Called on the FX thread; the returned fetcher is then run on a
+     * worker thread and should return one value per row of the list last returned by
+     * getListData(), fetched in bulk from the debug VM.
+     * 
+     * The default returns null, meaning that the auto-update calls update() instead.
+     */
+    protected ValueFetcher prepareValueFetch()
+    {
+        return null;
+    }
+
+    /**
+     * Fetches the values for the rows in the field list.  See prepareValueFetch().
+     */
+    @FunctionalInterface
+    protected static interface ValueFetcher
+    {
+        @OnThread(Tag.Worker)
+        public List<String> fetchValues();
+    }
+
+    /**
+     * Refreshes the field values for the auto-update, then schedules the next refresh.
+     * The values are fetched on a worker thread where possible, so that the FX thread
+     * is not held up waiting for the debug VM.
+     */
+    private void autoUpdate()
+    {
+        if (!autoUpdating)
+            return;
+
+        ValueFetcher fetcher = prepareValueFetch();
+        if (fetcher == null)
+        {
+            long start = System.nanoTime();
+            update();
+            scheduleAutoUpdate(System.nanoTime() - start);
+            return;
+        }
+
+        Utility.runBackground(() -> {
+            long start = System.nanoTime();
+            List<String> values;
+            try
+            {
+                values = fetcher.fetchValues();
+            }
+            catch (RuntimeException e)
+            {
+                // VM may have been disconnected or the object collected; just try again later:
+                values = null;
+            }
+            long elapsed = System.nanoTime() - start;
+            List<String> valuesFinal = values;
+            Platform.runLater(() -> {
+                if (!autoUpdating)
+                    return;
+                if (valuesFinal == null)
+                {
+                    scheduleAutoUpdate(TimeUnit.MILLISECONDS.toNanos(MAX_AUTO_UPDATE_MILLIS));
+                }
+                else
+                {
+                    if (!fieldList.setValues(valuesFinal))
+                    {
+                        // Rows have changed shape; fall back to full update:
+                        update();
+                    }
+                    scheduleAutoUpdate(elapsed);
+                }
+            });
+        });
+    }
+
+    /**
+     * Schedules the next auto-update, backing off according to how long the last one took.
+     */
+    private void scheduleAutoUpdate(long lastUpdateNanos)
+    {
+        if (!autoUpdating)
+            return;
+        long delay = TimeUnit.NANOSECONDS.toMillis(lastUpdateNanos) * AUTO_UPDATE_COST_FACTOR;
+        delay = Math.max(MIN_AUTO_UPDATE_MILLIS, Math.min(MAX_AUTO_UPDATE_MILLIS, delay));
+        autoUpdate.setDuration(Duration.millis(delay));
+        autoUpdate.playFromStart();
+    }
+
     /**
      * Initializes the list of fields. This creates the component that shows the
      * fields.
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2013,2014,2016,2017,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2013,2014,2016,2017,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,6 +23,7 @@ package bluej.debugmgr.inspector;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -247,19 +248,32 @@ public class ObjectInspector extends Inspector
             return compressArrayList(obj);
         }
         else {
-            List<DebuggerField> fields = obj.getFields();
+            List<DebuggerField> fields = getInstanceFields(obj);
+            List<String> values = obj.getFieldValueStrings(fields);
             List<FieldInfo> fieldInfos = new ArrayList<FieldInfo>(fields.size());
-            for (DebuggerField field : fields) {
-                if (! Modifier.isStatic(field.getModifiers())) {
-                    String desc = Inspector.fieldToString(field);
-                    String value = field.getValueString();
-                    fieldInfos.add(new FieldInfo(desc, value));
-                }
+            for (int i = 0; i < fields.size(); i++) {
+                String desc = Inspector.fieldToString(fields.get(i));
+                fieldInfos.add(new FieldInfo(desc, values.get(i)));
             }
             return fieldInfos;
         }
     }
 
+    @Override
+    protected ValueFetcher prepareValueFetch()
+    {
+        DebuggerObject object = obj;
+        if (object.isArray()) {
+            // The rows only change on the FX thread (when the user asks to see
+            // extra elements), so we can take a copy of the current rows here:
+            List<Integer> rowSlots = new ArrayList<>(indexToSlotList);
+            return () -> getArrayValues(object, rowSlots);
+        }
+        else {
+            return () -> object.getFieldValueStrings(getInstanceFields(object));
+        }
+    }
+
     /**
      * An element in the field list was selected.
      */
@@ -512,6 +526,8 @@ public class ObjectInspector extends Inspector
         // according to the java spec...
         indexToSlotList = new LinkedList<Integer>();
         indexToSlotList.add(0, Integer.valueOf(ARRAY_LENGTH_SLOT_VALUE));
+        List<String> descriptions = new ArrayList<>();
+        descriptions.add("int length");
         
         int arrayTotalLength = arrayObject.getElementCount();
 
@@ -523,18 +539,15 @@ public class ObjectInspector extends Inspector
         // reveal
         if (arrayTotalLength > (VISIBLE_ARRAY_START + VISIBLE_ARRAY_TAIL + extraArrayIndexesToShow.size() + 2))
         {
-            // the destination list
-            List<FieldInfo> newArray = new ArrayList<FieldInfo>(2 + VISIBLE_ARRAY_START + VISIBLE_ARRAY_TAIL);
-            newArray.add(0, new FieldInfo("int length", "" + arrayTotalLength));
             for (int i = 0; i <= VISIBLE_ARRAY_START; i++)
             {
                 // first 40 elements are displayed as per normal
-                newArray.add(new FieldInfo("[" + i + "]", arrayObject.getElementValueString(i)));
+                descriptions.add("[" + i + "]");
                 indexToSlotList.add(i);
                 //set the list position index for the request slot
                 if(i == extraArraySlotIndex)
                 {
-                    extraArrayIndexInList = newArray.size() - 1;
+                    extraArrayIndexInList = descriptions.size() - 1;
                 }
             }
 
@@ -545,18 +558,18 @@ public class ObjectInspector extends Inspector
                 if(extraArrayIndexesToShow.contains(i))
                 {
                     //add a normal field
-                    newArray.add(new FieldInfo("[" + i + "]", arrayObject.getElementValueString(i)));
+                    descriptions.add("[" + i + "]");
                     indexToSlotList.add(i);
                     hasExpansion = false;
                     //set the list position index for the request slot
                     if(i == extraArraySlotIndex)
                     {
-                        extraArrayIndexInList = newArray.size() - 1;
+                        extraArrayIndexInList = descriptions.size() - 1;
                     }
                 }
                 else if(!hasExpansion)
                 {
-                    newArray.add(new FieldInfo("[...]", ""));
+                    descriptions.add("[...]");
                     indexToSlotList.add(Integer.valueOf(ARRAY_QUERY_SLOT_VALUE));
                     hasExpansion = true;
                 }
@@ -567,26 +580,75 @@ public class ObjectInspector extends Inspector
             {
                 // last 5 elements are displayed
                 int elNum = arrayTotalLength - i;
-                newArray.add(new FieldInfo("[" + elNum + "]", arrayObject.getElementValueString(elNum)));
+                descriptions.add("[" + elNum + "]");
                 indexToSlotList.add(arrayTotalLength - i);
                 //set the list position index for the request slot
                 if((arrayTotalLength-i) == extraArraySlotIndex)
                 {
-                    extraArrayIndexInList = newArray.size() - 1;
+                    extraArrayIndexInList = descriptions.size() - 1;
                 }
             }
-            return newArray;
         }
         else {
-            List<FieldInfo> fullArrayFieldList = new ArrayList<FieldInfo>(arrayObject.getElementCount() + 1);
-            fullArrayFieldList.add(0, new FieldInfo("int length", "" + arrayObject.getElementCount()));
-            
-            for (int i = 0; i < arrayObject.getElementCount(); i++) {
-                fullArrayFieldList.add(new FieldInfo("[" + i + "]", arrayObject.getElementValueString(i)));
+            for (int i = 0; i < arrayTotalLength; i++) {
+                descriptions.add("[" + i + "]");
                 indexToSlotList.add(i);
             }
-            return fullArrayFieldList;
         }
+
+        // Fetch all the displayed values together:
+        List<String> values = getArrayValues(arrayObject, indexToSlotList);
+        List<FieldInfo> arrayFieldList = new ArrayList<FieldInfo>(descriptions.size());
+        for (int i = 0; i < descriptions.size(); i++) {
+            arrayFieldList.add(new FieldInfo(descriptions.get(i), values.get(i)));
+        }
+        return arrayFieldList;
+    }
+
+    /**
+     * Gets the value to display for each row of a (compressed) array list, given the
+     * array slot that each row corresponds to (see compressArrayList).  The element
+     * values are fetched from the debug VM in bulk.
+     */
+    @OnThread(Tag.Any)
+    private static List<String> getArrayValues(DebuggerObject arrayObject, List<Integer> rowSlots)
+    {
+        List<Integer> indexes = new ArrayList<>(rowSlots.size());
+        for (int slot : rowSlots) {
+            if (slot >= 0) {
+                indexes.add(slot);
+            }
+        }
+        Iterator<String> elementValues = arrayObject.getElementValueStrings(indexes).iterator();
+
+        List<String> values = new ArrayList<>(rowSlots.size());
+        for (int slot : rowSlots) {
+            if (slot == ARRAY_LENGTH_SLOT_VALUE) {
+                values.add("" + arrayObject.getElementCount());
+            }
+            else if (slot == ARRAY_QUERY_SLOT_VALUE) {
+                values.add("");
+            }
+            else {
+                values.add(elementValues.next());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets the instance fields of an object, in the order that they are displayed.
+     */
+    @OnThread(Tag.Any)
+    private static List<DebuggerField> getInstanceFields(DebuggerObject object)
+    {
+        List<DebuggerField> instanceFields = new ArrayList<>();
+        for (DebuggerField field : object.getFields()) {
+            if (! Modifier.isStatic(field.getModifiers())) {
+                instanceFields.add(field);
+            }
+        }
+        return instanceFields;
     }
 
     /**
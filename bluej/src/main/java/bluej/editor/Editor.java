@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2013,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,6 +23,7 @@ package bluej.editor;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import bluej.compiler.CompileType;
 import bluej.compiler.Diagnostic;
@@ -148,6 +149,20 @@ public interface Editor
      */
     void removeStepMark();
 
+    /**
+     * Show in the margin how much of a profile (see bluej.debugger.Profile) was spent
+     * executing each line.  An empty map removes the marks.  Editors which can't relate
+     * the profile's line numbers to their content (i.e. Stride) ignore this.  The marks
+     * are removed when the text is edited, as the line numbers no longer match, and are
+     * not shown again until the class has been compiled.
+     * 
+     * @param lineFractions  For each line number, the fraction of the samples in which
+     *                       the line was executing, including in the methods it called.
+     */
+    default void setProfileHeat(Map<Integer, Double> lineFractions)
+    {
+    }
+
     /**
      * Change class name.
      * 
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -29,7 +29,6 @@ import javafx.beans.binding.DoubleExpression;
 import javafx.beans.binding.StringExpression;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
-import javafx.scene.Scene;
 import javafx.scene.shape.Path;
 import javafx.scene.text.HitInfo;
 import threadchecker.OnThread;
@@ -308,6 +307,7 @@ public class LineDisplay
      */
     public void fontSizeChanged()
     {
+        TextMetrics.invalidate(fontCSS.getValue());
         for (MarginAndTextLine line : visibleLines.values())
         {
             line.fontSizeChanged(fontCSS);
@@ -386,13 +386,7 @@ public class LineDisplay
      */
     public double calculateLineWidth(String line)
     {
-        TextLine textLine = new TextLine(false);
-        // Must be in a scene for CSS (for font family/size) to get applied correctly:
-        Scene s = new Scene(textLine);
-        textLine.setText(List.of(new StyledSegment(List.of(), line)), 0, true, fontCSS);
-        textLine.applyCss();
-        textLine.layout();
-        return textLine.prefWidth(-1);
+        return TextMetrics.forFont(fontCSS.getValue()).getLineWidth(line);
     }
 
     /**
@@ -400,7 +394,7 @@ public class LineDisplay
      */
     public double calculateLineHeight()
     {
-        return calculateLineHeight(List.of(new StyledSegment(List.of(), "Xy")), -1);
+        return TextMetrics.forFont(fontCSS.getValue()).getLineHeight();
     }
 
     /**
@@ -408,12 +402,6 @@ public class LineDisplay
      */
     public double calculateLineHeight(List<StyledSegment> content, double maxWidth)
     {
-        TextLine textLine = new TextLine(false);
-        // Must be in a scene for CSS (for font family/size) to get applied correctly:
-        Scene s = new Scene(textLine);
-        textLine.setText(content, 0, true, fontCSS);
-        textLine.applyCss();
-        textLine.layout();
-        return textLine.prefHeight(maxWidth);
+        return TextMetrics.forFont(fontCSS.getValue()).getLineHeight(content, maxWidth);
     }
 }
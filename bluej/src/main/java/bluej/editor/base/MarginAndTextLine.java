@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2023,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -58,6 +58,7 @@ public class MarginAndTextLine extends Region
     private final double LINE_X;
     private final double MARGIN_BACKGROUND_WIDTH;
     private final double MARGIN_RIGHT;
+    private static final double PROFILE_HEAT_WIDTH = 4;
 
     private final boolean showLeftMargin;
     
@@ -69,6 +70,9 @@ public class MarginAndTextLine extends Region
     private final EnumSet<MarginDisplay> displayItems = EnumSet.noneOf(MarginDisplay.class);
     private final Tooltip breakpointHoverTooltip;
     private final Region backgroundNode;
+    // Shows how much of a profile was spent on this line; null if not shown:
+    private Region profileHeatBar;
+    private Tooltip profileHeatTooltip;
 
     @OnThread(Tag.Any)
     public static enum MarginDisplay
@@ -229,6 +233,10 @@ public class MarginAndTextLine extends Region
             {
                 backgroundNode.resizeRelocate(0, 0, MARGIN_BACKGROUND_WIDTH, getHeight());
             }
+            else if (child == profileHeatBar)
+            {
+                profileHeatBar.resizeRelocate(0, 0, PROFILE_HEAT_WIDTH, getHeight());
+            }
             else
             {
                 double height = child.prefHeight(-1);
@@ -305,6 +313,10 @@ public class MarginAndTextLine extends Region
         }
         ArrayList<Node> content = new ArrayList<>();
         content.add(backgroundNode);
+        if (profileHeatBar != null)
+        {
+            content.add(profileHeatBar);
+        }
         content.add(textLine);
         content.add(dividerLine);
 
@@ -360,6 +372,34 @@ public class MarginAndTextLine extends Region
     }
 
 
+    /**
+     * Show a bar at the left of the margin indicating how much of a profile was spent on this line.
+     * 
+     * @param intensity  How strongly to show the bar, from 0 to 1.  If 0, no bar is shown.
+     * @param tooltip    The tooltip for the bar (ignored if no bar is shown)
+     */
+    @OnThread(Tag.FXPlatform)
+    public void setProfileHeat(double intensity, String tooltip)
+    {
+        if (intensity <= 0)
+        {
+            profileHeatBar = null;
+        }
+        else
+        {
+            if (profileHeatBar == null)
+            {
+                profileHeatBar = new Region();
+                JavaFXUtil.addStyleClass(profileHeatBar, "flow-profile-heat");
+                profileHeatTooltip = new Tooltip();
+                Tooltip.install(profileHeatBar, profileHeatTooltip);
+            }
+            profileHeatBar.setOpacity(0.2 + 0.8 * Math.min(1.0, intensity));
+            profileHeatTooltip.setText(tooltip);
+        }
+        setMarginGraphics(EnumSet.copyOf(displayItems));
+    }
+
     // Red octagon with white STOP on it.  By doing it as a shape rather than
     // image file, we get it looking good on all HiDPI displays.
     private static Node makeBreakpointIcon()
@@ -0,0 +1,265 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.base;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import javafx.scene.Scene;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cached measurements of editor text in a particular font, as given by the font CSS
+ * used for the editor's text lines.
+ *
+ * Measuring text in JavaFX requires a node which is in a scene and has had CSS applied.
+ * Each TextMetrics keeps a single off-screen text node in its own scene for measuring,
+ * and caches the line height, the advance width of each character (or the single advance,
+ * for monospace fonts) and the height of wrapped lines.
+ *
+ * The style classes of the text (e.g. syntax highlighting) do not take part in
+ * measurement, as the measuring scene has no stylesheets and the font is set entirely
+ * by the font CSS; the font CSS alone is thus the cache key.
+ *
+ * Line widths are calculated by adding up the advance widths of the characters, which
+ * only matches a full text layout if the font has no kerning (or other adjustments
+ * between neighbouring characters).  When the metrics are created, a sample of text
+ * with commonly kerned pairs is measured both ways; if they disagree, every line width
+ * is measured with a full layout instead.  Pairs not in the sample could still be
+ * adjusted, in which case the calculated width may be off by a few pixels.  The widths
+ * are used for the horizontal scroll extent and for positioning scope backgrounds
+ * (mostly the width of indentation), where that does not matter.
+ *
+ * Only the metrics for the few most recently used font CSS strings are kept, as each
+ * has its own measuring scene, and a new font size is used at each step of zooming.
+ *
+ * The metrics for a font CSS should be discarded using invalidate() whenever the font
+ * might have changed without the CSS changing (e.g. when a font has just been loaded).
+ */
+@OnThread(Tag.FX)
+public class TextMetrics
+{
+    // Characters from space up to (but excluding) this limit are measured glyph-by-glyph:
+    private static final char GLYPH_CACHE_LIMIT = '\u0300';
+    private static final int MAX_CACHED_WRAPPED_HEIGHTS = 2000;
+    private static final int MAX_CACHED_FONTS = 4;
+    // Text containing pairs of characters which are commonly kerned:
+    private static final String KERNING_SAMPLE = "AVAWAYATAvAwAyLTLVLWLYPAFATaTeToVaVeVoWaWeWoYaYeYorf.r,y.\"A";
+
+    private static final LinkedHashMap<String, TextMetrics> metricsByFontCSS = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TextMetrics> eldest)
+        {
+            return size() > MAX_CACHED_FONTS;
+        }
+    };
+
+    private final TextFlow measuringFlow;
+    private final Text measuringText;
+    // Not in a text flow, so gives the plain advance width of its content:
+    private final Text glyphText;
+    private final double lineHeight;
+    // The advance width of every character if the font is monospace, otherwise -1:
+    private final double monospaceAdvance;
+    // Whether adding up character advances gives the width of a line (no kerning):
+    private final boolean additiveWidths;
+    // The advance widths of characters below GLYPH_CACHE_LIMIT, NaN if not yet measured:
+    private final double[] glyphAdvances = new double[GLYPH_CACHE_LIMIT];
+    private final LinkedHashMap<WrappedLine, Double> wrappedHeights = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<WrappedLine, Double> eldest)
+        {
+            return size() > MAX_CACHED_WRAPPED_HEIGHTS;
+        }
+    };
+    // The most recent width measured by a full layout, as calculateLineWidth tends
+    // to be asked about the same (longest) line repeatedly:
+    private String lastMeasuredLine;
+    private double lastMeasuredWidth;
+
+    private TextMetrics(String fontCSS)
+    {
+        measuringText = new Text();
+        measuringText.setStyle(fontCSS);
+        measuringText.getStyleClass().add("editor-text");
+        measuringFlow = new TextFlow(measuringText);
+        measuringFlow.getStyleClass().add("text-line");
+        // Must be in a scene for CSS (for font family/size) to get applied correctly:
+        new Scene(measuringFlow);
+        measuringFlow.applyCss();
+
+        glyphText = new Text();
+        glyphText.setFont(measuringText.getFont());
+
+        lineHeight = measureHeight("Xy", -1);
+        Arrays.fill(glyphAdvances, Double.NaN);
+        double advance = glyphAdvance('m');
+        boolean monospace = advance > 0;
+        for (char c : new char[] {' ', 'i', 'W', '.', '_'})
+        {
+            monospace &= glyphAdvance(c) == advance;
+        }
+        monospaceAdvance = monospace ? advance : -1;
+
+        double sampleWidth = 0;
+        for (int i = 0; i < KERNING_SAMPLE.length(); i++)
+        {
+            sampleWidth += monospace ? monospaceAdvance : glyphAdvance(KERNING_SAMPLE.charAt(i));
+        }
+        additiveWidths = Math.abs(sampleWidth - measureWidth(KERNING_SAMPLE)) < 0.5;
+    }
+
+    /**
+     * Gets the metrics for the given font CSS, measuring the font if needed.
+     */
+    public static TextMetrics forFont(String fontCSS)
+    {
+        return metricsByFontCSS.computeIfAbsent(fontCSS, TextMetrics::new);
+    }
+
+    /**
+     * Discards any cached metrics for the given font CSS, so that it will be
+     * measured afresh on next use.
+     */
+    public static void invalidate(String fontCSS)
+    {
+        metricsByFontCSS.remove(fontCSS);
+    }
+
+    /**
+     * Gets the height of a single (unwrapped) line of text.
+     */
+    public double getLineHeight()
+    {
+        return lineHeight;
+    }
+
+    /**
+     * Gets the width of the given line of text, without wrapping.
+     */
+    public double getLineWidth(String line)
+    {
+        if (!additiveWidths)
+        {
+            return measureWidth(line);
+        }
+        double width = 0;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (c < ' ' || c >= GLYPH_CACHE_LIMIT || (c >= '\u007F' && c < '\u00A0'))
+            {
+                // Tabs, control characters and complex scripts need a proper layout:
+                return measureWidth(line);
+            }
+            width += monospaceAdvance >= 0 ? monospaceAdvance : glyphAdvance(c);
+        }
+        return width;
+    }
+
+    /**
+     * Gets the height of the given line of text, wrapped at maxWidth (or not
+     * wrapped, if maxWidth is negative).
+     */
+    public double getLineHeight(List<StyledSegment> content, double maxWidth)
+    {
+        StringBuilder text = new StringBuilder();
+        for (StyledSegment segment : content)
+        {
+            text.append(segment.getText());
+        }
+        WrappedLine key = new WrappedLine(text.toString().replace('\u0000', '\u2400'), maxWidth);
+        Double height = wrappedHeights.get(key);
+        if (height == null)
+        {
+            height = measureHeight(key.text, maxWidth);
+            wrappedHeights.put(key, height);
+        }
+        return height;
+    }
+
+    private double glyphAdvance(char c)
+    {
+        double advance = glyphAdvances[c];
+        if (Double.isNaN(advance))
+        {
+            glyphText.setText(String.valueOf(c));
+            advance = glyphText.getLayoutBounds().getWidth();
+            glyphAdvances[c] = advance;
+        }
+        return advance;
+    }
+
+    private double measureWidth(String line)
+    {
+        if (!line.equals(lastMeasuredLine))
+        {
+            measuringText.setText(line);
+            measuringFlow.layout();
+            lastMeasuredWidth = measuringFlow.prefWidth(-1);
+            lastMeasuredLine = line;
+        }
+        return lastMeasuredWidth;
+    }
+
+    private double measureHeight(String text, double maxWidth)
+    {
+        measuringText.setText(text);
+        measuringFlow.layout();
+        return measuringFlow.prefHeight(maxWidth);
+    }
+
+    @OnThread(Tag.Any)
+    private static class WrappedLine
+    {
+        private final String text;
+        private final double maxWidth;
+
+        private WrappedLine(String text, double maxWidth)
+        {
+            this.text = text;
+            this.maxWidth = maxWidth;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            WrappedLine that = (WrappedLine) o;
+            return Double.compare(that.maxWidth, maxWidth) == 0 && text.equals(that.text);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(text, maxWidth);
+        }
+    }
+}
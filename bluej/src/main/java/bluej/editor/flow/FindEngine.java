@@ -0,0 +1,635 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.extensions2.editor.DocumentListener;
+import bluej.utility.Utility;
+import bluej.utility.javafx.FXPlatformRunnable;
+import javafx.application.Platform;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds all the matches of a search in a document, and keeps them up to date as the
+ * document is edited.
+ *
+ * The initial search runs on a background thread over a snapshot of the document, and
+ * the matches are passed back to the FX thread in batches as they are found, so the first
+ * matches can be shown straight away even in a very large file.  An edit to the document
+ * only causes the lines around it to be searched again; the matches after the edit are just
+ * moved along.  If the document is edited while the background search is still running, the
+ * edits are recorded, and the matches from later batches (which are positions in the old
+ * snapshot) are moved along to match; any which touch an edited part of the document are
+ * dropped, as that part has been searched again.
+ *
+ * The matches are non-overlapping and are kept in document order, as parallel arrays of
+ * start and end positions.  Empty matches (e.g. of a regex like "x*") are ignored.
+ */
+class FindEngine implements DocumentListener
+{
+    // The maximum number of matches passed back from the background search at once:
+    private static final int BATCH_SIZE = 1000;
+    // A batch is passed back before it is full if it has been this long since the last one:
+    private static final long BATCH_INTERVAL_MILLIS = 50;
+    // How many characters either side of a region being searched again are made
+    // visible to lookahead, lookbehind and word boundaries:
+    private static final int CONTEXT_CHARS = 256;
+
+    private final PieceTreeDocument document;
+    // Called whenever the matches change, or the search completes:
+    private final FXPlatformRunnable onChange;
+    // Runs the background search:
+    private final Executor background;
+    // Passes batches of matches from the background search back to the FX thread:
+    private final Executor fxThread;
+
+    // The current search, or null if there is none:
+    private Pattern pattern;
+    // Whether the replacement text may refer to groups (as in Matcher.appendReplacement):
+    private boolean regex;
+    // Set to cancel the current background search.  Also used to identify which
+    // search a batch of results belongs to:
+    private AtomicBoolean cancelled = new AtomicBoolean();
+    private boolean complete = true;
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int count = 0;
+    // The edits made since the snapshot used by the running background search, in order:
+    private final List<Edit> editsSinceSnapshot = new ArrayList<>();
+
+    FindEngine(PieceTreeDocument document, FXPlatformRunnable onChange)
+    {
+        this(document, onChange, r -> Utility.runBackground(r::run), Platform::runLater);
+    }
+
+    /**
+     * Makes a FindEngine which runs its background search, and passes the results back to
+     * the FX thread, using the given executors (which can be replaced for testing).
+     */
+    FindEngine(PieceTreeDocument document, FXPlatformRunnable onChange, Executor background, Executor fxThread)
+    {
+        this.document = document;
+        this.onChange = onChange;
+        this.background = background;
+        this.fxThread = fxThread;
+        document.addListener(false, this);
+    }
+
+    /**
+     * Makes the pattern for a search.  Returns null if the search is empty, or is an
+     * invalid regex.
+     *
+     * @param ignoreCase  whether to ignore differences in case
+     * @param regex       whether the search is a regular expression (otherwise it is literal text)
+     * @param wholeWord   whether matches must not be preceded or followed by an identifier character
+     */
+    static Pattern makePattern(String search, boolean ignoreCase, boolean regex, boolean wholeWord)
+    {
+        if (search.isEmpty())
+        {
+            return null;
+        }
+        String expression = regex ? search : Pattern.quote(search);
+        if (wholeWord)
+        {
+            expression = "(?<!\\p{javaJavaIdentifierPart})(?:" + expression + ")(?!\\p{javaJavaIdentifierPart})";
+        }
+        try
+        {
+            return Pattern.compile(expression, Pattern.MULTILINE | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0));
+        }
+        catch (PatternSyntaxException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Starts a new search, discarding any previous matches.  Pass null to stop searching.
+     *
+     * @param regex  whether the replacement text may refer to groups of the pattern
+     */
+    void search(Pattern pattern, boolean regex)
+    {
+        this.pattern = pattern;
+        this.regex = regex;
+        startSearch();
+    }
+
+    /**
+     * Checks whether the current search is for the given pattern.
+     */
+    boolean isSearchingFor(Pattern pattern)
+    {
+        return this.pattern != null && pattern != null && this.pattern.pattern().equals(pattern.pattern())
+            && this.pattern.flags() == pattern.flags();
+    }
+
+    private void startSearch()
+    {
+        cancelled.set(true);
+        cancelled = new AtomicBoolean();
+        count = 0;
+        complete = pattern == null;
+        editsSinceSnapshot.clear();
+        if (pattern != null)
+        {
+            AtomicBoolean searchCancelled = cancelled;
+            CharSequence snapshot = document.getSnapshot();
+            Pattern searchPattern = pattern;
+            background.execute(() -> searchInBackground(this, searchPattern, snapshot, searchCancelled));
+        }
+        onChange.run();
+    }
+
+    @OnThread(Tag.Worker)
+    private static void searchInBackground(FindEngine engine, Pattern searchPattern, CharSequence snapshot, AtomicBoolean searchCancelled)
+    {
+        Matcher matcher = searchPattern.matcher(snapshot);
+        int[] batchStarts = new int[BATCH_SIZE];
+        int[] batchEnds = new int[BATCH_SIZE];
+        int batchCount = 0;
+        long lastBatchTime = System.currentTimeMillis();
+        while (!searchCancelled.get() && matcher.find())
+        {
+            if (matcher.end() == matcher.start())
+            {
+                continue;
+            }
+            batchStarts[batchCount] = matcher.start();
+            batchEnds[batchCount] = matcher.end();
+            batchCount += 1;
+            long now = System.currentTimeMillis();
+            if (batchCount == BATCH_SIZE || now - lastBatchTime >= BATCH_INTERVAL_MILLIS)
+            {
+                int[] s = batchStarts, e = batchEnds;
+                int n = batchCount;
+                engine.fxThread.execute(() -> engine.addBatch(searchCancelled, s, e, n, false));
+                batchStarts = new int[BATCH_SIZE];
+                batchEnds = new int[BATCH_SIZE];
+                batchCount = 0;
+                lastBatchTime = now;
+            }
+        }
+        if (!searchCancelled.get())
+        {
+            int[] s = batchStarts, e = batchEnds;
+            int n = batchCount;
+            engine.fxThread.execute(() -> engine.addBatch(searchCancelled, s, e, n, true));
+        }
+    }
+
+    /**
+     * Adds a batch of matches from the background search, unless that search has been cancelled.
+     * The matches are positions in the snapshot searched, so they are first adjusted for any
+     * edits made since.
+     */
+    private void addBatch(AtomicBoolean searchCancelled, int[] batchStarts, int[] batchEnds, int batchCount, boolean last)
+    {
+        if (searchCancelled != cancelled || searchCancelled.get())
+        {
+            return;
+        }
+        if (editsSinceSnapshot.isEmpty())
+        {
+            // The usual case: the batch just follows on from the matches so far:
+            ensureCapacity(count + batchCount);
+            System.arraycopy(batchStarts, 0, starts, count, batchCount);
+            System.arraycopy(batchEnds, 0, ends, count, batchCount);
+            count += batchCount;
+        }
+        else
+        {
+            mergeBatch(batchStarts, batchEnds, batchCount);
+        }
+        complete = last;
+        if (complete)
+        {
+            editsSinceSnapshot.clear();
+        }
+        onChange.run();
+    }
+
+    /**
+     * Merges a batch of matches from the background search into the current matches,
+     * after moving them to allow for the edits made since the snapshot was taken.
+     * The current matches may already include some later than the batch, found by
+     * searching again after an edit.  A match from the batch which overlaps one of
+     * those is a duplicate, and is dropped.  A match which touches an edit is out of
+     * date, and is also dropped; the area it covered is searched again (usually it
+     * has been already, but the match may have extended past the area searched).
+     */
+    private void mergeBatch(int[] batchStarts, int[] batchEnds, int batchCount)
+    {
+        int[] mergedStarts = new int[count + batchCount];
+        int[] mergedEnds = new int[count + batchCount];
+        int merged = 0;
+        int existing = 0;
+        List<int[]> damaged = new ArrayList<>();
+        for (int i = 0; i < batchCount; i++)
+        {
+            int start = batchStarts[i];
+            int end = batchEnds[i];
+            boolean touchesEdit = false;
+            for (Edit edit : editsSinceSnapshot)
+            {
+                if (start > edit.position + edit.removed)
+                {
+                    start += edit.added - edit.removed;
+                    end += edit.added - edit.removed;
+                }
+                else if (end >= edit.position)
+                {
+                    touchesEdit = true;
+                    start = Math.min(start, edit.position);
+                    end = end > edit.position + edit.removed ? end + edit.added - edit.removed : edit.position + edit.added;
+                }
+            }
+            if (touchesEdit)
+            {
+                damaged.add(new int[] {start, end});
+                continue;
+            }
+            while (existing < count && ends[existing] <= start)
+            {
+                mergedStarts[merged] = starts[existing];
+                mergedEnds[merged] = ends[existing];
+                merged += 1;
+                existing += 1;
+            }
+            if (existing < count && starts[existing] < end)
+            {
+                // Already found by searching again after an edit:
+                continue;
+            }
+            mergedStarts[merged] = start;
+            mergedEnds[merged] = end;
+            merged += 1;
+        }
+        int remaining = count - existing;
+        System.arraycopy(starts, existing, mergedStarts, merged, remaining);
+        System.arraycopy(ends, existing, mergedEnds, merged, remaining);
+        starts = mergedStarts;
+        ends = mergedEnds;
+        count = merged + remaining;
+
+        for (int[] range : damaged)
+        {
+            int regionStart = document.getLineStart(document.getLineFromPosition(range[0]));
+            int regionEnd = document.getLineEnd(document.getLineFromPosition(Math.min(range[1], document.getLength())));
+            searchRegion(regionStart, regionEnd, 0);
+        }
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > starts.length)
+        {
+            int newLength = Math.max(capacity, starts.length * 2);
+            starts = Arrays.copyOf(starts, newLength);
+            ends = Arrays.copyOf(ends, newLength);
+        }
+    }
+
+    @Override
+    public void textReplaced(int origStartIncl, String replaced, String replacement, int linesRemoved, int linesAdded)
+    {
+        if (pattern == null)
+        {
+            return;
+        }
+        if (!complete)
+        {
+            // The matches from the rest of the background search will need adjusting:
+            editsSinceSnapshot.add(new Edit(origStartIncl, replaced.length(), replacement.length()));
+        }
+
+        // Search again the whole lines touched by the edit, and the lines either side (in case
+        // the pattern can match a line break).  The region start is the same in the old and new
+        // document, as it is before the edit:
+        int regionStart = document.getLineStart(Math.max(0, document.getLineFromPosition(origStartIncl) - 1));
+        int regionEnd = document.getLineEnd(Math.min(document.getLineCount() - 1,
+                document.getLineFromPosition(origStartIncl + replacement.length()) + 1));
+        searchRegion(regionStart, regionEnd, replacement.length() - replaced.length());
+        onChange.run();
+    }
+
+    /**
+     * Searches a region of the document again after it has changed, replacing the matches
+     * in it, and moving along the matches after it.
+     *
+     * @param regionStart  the start of the region (the same before and after the change)
+     * @param regionEnd    the end of the region in the document as it is now
+     * @param delta        the change in the length of the region
+     */
+    private void searchRegion(int regionStart, int regionEnd, int delta)
+    {
+        int oldRegionEnd = regionEnd - delta;
+
+        // The matches to discard are those which overlap or touch the region (a match just
+        // outside may depend on the region's content via lookahead, lookbehind or a word
+        // boundary).  These could extend beyond the region (if the pattern can match newlines),
+        // in which case the region is widened to include them:
+        int firstRemoved = firstMatchEndingAfter(regionStart - 1);
+        int lastRemovedExcl = firstMatchStartingAfter(oldRegionEnd);
+        if (firstRemoved < lastRemovedExcl)
+        {
+            regionStart = Math.min(regionStart, starts[firstRemoved]);
+            oldRegionEnd = Math.max(oldRegionEnd, ends[lastRemovedExcl - 1]);
+            regionEnd = oldRegionEnd + delta;
+        }
+
+        int[] foundStarts = new int[16];
+        int[] foundEnds = new int[16];
+        int found = 0;
+        int contextStart = Math.max(0, regionStart - CONTEXT_CHARS);
+        int contextEnd = Math.min(document.getLength(), regionEnd + CONTEXT_CHARS);
+        Matcher matcher = pattern.matcher(document.getContent(contextStart, contextEnd));
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        matcher.region(regionStart - contextStart, regionEnd - contextStart);
+        while (matcher.find())
+        {
+            if (matcher.end() == matcher.start())
+            {
+                continue;
+            }
+            if (found == foundStarts.length)
+            {
+                foundStarts = Arrays.copyOf(foundStarts, found * 2);
+                foundEnds = Arrays.copyOf(foundEnds, found * 2);
+            }
+            foundStarts[found] = matcher.start() + contextStart;
+            foundEnds[found] = matcher.end() + contextStart;
+            found += 1;
+        }
+
+        // Replace the discarded matches by those found, and move the later matches along:
+        int after = count - lastRemovedExcl;
+        int newCount = firstRemoved + found + after;
+        ensureCapacity(newCount);
+        System.arraycopy(starts, lastRemovedExcl, starts, firstRemoved + found, after);
+        System.arraycopy(ends, lastRemovedExcl, ends, firstRemoved + found, after);
+        System.arraycopy(foundStarts, 0, starts, firstRemoved, found);
+        System.arraycopy(foundEnds, 0, ends, firstRemoved, found);
+        for (int i = firstRemoved + found; i < newCount; i++)
+        {
+            starts[i] += delta;
+            ends[i] += delta;
+        }
+        count = newCount;
+    }
+
+    /**
+     * Gets the index of the first match which ends after the given position, or count if there is none.
+     */
+    private int firstMatchEndingAfter(int position)
+    {
+        // Matches don't overlap, so the ends are in order as well as the starts:
+        int low = 0, high = count;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] > position)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return low;
+    }
+
+    /**
+     * Gets the index of the first match which starts after the given position, or count if there is none.
+     */
+    private int firstMatchStartingAfter(int position)
+    {
+        int low = 0, high = count;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] > position)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return low;
+    }
+
+    /**
+     * Gets the number of matches found so far.
+     */
+    int getMatchCount()
+    {
+        return count;
+    }
+
+    /**
+     * Checks whether the search has finished, so that all the matches have been found.
+     */
+    boolean isComplete()
+    {
+        return complete;
+    }
+
+    int getStart(int index)
+    {
+        return starts[index];
+    }
+
+    int getEnd(int index)
+    {
+        return ends[index];
+    }
+
+    /**
+     * Gets the index of the first match starting after the given position (or at it,
+     * if inclusive is true), or -1 if there is none (yet).
+     */
+    int findNext(int position, boolean inclusive)
+    {
+        int index = firstMatchStartingAfter(inclusive ? position - 1 : position);
+        return index < count ? index : -1;
+    }
+
+    /**
+     * Gets the index of the last match starting before the given position, or -1 if there is none.
+     */
+    int findPrevious(int position)
+    {
+        return firstMatchStartingAfter(position - 1) - 1;
+    }
+
+    /**
+     * Gets the index of the match with exactly the given start and end, or -1 if there is none.
+     */
+    int indexOf(int start, int end)
+    {
+        int index = findNext(start, true);
+        return index != -1 && starts[index] == start && ends[index] == end ? index : -1;
+    }
+
+    /**
+     * Gets the matches which overlap the given range of the document.  Each item is of
+     * size 2, start position inclusive and end position exclusive.
+     */
+    List<int[]> getMatchesBetween(int startIncl, int endExcl)
+    {
+        List<int[]> matches = new ArrayList<>();
+        for (int i = firstMatchEndingAfter(startIncl); i < count && starts[i] < endExcl; i++)
+        {
+            matches.add(new int[] {starts[i], ends[i]});
+        }
+        return matches;
+    }
+
+    /**
+     * Works out the text to replace the given match with.  For a regex search, the
+     * replacement may refer to groups of the match, e.g. "$1" (see Matcher.appendReplacement).
+     */
+    String getReplacement(int index, String replacement)
+    {
+        if (!regex)
+        {
+            return replacement;
+        }
+        int contextStart = Math.max(0, starts[index] - CONTEXT_CHARS);
+        int contextEnd = Math.min(document.getLength(), ends[index] + CONTEXT_CHARS);
+        Matcher matcher = pattern.matcher(document.getContent(contextStart, contextEnd));
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        matcher.region(starts[index] - contextStart, contextEnd - contextStart);
+        if (!matcher.lookingAt())
+        {
+            return replacement;
+        }
+        String expanded = expand(matcher, replacement, starts[index] - contextStart);
+        return expanded == null ? replacement : expanded;
+    }
+
+    /**
+     * Replaces all the matches in the document.  This ends the search: there is no point
+     * keeping track of the matches once they have all been replaced, and updating them
+     * after each individual replacement would be slow in a large file.
+     *
+     * @return the number of matches replaced
+     */
+    int replaceAll(String replacement)
+    {
+        if (pattern == null)
+        {
+            return 0;
+        }
+        // Search afresh, in case the background search is still running:
+        List<Integer> replaceStarts = new ArrayList<>();
+        List<Integer> replaceEnds = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+        Matcher matcher = pattern.matcher(document.getSnapshot());
+        // The end of the last match passed to expand:
+        int lastExpanded = 0;
+        while (matcher.find())
+        {
+            if (matcher.end() == matcher.start())
+            {
+                continue;
+            }
+            replaceStarts.add(matcher.start());
+            replaceEnds.add(matcher.end());
+            if (regex)
+            {
+                String expanded = expand(matcher, replacement, matcher.start() - lastExpanded);
+                if (expanded == null)
+                {
+                    // The matcher still appends from the previous position, as nothing was appended:
+                    replacements.add(replacement);
+                }
+                else
+                {
+                    lastExpanded = matcher.end();
+                    replacements.add(expanded);
+                }
+            }
+            else
+            {
+                replacements.add(replacement);
+            }
+        }
+        search(null, false);
+        // Replace from the end of the document backwards, so the earlier positions stay valid:
+        for (int i = replacements.size() - 1; i >= 0; i--)
+        {
+            document.replaceText(replaceStarts.get(i), replaceEnds.get(i), replacements.get(i));
+        }
+        return replacements.size();
+    }
+
+    /**
+     * Expands the group references in the replacement for the current match of the matcher.
+     *
+     * @param precedingLength  the length of the text between the previous match expanded with
+     *                         this matcher (or the start of the text) and the current match,
+     *                         which Matcher.appendReplacement puts before the replacement.
+     * @return the expanded replacement, or null if the replacement is invalid (e.g. it refers
+     *         to a group which does not exist); the caller should then use it literally.
+     */
+    @OnThread(Tag.Any)
+    static String expand(Matcher matcher, String replacement, int precedingLength)
+    {
+        StringBuilder result = new StringBuilder();
+        try
+        {
+            matcher.appendReplacement(result, replacement);
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            return null;
+        }
+        return result.substring(precedingLength);
+    }
+
+    /**
+     * An edit to the document: at the given position, the given number of characters
+     * were removed and the given number were added.
+     */
+    @OnThread(Tag.Any)
+    private static class Edit
+    {
+        private final int position;
+        private final int removed;
+        private final int added;
+
+        private Edit(int position, int removed, int added)
+        {
+            this.position = position;
+            this.removed = removed;
+            this.added = added;
+        }
+    }
+}
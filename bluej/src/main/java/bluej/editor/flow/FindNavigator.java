@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,9 +22,13 @@
 package bluej.editor.flow;
 
 import javafx.beans.binding.BooleanExpression;
+import javafx.beans.binding.IntegerExpression;
 
 /**
  * An interface for dealing with search results.
+ *
+ * The search may still be running in the background when the navigator is returned,
+ * so results can continue to arrive afterwards (see matchCountProperty and completeProperty).
  */
 public interface FindNavigator
 {
@@ -34,7 +38,9 @@ public interface FindNavigator
     public void highlightAll();
 
     /**
-     * Selects the next search result, wrapping if necessary
+     * Selects the next search result, wrapping if necessary.  If there is
+     * no suitable result yet, but the search is still running, the next
+     * result is selected as soon as it is found.
      *
      * @param canBeAtCurrentPos If true, "next" result can include one beginning
      *                          at the start of the current selection (e.g. when
@@ -51,10 +57,21 @@ public interface FindNavigator
 
     /**
      * Is this search result still valid?  Search results get invalidated
-     * by modifying the document, or performing a new search.
+     * by performing a new search (but not by modifying the document; the
+     * results are kept up to date as the document is modified).
      */
     public BooleanExpression validProperty();
 
+    /**
+     * The number of search results found so far.
+     */
+    public IntegerExpression matchCountProperty();
+
+    /**
+     * Whether the search has finished, so that all results have been found.
+     */
+    public BooleanExpression completeProperty();
+
     /**
      * Replaces the current selected search result with the given replacement
      * string, and returns the updated search.  THis search object will no longer
@@ -68,42 +85,4 @@ public interface FindNavigator
      * searching again, as all instances will have been replaced.
      */
     public void replaceAll(String replacement);
-
-    /**
-     * Find the position of a substring in a given string, 
-     * can specify direction and whether the search should ignoring case
-     * Return the position of the substring or -1.
-     *
-     * @param  text        the full string to be searched
-     * @param  sub         the substring that we're looking for
-     * @param  ignoreCase  if true, case is ignored
-     * @param  backwards   Description of the Parameter
-     * @param  foundPos   Offset for the string search
-     * @return             Description of the Return Value
-     * @returns            the index of the substring, or -1 if not found
-     */
-    public static int findSubstring(String text, String sub, boolean ignoreCase, boolean backwards, int foundPos)
-    {
-        int strlen = text.length();
-        int sublen = sub.length();
-
-        if (sublen == 0) {
-            return -1;
-        }
-
-        boolean found = false;
-        int pos = foundPos;
-        boolean itsOver = (backwards ? (pos < 0) : (pos + sublen > strlen));
-        while (!found && !itsOver) {
-            found = text.regionMatches(ignoreCase, pos, sub, 0, sublen);
-            if (found) {
-                return pos;
-            }
-            if (!found) {
-                pos = (backwards ? pos - 1 : pos + 1);
-                itsOver = (backwards ? (pos < 0) : (pos + sublen > strlen));
-            }
-        }
-        return -1;
-    }
 }
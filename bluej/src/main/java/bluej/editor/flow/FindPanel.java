@@ -1,6 +1,6 @@
 /*
 This file is part of the BlueJ program. 
-Copyright (C) 1999-2010,2011,2014,2019,2021  Michael Kolling and John Rosenberg 
+Copyright (C) 1999-2010,2011,2014,2019,2021,2026  Michael Kolling and John Rosenberg 
 
 This program is free software; you can redistribute it and/or 
 modify it under the terms of the GNU General Public License 
@@ -68,11 +68,15 @@ public class FindPanel extends GridPane
     private final TextField replaceField;
     private final FlowEditor editor;
     private final CheckBox matchCaseCheckBox;
+    private final CheckBox wholeWordCheckBox;
+    private final CheckBox regexCheckBox;
     private final Button previousButton;
     private final Button nextButton;
     private final TextField findField;
     private FindNavigator currentNavigator;
     private final BooleanProperty findResultsFound = new SimpleBooleanProperty(false);
+    // True if the search has finished and found nothing (the find field then turns red):
+    private final BooleanProperty noFindResults = new SimpleBooleanProperty(false);
     private final SimpleBooleanProperty showingReplace;
 
     /**
@@ -121,6 +125,19 @@ public class FindPanel extends GridPane
         JavaFXUtil.addChangeListenerPlatform(matchCaseCheckBox.selectedProperty(), cs -> {
             updateFindResult();
         });
+        wholeWordCheckBox = new CheckBox();
+        wholeWordCheckBox.setText(Config.getString("editor.findpanel.wholeWord"));
+        wholeWordCheckBox.setSelected(false);
+        JavaFXUtil.addChangeListenerPlatform(wholeWordCheckBox.selectedProperty(), cs -> {
+            updateFindResult();
+        });
+        regexCheckBox = new CheckBox();
+        regexCheckBox.setText(Config.getString("editor.findpanel.regex"));
+        regexCheckBox.setSelected(false);
+        JavaFXUtil.addChangeListenerPlatform(regexCheckBox.selectedProperty(), cs -> {
+            updateFindResult();
+        });
+        JavaFXUtil.bindPseudoclass(findField, "bj-no-find-result", noFindResults);
         Label closeIconLabel = new Label();
         closeIconLabel.setGraphic(makeCloseIcon());
         closeIconLabel.setOnMouseClicked(e -> cancelFind());
@@ -151,6 +168,12 @@ public class FindPanel extends GridPane
         nextButton.setGraphic(nextShortcut);
         nextButton.setDisable(true);
 
+        JavaFXUtil.addChangeListenerPlatformAndCallNow(findResultsFound, newVal ->
+        {
+            previousButton.setDisable(!newVal);
+            nextButton.setDisable(!newVal);
+        });
+
         nextShortcut.visibleProperty().bind(findField.focusedProperty());
         prevShortcut.visibleProperty().bind(findField.focusedProperty());
 
@@ -181,8 +204,12 @@ public class FindPanel extends GridPane
         JavaFXUtil.addStyleClass(mcBody, "moe-find-options");
         mcBody.setAlignment(Pos.CENTER);
         matchCaseCheckBox.setAlignment(Pos.CENTER);
+        wholeWordCheckBox.setAlignment(Pos.CENTER);
+        regexCheckBox.setAlignment(Pos.CENTER);
         replaceFoldOutLabel.setAlignment(Pos.CENTER);
         mcBody.getChildren().add(matchCaseCheckBox);
+        mcBody.getChildren().add(wholeWordCheckBox);
+        mcBody.getChildren().add(regexCheckBox);
         mcBody.getChildren().add(replaceFoldOutLabel);
 
         Label replaceLabel = new Label(Config.getString("editor.replacePanel.replaceLabel"));
@@ -276,6 +303,7 @@ public class FindPanel extends GridPane
         replaceField.clear();
         setReplaceEnabled(false);
         setVisible(false);
+        editor.endSearch();
     }
 
     /**
@@ -284,7 +312,8 @@ public class FindPanel extends GridPane
      */
     private void updateFindResult()
     {
-        setCurrentNavigator(editor.doFind(getSearchString(), !matchCaseCheckBox.isSelected()));
+        setCurrentNavigator(editor.doFind(getSearchString(), !matchCaseCheckBox.isSelected(),
+                regexCheckBox.isSelected(), wholeWordCheckBox.isSelected()));
     }
 
     /**
@@ -298,28 +327,22 @@ public class FindPanel extends GridPane
     private void setCurrentNavigator(FindNavigator navigator)
     {
         currentNavigator = navigator;
-        previousButton.disableProperty().unbind();
-        nextButton.disableProperty().unbind();
+        findResultsFound.unbind();
+        noFindResults.unbind();
         if (currentNavigator == null)
         {
-            // Don't turn us red if the search string is empty:
-            JavaFXUtil.setPseudoclass("bj-no-find-result", !getSearchString().isEmpty(), findField);
-            previousButton.setDisable(true);
-            nextButton.setDisable(true);
+            // Don't turn us red if the search string is empty
+            // (but do if it is an invalid regex):
+            noFindResults.set(!getSearchString().isEmpty());
             findResultsFound.set(false);
         }
         else
         {
-
-            JavaFXUtil.setPseudoclass("bj-no-find-result", false, findField);
+            // The search runs in the background, so the results may not all be in yet:
+            findResultsFound.bind(currentNavigator.matchCountProperty().greaterThan(0));
+            noFindResults.bind(currentNavigator.completeProperty().and(findResultsFound.not()));
             currentNavigator.highlightAll();
             currentNavigator.selectNext(true);
-            JavaFXUtil.addChangeListenerPlatformAndCallNow(findResultsFound, newVal -> 
-            {
-                previousButton.setDisable(!newVal);
-                nextButton.setDisable(!newVal);
-            });
-            findResultsFound.set(true);
         }
     }
 
@@ -335,6 +358,12 @@ public class FindPanel extends GridPane
         }
         this.setVisible(true);
         populateFindTextfield(selection);
+        // The search is ended when the panel is closed, so if the text is unchanged
+        // (and thus no new search has been started), start it again:
+        if (currentNavigator == null || !currentNavigator.validProperty().get())
+        {
+            updateFindResult();
+        }
     }
 
     public String getSearchString()
@@ -377,7 +406,7 @@ public class FindPanel extends GridPane
      */
     public void close()
     {
-        editor.removeSearchHighlights();
+        editor.endSearch();
         this.setVisible(false);
         editor.getSourcePane().requestFocus();
     }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021,2022,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2022,2023,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -95,14 +95,17 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.io.CharStreams;
 import javafx.beans.binding.BooleanExpression;
 import javafx.beans.binding.DoubleExpression;
+import javafx.beans.binding.IntegerExpression;
 import javafx.beans.binding.StringExpression;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyDoubleWrapper;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
@@ -167,7 +170,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     final static String ActionSuffix = "Action";
 
     private final FlowEditorPane flowEditorPane;
-    private final HoleDocument document;
+    private final PieceTreeDocument document;
     private final JavaSyntaxView javaSyntaxView;
     private final FetchTabbedEditor fetchTabbedEditor;
     private final FlowFXTab fxTab;
@@ -197,6 +200,11 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     private ErrorDisplay errorDisplay;
     private final BitSet breakpoints = new BitSet();
     private int currentStepLineIndex = -1;
+    // Line number -> fraction of profile samples, shown in the margin (see setProfileHeat):
+    private Map<Integer, Double> profileHeat = Collections.emptyMap();
+    // Whether the text has been edited since the classes were last compiled, in which
+    // case the profile's line numbers may not match the text and no heat is shown:
+    private boolean profileLinesStale = false;
     private ComboBox<String> interfaceToggle;
     private final WebView htmlPane;
     private String filename;                // name of file or null
@@ -204,8 +212,16 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     private Charset characterSet;           // character set of the file
     private String windowTitle;
     private final Properties resources = Config.moeUserProps;
-    // Each element is size 2: beginning (incl) and end (excl)
-    private final ArrayList<int[]> findResults = new ArrayList<>();
+    // Finds (and keeps up to date) the matches of the current search:
+    private final FindEngine findEngine;
+    // Whether all the matches of the current search should be highlighted:
+    private boolean highlightFindResults = false;
+    // The number of matches of the current search found so far, and whether the search has finished:
+    private final IntegerProperty findMatchCount = new SimpleIntegerProperty(0);
+    private final BooleanProperty findComplete = new SimpleBooleanProperty(true);
+    // If not null, selectNext should be called (with this argument) on the current search
+    // result as soon as a suitable match is found by the background search:
+    private Boolean pendingSelectNext = null;
     /**
      * list of actions that are disabled in the readme text file
      */
@@ -213,8 +229,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
 
     // find functionality
     private final FindPanel finder;
-    // The most recent active FindNavigator.  Returns null if there has been no search,
-    // or if the document has been modified since the last search.
+    // The most recent active FindNavigator.  Returns null if there has been no search.
     private final ObjectProperty<FindNavigator> currentSearchResult = new SimpleObjectProperty<>(null);
     private String lastSearchString = "";
 
@@ -426,6 +441,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         this.flowEditorPane = new FlowEditorPane("", this);
         this.document = flowEditorPane.getDocument();
         this.document.addListener(false, this);
+        this.findEngine = new FindEngine(document, this::findMatchesChanged);
         this.javaSyntaxView = new JavaSyntaxView(document, flowEditorPane, this, parentResolver, syntaxHighlighting);
         this.flowEditorPane.setErrorQuery(errorManager);
         this.undoManager = new UndoManager(document);
@@ -511,8 +527,9 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
                 for (int i = fromIncl; i <= toIncl; i++)
                 {
                     flowEditorPane.setLineMarginGraphics(i, FlowEditor.this.calculateMarginDisplay(i));
+                    showProfileHeat(i);
                 }
-                flowEditorPane.showHighlights(HighlightType.FIND_RESULT, findResults);
+                showFindResults();
                 flowEditorPane.showHighlights(HighlightType.BRACKET_MATCH, bracketMatches);
             }
         });
@@ -1962,6 +1979,40 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         }
     }
 
+    @Override
+    @OnThread(Tag.FXPlatform)
+    public void setProfileHeat(Map<Integer, Double> lineFractions)
+    {
+        applyProfileHeat(profileLinesStale ? Collections.emptyMap() : lineFractions);
+    }
+
+    private void applyProfileHeat(Map<Integer, Double> lineFractions)
+    {
+        Set<Integer> changed = new HashSet<>(profileHeat.keySet());
+        changed.addAll(lineFractions.keySet());
+        profileHeat = new HashMap<>(lineFractions);
+        for (int lineNumber : changed)
+        {
+            showProfileHeat(lineNumber - 1);
+        }
+    }
+
+    private void showProfileHeat(int lineIndex)
+    {
+        Double fraction = profileHeat.get(lineIndex + 1);
+        if (fraction == null)
+        {
+            flowEditorPane.setLineProfileHeat(lineIndex, 0, null);
+        }
+        else
+        {
+            // Most lines have a small fraction, so scale up to make them visible:
+            String percent = String.format("%.1f", fraction * 100.0);
+            flowEditorPane.setLineProfileHeat(lineIndex, Math.sqrt(fraction),
+                    Config.getString("editor.profile.heat").replace("$", percent));
+        }
+    }
+
     /**
      * Change class name.
      *
@@ -2040,6 +2091,11 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     public void compileFinished(boolean successful, boolean classesKept)
     {
         compilationStarted = false;
+        if (successful && classesKept && !requeueForCompilation)
+        {
+            // Any new profile will be of the classes we have just compiled:
+            profileLinesStale = false;
+        }
         if (requeueForCompilation) {
             requeueForCompilation = false;
             if (classesKept)
@@ -2150,6 +2206,11 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
             setChanged();
         }
 
+        if (!ignoreChanges && !profileLinesStale) {
+            profileLinesStale = true;
+            applyProfileHeat(Collections.emptyMap());
+        }
+
         if (!ignoreChanges && (linesRemoved > 0 || linesAdded > 0)) // For a multi-line change, always compile:
         {
             saveState.setState(Status.CHANGED);
@@ -2166,9 +2227,8 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         // document-changed callback causes an extra change notification 
         // to be regenerated by RichTextFX, which is unwanted.
         // So we must run those later:
+        // (The find results don't need removing; the find engine keeps them up to date.)
         JavaFXUtil.runAfterCurrent(() -> {
-            removeSearchHighlights();
-            currentSearchResult.setValue(null);
             removeErrorHighlights();
             showErrorOverlay(null, 0);
         });
@@ -2779,7 +2839,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
      */
     private boolean checkCodeIsOnImportStatement(String code)
     {
-        JavaLexer l = new JavaLexer(new StringReader(code));
+        JavaLexer l = new JavaLexer(code);
         boolean isInImportStatement = false;
         for (LocatableToken t = l.nextToken(); t.getType() != JavaTokenTypes.EOF && t.getType() != JavaTokenTypes.LITERAL_class
             && t.getType() != JavaTokenTypes.LITERAL_interface && t.getType() != JavaTokenTypes.LITERAL_enum; t = l.nextToken())
@@ -2828,7 +2888,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         List<String> userCodeImportsList = new ArrayList<>();
         boolean parsingUserCodeImport = false;
         StringBuilder userCodeImportSB = new StringBuilder();
-        JavaLexer l = new JavaLexer(new StringReader(this.getText(new SourceLocation(1, 1), getLineColumnFromOffset(getTextLength()))));
+        JavaLexer l = new JavaLexer(this.getText(new SourceLocation(1, 1), getLineColumnFromOffset(getTextLength())));
         for (LocatableToken t = l.nextToken(); t.getType() != JavaTokenTypes.EOF && t.getType() != JavaTokenTypes.LITERAL_class 
             && t.getType() != JavaTokenTypes.LITERAL_interface && t.getType() != JavaTokenTypes.LITERAL_enum; t = l.nextToken())
         {
@@ -2968,72 +3028,69 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     }
 
     /**
-     * Do a find forwards or backwards, and highlight all cases.
+     * Do a find, and return a FindNavigator which can be used to cycle between
+     * (and highlight) the search results.
      *
-     * The case after the cursor (if backwards is false) or before it (if
-     * backwards is true) is given a special highlight.
+     * The search runs in the background, so the results may not all be available
+     * straight away; see FindNavigator.  The search stays valid (and its results are
+     * updated) as the document is modified, until doFind is next called with a different search.
      *
-     * Returns null if nothing was found.  If something was found, gives
-     * you back a class you can use to cycle between search results.  It
-     * becomes invalid next time doFind is called, or if the document is modified.
+     * Returns null if the search is empty, or is an invalid regular expression.
+     *
+     * @param regex      whether the search is a regular expression
+     * @param wholeWord  whether to only find whole words (i.e. not parts of identifiers)
      */
-    FindNavigator doFind(String searchFor, boolean ignoreCase)
+    FindNavigator doFind(String searchFor, boolean ignoreCase, boolean regex, boolean wholeWord)
     {
-        removeSearchHighlights();
         // Deselect existing selection in case it's no longer a valid search result.
         // Move back to beginning of selection:
         flowEditorPane.positionCaret(flowEditorPane.getSelectionStart());
         lastSearchString = searchFor;
-        String content = document.getFullContent();
-
-        int curPosition = 0;
-        boolean finished = false;
-
-        List<Integer> foundStarts = new ArrayList<>();
-
-        while (!finished)
+        Pattern pattern = FindEngine.makePattern(searchFor, ignoreCase, regex, wholeWord);
+        if (pattern != null && currentSearchResult.get() != null && findEngine.isSearchingFor(pattern))
         {
-            int foundPos = FindNavigator.findSubstring(content, searchFor, ignoreCase, false, curPosition);
-            if (foundPos != -1)
-            {
-                foundStarts.add(foundPos);
-                curPosition = foundPos + searchFor.length();
-            }
-            else
-            {
-                finished = true;
-            }
+            // Same search as before, and the results are still up to date:
+            return currentSearchResult.get();
         }
-        currentSearchResult.set(foundStarts.isEmpty() ? null : new FindNavigator()
+
+        removeSearchHighlights();
+        pendingSelectNext = null;
+        findEngine.search(pattern, regex);
+        currentSearchResult.set(pattern == null ? null : new FindNavigator()
         {
             @Override
             public void highlightAll()
             {
-                findResults.clear();
-                findResults.addAll(Utility.mapList(foundStarts, foundPos -> new int[] {foundPos, foundPos + searchFor.length()}));
-                flowEditorPane.showHighlights(HighlightType.FIND_RESULT, findResults);
+                highlightFindResults = true;
+                showFindResults();
             }
 
             @Override
             public FindNavigator replaceCurrent(String replacement)
             {
-                if (!flowEditorPane.getSelectedText().equals(searchFor))
+                int index = findEngine.indexOf(flowEditorPane.getSelectionStart(), flowEditorPane.getSelectionEnd());
+                if (index == -1)
                 {
                     selectNext(true);
+                    index = findEngine.indexOf(flowEditorPane.getSelectionStart(), flowEditorPane.getSelectionEnd());
+                    if (index == -1)
+                    {
+                        // Nothing found (yet):
+                        return this;
+                    }
                 }
-                int pos = flowEditorPane.getSelectionStart();
-                document.replaceText(pos, pos + searchFor.length(), replacement);
-                flowEditorPane.positionCaret(pos + searchFor.length());
-                return doFind(searchFor, ignoreCase);
+                int pos = findEngine.getStart(index);
+                String replacementText = findEngine.getReplacement(index, replacement);
+                document.replaceText(pos, findEngine.getEnd(index), replacementText);
+                flowEditorPane.positionCaret(pos + replacementText.length());
+                // The find engine updates the results, so we remain valid:
+                return this;
             }
 
             public void replaceAll(String replacement)
             {
-                // Sort all the found positions in descending order, so we can replace them
-                // in order without affecting the later positions in the list (earlier in file):
-                foundStarts.stream().sorted(Comparator.reverseOrder()).forEach(pos ->
-                    document.replaceText(pos, pos + searchFor.length(), replacement)
-                );
+                findEngine.replaceAll(replacement);
+                currentSearchResult.set(null);
             }
 
             @Override
@@ -3041,18 +3098,28 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
             {
                 if (validProperty().get())
                 {
-                    int selStart = flowEditorPane.getSelectionStart();
-                    int position = foundStarts.stream()
-                        .filter(pos -> pos > selStart || (canBeAtCurrentPos && pos == selStart))
-                        .findFirst()
-                        .orElse(foundStarts.get(0));
-                    select(position);
+                    int index = findEngine.findNext(flowEditorPane.getSelectionStart(), canBeAtCurrentPos);
+                    if (index == -1 && findEngine.isComplete() && findEngine.getMatchCount() > 0)
+                    {
+                        // Wrap around to the beginning:
+                        index = 0;
+                    }
+                    if (index == -1)
+                    {
+                        // There may be a match still to come from the background search:
+                        pendingSelectNext = findEngine.isComplete() ? null : canBeAtCurrentPos;
+                    }
+                    else
+                    {
+                        pendingSelectNext = null;
+                        select(index);
+                    }
                 }
             }
 
-            private void select(int position)
+            private void select(int index)
             {
-                flowEditorPane.select(position, position + searchFor.length());
+                flowEditorPane.select(findEngine.getStart(index), findEngine.getEnd(index));
             }
 
             @Override
@@ -3060,12 +3127,17 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
             {
                 if (validProperty().get())
                 {
-                    int selStart = flowEditorPane.getSelectionStart();
-                    int position = Utility.streamReversed(foundStarts)
-                        .filter(pos -> pos < selStart)
-                        .findFirst()
-                        .orElse(foundStarts.get(foundStarts.size() - 1));
-                    select(position);
+                    int index = findEngine.findPrevious(flowEditorPane.getSelectionStart());
+                    if (index == -1 && findEngine.isComplete() && findEngine.getMatchCount() > 0)
+                    {
+                        // Wrap around to the end:
+                        index = findEngine.getMatchCount() - 1;
+                    }
+                    if (index != -1)
+                    {
+                        pendingSelectNext = null;
+                        select(index);
+                    }
                 }
             }
 
@@ -3074,20 +3146,78 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
             {
                 return currentSearchResult.isEqualTo(this);
             }
+
+            @Override
+            public IntegerExpression matchCountProperty()
+            {
+                return findMatchCount;
+            }
+
+            @Override
+            public BooleanExpression completeProperty()
+            {
+                return findComplete;
+            }
         });
         return currentSearchResult.get();
     }
 
+    /**
+     * Called by the find engine when the search results have changed.
+     */
+    private void findMatchesChanged()
+    {
+        findMatchCount.set(findEngine.getMatchCount());
+        findComplete.set(findEngine.isComplete());
+        showFindResults();
+        if (pendingSelectNext != null && currentSearchResult.get() != null)
+        {
+            currentSearchResult.get().selectNext(pendingSelectNext);
+        }
+    }
+
+    /**
+     * Shows the find results on the visible lines, if they are being highlighted.
+     */
+    private void showFindResults()
+    {
+        int[] visibleLines = flowEditorPane.getLineRangeVisible();
+        if (!highlightFindResults || visibleLines[1] < visibleLines[0])
+        {
+            flowEditorPane.showHighlights(HighlightType.FIND_RESULT, List.of());
+        }
+        else
+        {
+            // Only the results on the visible lines are needed, which we can fetch
+            // without going through all the results:
+            flowEditorPane.showHighlights(HighlightType.FIND_RESULT, findEngine.getMatchesBetween(
+                    document.getLineStart(visibleLines[0]), document.getLineEnd(visibleLines[1]) + 1));
+        }
+    }
+
     /**
      * Removes the selected highlights (in both the source/doc pane)
      * Note: the other highlights such as the brackets etc remain
      */
     public void removeSearchHighlights()
     {
-        findResults.clear();
+        highlightFindResults = false;
         flowEditorPane.showHighlights(HighlightType.FIND_RESULT, List.of());
     }
 
+    /**
+     * Ends the current search (when the find panel is closed): removes the highlights,
+     * and stops the find engine searching and keeping the results up to date.
+     * The search string is remembered for use by find-next.
+     */
+    public void endSearch()
+    {
+        removeSearchHighlights();
+        pendingSelectNext = null;
+        findEngine.search(null, false);
+        currentSearchResult.set(null);
+    }
+
     /**
      * Sets the find panel to be visible and if there is a selection/or previous search
      * it starts a automatic find of what was selected in the text/or previous search. If
@@ -3109,7 +3239,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
             String search = flowEditorPane.getSelectedText();
             if (search.isEmpty())
                 search = lastSearchString;
-            doFind(search, true);
+            doFind(search, true, false, false);
         }
         if (currentSearchResult.get() != null)
         {
@@ -3439,7 +3569,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     @OnThread(Tag.FXPlatform)
     public FXRunnable printTo(PrinterJob printerJob, PrintSize printSize, boolean printLineNumbers, boolean printScopeBackgrounds, PrintProgressUpdate progressUpdate)
     {
-        Document doc = new HoleDocument();
+        Document doc = new PieceTreeDocument();
         doc.replaceText(0, 0, document.getFullContent());
         OffScreenFlowEditorPaneListener flowEditorPaneListener = new OffScreenFlowEditorPaneListener();
         final String fontCSS;
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -83,7 +83,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
 {
     private final FlowEditorPaneListener listener;
 
-    private final HoleDocument document;
+    private final PieceTreeDocument document;
     
     private final TrackedPosition anchor;
     private final TrackedPosition caret;
@@ -114,7 +114,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
         super(true, listener);
         this.listener = listener;
         setSnapToPixel(true);
-        document = new HoleDocument();
+        document = new PieceTreeDocument();
         document.replaceText(0, 0, content);
         caret = document.trackPosition(0, Bias.FORWARD);
         // Important that the anchor is a different object to the caret, as they will move independently:
@@ -444,6 +444,17 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
         }
     }
 
+    /**
+     * Set the profile heat bar for a line, if it is visible (see MarginAndTextLine.setProfileHeat).
+     */
+    public void setLineProfileHeat(int lineIndex, double intensity, String tooltip)
+    {
+        if (lineDisplay.isLineVisible(lineIndex))
+        {
+            lineDisplay.getVisibleLine(lineIndex).setProfileHeat(intensity, tooltip);
+        }
+    }
+
     /**
      * Called when the font size has changed; redisplay accordingly.
      */
@@ -485,7 +496,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
         lineDisplay.hideAllErrorUnderlines();
     }
 
-    public HoleDocument getDocument()
+    public PieceTreeDocument getDocument()
     {
         return document;
     }
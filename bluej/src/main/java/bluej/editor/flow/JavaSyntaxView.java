@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2014,2015,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2014,2015,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -182,7 +182,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
      */
     private final Map<Integer, List<SingleNestedScope>> pendingScopeBackgrounds = new HashMap<>();
     
-    private final Map<Integer, List<StyledSegment>> styledLines = new HashMap<>();
+    private final LineStyleCache styledLines = new LineStyleCache();
     
     private final LiveScopeBackgrounds scopeBackgrounds; 
 
@@ -337,7 +337,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
         this.nodeIndents.addListener(scopeBackgrounds);
         this.document = document;
         // We must clear styledLines if any triple quotes change:
-        this.multilineStringTracker = new MultilineStringTracker(this.document, () -> styledLines.clear());
+        this.multilineStringTracker = new MultilineStringTracker(this.document, () -> styledLines.invalidateAll());
         this.display = display;
         this.syntaxHighlighting = syntaxHighlighting;
         this.scopeColors = scopeColors;
@@ -400,11 +400,13 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
                 if (oldText.length() != 0)
                 {
                     scopeBackgrounds.linesRemoved(document.getLineFromPosition(start), linesRemoved);
+                    styledLines.linesRemoved(document.getLineFromPosition(start), linesRemoved);
                     fireRemoveUpdate(start, oldText.length());
                 }
                 if (newText.length() != 0)
                 {
                     scopeBackgrounds.linesAdded(document.getLineFromPosition(start), linesAdded);
+                    styledLines.linesAdded(document.getLineFromPosition(start), linesAdded);
                     fireInsertUpdate(start, newText.length());
                 }                
                 scheduleReparseRunner();
@@ -442,12 +444,11 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
         if (!syntaxHighlighting.get() || rootNode == null)
             return Collections.singletonList(new StyledSegment(Collections.emptyList(), lineContent.toString()));
 
-        // If there is a cached style and the content matches, use that:
-        List<StyledSegment> cached = styledLines.get(lineIndex);
-        if (cached != null && lineContent.equals(asCharSequence(cached)))
+        // If there is a cached style for the line, use that:
+        List<StyledSegment> cached = styledLines.get(lineIndex, lineContent);
+        if (cached != null)
             return cached;
 
-        ArrayList<StyledSegment> lineStyle = new ArrayList<>();
         int curPosInLine = 0;
         int lineStart = document.getLineStart(lineIndex);
         int lineEnd = document.getLineEnd(lineIndex);
@@ -459,7 +460,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
 
         if (textBlockRelation == TextBlockRelation.ENTIRELY_INSIDE)
         {
-            lineStyle.add(new StyledSegment(List.of("token-string-literal"), lineContent.toString()));
+            styledLines.addRun(lineContent.length(), TokenType.STRING_LITERAL);
         }
         else
         {
@@ -470,8 +471,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
             Token nextToken = tas.tokenLinkedList();
             while (nextToken.id != TokenType.END)
             {
-                String tokenContent = lineContent.subSequence(curPosInLine, curPosInLine + nextToken.length).toString();
-                if (tokenContent.equals("\"\"\""))
+                if (isTripleQuote(lineContent, curPosInLine, nextToken.length))
                 {
                     // We've encounted a triple quote; if we're expecting opening we change to inside,
                     // otherwise it was a close and we just expect an opening quote:
@@ -480,71 +480,21 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
                     else
                         textBlockRelation = TextBlockRelation.OPENING_LINE_ONLY;
                 }
-                List<String> tokenStyle = Collections.singletonList((textBlockRelation != TextBlockRelation.OPENING_LINE_ONLY && textBlockRelation != TextBlockRelation.NONE ? TokenType.STRING_LITERAL : nextToken.id).getCSSClass());
-                lineStyle.add(new StyledSegment(tokenStyle, tokenContent));
+                styledLines.addRun(nextToken.length, textBlockRelation != TextBlockRelation.OPENING_LINE_ONLY && textBlockRelation != TextBlockRelation.NONE ? TokenType.STRING_LITERAL : nextToken.id);
                 curPosInLine += nextToken.length;
                 nextToken = nextToken.next;
             }
-            // Very important to add a blank item if the line is blank, otherwise the line will get collapsed
-            // in the display:
-            if (lineStyle.isEmpty())
-            {
-                lineStyle.add(new StyledSegment(Collections.emptyList(), ""));
-            }
         }
-        styledLines.put(lineIndex, lineStyle);
-        return lineStyle;
+        return styledLines.store(lineIndex, lineContent);
     }
 
-    private CharSequence asCharSequence(List<StyledSegment> styledSegments)
+    /**
+     * Check whether the given part of a line is a triple quote (""").
+     */
+    private static boolean isTripleQuote(CharSequence lineContent, int start, int length)
     {
-        int length = styledSegments.stream().mapToInt(s -> s.getText().length()).sum();
-        return new CharSequence()
-        {
-            // Speed up sequential access with a cache:
-            
-            // Which segment was the last character in?
-            int lastSegmentIndex = 0;
-            // What is the start of that segment relative to the start of the whole content?
-            int lastSegmentStart = 0;
-            
-            @Override
-            public int length()
-            {
-                return length;
-            }
-
-            @Override
-            public char charAt(int index)
-            {
-                if (index < lastSegmentStart)
-                {
-                    // Start again
-                    lastSegmentIndex = 0;
-                    lastSegmentStart = 0;
-                }
-                do
-                {
-                    // Is it in this segment?:
-                    String lastSegmentText = styledSegments.get(lastSegmentIndex).getText();
-                    if (index - lastSegmentStart < lastSegmentText.length())
-                    {
-                        return lastSegmentText.charAt(index - lastSegmentStart);
-                    }
-                    // Otherwise, next segment:
-                    lastSegmentStart += lastSegmentText.length();
-                    lastSegmentIndex += 1;
-                }
-                while (lastSegmentIndex < styledSegments.size());
-                throw new StringIndexOutOfBoundsException(index);
-            }
-
-            @Override
-            public CharSequence subSequence(int start, int end)
-            {
-                throw new UnsupportedOperationException();
-            }
-        };
+        return length == 3 && lineContent.charAt(start) == '"' && lineContent.charAt(start + 1) == '"'
+                && lineContent.charAt(start + 2) == '"';
     }
 
     /**
@@ -1832,6 +1782,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
             int line = document.getLineFromPosition(damageStart);
             int lastline = document.getLineFromPosition(damageEnd - 1);
             recalculateScopes(line, lastline);
+            styledLines.invalidate(line, lastline);
         }
     }
 
@@ -2335,6 +2286,8 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     @OnThread(value = Tag.FXPlatform, ignoreParent = true)
     public void renderedLines(int fromLineIndexIncl, int toLineIndexIncl)
     {        
+        styledLines.rendered(fromLineIndexIncl, toLineIndexIncl);
+        
         int newBeforeStartIncl = fromLineIndexIncl;
         int newBeforeEndIncl = latestRenderStartIncl - 1;
         
@@ -2546,10 +2499,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
      */
     public void restyleLines(int start, int end)
     {
-        for (int i = start; i <= end; i++)
-        {
-            styledLines.remove(i);
-        }
+        styledLines.invalidate(start, end);
     }
 
     /**
@@ -0,0 +1,242 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import bluej.parser.Token.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A cache of the syntax styling of each line in a Java editor.  Each line's styling is held
+ * compactly, as runs of (length, token type) packed into an int array.  Lines which are on
+ * screen also hold the styled segments made from those runs, so that redisplaying them
+ * doesn't involve any work at all.
+ *
+ * Cached entries move with their lines as lines are added and removed above them, so an
+ * edit only invalidates the lines which it (or the resulting reparse) touches.  Each entry
+ * is also stamped with the version of the cache when it was made, so that the whole cache
+ * can be invalidated at once without visiting every line.
+ */
+class LineStyleCache
+{
+    // The low bits of each run hold the token type; the rest hold the length:
+    private static final int TYPE_BITS = 4;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    // The CSS classes for each token type, by ordinal:
+    private static final List<List<String>> TYPE_CLASSES = new ArrayList<>();
+
+    static
+    {
+        if (TOKEN_TYPES.length > TYPE_MASK + 1)
+        {
+            throw new IllegalStateException("Too many token types for LineStyleCache");
+        }
+        for (TokenType type : TOKEN_TYPES)
+        {
+            TYPE_CLASSES.add(Collections.singletonList(type.getCSSClass()));
+        }
+    }
+
+    /**
+     * The cached styling of one line.
+     */
+    private static class LineStyle
+    {
+        private final int version;
+        // The length of the line when it was styled:
+        private final int length;
+        private final int[] runs;
+        // The segments made from the runs, if the line has been shown recently (otherwise null):
+        private List<StyledSegment> segments;
+        // The last time (see renderCount) that the line was on screen:
+        private int renderedAt;
+
+        private LineStyle(int version, int length, int[] runs)
+        {
+            this.version = version;
+            this.length = length;
+            this.runs = runs;
+        }
+    }
+
+    // By line index; null if not cached.  May be shorter than the document:
+    private final ArrayList<LineStyle> lines = new ArrayList<>();
+    private int version = 0;
+    // The runs of the line currently being styled:
+    private int[] pendingRuns = new int[64];
+    private int pendingRunCount = 0;
+    // The lines which currently hold their segments:
+    private final ArrayList<LineStyle> withSegments = new ArrayList<>();
+    // The number of times that lines have been shown on screen:
+    private int renderCount = 0;
+
+    /**
+     * Get the cached styling for the given line.
+     *
+     * @param lineContent  The current content of the line
+     * @return The styled segments, or null if the line must be styled again, by
+     *         calling {@link #addRun} for each run and then {@link #store}.
+     */
+    public List<StyledSegment> get(int lineIndex, CharSequence lineContent)
+    {
+        LineStyle style = lineIndex < lines.size() ? lines.get(lineIndex) : null;
+        if (style == null || style.version != version || style.length != lineContent.length())
+        {
+            pendingRunCount = 0;
+            return null;
+        }
+        if (style.segments == null)
+        {
+            style.segments = makeSegments(style.runs, lineContent);
+            withSegments.add(style);
+        }
+        return style.segments;
+    }
+
+    /**
+     * Add a run to the styling of the line being styled.  Once all the runs have been
+     * added, call {@link #store}.
+     */
+    public void addRun(int length, TokenType type)
+    {
+        if (pendingRunCount == pendingRuns.length)
+        {
+            pendingRuns = Arrays.copyOf(pendingRuns, pendingRuns.length * 2);
+        }
+        pendingRuns[pendingRunCount++] = (length << TYPE_BITS) | type.ordinal();
+    }
+
+    /**
+     * Store the runs which have been added as the styling of the given line.
+     *
+     * @param lineContent  The current content of the line
+     * @return The styled segments for the line.
+     */
+    public List<StyledSegment> store(int lineIndex, CharSequence lineContent)
+    {
+        LineStyle style = new LineStyle(version, lineContent.length(), Arrays.copyOf(pendingRuns, pendingRunCount));
+        pendingRunCount = 0;
+        style.segments = makeSegments(style.runs, lineContent);
+        withSegments.add(style);
+        while (lines.size() <= lineIndex)
+        {
+            lines.add(null);
+        }
+        lines.set(lineIndex, style);
+        return style.segments;
+    }
+
+    private static List<StyledSegment> makeSegments(int[] runs, CharSequence lineContent)
+    {
+        // Very important to have a blank item if the line is blank, otherwise the line will get collapsed
+        // in the display:
+        if (runs.length == 0)
+        {
+            return Collections.singletonList(new StyledSegment(Collections.emptyList(), ""));
+        }
+        List<StyledSegment> segments = new ArrayList<>(runs.length);
+        int pos = 0;
+        for (int run : runs)
+        {
+            int length = run >>> TYPE_BITS;
+            segments.add(new StyledSegment(TYPE_CLASSES.get(run & TYPE_MASK), lineContent.subSequence(pos, pos + length).toString()));
+            pos += length;
+        }
+        return segments;
+    }
+
+    /**
+     * Mark the given lines (inclusive) as needing to be styled again.
+     */
+    public void invalidate(int firstLine, int lastLine)
+    {
+        for (int i = Math.max(0, firstLine); i <= lastLine && i < lines.size(); i++)
+        {
+            lines.set(i, null);
+        }
+    }
+
+    /**
+     * Mark all lines as needing to be styled again.
+     */
+    public void invalidateAll()
+    {
+        version += 1;
+    }
+
+    /**
+     * Lines have been added to the document after the given line.  The styling of
+     * that line is invalidated, and the cached styling of later lines moves down.
+     */
+    public void linesAdded(int lineIndex, int count)
+    {
+        invalidate(lineIndex, lineIndex);
+        if (count > 0 && lineIndex + 1 < lines.size())
+        {
+            lines.addAll(lineIndex + 1, Collections.nCopies(count, null));
+        }
+    }
+
+    /**
+     * Lines have been removed from the document after the given line (which they were
+     * joined on to).  The styling of that line is invalidated, and the cached styling
+     * of later lines moves up.
+     */
+    public void linesRemoved(int lineIndex, int count)
+    {
+        invalidate(lineIndex, lineIndex);
+        if (count > 0 && lineIndex + 1 < lines.size())
+        {
+            lines.subList(lineIndex + 1, Math.min(lines.size(), lineIndex + 1 + count)).clear();
+        }
+    }
+
+    /**
+     * The given lines (inclusive) are now shown on screen.  The styled segments of all
+     * other lines are discarded, keeping just their runs.
+     */
+    public void rendered(int fromLine, int toLine)
+    {
+        renderCount += 1;
+        for (int i = Math.max(0, fromLine); i <= toLine && i < lines.size(); i++)
+        {
+            LineStyle style = lines.get(i);
+            if (style != null)
+            {
+                style.renderedAt = renderCount;
+            }
+        }
+        withSegments.removeIf(style -> {
+            if (style.renderedAt != renderCount)
+            {
+                style.segments = null;
+                return true;
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,866 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.extensions2.editor.DocumentListener;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.Reader;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * A document which stores its content as a piece tree: a balanced tree (a treap) of
+ * pieces, each of which is a range of an append-only buffer holding all the text
+ * ever inserted.  Each node records the length and number of newlines in its subtree,
+ * so mapping between positions and lines, and replacing text, take time logarithmic
+ * in the number of pieces rather than linear in the size of the document.
+ *
+ * Unlike HoleDocument, line starts are not tracked positions, so an edit only has to
+ * update the positions which have been handed out by trackPosition (the caret, anchor,
+ * and so on).  The longest line is cached, and only recalculated when an edit changes it.
+ */
+public class PieceTreeDocument implements Document
+{
+    // The buffer is compacted when it is this many times bigger than the document
+    // (and bigger than COMPACT_MIN_LENGTH):
+    private static final int COMPACT_FACTOR = 4;
+    private static final int COMPACT_MIN_LENGTH = 65536;
+
+    // All the text inserted so far, in the order it was inserted.  Pieces refer to ranges
+    // of this buffer.  Content up to bufferLength is never changed once written, so
+    // readers can keep referring to it after the document is modified.
+    private char[] buffer = new char[1024];
+    private int bufferLength = 0;
+    // The indexes of all the newline characters in the buffer, in ascending order:
+    private int[] bufferNewlines = new int[64];
+    private int bufferNewlineCount = 0;
+
+    private Node root = null;
+    // Used for the treap node priorities:
+    private final Random random = new Random();
+
+    /**
+     * As in HoleDocument, we keep weak references to the tracked positions, and
+     * let them fall out of memory once the caller no longer needs them.
+     */
+    private final ArrayList<WeakReference<TrackedPosition>> trackedPositions = new ArrayList<>();
+    private final List<DocumentListener> listeners = new ArrayList<>();
+    // The attributes of lines which have any, by line index:
+    private final TreeMap<Integer, Map<Object, Object>> lineAttributes = new TreeMap<>();
+
+    // The index of the longest line (excluding the last line), and its length including
+    // the terminating newline.  An index of -1 means that it needs to be recalculated.
+    private int longestLineIndex = 0;
+    private int longestLineLength = 0;
+
+    /**
+     * A node in the piece tree.  The piece is a range of the buffer.
+     */
+    private static class Node
+    {
+        private final int bufferStart;
+        private int length;
+        // The index within bufferNewlines of the first newline at or after bufferStart:
+        private final int firstNewline;
+        // The number of newlines within this piece:
+        private int newlineCount;
+        private final int priority;
+        private Node left;
+        private Node right;
+        // The total length and number of newlines of this node and its children:
+        private int subtreeLength;
+        private int subtreeNewlines;
+
+        public Node(int bufferStart, int length, int firstNewline, int newlineCount, int priority)
+        {
+            this.bufferStart = bufferStart;
+            this.length = length;
+            this.firstNewline = firstNewline;
+            this.newlineCount = newlineCount;
+            this.priority = priority;
+            update();
+        }
+
+        private void update()
+        {
+            subtreeLength = length + length(left) + length(right);
+            subtreeNewlines = newlineCount + newlines(left) + newlines(right);
+        }
+    }
+
+    private static int length(Node node)
+    {
+        return node == null ? 0 : node.subtreeLength;
+    }
+
+    private static int newlines(Node node)
+    {
+        return node == null ? 0 : node.subtreeNewlines;
+    }
+
+    @Override
+    public void replaceText(int startCharIncl, int endCharExcl, String text)
+    {
+        String replaced = getContent(startCharIncl, endCharExcl);
+        int startLine = getLineFromPosition(startCharIncl);
+        int linesRemoved = getLineFromPosition(endCharExcl) - startLine;
+
+        Node[] beforeAndRest = split(root, startCharIncl);
+        Node after = split(beforeAndRest[1], endCharExcl - startCharIncl)[1];
+        Node before = beforeAndRest[0];
+
+        int linesAdded = 0;
+        if (!text.isEmpty())
+        {
+            int bufferStart = bufferLength;
+            int firstNewline = bufferNewlineCount;
+            appendToBuffer(text);
+            linesAdded = bufferNewlineCount - firstNewline;
+            if (before != null && endsAtBufferPosition(before, bufferStart))
+            {
+                // Typing continues on from the previous insertion, so we can extend that piece:
+                extendLast(before, text.length(), linesAdded);
+            }
+            else
+            {
+                before = merge(before, new Node(bufferStart, text.length(), firstNewline, linesAdded, random.nextInt()));
+            }
+        }
+        root = merge(before, after);
+
+        for (Iterator<WeakReference<TrackedPosition>> iterator = trackedPositions.iterator(); iterator.hasNext(); )
+        {
+            TrackedPosition trackedPosition = iterator.next().get();
+            if (trackedPosition == null)
+            {
+                iterator.remove();
+            }
+            else
+            {
+                trackedPosition.updateTrackedPosition(startCharIncl, endCharExcl, text.length());
+            }
+        }
+
+        updateLineAttributes(startLine, linesRemoved, linesAdded);
+        updateLongestLine(startLine, linesRemoved, linesAdded);
+
+        if (bufferLength > COMPACT_MIN_LENGTH && bufferLength > COMPACT_FACTOR * getLength())
+        {
+            compact();
+        }
+
+        // Take a copy in case one of the listeners removes themselves:
+        List<DocumentListener> listenersCopy = new ArrayList<>(this.listeners);
+        for (DocumentListener listener : listenersCopy)
+        {
+            listener.textReplaced(startCharIncl, replaced, text, linesRemoved, linesAdded);
+        }
+    }
+
+    /**
+     * Add the given text to the end of the buffer.
+     */
+    private void appendToBuffer(String text)
+    {
+        if (bufferLength + text.length() > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + text.length()));
+        }
+        text.getChars(0, text.length(), buffer, bufferLength);
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) == '\n')
+            {
+                if (bufferNewlineCount == bufferNewlines.length)
+                {
+                    bufferNewlines = Arrays.copyOf(bufferNewlines, bufferNewlines.length * 2);
+                }
+                bufferNewlines[bufferNewlineCount++] = bufferLength + i;
+            }
+        }
+        bufferLength += text.length();
+    }
+
+    /**
+     * Replace the buffer by one containing just the current content of the document, to
+     * reclaim the space used by text which has since been removed.
+     */
+    private void compact()
+    {
+        String content = getFullContent();
+        buffer = new char[Math.max(1024, content.length() * 2)];
+        bufferLength = 0;
+        bufferNewlineCount = 0;
+        appendToBuffer(content);
+        root = content.isEmpty() ? null : new Node(0, content.length(), 0, bufferNewlineCount, random.nextInt());
+    }
+
+    /**
+     * Check whether the last piece in the given subtree ends at the given buffer index.
+     */
+    private static boolean endsAtBufferPosition(Node node, int bufferIndex)
+    {
+        while (node.right != null)
+        {
+            node = node.right;
+        }
+        return node.bufferStart + node.length == bufferIndex;
+    }
+
+    /**
+     * Extend the last piece in the given subtree by the given amount.
+     */
+    private static void extendLast(Node node, int extraLength, int extraNewlines)
+    {
+        if (node.right == null)
+        {
+            node.length += extraLength;
+            node.newlineCount += extraNewlines;
+        }
+        else
+        {
+            extendLast(node.right, extraLength, extraNewlines);
+        }
+        node.update();
+    }
+
+    /**
+     * Split the given subtree into two: the first containing the given number of
+     * characters, and the second the rest.  A piece which straddles the split is
+     * divided in two.
+     */
+    private Node[] split(Node node, int offset)
+    {
+        if (node == null)
+        {
+            return new Node[] {null, null};
+        }
+        int leftLength = length(node.left);
+        if (offset <= leftLength)
+        {
+            Node[] parts = split(node.left, offset);
+            node.left = parts[1];
+            node.update();
+            return new Node[] {parts[0], node};
+        }
+        else if (offset >= leftLength + node.length)
+        {
+            Node[] parts = split(node.right, offset - leftLength - node.length);
+            node.right = parts[0];
+            node.update();
+            return new Node[] {node, parts[1]};
+        }
+        else
+        {
+            int cut = offset - leftLength;
+            Node first = makePiece(node.bufferStart, cut);
+            Node second = makePiece(node.bufferStart + cut, node.length - cut);
+            return new Node[] {merge(node.left, first), merge(second, node.right)};
+        }
+    }
+
+    /**
+     * Join two subtrees, with all of the first one's content coming before the second one's.
+     */
+    private static Node merge(Node first, Node second)
+    {
+        if (first == null)
+        {
+            return second;
+        }
+        else if (second == null)
+        {
+            return first;
+        }
+        else if (first.priority > second.priority)
+        {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        else
+        {
+            second.left = merge(first, second.left);
+            second.update();
+            return second;
+        }
+    }
+
+    private Node makePiece(int bufferStart, int length)
+    {
+        int firstNewline = firstNewlineFrom(bufferStart, 0, bufferNewlineCount);
+        int endNewline = firstNewlineFrom(bufferStart + length, firstNewline, bufferNewlineCount);
+        return new Node(bufferStart, length, firstNewline, endNewline - firstNewline, random.nextInt());
+    }
+
+    /**
+     * Find the index within bufferNewlines (between from and to) of the first newline
+     * at or after the given buffer index, or to if there is none.
+     */
+    private int firstNewlineFrom(int bufferIndex, int from, int to)
+    {
+        int index = Arrays.binarySearch(bufferNewlines, from, to, bufferIndex);
+        return index >= 0 ? index : -1 - index;
+    }
+
+    @Override
+    public String getFullContent()
+    {
+        return getContent(0, getLength());
+    }
+
+    @Override
+    public int getLength()
+    {
+        return length(root);
+    }
+
+    @Override
+    public int getLineFromPosition(int position)
+    {
+        // The line number is the number of newlines before the position:
+        Node node = root;
+        int count = 0;
+        while (node != null)
+        {
+            int leftLength = length(node.left);
+            if (position <= leftLength)
+            {
+                node = node.left;
+            }
+            else
+            {
+                count += newlines(node.left);
+                position -= leftLength;
+                if (position <= node.length)
+                {
+                    int endNewline = firstNewlineFrom(node.bufferStart + position, node.firstNewline, node.firstNewline + node.newlineCount);
+                    return count + endNewline - node.firstNewline;
+                }
+                count += node.newlineCount;
+                position -= node.length;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getColumnFromPosition(int position)
+    {
+        return position - getLineStart(getLineFromPosition(position));
+    }
+
+    @Override
+    public int getLineStart(int lineNumber)
+    {
+        if (lineNumber == 0)
+        {
+            return 0;
+        }
+        // Find the position after the lineNumber-th newline:
+        int newline = lineNumber;
+        Node node = root;
+        int offset = 0;
+        while (node != null)
+        {
+            int leftNewlines = newlines(node.left);
+            if (newline <= leftNewlines)
+            {
+                node = node.left;
+            }
+            else
+            {
+                newline -= leftNewlines;
+                offset += length(node.left);
+                if (newline <= node.newlineCount)
+                {
+                    return offset + bufferNewlines[node.firstNewline + newline - 1] - node.bufferStart + 1;
+                }
+                newline -= node.newlineCount;
+                offset += node.length;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException("Line " + lineNumber + " of " + getLineCount());
+    }
+
+    @Override
+    public int getLineEnd(int lineNumber)
+    {
+        if (lineNumber + 1 < getLineCount())
+        {
+            return getLineStart(lineNumber + 1) - 1;
+        }
+        else
+        {
+            return getLength();
+        }
+    }
+
+    @Override
+    public int getLineCount()
+    {
+        return newlines(root) + 1;
+    }
+
+    @Override
+    public List<CharSequence> getLines()
+    {
+        return new AbstractList<CharSequence>()
+        {
+            @Override
+            public CharSequence get(int lineIndex)
+            {
+                return getContent(getLineStart(lineIndex), getLineEnd(lineIndex));
+            }
+
+            @Override
+            public int size()
+            {
+                return getLineCount();
+            }
+        };
+    }
+
+    @Override
+    public TrackedPosition trackPosition(int position, Bias bias)
+    {
+        TrackedPosition trackedPosition = new TrackedPosition(this, position, bias);
+        trackedPositions.add(new WeakReference<>(trackedPosition));
+        return trackedPosition;
+    }
+
+    @Override
+    public void addListener(boolean atStart, DocumentListener listener)
+    {
+        if (atStart)
+            listeners.add(0, listener);
+        else
+            listeners.add(listener);
+    }
+
+    public void removeListener(DocumentListener listener)
+    {
+        // Remove all by reference equality, as in HoleDocument:
+        listeners.removeIf(l -> l == listener);
+    }
+
+    @Override
+    public String getContent(int startCharIncl, int endCharExcl)
+    {
+        char[] content = new char[endCharExcl - startCharIncl];
+        int pos = 0;
+        for (int[] segment : getSegments(startCharIncl, endCharExcl))
+        {
+            System.arraycopy(buffer, segment[0], content, pos, segment[1]);
+            pos += segment[1];
+        }
+        return new String(content);
+    }
+
+    /**
+     * Get the ranges of the buffer which make up the given range of the document, in order.
+     * Each item is of size 2: the start index within the buffer, and the length.
+     */
+    private List<int[]> getSegments(int startCharIncl, int endCharExcl)
+    {
+        List<int[]> segments = new ArrayList<>();
+        addSegments(root, startCharIncl, endCharExcl, segments);
+        return segments;
+    }
+
+    private static void addSegments(Node node, int from, int to, List<int[]> segments)
+    {
+        // from and to are relative to the start of this subtree:
+        if (node == null || from >= to)
+        {
+            return;
+        }
+        int leftLength = length(node.left);
+        if (from < leftLength)
+        {
+            addSegments(node.left, from, Math.min(to, leftLength), segments);
+        }
+        int pieceFrom = Math.max(from - leftLength, 0);
+        int pieceTo = Math.min(to - leftLength, node.length);
+        if (pieceFrom < pieceTo)
+        {
+            segments.add(new int[] {node.bufferStart + pieceFrom, pieceTo - pieceFrom});
+        }
+        int rightStart = leftLength + node.length;
+        if (to > rightStart)
+        {
+            addSegments(node.right, Math.max(from - rightStart, 0), to - rightStart, segments);
+        }
+    }
+
+    @Override
+    public Reader makeReader(int startPos, int endPos)
+    {
+        return new PieceReader(buffer, getSegments(startPos, endPos));
+    }
+
+    /**
+     * Get the current content of the document, without copying it.  The snapshot is
+     * unaffected by later modifications to the document (as the buffer is only ever
+     * appended to, or replaced), so it may be read from any thread, e.g. to search the
+     * document in the background.
+     */
+    public CharSequence getSnapshot()
+    {
+        List<int[]> segments = getSegments(0, getLength());
+        int[] bufferStarts = new int[segments.size()];
+        int[] offsets = new int[segments.size() + 1];
+        for (int i = 0; i < segments.size(); i++)
+        {
+            bufferStarts[i] = segments.get(i)[0];
+            offsets[i + 1] = offsets[i] + segments.get(i)[1];
+        }
+        return new Snapshot(buffer, bufferStarts, offsets);
+    }
+
+    public boolean hasLineAttribute(int lineIndex, Object attributeKey)
+    {
+        Map<Object, Object> attributes = lineAttributes.get(lineIndex);
+        return attributes != null && attributes.containsKey(attributeKey);
+    }
+
+    public void addLineAttribute(int lineIndex, Object key, Object value)
+    {
+        if (lineIndex >= 0 && lineIndex < getLineCount())
+        {
+            lineAttributes.computeIfAbsent(lineIndex, k -> new HashMap<>()).put(key, value);
+        }
+    }
+
+    public void removeLineAttributeThroughout(Object key)
+    {
+        lineAttributes.values().removeIf(attributes -> {
+            attributes.remove(key);
+            return attributes.isEmpty();
+        });
+    }
+
+    /**
+     * Move the line attributes after an edit.  As in HoleDocument, the attributes of the
+     * line where the edit started stay with that line, those of removed lines are
+     * discarded, and added lines have no attributes.
+     */
+    private void updateLineAttributes(int startLine, int linesRemoved, int linesAdded)
+    {
+        if (lineAttributes.isEmpty() || (linesRemoved == 0 && linesAdded == 0))
+        {
+            return;
+        }
+        Map<Integer, Map<Object, Object>> following = lineAttributes.tailMap(startLine + 1);
+        // Copy before clearing, since TreeMap may reuse its entry objects while removing:
+        TreeMap<Integer, Map<Object, Object>> moved = new TreeMap<>(following);
+        following.clear();
+        for (Entry<Integer, Map<Object, Object>> entry : moved.tailMap(startLine + linesRemoved + 1).entrySet())
+        {
+            lineAttributes.put(entry.getKey() + linesAdded - linesRemoved, entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the content of the longest line in the document, as measured by number of chars.
+     * As in HoleDocument, the last line is not considered, and the first of several
+     * equally long lines is returned.
+     */
+    public String getLongestLine()
+    {
+        if (longestLineIndex == -1)
+        {
+            calculateLongestLine();
+        }
+        return getContent(getLineStart(longestLineIndex), getLineEnd(longestLineIndex));
+    }
+
+    /**
+     * Update the cached longest line after an edit, if possible.
+     */
+    private void updateLongestLine(int startLine, int linesRemoved, int linesAdded)
+    {
+        if (longestLineIndex == -1)
+        {
+            return;
+        }
+        else if (longestLineIndex >= startLine && longestLineIndex <= startLine + linesRemoved)
+        {
+            if (linesRemoved == 0 && linesAdded == 0 && longestLineIndex < getLineCount() - 1)
+            {
+                // An edit within the longest line.  If it didn't get shorter, it is still the longest:
+                int length = getLineStart(longestLineIndex + 1) - getLineStart(longestLineIndex);
+                if (length >= longestLineLength)
+                {
+                    longestLineLength = length;
+                    return;
+                }
+            }
+            // The longest line may have got shorter, so we must look again:
+            longestLineIndex = -1;
+            return;
+        }
+        else if (longestLineIndex > startLine + linesRemoved)
+        {
+            longestLineIndex += linesAdded - linesRemoved;
+        }
+
+        // Only the edited lines can have become longer:
+        int lastLine = getLineCount() - 1;
+        for (int line = startLine; line <= startLine + linesAdded && line < lastLine; line++)
+        {
+            int length = getLineStart(line + 1) - getLineStart(line);
+            if (length > longestLineLength || (length == longestLineLength && line < longestLineIndex))
+            {
+                longestLineIndex = line;
+                longestLineLength = length;
+            }
+        }
+    }
+
+    private void calculateLongestLine()
+    {
+        longestLineIndex = 0;
+        longestLineLength = 0;
+        int line = 0;
+        int lineStart = 0;
+        int offset = 0;
+        for (int[] segment : getSegments(0, getLength()))
+        {
+            int segmentEnd = segment[0] + segment[1];
+            for (int nl = firstNewlineFrom(segment[0], 0, bufferNewlineCount); nl < bufferNewlineCount && bufferNewlines[nl] < segmentEnd; nl++)
+            {
+                int nextLineStart = offset + bufferNewlines[nl] - segment[0] + 1;
+                if (nextLineStart - lineStart > longestLineLength)
+                {
+                    longestLineIndex = line;
+                    longestLineLength = nextLineStart - lineStart;
+                }
+                line += 1;
+                lineStart = nextLineStart;
+            }
+            offset += segment[1];
+        }
+    }
+
+    /**
+     * An immutable view of the content of the document at the time it was made.
+     * Each segment is a range of the buffer: segment i starts at bufferStarts[i],
+     * and covers the document positions from offsets[i] to offsets[i + 1].
+     */
+    @OnThread(Tag.Any)
+    private static class Snapshot implements CharSequence
+    {
+        private final char[] buffer;
+        private final int[] bufferStarts;
+        private final int[] offsets;
+        // The segment used by the last call to charAt, which is likely to be used by
+        // the next, as callers (e.g. regex matchers) tend to read sequentially:
+        private int lastSegment = 0;
+
+        private Snapshot(char[] buffer, int[] bufferStarts, int[] offsets)
+        {
+            this.buffer = buffer;
+            this.bufferStarts = bufferStarts;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public int length()
+        {
+            return offsets[offsets.length - 1];
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= length())
+            {
+                throw new IndexOutOfBoundsException("Index " + index + " out of range 0 to " + length());
+            }
+            int segment = lastSegment;
+            if (index < offsets[segment] || index >= offsets[segment + 1])
+            {
+                segment = Arrays.binarySearch(offsets, index);
+                if (segment < 0)
+                {
+                    segment = -segment - 2;
+                }
+                else
+                {
+                    // Skip any empty segments:
+                    while (offsets[segment + 1] == index)
+                    {
+                        segment += 1;
+                    }
+                }
+                lastSegment = segment;
+            }
+            return buffer[bufferStarts[segment] + index - offsets[segment]];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            if (start < 0 || end > length() || start > end)
+            {
+                throw new IndexOutOfBoundsException("Range " + start + " to " + end + " out of range 0 to " + length());
+            }
+            char[] content = new char[end - start];
+            for (int i = start; i < end; i++)
+            {
+                content[i - start] = charAt(i);
+            }
+            return new String(content);
+        }
+
+        @Override
+        public String toString()
+        {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    /**
+     * A reader for a range of the document.  It refers directly to the buffer, which is
+     * never modified (only appended to, or replaced), so unlike HoleDocument's reader it
+     * continues to read the original content if the document is modified.
+     */
+    @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+    private static class PieceReader extends Reader
+    {
+        private final char[] buffer;
+        private final List<int[]> segments;
+        // The current segment, and position within it:
+        private int segment = 0;
+        private int segmentPos = 0;
+        private int markSegment = 0;
+        private int markSegmentPos = 0;
+
+        private PieceReader(char[] buffer, List<int[]> segments)
+        {
+            this.buffer = buffer;
+            this.segments = segments;
+        }
+
+        /**
+         * Move on to the next segment if we are at the end of the current one.
+         * Returns false if at the end of the range.
+         */
+        private boolean advance()
+        {
+            while (segment < segments.size() && segmentPos >= segments.get(segment)[1])
+            {
+                segment += 1;
+                segmentPos = 0;
+            }
+            return segment < segments.size();
+        }
+
+        public int read()
+        {
+            if (!advance())
+            {
+                return -1;
+            }
+            return buffer[segments.get(segment)[0] + segmentPos++];
+        }
+
+        public int read(char cbuf[], int off, int len)
+        {
+            if ((off < 0) || (off > cbuf.length) || (len < 0) ||
+                    ((off + len) > cbuf.length) || ((off + len) < 0))
+            {
+                throw new IndexOutOfBoundsException();
+            }
+            else if (len == 0)
+            {
+                return 0;
+            }
+            int total = 0;
+            while (total < len && advance())
+            {
+                int[] current = segments.get(segment);
+                int toCopy = Math.min(len - total, current[1] - segmentPos);
+                System.arraycopy(buffer, current[0] + segmentPos, cbuf, off + total, toCopy);
+                segmentPos += toCopy;
+                total += toCopy;
+            }
+            return total == 0 ? -1 : total;
+        }
+
+        public long skip(long ns)
+        {
+            long skipped = 0;
+            while (skipped < ns && advance())
+            {
+                int amount = (int)Math.min(ns - skipped, segments.get(segment)[1] - segmentPos);
+                segmentPos += amount;
+                skipped += amount;
+            }
+            return skipped;
+        }
+
+        public boolean ready()
+        {
+            return true;
+        }
+
+        public boolean markSupported()
+        {
+            return true;
+        }
+
+        public void mark(int readAheadLimit)
+        {
+            if (readAheadLimit < 0)
+            {
+                throw new IllegalArgumentException("Read-ahead limit < 0");
+            }
+            markSegment = segment;
+            markSegmentPos = segmentPos;
+        }
+
+        public void reset()
+        {
+            segment = markSegment;
+            segmentPos = markSegmentPos;
+        }
+
+        public void close()
+        {
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -833,6 +833,7 @@ public class FrameEditor implements Editor
         //This is a message from a clickable stack trace following an exception
         JavaFXUtil.onceNotNull(javaSource, js -> JavaFXUtil.runNowOrLater(() -> {
             setVisibleFX(true, true, false);
+            panel.createDeferredFrames();
             js.handleException(lineNumber);
         }));
     }
@@ -925,6 +926,7 @@ public class FrameEditor implements Editor
                 {
                     js = saveJava(lastSource, true).javaSource;
                 }
+                panel.createDeferredFrames();
                 curBreakpoint = js.handleStop(lineNumber, debugInfo);
                 if (curBreakpoint.isBreakpointFrame())
                 {
@@ -1034,6 +1036,7 @@ public class FrameEditor implements Editor
                 // afterwards.  So we hop back to platform thread to print:
                 CompletableFuture<Boolean> done = new CompletableFuture<>();
                 JavaFXUtil.runPlatformLater(() -> {
+                    panel.createDeferredFrames();
                     job.printPage(panel.getSource().getFrame().getNode());
                     done.complete(true);
                 });
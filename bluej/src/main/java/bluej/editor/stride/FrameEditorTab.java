@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -1109,12 +1109,16 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
             final CodeElement el = ((PossibleVarLink) link).getUsePoint();
             FrameEditorTab ed = (FrameEditorTab)ASTUtility.getTopLevelElement(el).getEditor();
             if (ed == FrameEditorTab.this) {
-                callback.accept(Optional.of(new LinkedIdentifier(name, link.getStartPosition(), link.getEndPosition(), link.getSlot(),  () -> el.show(ShowReason.LINK_TARGET))));
+                callback.accept(Optional.of(new LinkedIdentifier(name, link.getStartPosition(), link.getEndPosition(), link.getSlot(),  () -> {
+                    el.createDeferredFrame();
+                    el.show(ShowReason.LINK_TARGET);
+                })));
             }
             else {
                 callback.accept(Optional.of(new LinkedIdentifier(name, link.getStartPosition(), link.getEndPosition(), link.getSlot(),  () -> {
                     getParent().setWindowVisible(true, ed);
                     // TODO gets tricky here; what if editor hasn't been loaded yet?
+                    el.createDeferredFrame();
                     el.show(ShowReason.LINK_TARGET);
                 })));
             }
@@ -1251,6 +1255,8 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
         if (viewProperty.get() == View.NORMAL)
         {
             selection.clear();
+            // All of the code is shown as Java, so we need all the frames:
+            createDeferredFrames();
             if (viewChange != null)
                 viewChange.stop();
             viewChange = new SharedTransition();
@@ -2566,6 +2572,22 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
     {
         return loading;
     }
+
+    @Override
+    @OnThread(Tag.FX)
+    public void runAsLoading(FXRunnable action)
+    {
+        boolean wasLoading = loading;
+        loading = true;
+        try
+        {
+            action.run();
+        }
+        finally
+        {
+            loading = wasLoading;
+        }
+    }
     
     @Override
     public boolean isEditable()
@@ -2602,6 +2624,22 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
             getTopLevelFrame().ensureImportCanvasShowing();
     }
 
+    /**
+     * Creates any method body frames which have not been created yet (see
+     * MethodFrameWithBody.deferContents), for when the whole class is needed.
+     */
+    @OnThread(Tag.FXPlatform)
+    void createDeferredFrames()
+    {
+        if (getTopLevelFrame() != null)
+        {
+            getTopLevelFrame().getAllFrames()
+                .filter(f -> f instanceof MethodFrameWithBody)
+                .collect(Collectors.toList())
+                .forEach(f -> ((MethodFrameWithBody<?>)f).createDeferredFrames());
+        }
+    }
+
     @OnThread(Tag.FXPlatform)
     void ignoreEdits(FXPlatformRunnable during)
     {
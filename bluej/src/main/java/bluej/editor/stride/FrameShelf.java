@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License
@@ -33,6 +33,7 @@ import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.utility.BackgroundConsumer;
 import bluej.utility.Utility;
 import bluej.utility.javafx.FXPlatformRunnable;
+import bluej.utility.javafx.FXRunnable;
 import bluej.utility.javafx.JavaFXUtil;
 import javafx.beans.Observable;
 import javafx.beans.binding.DoubleExpression;
@@ -381,6 +382,12 @@ public class FrameShelf implements InteractionManager, CanvasParent, FrameTypeCh
         return false; // TODO
     }
 
+    @Override
+    public void runAsLoading(FXRunnable action)
+    {
+        action.run();
+    }
+
     @Override
     public ReadOnlyObjectProperty<Frame.View> viewProperty()
     {
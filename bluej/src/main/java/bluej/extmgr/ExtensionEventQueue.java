@@ -0,0 +1,225 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.extmgr;
+
+import bluej.extensions2.event.ExtensionEvent;
+import bluej.utility.javafx.FXPlatformConsumer;
+import bluej.utility.javafx.FXPlatformRunnable;
+import bluej.utility.javafx.JavaFXUtil;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.ArrayDeque;
+
+/**
+ * The events waiting to be delivered to one extension.
+ *
+ * Events are delivered on the FX thread, as the extensions API promises, but not by
+ * the code which raised them: that just adds them to each extension's queue and carries
+ * on.  Each queue is then drained separately, after whatever the FX thread is doing now,
+ * and for at most TIME_SLICE_NANOS at a time.  So an extension which is slow to handle
+ * events does not hold up the action which caused them (a compile, say), and other
+ * extensions' events do not wait behind it.  Each extension receives its events in the
+ * order they occurred.
+ *
+ * If an extension falls so far behind that its queue is full, the queued events are
+ * delivered there and then, before the new one is added.  No events are lost; the code
+ * raising them is just slowed down to the pace of the extension.
+ */
+@OnThread(Tag.FXPlatform)
+class ExtensionEventQueue
+{
+    static final int CAPACITY = 256;
+    // The longest we spend delivering queued events before letting the FX thread do other work:
+    static final long TIME_SLICE_NANOS = 20_000_000L;
+
+    @OnThread(Tag.FXPlatform)
+    private static class QueuedEvent
+    {
+        private final ExtensionEvent event;
+        private final long queuedAt;
+
+        private QueuedEvent(ExtensionEvent event, long queuedAt)
+        {
+            this.event = event;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final FXPlatformConsumer<ExtensionEvent> deliverer;
+    // Runs a drain after whatever the FX thread is doing now:
+    private final FXPlatformConsumer<FXPlatformRunnable> scheduler;
+    private final ArrayDeque<QueuedEvent> queue = new ArrayDeque<>();
+    private boolean drainScheduled = false;
+    // Are we in the middle of delivering an event?  (Its handler may raise more events.)
+    private boolean delivering = false;
+
+    // Statistics:
+    private long delivered;
+    private long totalHandlingNanos;
+    private long maxHandlingNanos;
+    private long maxWaitNanos;
+    private long overflows;
+
+    /**
+     * @param deliverer  Delivers an event to the extension.
+     */
+    ExtensionEventQueue(FXPlatformConsumer<ExtensionEvent> deliverer)
+    {
+        this(deliverer, JavaFXUtil::runAfterCurrent);
+    }
+
+    /**
+     * @param deliverer  Delivers an event to the extension.
+     * @param scheduler  Runs the given action after the current one on the FX thread
+     *                   (can be replaced for testing).
+     */
+    ExtensionEventQueue(FXPlatformConsumer<ExtensionEvent> deliverer, FXPlatformConsumer<FXPlatformRunnable> scheduler)
+    {
+        this.deliverer = deliverer;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queue an event for delivery.
+     */
+    void post(ExtensionEvent event)
+    {
+        if (queue.size() >= CAPACITY && !delivering)
+        {
+            overflows += 1;
+            flush();
+        }
+        queue.add(new QueuedEvent(event, System.nanoTime()));
+        if (!drainScheduled)
+        {
+            drainScheduled = true;
+            scheduler.accept(this::drain);
+        }
+    }
+
+    /**
+     * Deliver all the queued events now.  Does nothing if called (indirectly) from
+     * an event handler of the same extension, as the queued events must be delivered
+     * after the one being handled.
+     */
+    void flush()
+    {
+        if (delivering)
+        {
+            return;
+        }
+        while (!queue.isEmpty())
+        {
+            deliverNext();
+        }
+    }
+
+    /**
+     * Discard any queued events.
+     */
+    void clear()
+    {
+        queue.clear();
+    }
+
+    /**
+     * Deliver queued events, until the time slice is used up.
+     */
+    private void drain()
+    {
+        drainScheduled = false;
+        if (delivering)
+        {
+            // We've been called from a nested event loop, e.g. the extension is showing
+            // a dialog while handling an event.  The rest of the queue will be delivered
+            // by the outer call once the handler returns.
+            return;
+        }
+        long start = System.nanoTime();
+        while (!queue.isEmpty() && System.nanoTime() - start < TIME_SLICE_NANOS)
+        {
+            deliverNext();
+        }
+        if (!queue.isEmpty() && !drainScheduled)
+        {
+            drainScheduled = true;
+            scheduler.accept(this::drain);
+        }
+    }
+
+    private void deliverNext()
+    {
+        QueuedEvent next = queue.poll();
+        long start = System.nanoTime();
+        delivering = true;
+        try
+        {
+            deliverer.accept(next.event);
+        }
+        finally
+        {
+            delivering = false;
+        }
+        long end = System.nanoTime();
+        delivered += 1;
+        totalHandlingNanos += end - start;
+        maxHandlingNanos = Math.max(maxHandlingNanos, end - start);
+        maxWaitNanos = Math.max(maxWaitNanos, start - next.queuedAt);
+    }
+
+    /** The number of events waiting to be delivered. */
+    int getQueued()
+    {
+        return queue.size();
+    }
+
+    /** The number of events delivered so far. */
+    long getDelivered()
+    {
+        return delivered;
+    }
+
+    /** The mean time the extension took to handle an event, in milliseconds. */
+    double getMeanHandlingMillis()
+    {
+        return delivered == 0 ? 0 : totalHandlingNanos / 1_000_000.0 / delivered;
+    }
+
+    /** The longest time the extension took to handle an event, in milliseconds. */
+    double getMaxHandlingMillis()
+    {
+        return maxHandlingNanos / 1_000_000.0;
+    }
+
+    /** The longest time an event waited in the queue before delivery, in milliseconds. */
+    double getMaxWaitMillis()
+    {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    /** The number of times the queue was full when an event was posted. */
+    long getOverflows()
+    {
+        return overflows;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2013,2014,2016,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2013,2014,2016,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -75,6 +75,9 @@ public class ExtensionWrapper
     private String  extensionStatusString;
     private Project project;
 
+    // Events waiting to be delivered to the extension:
+    private final ExtensionEventQueue eventQueue = new ExtensionEventQueue(this::safeEventOccurred);
+
     /**
      * Construct a new ExtensionWrapper for the given jar file.
      * 
@@ -262,6 +265,9 @@ public class ExtensionWrapper
      */
     void terminate()
     {
+        // Let the extension see any events that happened before now:
+        eventQueue.flush();
+        eventQueue.clear();
         safeTerminate();
 
         // Needed to signal to the revalidate (below) that this instance is no longer here.            
@@ -399,6 +405,34 @@ public class ExtensionWrapper
         return "ExtensionWrapper: "+ extensionClass.getName();
     }
 
+    /**
+     * Queues an event for delivery to the extension's listeners, after the current
+     * work on the FX thread.  Events are delivered in the order they are posted.
+     */
+    void postEvent(ExtensionEvent event)
+    {
+        if (isValid()) {
+            eventQueue.post(event);
+        }
+    }
+
+    /**
+     * Delivers any queued events to the extension now.
+     */
+    void flushEvents()
+    {
+        eventQueue.flush();
+    }
+
+    /**
+     * Gets the queue of events waiting for the extension, which also keeps
+     * statistics about how long the extension takes to handle them.
+     */
+    ExtensionEventQueue getEventQueue()
+    {
+        return eventQueue;
+    }
+
     /* 
      * ====================== ERROR WRAPPED CALLS HERE =========================
      * We need to wrap all calls from BlueJ to the Extension into a try/catch;
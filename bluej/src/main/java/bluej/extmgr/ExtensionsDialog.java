@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2016,2019,2020,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2016,2019,2020,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -53,6 +53,7 @@ public class ExtensionsDialog
     private final String projectLongString = Config.getString("extmgr.projectExtensionLong");
     private final String locationTag = Config.getString("extmgr.details.location");
     private final String versionTag = Config.getString("extmgr.details.version");
+    private final String eventsTag = Config.getString("extmgr.details.events");
     private Dialog<Void> mainFrame;
     private VBox extensionsVBox;
 
@@ -97,8 +98,9 @@ public class ExtensionsDialog
                 boolean isProject = wrapper.getProject() != null;
                 String extensionFileName = wrapper.getExtensionFileName();
                 URL url = wrapper.safeGetURL();
+                String events = describeEvents(wrapper.getEventQueue());
                 // But create the TitledPane on the FX thread:
-                extensionsVBox.getChildren().add(makeDisplay(extensionName, extensionStatus, extensionVersion, extensionDescription, isProject, extensionFileName, url));
+                extensionsVBox.getChildren().add(makeDisplay(extensionName, extensionStatus, extensionVersion, extensionDescription, isProject, extensionFileName, url, events));
             });
         }
     }
@@ -108,7 +110,20 @@ public class ExtensionsDialog
         mainFrame.showAndWait();
     }
 
-    private TitledPane makeDisplay(String extensionName, String extensionStatus, String extensionVersion, String extensionDescription, boolean isProject, String extensionFileName, URL url)
+    /**
+     * Describe how many events the extension has been sent, and how long it has taken to handle them.
+     */
+    private String describeEvents(ExtensionEventQueue events)
+    {
+        return eventsTag
+                .replace("$DELIVERED", Long.toString(events.getDelivered()))
+                .replace("$QUEUED", Integer.toString(events.getQueued()))
+                .replace("$MEAN", String.format("%.1f", events.getMeanHandlingMillis()))
+                .replace("$MAX", String.format("%.1f", events.getMaxHandlingMillis()))
+                .replace("$WAIT", String.format("%.1f", events.getMaxWaitMillis()));
+    }
+
+    private TitledPane makeDisplay(String extensionName, String extensionStatus, String extensionVersion, String extensionDescription, boolean isProject, String extensionFileName, URL url, String events)
     {
         String typeShort = isProject ? projectString : systemString;
         String typeLong = isProject ? projectLongString : systemLongString;
@@ -123,6 +138,7 @@ public class ExtensionsDialog
 
         mainPanel.getChildren().add(new Label(locationTag + " " + extensionFileName +
             " (" + extensionStatus +')'));
+        mainPanel.getChildren().add(new Label(events));
 
         Text description = new Text(extensionDescription);
         mainPanel.getChildren().add(new TextFlow(description));
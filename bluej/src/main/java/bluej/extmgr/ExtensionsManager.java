@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2013,2016,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2013,2016,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -262,8 +262,9 @@ public class ExtensionsManager
      */
     public void packageClosing(Package pkg)
     {
-        // Before removing the extension, signal that this package is closing
-        delegateEvent(new PackageEvent(PackageEvent.EventType.PACKAGE_CLOSING, pkg));
+        // Before removing the extension, signal that this package is closing.
+        // The extensions must see this while the package is still open:
+        delegateEventNow(new PackageEvent(PackageEvent.EventType.PACKAGE_CLOSING, pkg));
 
         // Let's assume we are NOT going to delete the extension...
         boolean invalidateExtension = false;
@@ -376,17 +377,36 @@ public class ExtensionsManager
     }
 
     /**
-     * Delegates an event to all known extensions.
+     * Delegates an event to all known extensions.  The event is queued separately for
+     * each extension, and delivered (on the FX thread) after the caller's current work,
+     * so that an extension which is slow to handle events does not hold up the caller.
      */
     public void delegateEvent(ExtensionEvent event)
     {
         synchronized(extensions) {            
             for (ExtensionWrapper wrapper : extensions) {
-                wrapper.safeEventOccurred(event);
+                wrapper.postEvent(event);
             }
         }
     }
 
+    /**
+     * Delegates an event to all known extensions, and delivers it (along with any events
+     * still queued before it) before returning.  This is for events which extensions
+     * must handle before the caller goes on, such as a package closing.
+     */
+    public void delegateEventNow(ExtensionEvent event)
+    {
+        List<ExtensionWrapper> wrappers;
+        synchronized(extensions) {
+            wrappers = new ArrayList<>(extensions);
+        }
+        for (ExtensionWrapper wrapper : wrappers) {
+            wrapper.postEvent(event);
+            wrapper.flushEvents();
+        }
+    }
+
     /**
      * This is called back when some sort of event occurs. Depending on the
      * event we will adapt it and send it up to the extension.
@@ -0,0 +1,187 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.graph;
+
+import javafx.geometry.Rectangle2D;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A spatial index of items in a diagram, for quickly finding the items whose bounds
+ * intersect some area (the visible part of the diagram, or an area to be repainted).
+ *
+ * The diagram is divided into a uniform grid of square cells, and each item is listed in
+ * every cell which its bounds overlap.  Items are compared by identity.  This is not
+ * thread-safe.
+ */
+@OnThread(Tag.Any)
+public class SpatialGrid<T>
+{
+    private final double cellSize;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private final Map<T, Rectangle2D> itemBounds = new IdentityHashMap<>();
+
+    /**
+     * Create an empty grid with the given cell size.
+     */
+    public SpatialGrid(double cellSize)
+    {
+        if (cellSize <= 0)
+        {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add an item with the given bounds, or move it if it is already in the grid.
+     */
+    public void put(T item, Rectangle2D bounds)
+    {
+        Rectangle2D old = itemBounds.put(item, bounds);
+        if (old != null)
+        {
+            if (old.equals(bounds))
+            {
+                return;
+            }
+            forEachCell(old, key -> {
+                List<T> cell = cells.get(key);
+                cell.remove(indexOf(cell, item));
+                if (cell.isEmpty())
+                {
+                    cells.remove(key);
+                }
+            });
+        }
+        forEachCell(bounds, key -> cells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(item));
+    }
+
+    /**
+     * Remove an item from the grid, if it is there.
+     */
+    public void remove(T item)
+    {
+        Rectangle2D old = itemBounds.remove(item);
+        if (old != null)
+        {
+            forEachCell(old, key -> {
+                List<T> cell = cells.get(key);
+                cell.remove(indexOf(cell, item));
+                if (cell.isEmpty())
+                {
+                    cells.remove(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the bounds the item was added with, or null if it is not in the grid.
+     */
+    public Rectangle2D getBounds(T item)
+    {
+        return itemBounds.get(item);
+    }
+
+    /**
+     * Get the number of items in the grid.
+     */
+    public int size()
+    {
+        return itemBounds.size();
+    }
+
+    /**
+     * Remove all items from the grid.
+     */
+    public void clear()
+    {
+        cells.clear();
+        itemBounds.clear();
+    }
+
+    /**
+     * Find the items whose bounds intersect the given area.  Each is returned once,
+     * in no particular order.
+     */
+    public List<T> query(Rectangle2D area)
+    {
+        List<T> found = new ArrayList<>();
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        forEachCell(area, key -> {
+            List<T> cell = cells.get(key);
+            if (cell != null)
+            {
+                for (T item : cell)
+                {
+                    if (seen.add(item) && itemBounds.get(item).intersects(area))
+                    {
+                        found.add(item);
+                    }
+                }
+            }
+        });
+        return found;
+    }
+
+    @OnThread(Tag.Any)
+    private static interface CellAction
+    {
+        void cell(long key);
+    }
+
+    private void forEachCell(Rectangle2D bounds, CellAction action)
+    {
+        int minX = (int)Math.floor(bounds.getMinX() / cellSize);
+        int minY = (int)Math.floor(bounds.getMinY() / cellSize);
+        int maxX = (int)Math.floor(bounds.getMaxX() / cellSize);
+        int maxY = (int)Math.floor(bounds.getMaxY() / cellSize);
+        for (int y = minY; y <= maxY; y++)
+        {
+            for (int x = minX; x <= maxX; x++)
+            {
+                action.cell(((long)x << 32) | (y & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    private static int indexOf(List<?> list, Object item)
+    {
+        for (int i = 0; i < list.size(); i++)
+        {
+            if (list.get(i) == item)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
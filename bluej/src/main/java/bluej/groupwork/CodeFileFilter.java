@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2017,2018,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2017,2018,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -31,6 +31,7 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import bluej.pkgmgr.BlueJPackageFile;
+import bluej.pkgmgr.ClassAnalysisCache;
 import bluej.utility.Debug;
 
 /**
@@ -138,6 +139,9 @@ public class CodeFileFilter implements FileFilter, FilenameFilter
         if (name.equals("bluej.pkh")) {
             return false;
         }
+        if (name.equals(ClassAnalysisCache.FILE_NAME)) {
+            return false;
+        }
         if (name.equals("team.defs")) {
             return false;
         }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -516,6 +516,7 @@ public class TeamSettingsController
         teamProperties.put("bluej.teamsettings.ignore6", ".*\\#");
         teamProperties.put("bluej.teamsettings.ignore7", ".*\\#backup");
         teamProperties.put("bluej.teamsettings.ignore8", "\\.DS_Store");
+        teamProperties.put("bluej.teamsettings.ignore9", "bluej\\.analysis");
     }
 
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2010,2011,2012,2013,2014,2016,2017,2019,2021,2022,2023  Michael Kolling and John Rosenberg 
+ Copyright (C) 2010,2011,2012,2013,2014,2016,2017,2019,2021,2022,2023,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -109,7 +109,15 @@ public class EditorParser extends JavaParser
      */
     protected EditorParser(Reader r, EntityResolver resolver)
     {
-        super(r);
+        this(getLexer(r), resolver);
+    }
+    
+    /**
+     * Constructor for use by subclasses (InfoReader).
+     */
+    protected EditorParser(TokenStream lexer, EntityResolver resolver)
+    {
+        super(lexer);
         nodeStructureListener = new NodeStructureListener()
         {
             @Override
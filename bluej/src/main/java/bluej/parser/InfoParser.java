@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2013,2014,2016,2023  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2011,2013,2014,2016,2023,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,13 +21,12 @@
  */
 package bluej.parser;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -141,6 +140,15 @@ public class InfoParser extends EditorParser
         super(r, resolver);
     }
 
+    /**
+     * Construct an InfoParser which reads the given Java source, and resolves
+     * reference via the given resolver.
+     */
+    public InfoParser(CharSequence source, EntityResolver resolver)
+    {
+        super(getLexer(source), resolver);
+    }
+
     /**
      * Attempt to parse the specified source file. Returns null if the file could not be parsed.
      */
@@ -155,13 +163,11 @@ public class InfoParser extends EditorParser
      */
     public static ClassInfo parse(File f, EntityResolver resolver) throws FileNotFoundException
     {
-        FileInputStream fis = new FileInputStream(f);
-        ClassInfo info = parse(new BufferedReader(new InputStreamReader(fis)), resolver, null);
-        try {
-            fis.close();
+        String source = readSource(f, Charset.defaultCharset());
+        if (source == null) {
+            return null;
         }
-        catch (IOException ioe) {}
-        return info;
+        return parse(new InfoParser(source, resolver), null);
     }
     
     /**
@@ -171,17 +177,30 @@ public class InfoParser extends EditorParser
     @OnThread(Tag.FXPlatform)
     public static ClassInfo parseWithPkg(File f, Package pkg) throws FileNotFoundException
     {
-        FileInputStream fis = new FileInputStream(f);
+        String source = readSource(f, pkg.getProject().getProjectCharset());
+        if (source == null) {
+            return null;
+        }
         EntityResolver resolver = new PackageResolver(pkg.getProject().getEntityResolver(),
                 pkg.getQualifiedName());
-        Reader reader = new InputStreamReader(fis, pkg.getProject().getProjectCharset());
-        reader = new BufferedReader(reader);
-        ClassInfo info = parse(reader, resolver, pkg.getQualifiedName());
-        try {
-            fis.close();
+        return parse(new InfoParser(source, resolver), pkg.getQualifiedName());
+    }
+    
+    /**
+     * Read the whole of a source file, so that it can be lexed directly rather than
+     * through a Reader.  Returns null if there is an error reading the file.
+     */
+    private static String readSource(File f, Charset charset) throws FileNotFoundException
+    {
+        try (FileInputStream fis = new FileInputStream(f)) {
+            return new String(fis.readAllBytes(), charset);
+        }
+        catch (FileNotFoundException fnfe) {
+            throw fnfe;
+        }
+        catch (IOException ioe) {
+            return null;
         }
-        catch (IOException ioe) {}
-        return info;
     }
 
     /**
@@ -192,8 +211,12 @@ public class InfoParser extends EditorParser
     @OnThread(Tag.FXPlatform)
     public static ClassInfo parse(Reader r, EntityResolver resolver, String targetPkg)
     {
-        InfoParser infoParser = null;
-        infoParser = new InfoParser(r, resolver);
+        return parse(new InfoParser(r, resolver), targetPkg);
+    }
+    
+    @OnThread(Tag.FXPlatform)
+    private static ClassInfo parse(InfoParser infoParser, String targetPkg)
+    {
         infoParser.targetPkg = targetPkg;
         infoParser.parseCU();
 
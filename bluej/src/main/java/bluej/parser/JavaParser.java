@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -71,6 +71,15 @@ public class JavaParser extends JavaParserCallbacks
         return new JavaLexer(r, line, col, pos);
     }
     
+    /**
+     * Get a lexer which reads directly from the given source (which must not change
+     * while the lexer or its tokens are in use).
+     */
+    public static TokenStream getLexer(CharSequence source)
+    {
+        return new JavaLexer(source);
+    }
+    
     public JavaParser(Reader r)
     {
         TokenStream lexer = getLexer(r);
@@ -89,6 +98,11 @@ public class JavaParser extends JavaParserCallbacks
         tokenStream = new JavaTokenFilter(lexer, this);
     }
     
+    public JavaParser(TokenStream lexer)
+    {
+        tokenStream = new JavaTokenFilter(lexer, this);
+    }
+    
     public final JavaTokenFilter getTokenStream()
     {
         return tokenStream;
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2009,2010,2011,2012,2014,2016,2022  Michael Kolling and John Rosenberg 
+ Copyright (C) 2009,2010,2011,2012,2014,2016,2022,2026  Michael Kolling and John Rosenberg 
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,11 +24,10 @@ package bluej.parser.lexer;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.OptionalInt;
 import java.util.TreeMap;
-import java.util.stream.IntStream;
 
 import bluej.parser.EscapedUnicodeReader;
 import bluej.parser.TokenStream;
@@ -41,18 +40,39 @@ import bluej.parser.TokenStream;
  */
 public final class JavaLexer implements TokenStream
 {
-    private StringBuffer textBuffer = new StringBuffer(); // text of current token
+    private final StringBuilder textBuffer = new StringBuilder(); // text of current token
+    // The reader, when lexing from a Reader:
     private EscapedUnicodeReader reader;
+    // The source, when lexing directly from a character sequence (see JavaLexer(CharSequence, int, int, int, int)):
+    private CharSequence source;
+    private int sourceEnd;
+    // The index in the source of the next character to read, and its line and column:
+    private int cursor;
+    private int cursorLine;
+    private int cursorCol;
+    // Whether the character at the cursor follows a lone backslash, and so cannot begin a unicode escape:
+    private boolean cursorAfterBackslash;
     private int rChar; 
+    // Whether rChar came from a unicode escape, and whether the current token includes any (only tracked
+    // when lexing from a source):
+    private boolean rCharEscaped;
+    private boolean tokenEscaped;
     // Only used in one frequently-called method, but stored as field to avoid recreating object each call:
     private final TreeMap<Integer, LineColPos> minusPositions = new TreeMap<>();
-    private LineColPos begin;
-    private LineColPos end;
+    // The beginning of the current token, and the position of rChar (which is where the current token ends):
+    private int beginLine, beginCol, beginPos;
+    private int endLine, endCol, endPos;
+    // The most recently made position, which is usually where the next token begins:
+    private LineColPos lastPos;
     private boolean generateWhitespaceTokens = false;
     private boolean handleComments = true; // When false, doesn't recognise /*..*/ or //..\n as comments (for frames)
     private boolean handleMultilineStrings = true; // When false, treats """ as a single token rather than trying to match start/end
     
     private static Map<String,Integer> keywords = new HashMap<String,Integer>();
+    // The keywords in sorted order, and their token types, so that we can look up
+    // the text buffer without making a String from it:
+    private static final String[] keywordNames;
+    private static final int[] keywordTypes;
     
     static {
         keywords.put("abstract", JavaTokenTypes.ABSTRACT);
@@ -112,6 +132,14 @@ public final class JavaLexer implements TokenStream
         keywords.put("while", JavaTokenTypes.LITERAL_while);
         keywords.put("void", JavaTokenTypes.LITERAL_void);
         keywords.put("yield", JavaTokenTypes.LITERAL_yield);
+
+        keywordNames = keywords.keySet().toArray(new String[0]);
+        Arrays.sort(keywordNames);
+        keywordTypes = new int[keywordNames.length];
+        for (int i = 0; i < keywordNames.length; i++)
+        {
+            keywordTypes[i] = keywords.get(keywordNames[i]);
+        }
     }
 
     /**
@@ -142,7 +170,9 @@ public final class JavaLexer implements TokenStream
         reader = new EscapedUnicodeReader(in);
         LineColPos lineColPos = new LineColPos(line, col, position);
         reader.setLineColPos(lineColPos);
-        end = begin = lineColPos;
+        setEnd(lineColPos);
+        markBegin();
+        lastPos = lineColPos;
         try {
             rChar = reader.read();
         }
@@ -150,63 +180,167 @@ public final class JavaLexer implements TokenStream
             rChar = -1;
         }
     }
+
+    /**
+     * Construct a lexer which reads directly from the given source, which must not
+     * change while the lexer or its tokens are in use.  This avoids the overhead of
+     * reading through a Reader, and the text of each token is only created if it is
+     * asked for.
+     */
+    public JavaLexer(CharSequence source)
+    {
+        this(source, 0, source.length(), 1, 1);
+    }
+
+    /**
+     * Construct a lexer which reads directly from part of the given source, which must
+     * not change while the lexer or its tokens are in use.  Token positions are indexes
+     * into the source.
+     * 
+     * @param start  The index of the first character to read
+     * @param end    The index after the last character to read
+     * @param line   The line of the first character
+     * @param col    The column of the first character
+     */
+    public JavaLexer(CharSequence source, int start, int end, int line, int col)
+    {
+        this.source = source;
+        sourceEnd = end;
+        cursor = start;
+        cursorLine = line;
+        cursorCol = col;
+        endLine = line;
+        endCol = col;
+        endPos = start;
+        markBegin();
+        rChar = readSourceChar();
+    }
     
     /**
      * Retrieve the next token.
      */
     public LocatableToken nextToken()
     {  
+        int type = scanToken();
+        if (type == JavaTokenTypes.EOF) {
+            return makeToken(type, null, null);
+        }
+        if (source != null && !tokenEscaped) {
+            // The text is the same as the source, so can be taken from it if needed:
+            return makeToken(type, null, source);
+        }
+        return makeToken(type, textBuffer.toString(), null);
+    }
+
+    /**
+     * Read all the remaining tokens (up to, but not including, the end of the source)
+     * into the given buffer, which is cleared first.  Nothing is allocated per token,
+     * other than when the buffer needs to grow.  This is only possible when lexing
+     * directly from a source (see {@link #JavaLexer(CharSequence, int, int, int, int)}).
+     */
+    public void scanInto(TokenBuffer buffer)
+    {
+        if (source == null) {
+            throw new IllegalStateException("Can only scan into a buffer when lexing from a CharSequence");
+        }
+        buffer.reset(source);
+        for (int type = scanToken(); type != JavaTokenTypes.EOF; type = scanToken()) {
+            buffer.add(type, beginPos, endPos - beginPos, tokenEscaped);
+            markBegin();
+        }
+    }
+
+    /**
+     * Scan the next token, leaving its text in the text buffer, its start in beginLine etc
+     * and its end in endLine etc.
+     * 
+     * @return  The type of the token.
+     */
+    private int scanToken()
+    {
         textBuffer.setLength(0);
+        tokenEscaped = false;
         
         if (generateWhitespaceTokens && Character.isWhitespace((char)rChar))
         {
-            StringBuilder whitespaceBuffer = new StringBuilder();
             while (Character.isWhitespace((char)rChar))
             {
-                whitespaceBuffer.append((char)rChar);                
+                textBuffer.append((char)rChar);                
                 readNextChar();
             }
-            return makeToken(JavaTokenTypes.WHITESPACE, whitespaceBuffer.toString());
+            return JavaTokenTypes.WHITESPACE;
         }
         else
         {        
             while (Character.isWhitespace((char)rChar)) {
-                begin = reader.getLineColPos();
                 readNextChar();
+                markBegin();
             }
+            tokenEscaped = false;
         }
 
         if (rChar == -1) {
             // EOF
-            return makeToken(JavaTokenTypes.EOF, null); 
+            return JavaTokenTypes.EOF; 
         }
         
         char nextChar = (char) rChar;
         if (Character.isJavaIdentifierStart(nextChar)) {
-            return createWordToken(nextChar); 
+            populateTextBuffer(nextChar);
+            return getWordType();
         }
         if (Character.isDigit(nextChar)) {
-            return makeToken(readDigitToken(nextChar, false), textBuffer.toString());
+            return readDigitToken(nextChar, false);
         }
-        return makeToken(getSymbolType(nextChar), textBuffer.toString());
+        return getSymbolType(nextChar);
     }
     
     /**
      * Make a token of the given type, with the given text. The token
      * begins where the previous token ended, and ends at the current
      * position (as found in endLine and endColumn).
+     * 
+     * @param txt     The text of the token (may be null if textSource is given)
+     * @param textSource  The source that the token is in, if its text should be
+     *                    created only when needed (otherwise null)
      */
-    private LocatableToken makeToken(int type, String txt)
-    {           
-        LocatableToken tok = new LocatableToken(type, txt, begin, end);
-        begin = end;
+    private LocatableToken makeToken(int type, String txt, CharSequence textSource)
+    {
+        LineColPos begin = getPos(beginLine, beginCol, beginPos);
+        LineColPos end = getPos(endLine, endCol, endPos);
+        LocatableToken tok = textSource == null
+                ? new LocatableToken(type, txt, begin, end)
+                : new LocatableToken(type, textSource, begin, end);
+        markBegin();
         return tok;
     }
 
-    private LocatableToken createWordToken(char nextChar)
+    /**
+     * Get a LineColPos for the given position, re-using the last one if it is the same.
+     */
+    private LineColPos getPos(int line, int col, int pos)
     {
-        populateTextBuffer(nextChar);
-        return makeToken(getWordType(), textBuffer.toString());
+        if (lastPos == null || lastPos.position() != pos || lastPos.line() != line || lastPos.column() != col) {
+            lastPos = new LineColPos(line, col, pos);
+        }
+        return lastPos;
+    }
+
+    /**
+     * Mark the current token as beginning at the current position.
+     */
+    private void markBegin()
+    {
+        beginLine = endLine;
+        beginCol = endCol;
+        beginPos = endPos;
+    }
+
+    private void setEnd(LineColPos pos)
+    {
+        endLine = pos.line();
+        endCol = pos.column();
+        endPos = pos.position();
     }
 
     /**
@@ -234,7 +368,7 @@ public final class JavaLexer implements TokenStream
             if (rval == '-')
             {
                 // Record when we see a minus for faster processing below:
-                minusPositions.put(textBuffer.length(), end);
+                minusPositions.put(textBuffer.length(), getPos(endLine, endCol, endPos));
             }
             thisChar=(char)rval;
         } while (Character.isJavaIdentifierPart(thisChar) || thisChar == '-');
@@ -243,32 +377,61 @@ public final class JavaLexer implements TokenStream
         // So e.g. if we consumed "non-sealed-pipe" we'd pick out the second minus as the first
         // one that is after a known keyword ("non-sealed").
         // For "non-closed-file" it would be the first minus because there is no known keyword.
-        OptionalInt keywordEnd = 
-            // We look at all positions where there is a minus, but we also look at the end of 
-            // the String (in case it's exactly a hyphenated keyword like "non-sealed" with no further minuses)
-            IntStream.concat(minusPositions.keySet().stream().mapToInt(Integer::intValue).sorted(), IntStream.of(textBuffer.length()))
-                .filter(index -> keywords.containsKey(textBuffer.substring(0, index))).findFirst();
+        // (There are no minuses in the vast majority of identifiers, in which case there's nothing to do.)
+        if (minusPositions.isEmpty())
+        {
+            return;
+        }
         
-        if (!minusPositions.isEmpty() && keywordEnd.orElse(-1) < textBuffer.length())
+        // We look at all positions where there is a minus, but we also look at the end of 
+        // the String (in case it's exactly a hyphenated keyword like "non-sealed" with no further minuses)
+        int keywordEnd = -1;
+        for (int index : minusPositions.keySet())
         {
-            // We have found a minus but there either is not a keyword (keywordEnd will be empty)
+            if (findKeyword(index) != -1)
+            {
+                keywordEnd = index;
+                break;
+            }
+        }
+        if (keywordEnd == -1 && findKeyword(textBuffer.length()) != -1)
+        {
+            keywordEnd = textBuffer.length();
+        }
+        
+        if (keywordEnd < textBuffer.length())
+        {
+            // We have found a minus but there either is not a keyword (keywordEnd will be -1)
             // or there are further minuses after the content (keywordEnd will be present,
             // but less than the full length of the string).
-            int minusToPushBackFrom = keywordEnd.orElse(minusPositions.firstKey().intValue());
-            end = minusPositions.get(minusToPushBackFrom);
-            try
+            int minusToPushBackFrom = keywordEnd != -1 ? keywordEnd : minusPositions.firstKey().intValue();
+            LineColPos minusPos = minusPositions.get(minusToPushBackFrom);
+            setEnd(minusPos);
+            if (source != null)
             {
-                // If we found EOF then thisChar is already handled and we shouldn't push it back
-                // on to the buffer:
-                if (!eof)
-                    textBuffer.append(thisChar);
-                reader.pushBack(textBuffer.substring(minusToPushBackFrom), end);
-                // Prime the rChar variable which always holds the next pending character:
+                // Just go back to the minus:
+                cursor = minusPos.position();
+                cursorLine = minusPos.line();
+                cursorCol = minusPos.column();
+                cursorAfterBackslash = false;
                 readNextChar();
             }
-            catch (IOException e)
+            else
             {
-                // If this happens, we have a hyphenated identifier longer than 65536 characters (the EscapedUnicodeReader buffer size).  Ignore?
+                try
+                {
+                    // If we found EOF then thisChar is already handled and we shouldn't push it back
+                    // on to the buffer:
+                    if (!eof)
+                        textBuffer.append(thisChar);
+                    reader.pushBack(textBuffer.substring(minusToPushBackFrom), minusPos);
+                    // Prime the rChar variable which always holds the next pending character:
+                    readNextChar();
+                }
+                catch (IOException e)
+                {
+                    // If this happens, we have a hyphenated identifier longer than 65536 characters (the EscapedUnicodeReader buffer size).  Ignore?
+                }
             }
             textBuffer.delete(minusToPushBackFrom, textBuffer.length());
         }
@@ -974,7 +1137,16 @@ public final class JavaLexer implements TokenStream
 
     private int readNextChar()
     {
-        end = reader.getLineColPos();
+        if (source != null) {
+            tokenEscaped |= rCharEscaped;
+            endLine = cursorLine;
+            endCol = cursorCol;
+            endPos = cursor;
+            rChar = readSourceChar();
+            return rChar;
+        }
+        
+        setEnd(reader.getLineColPos());
         try{
             rChar = reader.read();
         } catch(IOException e) {
@@ -984,14 +1156,104 @@ public final class JavaLexer implements TokenStream
         return rChar;
     }
 
+    /**
+     * Read a character from the source, processing unicode escapes in the same way
+     * as EscapedUnicodeReader, and keeping track of the line and column.
+     */
+    private int readSourceChar()
+    {
+        rCharEscaped = false;
+        if (cursor >= sourceEnd) {
+            return -1;
+        }
+        char ch = nextSourceChar();
+        if (ch != '\\' || cursorAfterBackslash) {
+            cursorAfterBackslash = false;
+            return ch;
+        }
+        
+        // This could be the beginning of an escaped unicode sequence,
+        // \\uXXXX (with only a single backslash)
+        if (cursor >= sourceEnd || source.charAt(cursor) != 'u') {
+            // The next character can't start an escape:
+            cursorAfterBackslash = true;
+            return ch;
+        }
+        rCharEscaped = true;
+        // Any number of 'u' characters may appear:
+        while (cursor < sourceEnd && source.charAt(cursor) == 'u') {
+            nextSourceChar();
+        }
+        int val = 0;
+        for (int i = 0; i < 4; i++) {
+            int digitVal = cursor < sourceEnd ? Character.digit(source.charAt(cursor), 16) : -1;
+            if (digitVal == -1) {
+                // Invalid escape; the character after it is read as it is:
+                cursorAfterBackslash = true;
+                return 0xFFFF;
+            }
+            nextSourceChar();
+            val = val * 0x10 + digitVal;
+        }
+        return val;
+    }
+
+    /**
+     * Get the character at the cursor, and advance past it.
+     */
+    private char nextSourceChar()
+    {
+        char ch = source.charAt(cursor++);
+        if (ch == '\n') {
+            cursorLine += 1;
+            cursorCol = 1;
+        }
+        else {
+            cursorCol += 1;
+        }
+        return ch;
+    }
+
     private int getWordType()
     {
-        String text=textBuffer.toString();
-        Integer i = keywords.get(text);
-        if (i == null) {
+        int type = findKeyword(textBuffer.length());
+        if (type == -1) {
             return JavaTokenTypes.IDENT;
         }
-        return i;
+        return type;
+    }
+
+    /**
+     * Find the keyword matching the given length of text at the start of the text buffer.
+     * 
+     * @return  The token type of the keyword, or -1 if it is not a keyword.
+     */
+    private int findKeyword(int length)
+    {
+        int low = 0;
+        int high = keywordNames.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            String keyword = keywordNames[mid];
+            int n = Math.min(length, keyword.length());
+            int cmp = 0;
+            for (int i = 0; i < n && cmp == 0; i++) {
+                cmp = keyword.charAt(i) - textBuffer.charAt(i);
+            }
+            if (cmp == 0) {
+                cmp = keyword.length() - length;
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return keywordTypes[mid];
+            }
+        }
+        return -1;
     }
 
     public void setGenerateWhitespaceTokens(boolean generateWhitespaceTokens)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2012,2014,2015,2017,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2012,2014,2015,2017,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -31,7 +31,10 @@ public class LocatableToken
     private final LineColPos end;
     private LocatableToken hiddenBefore;
     private final int type;
-    private final String text;
+    private String text;
+    // The source from which the text should be taken, if it hasn't been yet
+    // (volatile so that once it is seen to be null, the text is seen too):
+    private volatile CharSequence textSource;
     
     public LocatableToken(int t, String txt, LineColPos begin, LineColPos end)
     {
@@ -40,6 +43,18 @@ public class LocatableToken
         this.begin = begin;
         this.end = end;
     }
+
+    /**
+     * Construct a token whose text is the same as the given source between the begin and
+     * end positions, and will be taken from it when it is first asked for.
+     */
+    LocatableToken(int t, CharSequence textSource, LineColPos begin, LineColPos end)
+    {
+        type = t;
+        this.textSource = textSource;
+        this.begin = begin;
+        this.end = end;
+    }
     
     public int getEndColumn()
     {
@@ -59,7 +74,7 @@ public class LocatableToken
     public LocatableToken adjustStart(int offset)
     {
         // Assume same line:
-        return new LocatableToken(type, text, begin.offsetSameLineBy(offset), end.offsetSameLineBy(offset));
+        return new LocatableToken(type, getText(), begin.offsetSameLineBy(offset), end.offsetSameLineBy(offset));
     }
     
     public int getColumn()
@@ -81,6 +96,13 @@ public class LocatableToken
      */
     public String getText()
     {
+        CharSequence source = textSource;
+        if (source != null) {
+            String sourceText = source.subSequence(begin.position(), end.position()).toString();
+            text = sourceText;
+            textSource = null;
+            return sourceText;
+        }
         return text;
     }
     
@@ -125,7 +147,7 @@ public class LocatableToken
             ", end=" + end +
             ", hiddenBefore=" + hiddenBefore +
             ", type=" + type +
-            ", text='" + text + '\'' +
+            ", text='" + getText() + '\'' +
             '}';
     }
 }
@@ -0,0 +1,158 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser.lexer;
+
+import bluej.parser.EscapedUnicodeReader;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * A buffer of tokens read by {@link JavaLexer#scanInto}.  Each token is held as its type,
+ * offset and length in the source, packed into an int array which is re-used each time
+ * the buffer is filled, so no objects are created per token.  The text of a token is
+ * only created if asked for.
+ */
+@OnThread(Tag.Any)
+public final class TokenBuffer
+{
+    // Each token takes up this many ints: type (with ESCAPED flag), offset and length:
+    private static final int TOKEN_INTS = 3;
+    private static final int ESCAPED = 1 << 30;
+
+    private int[] tokens;
+    private int size;
+    private CharSequence source;
+
+    public TokenBuffer()
+    {
+        this(256);
+    }
+
+    /**
+     * Create a buffer with room for the given number of tokens (it grows as needed).
+     */
+    public TokenBuffer(int initialCapacity)
+    {
+        tokens = new int[Math.max(1, initialCapacity) * TOKEN_INTS];
+    }
+
+    /**
+     * Clear the buffer, ready to be filled with tokens from the given source.
+     */
+    void reset(CharSequence source)
+    {
+        this.source = source;
+        size = 0;
+    }
+
+    /**
+     * Add a token.
+     * 
+     * @param escaped  Whether the token contains unicode escapes, in which case its
+     *                 text is not the same as its source.
+     */
+    void add(int type, int offset, int length, boolean escaped)
+    {
+        int i = size * TOKEN_INTS;
+        if (i + TOKEN_INTS > tokens.length)
+        {
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        }
+        tokens[i] = escaped ? type | ESCAPED : type;
+        tokens[i + 1] = offset;
+        tokens[i + 2] = length;
+        size += 1;
+    }
+
+    /**
+     * The number of tokens in the buffer.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * The type of the token at the given index (one of the constants in {@link JavaTokenTypes}).
+     */
+    public int getType(int index)
+    {
+        return tokens[checkIndex(index)] & ~ESCAPED;
+    }
+
+    /**
+     * The offset of the token at the given index in the source.
+     */
+    public int getOffset(int index)
+    {
+        return tokens[checkIndex(index) + 1];
+    }
+
+    /**
+     * The length of the token at the given index in the source (which may be longer than its
+     * text if it contains unicode escapes).
+     */
+    public int getLength(int index)
+    {
+        return tokens[checkIndex(index) + 2];
+    }
+
+    /**
+     * Gets the text of the token at the given index, with any unicode escapes processed,
+     * as for {@link LocatableToken#getText()}.  A new String is created each time.
+     */
+    public String getText(int index)
+    {
+        int i = checkIndex(index);
+        String original = source.subSequence(tokens[i + 1], tokens[i + 1] + tokens[i + 2]).toString();
+        if ((tokens[i] & ESCAPED) == 0)
+        {
+            return original;
+        }
+        StringBuilder text = new StringBuilder(original.length());
+        try (EscapedUnicodeReader reader = new EscapedUnicodeReader(new StringReader(original)))
+        {
+            for (int ch = reader.read(); ch != -1; ch = reader.read())
+            {
+                text.append((char) ch);
+            }
+        }
+        catch (IOException e)
+        {
+            // Can't happen with a StringReader
+        }
+        return text.toString();
+    }
+
+    private int checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Token " + index + " of " + size);
+        }
+        return index * TOKEN_INTS;
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import bluej.parser.symtab.ClassInfo;
+import bluej.utility.Debug;
+import bluej.utility.SortedProperties;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * A cache of the results of analysing the source of each class in a package: its role,
+ * superclass, interfaces, the classes it uses, and so on.  This is what the class diagram
+ * needs when a package is opened, so for classes whose source has not changed since it
+ * was last analysed, the package can be shown without parsing the source at all.
+ *
+ * Entries are kept in a file in the package directory, and are keyed by a hash of the
+ * Java source (for Stride classes, the generated Java).  Which classes a source file
+ * refers to can also depend on what other classes are in the package, so each entry also
+ * records the set of names in the package at the time; if that has changed, the entry
+ * still gives a good first guess but the source should be analysed again.
+ */
+@OnThread(Tag.Any)
+public class ClassAnalysisCache
+{
+    /** The name of the cache file, in each package directory. */
+    public static final String FILE_NAME = "bluej.analysis";
+
+    // Increase this if the format of the entries changes:
+    private static final String VERSION = "1";
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    /**
+     * The result of analysing a class's source.
+     */
+    @OnThread(Tag.Any)
+    public static class Analysis
+    {
+        private final String sourceHash;
+        private final String namesHash;
+        private final boolean unitTest;
+        private final boolean isInterface;
+        private final boolean isEnum;
+        private final boolean isAbstract;
+        private final String packageName;
+        private final String superclass;
+        private final List<String> implemented;
+        private final List<String> used;
+        private final List<String> permits;
+        private final String typeParameters;
+
+        private Analysis(String sourceHash, String namesHash, boolean unitTest, boolean isInterface,
+                boolean isEnum, boolean isAbstract, String packageName, String superclass,
+                List<String> implemented, List<String> used, List<String> permits, String typeParameters)
+        {
+            this.sourceHash = sourceHash;
+            this.namesHash = namesHash;
+            this.unitTest = unitTest;
+            this.isInterface = isInterface;
+            this.isEnum = isEnum;
+            this.isAbstract = isAbstract;
+            this.packageName = packageName;
+            this.superclass = superclass;
+            this.implemented = implemented;
+            this.used = used;
+            this.permits = permits;
+            this.typeParameters = typeParameters;
+        }
+
+        public boolean isUnitTest() { return unitTest; }
+        public boolean isInterface() { return isInterface; }
+        public boolean isEnum() { return isEnum; }
+        public boolean isAbstract() { return isAbstract; }
+
+        /** The package declared in the source ("" if none). */
+        public String getPackage() { return packageName; }
+
+        /** The superclass, or null if it was not established. */
+        public String getSuperclass() { return superclass; }
+        public List<String> getImplements() { return implemented; }
+        public List<String> getUsed() { return used; }
+        public List<String> getPermits() { return permits; }
+
+        /** The type parameters as displayed, such as "&lt;K,V&gt;", or "" if none. */
+        public String getTypeParameters() { return typeParameters; }
+
+        /**
+         * Check whether this analysis was made when the package held the classes with
+         * the given names hash (see {@link ClassAnalysisCache#hashNames}).  If not, the
+         * classes used by the source might now be different.
+         */
+        public boolean isCurrentFor(String namesHash)
+        {
+            return this.namesHash.equals(namesHash);
+        }
+    }
+
+    private final File file;
+    private final Map<String, Analysis> entries = new HashMap<>();
+    private boolean loaded = false;
+    private boolean modified = false;
+
+    /**
+     * Create a cache for the package in the given directory.  Nothing is read until it is needed.
+     */
+    public ClassAnalysisCache(File packageDir)
+    {
+        this.file = new File(packageDir, FILE_NAME);
+    }
+
+    /**
+     * Find the cached analysis for each of the given classes, if there is one and the
+     * source file has not changed since.  The source files are hashed in parallel.
+     *
+     * @param sourceFiles  The Java source file for each class, by class (base) name.
+     * @return  The up-to-date analyses, by class name.
+     */
+    public synchronized Map<String, Analysis> lookup(Map<String, File> sourceFiles)
+    {
+        load();
+        List<String> names = sourceFiles.keySet().stream()
+                .filter(entries::containsKey)
+                .collect(Collectors.toList());
+        if (names.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+        try
+        {
+            List<String> hashes = pool.submit(() -> names.parallelStream()
+                    .map(n -> hashFile(sourceFiles.get(n)))
+                    .collect(Collectors.toList())).get();
+            Map<String, Analysis> found = new HashMap<>();
+            for (int i = 0; i < names.size(); i++)
+            {
+                Analysis analysis = entries.get(names.get(i));
+                if (hashes.get(i) != null && hashes.get(i).equals(analysis.sourceHash))
+                {
+                    found.put(names.get(i), analysis);
+                }
+            }
+            return found;
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            Debug.reportError("Problem checking class analysis cache", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Record the analysis of a class's source.
+     *
+     * @param className  The class (base) name
+     * @param sourceFile  The Java source file which was analysed
+     * @param info  The result of parsing the source file, or null if it could not be parsed
+     * @param namesHash  The hash of the names in the package (see {@link #hashNames})
+     */
+    @OnThread(Tag.FXPlatform)
+    public synchronized void record(String className, File sourceFile, ClassInfo info, String namesHash)
+    {
+        load();
+        String sourceHash = info == null ? null : hashFile(sourceFile);
+        if (sourceHash == null)
+        {
+            modified |= entries.remove(className) != null;
+            return;
+        }
+
+        String typeParameters = "";
+        if (info.hasTypeParameter())
+        {
+            typeParameters = "<" + String.join(",", info.getTypeParameterTexts()) + ">";
+        }
+        Analysis analysis = new Analysis(sourceHash, namesHash, info.isUnitTest(), info.isInterface(),
+                info.isEnum(), info.isAbstract(), Objects.toString(info.getPackage(), ""),
+                info.getSuperclass(), new ArrayList<>(info.getImplements()), new ArrayList<>(info.getUsed()),
+                new ArrayList<>(info.getPermits()), typeParameters);
+        entries.put(className, analysis);
+        modified = true;
+    }
+
+    /**
+     * Write the cache file, if anything has been recorded since it was read.  Entries for
+     * classes which are not in the given collection are dropped.
+     */
+    public synchronized void save(Collection<String> classNames)
+    {
+        if (!loaded)
+        {
+            return;
+        }
+        modified |= entries.keySet().retainAll(classNames);
+        if (!modified)
+        {
+            return;
+        }
+
+        Properties props = new SortedProperties();
+        props.setProperty("version", VERSION);
+        for (Map.Entry<String, Analysis> entry : entries.entrySet())
+        {
+            String prefix = entry.getKey() + ".";
+            Analysis a = entry.getValue();
+            props.setProperty(prefix + "hash", a.sourceHash);
+            props.setProperty(prefix + "names", a.namesHash);
+            props.setProperty(prefix + "flags", (a.unitTest ? "t" : "") + (a.isInterface ? "i" : "")
+                    + (a.isEnum ? "e" : "") + (a.isAbstract ? "a" : ""));
+            props.setProperty(prefix + "package", a.packageName);
+            if (a.superclass != null)
+            {
+                props.setProperty(prefix + "superclass", a.superclass);
+            }
+            props.setProperty(prefix + "implements", String.join(",", a.implemented));
+            props.setProperty(prefix + "uses", String.join(",", a.used));
+            props.setProperty(prefix + "permits", String.join(",", a.permits));
+            props.setProperty(prefix + "typeParameters", a.typeParameters);
+        }
+
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            props.store(out, "BlueJ class analysis cache: can be safely deleted");
+            modified = false;
+        }
+        catch (IOException e)
+        {
+            Debug.message("Could not write class analysis cache " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Read the cache file, if not already done.  A missing or unreadable file
+     * just gives an empty cache.
+     */
+    private void load()
+    {
+        if (loaded)
+        {
+            return;
+        }
+        loaded = true;
+        if (!file.exists())
+        {
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file))
+        {
+            props.load(in);
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            Debug.message("Could not read class analysis cache " + file + ": " + e);
+            return;
+        }
+        if (!VERSION.equals(props.getProperty("version")))
+        {
+            return;
+        }
+
+        for (String key : props.stringPropertyNames())
+        {
+            if (!key.endsWith(".hash"))
+            {
+                continue;
+            }
+            String prefix = key.substring(0, key.length() - "hash".length());
+            String flags = props.getProperty(prefix + "flags", "");
+            entries.put(prefix.substring(0, prefix.length() - 1), new Analysis(props.getProperty(key),
+                    props.getProperty(prefix + "names", ""),
+                    flags.contains("t"), flags.contains("i"), flags.contains("e"), flags.contains("a"),
+                    props.getProperty(prefix + "package", ""),
+                    props.getProperty(prefix + "superclass"),
+                    splitList(props.getProperty(prefix + "implements")),
+                    splitList(props.getProperty(prefix + "uses")),
+                    splitList(props.getProperty(prefix + "permits")),
+                    props.getProperty(prefix + "typeParameters", "")));
+        }
+    }
+
+    private static List<String> splitList(String list)
+    {
+        if (list == null || list.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(list.split(","));
+    }
+
+    /**
+     * Get a hash of the given set of names (of the classes and sub-packages in a
+     * package), which does not depend on their order.
+     */
+    public static String hashNames(Collection<String> names)
+    {
+        String[] sorted = names.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return hash(String.join(",", sorted).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get a hash of the contents of a file, or null if it can't be read.
+     */
+    private static String hashFile(File file)
+    {
+        try
+        {
+            return hash(Files.readAllBytes(file.toPath()));
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    private static String hash(byte[] data)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+            {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-1 is always available
+            throw new RuntimeException(e);
+        }
+    }
+}
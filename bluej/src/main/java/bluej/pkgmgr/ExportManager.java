@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2014,2015,2016,2018,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2014,2015,2016,2018,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -276,7 +276,7 @@ final class ExportManager
     @OnThread(Tag.Any)
     private boolean skipFile(String fileName, boolean skipSource, boolean skipPkg)
     {
-        if(fileName.equals(packageFileBackup))
+        if(fileName.equals(packageFileBackup) || fileName.equals(ClassAnalysisCache.FILE_NAME))
             return true;
         
         if(fileName.endsWith(sourceSuffix) || fileName.endsWith(sourceSuffix + "~"))
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2023 Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2023,2026 Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -119,6 +119,9 @@ public final class Package
     private boolean recorded = false;
     /** flag to monitor that loadTargetsPackage is only called once for that package **/
     private boolean hasPackageTargetsLoaded = false;
+    /** the cached analysis of the classes' source, created when first needed */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private ClassAnalysisCache analysisCache;
 
     /** Reason code for displaying source line */
     private enum ShowSourceReason
@@ -1004,7 +1007,19 @@ public final class Package
                 }
             }
 
-            // Update class roles
+            // Update class roles.  Classes which aren't compiled need their source analysed,
+            // unless it hasn't changed since it was last analysed (see ClassAnalysisCache).
+            Map<String, File> uncompiledSources = new HashMap<>();
+            for (Target target : targetsCopy) {
+                if (target instanceof ClassTarget && !((ClassTarget) target).isCompiled()) {
+                    ClassTarget ct = (ClassTarget) target;
+                    uncompiledSources.put(ct.getBaseName(), ct.getJavaSourceFile());
+                }
+            }
+            Map<String, ClassAnalysisCache.Analysis> cachedAnalyses = getAnalysisCache().lookup(uncompiledSources);
+            String namesHash = getNamesHash();
+            List<ClassTarget> toReanalyse = new ArrayList<>();
+            
             for (Target target : targetsCopy) {
 
                 if (target instanceof ClassTarget) {
@@ -1019,9 +1034,22 @@ public final class Package
                         }
                     }
                     else {
-                        ct.analyseSource();
+                        ClassAnalysisCache.Analysis analysis = cachedAnalyses.get(ct.getBaseName());
+                        if (analysis != null) {
+                            ct.applyAnalysis(analysis);
+                            if (!analysis.isCurrentFor(namesHash)) {
+                                // The classes in the package have changed, so the classes
+                                // used might have too:
+                                toReanalyse.add(ct);
+                            }
+                        }
+                        else {
+                            ct.analyseSource();
+                        }
+                        
                         try {
-                            if ( !ct.getSourceType().equals(SourceType.Stride))
+                            if ( !ct.getSourceType().equals(SourceType.Stride)
+                                    && (analysis == null || !analysis.getPackage().equals(getQualifiedName())))
                                 ct.enforcePackage(getQualifiedName());
                         }
                         catch (IOException ioe) {
@@ -1049,6 +1077,8 @@ public final class Package
 
             // update the flag
             hasPackageTargetsLoaded = true;
+            
+            reanalyseLater(toReanalyse);
         }
         else
         {
@@ -1057,6 +1087,40 @@ public final class Package
         }
     }
 
+    /**
+     * Analyse the source of the given classes, one at a time, after the current
+     * work on the FX thread (and any which follows it) is done.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void reanalyseLater(List<ClassTarget> classes)
+    {
+        if (classes.isEmpty()) {
+            return;
+        }
+        
+        JavaFXUtil.runAfterCurrent(() -> {
+            ClassTarget ct = classes.remove(0);
+            // It may have been removed (or the project closed) in the meantime:
+            if (getTarget(ct.getBaseName()) == ct && !project.isClosing()
+                    && project.getCachedPackage(getQualifiedName()) == this) {
+                ct.analyseSource();
+            }
+            reanalyseLater(classes);
+        });
+    }
+
+    /**
+     * Get the cache of source analysis results for the classes in this package.
+     */
+    @OnThread(Tag.Any)
+    public synchronized ClassAnalysisCache getAnalysisCache()
+    {
+        if (analysisCache == null) {
+            analysisCache = new ClassAnalysisCache(getPath());
+        }
+        return analysisCache;
+    }
+
     /**
      * Returns the file containing information about the package.
      * For BlueJ this is package.bluej (or for older versions bluej.pkg) 
@@ -1314,6 +1378,8 @@ public final class Package
             return;
         }
         lastSavedProps = props;
+        
+        getAnalysisCache().save(getAllClassnames());
     }
 
     /**
@@ -2100,6 +2166,22 @@ public final class Package
         return Utility.mapList(getClassTargets(), ClassTarget::getBaseName);
     }
 
+    /**
+     * Get a hash of the names of the classes and sub-packages in this package: the
+     * targets that a class's source could refer to by simple name.
+     */
+    @OnThread(Tag.Any)
+    public synchronized String getNamesHash()
+    {
+        List<String> names = new ArrayList<>();
+        for (Target target : targets) {
+            if (target instanceof DependentTarget) {
+                names.add(target.getIdentifierName());
+            }
+        }
+        return ClassAnalysisCache.hashNames(names);
+    }
+
     /**
      * Return a List of Strings with names of all classes in this package that
      * has accompanying source.
@@ -2750,6 +2832,11 @@ public final class Package
 
                 if (t.isCompiled())
                 {
+                    if (type.keepClasses())
+                    {
+                        getProject().getTestImpact().classCompiled(t.getQualifiedName());
+                    }
+
                     //check if there already exists a class in a library with that name 
                     Class<?> c = loadClass(getQualifiedName(t.getIdentifierName()));
                     if (c!=null){
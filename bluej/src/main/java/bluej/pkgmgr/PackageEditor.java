@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2012,2013,2014,2016,2017,2018,2019,2020,2021,2022,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2012,2013,2014,2016,2017,2018,2019,2020,2021,2022,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -30,12 +30,14 @@ import bluej.extmgr.ExtensionsManager;
 import bluej.extmgr.ExtensionsMenuManager;
 import bluej.extmgr.PackageExtensionMenu;
 import bluej.graph.SelectionController;
+import bluej.graph.SpatialGrid;
 import bluej.pkgmgr.dependency.Dependency;
 import bluej.pkgmgr.dependency.UsesDependency;
 import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.DependentTarget;
 import bluej.pkgmgr.target.Target;
 import bluej.testmgr.record.InvokerRecord;
+import bluej.utility.Debug;
 import bluej.utility.DialogManager;
 import bluej.utility.Utility;
 import bluej.utility.javafx.JavaFXUtil;
@@ -104,10 +106,19 @@ public final class PackageEditor extends StackPane
     private final Pane selectionLayer = new Pane();
     // The label to show a massage to create or add a class
     protected Label noClassesExistedMessage;
-    // The layer at the back where we draw the arrows:
+    // The layer at the back where we draw the arrows.  This only covers the visible
+    // part of the diagram (see layoutArrowLayer):
     private final Canvas arrowLayer = new ResizableCanvas();
     // Boolean remembering whether we've already scheduled a repaint.
     private boolean aboutToRepaint = false;
+    // The part of the diagram which is visible in the scroll pane, or null if not known:
+    private Rectangle2D visibleArea;
+    // The arrows as last painted, by dependency (or NEW_ARROW), and an index of where they are:
+    private Map<Object, ArrowShape> paintedArrows = new IdentityHashMap<>();
+    private final SpatialGrid<Object> arrowIndex = new SpatialGrid<>(ARROW_GRID_SIZE);
+    // The area of the diagram covered by the arrow layer when it was last painted:
+    private Rectangle2D paintedArea;
+    private final RepaintStatistics repaintStatistics = new RepaintStatistics();
     // The ContextMenu that is currently being shown on screen (null if not visible)
     @OnThread(Tag.FXPlatform)
     private ContextMenu showingContextMenu;
@@ -164,8 +175,14 @@ public final class PackageEditor extends StackPane
         // in order to click on the back layer:
         frontClassLayer.setPickOnBounds(false);
 
+        // We size and position the arrow layer ourselves:
+        arrowLayer.setManaged(false);
         JavaFXUtil.addChangeListenerPlatform(arrowLayer.widthProperty(), s -> repaint());
         JavaFXUtil.addChangeListenerPlatform(arrowLayer.heightProperty(), s -> repaint());
+        JavaFXUtil.addChangeListenerPlatform(arrowLayer.layoutXProperty(), s -> repaint());
+        JavaFXUtil.addChangeListenerPlatform(arrowLayer.layoutYProperty(), s -> repaint());
+        JavaFXUtil.addChangeListenerPlatform(widthProperty(), s -> layoutArrowLayer());
+        JavaFXUtil.addChangeListenerPlatform(heightProperty(), s -> layoutArrowLayer());
         // The mouse events occur on us not on the selection layer.
         // We don't want the display getting in the way of mouse events:
         selectionLayer.setMouseTransparent(true);
@@ -433,12 +450,64 @@ public final class PackageEditor extends StackPane
     
     public void graphClosed()
     {
-        
+        if (repaintStatistics.getRepaints() > 0)
+        {
+            Debug.message("Class diagram repaints for " + pkg.getQualifiedName() + ": " + repaintStatistics);
+        }
     }
 
     private static final int ARROW_SIZE = 18; // pixels
     private static final double ARROW_ANGLE = Math.PI / 6; // radians
     private static final double DASHES[] = {5.0f, 2.0f};
+    // The cell size of the arrow index:
+    private static final double ARROW_GRID_SIZE = 128;
+    // The key for the arrow being created by the user, if any:
+    private static final Object NEW_ARROW = new Object();
+
+    /**
+     * Set the part of the diagram which is currently visible.  Only this part of the
+     * arrow layer is kept painted.
+     *
+     * @param area  The visible area, in our coordinates, or null if not known (in which
+     *              case the whole diagram is painted).
+     */
+    public void setVisibleArea(Rectangle2D area)
+    {
+        if (!Objects.equals(area, visibleArea))
+        {
+            visibleArea = area;
+            layoutArrowLayer();
+        }
+    }
+
+    /**
+     * Size and position the arrow layer to cover the visible area (on whole pixels,
+     * so that lines stay sharp).  Moving or resizing it causes a repaint.
+     */
+    private void layoutArrowLayer()
+    {
+        double minX = 0, minY = 0, maxX = getWidth(), maxY = getHeight();
+        if (visibleArea != null)
+        {
+            minX = Math.max(minX, visibleArea.getMinX());
+            minY = Math.max(minY, visibleArea.getMinY());
+            maxX = Math.min(maxX, visibleArea.getMaxX());
+            maxY = Math.min(maxY, visibleArea.getMaxY());
+        }
+        minX = Math.floor(minX);
+        minY = Math.floor(minY);
+        arrowLayer.relocate(minX, minY);
+        arrowLayer.resize(Math.max(0, Math.ceil(maxX) - minX), Math.max(0, Math.ceil(maxY) - minY));
+    }
+
+    /**
+     * Get statistics about the time taken to repaint the arrows in the diagram, for
+     * measuring the performance of interaction with the diagram (e.g. dragging classes).
+     */
+    public RepaintStatistics getRepaintStatistics()
+    {
+        return repaintStatistics;
+    }
 
     /**
      * Schedules a repaint.  The repaint is done with a runLater,
@@ -540,6 +609,7 @@ public final class PackageEditor extends StackPane
     @OnThread(Tag.FXPlatform)
     private static class ExtendsDepInfo
     {
+        private final Object key;
         private final Dependency.Line line;
         private final boolean selected;
         private final boolean creating;
@@ -547,6 +617,7 @@ public final class PackageEditor extends StackPane
 
         public ExtendsDepInfo(Dependency d)
         {
+            this.key = d;
             this.line = d.computeLine();
             this.selected = d.isSelected();
             this.creating = false;
@@ -567,6 +638,7 @@ public final class PackageEditor extends StackPane
             // Compute intersection points with target border
             pFrom = from.getAttachment(angle + Math.PI);
 
+            key = NEW_ARROW;
             line = new Dependency.Line(pFrom, pTo, angle);
             selected = false;
             creating = true;
@@ -587,6 +659,7 @@ public final class PackageEditor extends StackPane
             pFrom = from.getAttachment(angle + Math.PI);
             pTo = to.getAttachment(angle);
 
+            key = NEW_ARROW;
             line = new Dependency.Line(pFrom, pTo, angle);
             selected = false;
             creating = true;
@@ -594,119 +667,349 @@ public final class PackageEditor extends StackPane
     }
 
     /**
-     * Does the actual repaint of the arrowLayer (do not call directly;
-     * see repaint method).
+     * The lines making up one arrow in the diagram, in diagram coordinates.  Working these
+     * out separately from painting them lets us find which arrows have changed since the
+     * last repaint, and so which part of the arrow layer needs to be repainted.
      */
-    private void actualRepaint()
+    @OnThread(Tag.FXPlatform)
+    private static class ArrowShape
     {
-        aboutToRepaint = false;
-        List<Dependency> extendsDeps = isShowExtends() ? new ArrayList<>(pkg.getExtendsArrows()) : Collections.emptyList();;
-        List<UsesDependency> usesDeps = isShowUses() ? new ArrayList<>(pkg.getUsesArrows()) : Collections.emptyList();
-
-        List<ExtendsDepInfo> extendsLines = new ArrayList<>(Utility.mapList(extendsDeps, ExtendsDepInfo::new));
-        if (extendsSubClass != null)
+        private final Color color;
+        private final double lineWidth;
+        // The head of an extends arrow (three points), or null:
+        private final double[] headX;
+        private final double[] headY;
+        // The line segments (x1, y1, x2, y2 for each) and whether each is dashed:
+        private final double[] lines;
+        private final boolean[] dashed;
+        // The order in which the arrow is painted:
+        private final int order;
+        private final Rectangle2D bounds;
+
+        private ArrowShape(Color color, double lineWidth, double[] headX, double[] headY,
+                double[] lines, boolean[] dashed, int order)
         {
-            if (extendsSuperClassHover != null)
+            this.color = color;
+            this.lineWidth = lineWidth;
+            this.headX = headX;
+            this.headY = headY;
+            this.lines = lines;
+            this.dashed = dashed;
+            this.order = order;
+
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < lines.length; i += 2)
             {
-                extendsLines.add(new ExtendsDepInfo(extendsSubClass, extendsSuperClassHover));
+                minX = Math.min(minX, lines[i]);
+                maxX = Math.max(maxX, lines[i]);
+                minY = Math.min(minY, lines[i + 1]);
+                maxY = Math.max(maxY, lines[i + 1]);
             }
-            else
+            if (headX != null)
             {
-                Point2D p = arrowLayer.sceneToLocal(newExtendsDestX, newExtendsDestY);
-                extendsLines.add(new ExtendsDepInfo(extendsSubClass, p.getX(), p.getY()));
+                for (int i = 0; i < headX.length; i++)
+                {
+                    minX = Math.min(minX, headX[i]);
+                    maxX = Math.max(maxX, headX[i]);
+                    minY = Math.min(minY, headY[i]);
+                    maxY = Math.max(maxY, headY[i]);
+                }
             }
+            // Allow for the line width and anti-aliasing:
+            double margin = lineWidth + 1;
+            bounds = new Rectangle2D(minX - margin, minY - margin,
+                    maxX - minX + 2 * margin, maxY - minY + 2 * margin);
         }
-        
-        
-        GraphicsContext g = arrowLayer.getGraphicsContext2D();
-        g.clearRect(0, 0, arrowLayer.getWidth(), arrowLayer.getHeight());
 
-        for (ExtendsDepInfo d : extendsLines)
+        /**
+         * Work out the shape of an extends/implements arrow.
+         */
+        static ArrowShape forExtends(ExtendsDepInfo d, int order)
         {
-            g.setStroke(d.creating ? Color.BLUE : Color.BLACK);
-            g.setLineWidth(d.selected ? 3.0 : 1.0);
             Dependency.Line line = d.line;
             double fromY = line.from.getY();
             double fromX = line.from.getX();
             double toY = line.to.getY();
             double toX = line.to.getX();
 
-
             double angle = Math.atan2(-(fromY - toY), fromX - toX);
 
             double arrowJoinX = toX + ((ARROW_SIZE - 2) * Math.cos(angle));
             double arrowJoinY = toY - ((ARROW_SIZE - 2) * Math.sin(angle));
 
-            // draw the arrow head
+            // the arrow head
             double[] xPoints = {toX, toX + ((ARROW_SIZE) * Math.cos(angle + ARROW_ANGLE)),
                     toX + (ARROW_SIZE * Math.cos(angle - ARROW_ANGLE))};
             double[] yPoints = {toY, toY - ((ARROW_SIZE) * Math.sin(angle + ARROW_ANGLE)),
                     toY - (ARROW_SIZE * Math.sin(angle - ARROW_ANGLE))};
-            g.setLineDashes();
-            g.strokePolygon(xPoints, yPoints, 3);
-            if (d.type==Dependency.Type.IMPLEMENTS)
-            {
-                g.setLineDashes(DASHES);
-            }
-            else
-            {
-                g.setLineDashes();
-            }
-            g.strokeLine(fromX, fromY, arrowJoinX, arrowJoinY);
+            return new ArrowShape(d.creating ? Color.BLUE : Color.BLACK, d.selected ? 3.0 : 1.0,
+                    xPoints, yPoints, new double[] {fromX, fromY, arrowJoinX, arrowJoinY},
+                    new boolean[] {d.type == Dependency.Type.IMPLEMENTS}, order);
         }
 
-        for (UsesDependency d : usesDeps)
+        /**
+         * Work out the shape of a uses arrow.
+         */
+        static ArrowShape forUses(UsesDependency d, int order)
         {
-            // Special case - don't draw a dependency line between a Foo class and the FooTest class:
-            if (d.to instanceof DependentTarget && ((DependentTarget)d.to).getAssociation() == d.from)
-                continue;
-            
-            g.setLineWidth(1.0);
-            g.setLineDashes(DASHES);
+            List<Double> lines = new ArrayList<>();
             // These should all be rounded to the nearest integer+0.5 value:
             double src_x = d.getSourceX();
             double src_y = d.getSourceY();
             double dst_x = d.getDestX();
             double dst_y = d.getDestY();
 
-            g.setStroke(Color.BLACK);
-            // Draw the end arrow
+            // The end arrow
             int delta_x = d.isEndLeft() ? -10 : 10;
 
-            g.strokeLine(dst_x, dst_y, dst_x + delta_x, dst_y + 4);
-            g.strokeLine(dst_x, dst_y, dst_x + delta_x, dst_y - 4);
-            g.setLineDashes(DASHES);
+            Collections.addAll(lines, dst_x, dst_y, dst_x + delta_x, dst_y + 4);
+            Collections.addAll(lines, dst_x, dst_y, dst_x + delta_x, dst_y - 4);
 
-            // Draw the start
+            // The start
             double corner_y = src_y + (d.isStartTop() ? -15 : 15);
-            g.strokeLine(src_x, corner_y, src_x, src_y);
+            Collections.addAll(lines, src_x, corner_y, src_x, src_y);
             src_y = corner_y;
 
-            // Draw the last line segment
+            // The last line segment
             double corner_x = dst_x + (d.isEndLeft() ? -15 : 15);
-            g.strokeLine(corner_x, dst_y, dst_x, dst_y);
+            Collections.addAll(lines, corner_x, dst_y, dst_x, dst_y);
             dst_x = corner_x;
 
-            // if arrow vertical corner, draw first segment up to corner
+            // if arrow vertical corner, first segment up to corner
             if ((src_y != dst_y) && (d.isStartTop() == (src_y < dst_y))) {
                 corner_x = Utility.roundHalf(((src_x + dst_x) / 2) + (d.isEndLeft() ? 15 : -15));
                 corner_x = (d.isEndLeft() ? Math.min(dst_x, corner_x) : Math.max(dst_x, corner_x));
-                g.strokeLine(src_x, src_y, corner_x, src_y);
+                Collections.addAll(lines, src_x, src_y, corner_x, src_y);
                 src_x = corner_x;
             }
 
-            // if arrow horiz. corner, draw first segment up to corner
+            // if arrow horiz. corner, first segment up to corner
             if ((src_x != dst_x) && (d.isEndLeft() == (src_x > dst_x))) {
                 corner_y = Utility.roundHalf(((src_y + dst_y) / 2) + (d.isStartTop() ? 15 : -15));
                 corner_y = (d.isStartTop() ? Math.min(src_y, corner_y) : Math.max(src_y, corner_y));
-                g.strokeLine(dst_x, corner_y, dst_x, dst_y);
+                Collections.addAll(lines, dst_x, corner_y, dst_x, dst_y);
                 dst_y = corner_y;
             }
 
-            // draw the middle bit
-            g.strokeLine(src_x, src_y, src_x, dst_y);
-            g.strokeLine(src_x, dst_y, dst_x, dst_y);
+            // the middle bit
+            Collections.addAll(lines, src_x, src_y, src_x, dst_y);
+            Collections.addAll(lines, src_x, dst_y, dst_x, dst_y);
+
+            double[] coords = new double[lines.size()];
+            for (int i = 0; i < coords.length; i++)
+            {
+                coords[i] = lines.get(i);
+            }
+            boolean[] dashed = new boolean[coords.length / 4];
+            Arrays.fill(dashed, true);
+            return new ArrowShape(Color.BLACK, 1.0, null, null, coords, dashed, order);
+        }
+
+        /**
+         * Check whether this would be painted exactly the same as the other.
+         */
+        boolean looksLike(ArrowShape other)
+        {
+            return color.equals(other.color) && lineWidth == other.lineWidth
+                    && Arrays.equals(headX, other.headX) && Arrays.equals(headY, other.headY)
+                    && Arrays.equals(lines, other.lines) && Arrays.equals(dashed, other.dashed);
+        }
+
+        void paint(GraphicsContext g)
+        {
+            g.setStroke(color);
+            g.setLineWidth(lineWidth);
+            if (headX != null)
+            {
+                g.setLineDashes();
+                g.strokePolygon(headX, headY, headX.length);
+            }
+            for (int i = 0; i < dashed.length; i++)
+            {
+                if (dashed[i])
+                {
+                    g.setLineDashes(DASHES);
+                }
+                else
+                {
+                    g.setLineDashes();
+                }
+                g.strokeLine(lines[i * 4], lines[i * 4 + 1], lines[i * 4 + 2], lines[i * 4 + 3]);
+            }
+        }
+    }
+
+    /**
+     * Timings of repaints of the arrow layer.
+     */
+    @OnThread(Tag.FXPlatform)
+    public static class RepaintStatistics
+    {
+        private int repaints;
+        private long totalNanos;
+        private long maxNanos;
+        private long arrowsPainted;
+
+        private void record(long nanos, int arrows)
+        {
+            repaints += 1;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            arrowsPainted += arrows;
+        }
+
+        /** The number of repaints done. */
+        public int getRepaints()
+        {
+            return repaints;
+        }
+
+        /** The mean time taken by each repaint, in milliseconds. */
+        public double getMeanMillis()
+        {
+            return repaints == 0 ? 0 : totalNanos / 1_000_000.0 / repaints;
+        }
+
+        /** The longest time taken by a repaint, in milliseconds. */
+        public double getMaxMillis()
+        {
+            return maxNanos / 1_000_000.0;
+        }
+
+        /** The mean number of arrows painted by each repaint. */
+        public double getMeanArrowsPainted()
+        {
+            return repaints == 0 ? 0 : (double)arrowsPainted / repaints;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%d repaints, mean %.2f ms, max %.2f ms, mean %.1f arrows painted",
+                    repaints, getMeanMillis(), getMaxMillis(), getMeanArrowsPainted());
+        }
+    }
+
+    /**
+     * Does the actual repaint of the arrowLayer (do not call directly;
+     * see repaint method).
+     *
+     * Only the arrows which have changed since the last repaint are repainted, along
+     * with any others overlapping the area they cover, unless the arrow layer has moved
+     * (for example, the diagram has been scrolled), in which case all the arrows in the
+     * visible area are repainted.
+     */
+    private void actualRepaint()
+    {
+        aboutToRepaint = false;
+        long startTime = System.nanoTime();
+        List<Dependency> extendsDeps = isShowExtends() ? new ArrayList<>(pkg.getExtendsArrows()) : Collections.emptyList();;
+        List<UsesDependency> usesDeps = isShowUses() ? new ArrayList<>(pkg.getUsesArrows()) : Collections.emptyList();
+
+        List<ExtendsDepInfo> extendsLines = new ArrayList<>(Utility.mapList(extendsDeps, ExtendsDepInfo::new));
+        if (extendsSubClass != null)
+        {
+            if (extendsSuperClassHover != null)
+            {
+                extendsLines.add(new ExtendsDepInfo(extendsSubClass, extendsSuperClassHover));
+            }
+            else
+            {
+                Point2D p = sceneToLocal(newExtendsDestX, newExtendsDestY);
+                extendsLines.add(new ExtendsDepInfo(extendsSubClass, p.getX(), p.getY()));
+            }
+        }
+
+        Map<Object, ArrowShape> arrows = new IdentityHashMap<>();
+        int order = 0;
+        for (ExtendsDepInfo d : extendsLines)
+        {
+            arrows.put(d.key, ArrowShape.forExtends(d, order++));
+        }
+        for (UsesDependency d : usesDeps)
+        {
+            // Special case - don't draw a dependency line between a Foo class and the FooTest class:
+            if (d.to instanceof DependentTarget && ((DependentTarget)d.to).getAssociation() == d.from)
+                continue;
+            arrows.put(d, ArrowShape.forUses(d, order++));
+        }
+
+        // Find the area covered by arrows which have been removed, added or changed:
+        Rectangle2D dirty = null;
+        for (Map.Entry<Object, ArrowShape> painted : paintedArrows.entrySet())
+        {
+            if (!arrows.containsKey(painted.getKey()))
+            {
+                arrowIndex.remove(painted.getKey());
+                dirty = union(dirty, painted.getValue().bounds);
+            }
+        }
+        for (Map.Entry<Object, ArrowShape> arrow : arrows.entrySet())
+        {
+            ArrowShape painted = paintedArrows.get(arrow.getKey());
+            if (painted == null || !painted.looksLike(arrow.getValue()))
+            {
+                dirty = union(dirty, painted == null ? null : painted.bounds);
+                dirty = union(dirty, arrow.getValue().bounds);
+                arrowIndex.put(arrow.getKey(), arrow.getValue().bounds);
+            }
+        }
+        paintedArrows = arrows;
+
+        Rectangle2D area = new Rectangle2D(arrowLayer.getLayoutX(), arrowLayer.getLayoutY(),
+                arrowLayer.getWidth(), arrowLayer.getHeight());
+        if (!area.equals(paintedArea))
+        {
+            paintedArea = area;
+            dirty = area;
+        }
+
+        int arrowsPainted = 0;
+        if (dirty != null && dirty.intersects(area))
+        {
+            // Repaint whole pixels of the dirty area, in the arrow layer's coordinates:
+            double minX = Math.floor(Math.max(dirty.getMinX(), area.getMinX()) - area.getMinX());
+            double minY = Math.floor(Math.max(dirty.getMinY(), area.getMinY()) - area.getMinY());
+            double maxX = Math.ceil(Math.min(dirty.getMaxX(), area.getMaxX()) - area.getMinX());
+            double maxY = Math.ceil(Math.min(dirty.getMaxY(), area.getMaxY()) - area.getMinY());
+            Rectangle2D repaintArea = new Rectangle2D(minX + area.getMinX(), minY + area.getMinY(),
+                    maxX - minX, maxY - minY);
+
+            List<ArrowShape> toPaint = Utility.mapList(arrowIndex.query(repaintArea), arrows::get);
+            toPaint.sort(Comparator.comparingInt(a -> a.order));
+
+            GraphicsContext g = arrowLayer.getGraphicsContext2D();
+            g.save();
+            g.beginPath();
+            g.rect(minX, minY, maxX - minX, maxY - minY);
+            g.clip();
+            g.clearRect(minX, minY, maxX - minX, maxY - minY);
+            g.translate(-area.getMinX(), -area.getMinY());
+            for (ArrowShape arrow : toPaint)
+            {
+                arrow.paint(g);
+            }
+            g.restore();
+            arrowsPainted = toPaint.size();
+        }
+        repaintStatistics.record(System.nanoTime() - startTime, arrowsPainted);
+    }
+
+    private static Rectangle2D union(Rectangle2D a, Rectangle2D b)
+    {
+        if (a == null)
+        {
+            return b;
+        }
+        if (b == null)
+        {
+            return a;
         }
+        double minX = Math.min(a.getMinX(), b.getMinX());
+        double minY = Math.min(a.getMinY(), b.getMinY());
+        return new Rectangle2D(minX, minY, Math.max(a.getMaxX(), b.getMaxX()) - minX,
+                Math.max(a.getMaxY(), b.getMaxY()) - minY);
     }
 
 
@@ -0,0 +1,242 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import bluej.collect.DataCollector;
+import bluej.debugger.DebuggerTestResult;
+import bluej.debugger.jdi.JdiTestResult;
+import bluej.pkgmgr.target.ClassTarget;
+import bluej.testmgr.TestDisplayFrame;
+import bluej.testmgr.TestImpact;
+import bluej.testmgr.TestWorkerVM;
+import bluej.utility.Debug;
+import bluej.utility.Utility;
+import javafx.application.Platform;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread class for running all the unit tests in a package in parallel, using
+ * several worker VMs (see TestWorkerVM) instead of the debug VM.  The debug VM
+ * thus stays free for interactive use while the tests run.
+ *
+ * Test classes are handed out to the workers from a single queue: those which failed
+ * the last time they were run come first, so that the user finds out quickly whether
+ * they have been fixed, followed by the rest, longest-running first (according to the
+ * run times recorded by the project the last time each class was run), so that the
+ * workers finish at about the same time.  Results are shown in the test display as each
+ * class completes, and the classes each test class used are recorded in the project's
+ * TestImpact.
+ *
+ * If a worker VM dies while running a test class (for instance because a test calls
+ * System.exit), an error is reported for that class and a new worker VM is started for
+ * the rest.  If no worker VM can be started at all, the remaining classes are run in the
+ * debug VM by a TestRunnerThread instead.
+ */
+public class ParallelTestRunnerThread extends Thread
+{
+    private final PkgMgrFrame pmf;
+    private final Project project;
+    private final int numWorkers;
+    private final String classPath;
+    private final String userClassPath;
+    private final File projectDir;
+    @OnThread(Tag.Any)
+    private final ConcurrentLinkedQueue<String> testClasses;
+    // The targets of the test classes, by qualified name:
+    @OnThread(Tag.Any)
+    private final Map<String, ClassTarget> targetsByName = new HashMap<>();
+
+    /**
+     * Construct a test runner thread for running all the tests in the given test classes.
+     *
+     * @param numWorkers  the maximum number of worker VMs to use
+     */
+    @OnThread(Tag.FXPlatform)
+    public ParallelTestRunnerThread(PkgMgrFrame pmf, List<ClassTarget> targets, int numWorkers)
+    {
+        super("Parallel Test Runner");
+        this.pmf = pmf;
+        this.project = pmf.getProject();
+        this.projectDir = project.getProjectDir();
+        // The project directory is loaded separately by the worker, so that it can track class loading:
+        List<File> classPathFiles = new ArrayList<>(project.getClassLoader().getClassPathAsFiles());
+        classPathFiles.removeIf(f -> f.getAbsoluteFile().equals(projectDir.getAbsoluteFile()));
+        this.classPath = Utility.toClasspathString(classPathFiles);
+        this.userClassPath = projectDir.getAbsolutePath();
+
+        List<String> classNames = new ArrayList<>();
+        for (ClassTarget ct : targets)
+        {
+            if (ct.isCompiled() && ct.isUnitTest() && ! ct.isAbstract())
+            {
+                classNames.add(ct.getQualifiedName());
+                targetsByName.put(ct.getQualifiedName(), ct);
+            }
+        }
+        // Failing classes go first.  Classes we haven't timed are assumed to be slow, so they
+        // are started early:
+        TestImpact testImpact = project.getTestImpact();
+        classNames.sort(Comparator.comparing((String c) -> testImpact.hasFailed(c))
+                .thenComparingInt((String c) -> {
+                    int runTime = project.getTestClassRunTime(c);
+                    return runTime == -1 ? Integer.MAX_VALUE : runTime;
+                }).reversed());
+        this.testClasses = new ConcurrentLinkedQueue<>(classNames);
+        this.numWorkers = Math.max(1, Math.min(numWorkers, classNames.size()));
+    }
+
+    @OnThread(value = Tag.Worker, ignoreParent = true)
+    public void run()
+    {
+        ExecutorService workers = Executors.newFixedThreadPool(numWorkers);
+        for (int i = 0; i < numWorkers; i++)
+        {
+            workers.execute(this::runWorker);
+        }
+        workers.shutdown();
+        try
+        {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Debug.reportError(e);
+        }
+
+        // If the workers could not run all the classes, run the rest in the debug VM:
+        List<ClassTarget> remaining = new ArrayList<>();
+        for (String className = testClasses.poll(); className != null; className = testClasses.poll())
+        {
+            remaining.add(targetsByName.get(className));
+        }
+        if (! remaining.isEmpty())
+        {
+            // The test runner thread tells the PkgMgrFrame when it has finished:
+            Platform.runLater(() -> new TestRunnerThread(pmf, remaining.iterator()).start());
+            return;
+        }
+
+        // Finally, tell the PkgMgrFrame that we're done:
+        Platform.runLater(() -> pmf.endTestRun());
+    }
+
+    /**
+     * Start a worker VM and use it to run test classes from the queue until the queue is empty.
+     * If the VM dies, or its output cannot be understood, an error is reported for the class
+     * it was running and another VM is started for the remaining classes.  If a VM cannot be
+     * started, the classes are left in the queue.
+     */
+    @OnThread(Tag.Worker)
+    private void runWorker()
+    {
+        TestImpact testImpact = project.getTestImpact();
+        TestWorkerVM vm = null;
+        try
+        {
+            while (! testClasses.isEmpty())
+            {
+                if (vm == null)
+                {
+                    vm = new TestWorkerVM(classPath, userClassPath, projectDir);
+                }
+                String className = testClasses.poll();
+                if (className == null)
+                {
+                    break;
+                }
+
+                long compilation = testImpact.getCompilation();
+                List<DebuggerTestResult> results = new ArrayList<>();
+                try
+                {
+                    TestWorkerVM.ClassRun run = vm.runTestClass(className, results::add);
+                    int runTimeMs = run.getRunTimeMs();
+                    project.recordTestClassRunTime(className, runTimeMs);
+                    testImpact.recordRun(className, run.getLoadedClasses(), compilation,
+                            results.stream().allMatch(DebuggerTestResult::isSuccess));
+                    showResults(results, runTimeMs);
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    // The worker died part way through the class (perhaps a test called System.exit),
+                    // or sent something we couldn't understand; report the class as having an error,
+                    // and carry on with a new worker:
+                    Debug.reportError("Test worker VM failed running " + className, e);
+                    String message = e.getMessage() == null ? e.toString() : e.getMessage();
+                    results.add(JdiTestResult.fromDetails(className, new String[] {className, "",
+                            message, message, "", "", "", "0", "error"}));
+                    testImpact.recordRun(className, Collections.emptyList(), compilation, false);
+                    showResults(results, 0);
+                    vm.close();
+                    vm = null;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not start test worker VM", e);
+        }
+        finally
+        {
+            if (vm != null)
+            {
+                vm.close();
+            }
+        }
+    }
+
+    /**
+     * Show the results of a test class in the test display.
+     */
+    @OnThread(Tag.Worker)
+    private void showResults(List<DebuggerTestResult> results, int runTimeMs)
+    {
+        Platform.runLater(() -> {
+            for (DebuggerTestResult result : results)
+            {
+                showResult(result);
+            }
+            TestDisplayFrame.getTestDisplay().updateTotalTimeMs(runTimeMs);
+        });
+    }
+
+    @OnThread(Tag.FXPlatform)
+    private void showResult(DebuggerTestResult result)
+    {
+        TestDisplayFrame.getTestDisplay().addResult(result, false);
+        DataCollector.testResult(pmf.getPackage(), result);
+    }
+}
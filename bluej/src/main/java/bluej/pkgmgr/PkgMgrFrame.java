@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -58,6 +58,7 @@ import bluej.prefmgr.PrefMgr;
 import bluej.prefmgr.PrefMgrDialog;
 import bluej.terminal.Terminal;
 import bluej.testmgr.TestDisplayFrame;
+import bluej.testmgr.TestImpact;
 import bluej.testmgr.record.InvokerRecord;
 import bluej.utility.*;
 import bluej.utility.javafx.*;
@@ -183,6 +184,7 @@ public class PkgMgrFrame
     private final PkgMgrAction newCSSAction = new NewCSSAction(this);
     private final PkgMgrAction addClassAction = new AddClassAction(this);
     private final PkgMgrAction removeAction = new RemoveAction(this);
+    private final PkgMgrAction findInProjectAction = new FindInProjectAction(this);
     @OnThread(Tag.Any)
     private final PkgMgrAction newInheritsAction = new NewInheritsAction(this);
     @OnThread(Tag.Any)
@@ -193,8 +195,10 @@ public class PkgMgrFrame
     private final RestartVMAction restartVMAction = new RestartVMAction(this);
     private final PkgMgrAction useLibraryAction = new UseLibraryAction(this);
     private final PkgMgrAction generateDocsAction = new GenerateDocsAction(this);
+    private final PkgMgrAction showProfilerAction = new ShowProfilerAction(this);
     @OnThread(Tag.Any)
     private final PkgMgrAction runTestsAction = new RunTestsAction(this);
+    private final PkgMgrAction runAffectedTestsAction = new RunAffectedTestsAction(this);
     /*
      * The package that this frame is working on or null for the case where
      * there is no package currently being edited (check with isEmptyFrame())
@@ -302,6 +306,9 @@ public class PkgMgrFrame
             JavaFXUtil.addChangeListenerAndCallNow(pkgEditorScrollPane.contentProperty(), newVal -> pkgEditorScrollPane.setVisible(newVal != null));
             pkgEditorScrollPane.setFitToWidth(true);
             pkgEditorScrollPane.setFitToHeight(true);
+            JavaFXUtil.addChangeListenerPlatform(pkgEditorScrollPane.viewportBoundsProperty(), b -> updateEditorVisibleArea());
+            JavaFXUtil.addChangeListenerPlatform(pkgEditorScrollPane.hvalueProperty(), v -> updateEditorVisibleArea());
+            JavaFXUtil.addChangeListenerPlatform(pkgEditorScrollPane.vvalueProperty(), v -> updateEditorVisibleArea());
             Label emptyProjectMessage = new Label(Config.getString("pkgmgr.noProjectOpened.message"));
             JavaFXUtil.addStyleClass(emptyProjectMessage, "pmf-empty-project-msg");
             StackPane centralPane = new StackPane(emptyProjectMessage, pkgEditorScrollPane);
@@ -937,6 +944,9 @@ public class PkgMgrFrame
             this.editor = new PackageEditor(this, aPkg, showUsesProperty, showInheritsProperty, topOverlay);
 
             pkgEditorScrollPane.setContent(editor);
+            JavaFXUtil.addChangeListenerPlatform(editor.widthProperty(), w -> updateEditorVisibleArea());
+            JavaFXUtil.addChangeListenerPlatform(editor.heightProperty(), h -> updateEditorVisibleArea());
+            updateEditorVisibleArea();
             editor.setOnDragOver(event -> {
                 Dragboard db = event.getDragboard();
                 if (db.hasFiles())
@@ -1106,6 +1116,26 @@ public class PkgMgrFrame
         teamActions.getShowLogAction().useMenuItem(this, showLogMenuItem);
     }
 
+    /**
+     * Tell the package editor which part of it is visible in the scroll pane.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void updateEditorVisibleArea()
+    {
+        if (editor == null || pkgEditorScrollPane.getContent() != editor)
+        {
+            return;
+        }
+        Bounds viewport = pkgEditorScrollPane.getViewportBounds();
+        double hRange = pkgEditorScrollPane.getHmax() - pkgEditorScrollPane.getHmin();
+        double vRange = pkgEditorScrollPane.getVmax() - pkgEditorScrollPane.getVmin();
+        double x = hRange <= 0 ? 0 : (pkgEditorScrollPane.getHvalue() - pkgEditorScrollPane.getHmin()) / hRange
+                * Math.max(0, editor.getWidth() - viewport.getWidth());
+        double y = vRange <= 0 ? 0 : (pkgEditorScrollPane.getVvalue() - pkgEditorScrollPane.getVmin()) / vRange
+                * Math.max(0, editor.getHeight() - viewport.getHeight());
+        editor.setVisibleArea(new Rectangle2D(x, y, viewport.getWidth(), viewport.getHeight()));
+    }
+
     /**
      * Closes the current package.
      */
@@ -2236,6 +2266,22 @@ public class PkgMgrFrame
         fileName.ifPresent(name -> createNewCSS(name, x, y));
     }
 
+    /**
+     * Show the window for searching the source files of this frame's project.
+     */
+    public void doFindInProject()
+    {
+        getProject().getProjectSearchWindow().show();
+    }
+
+    /**
+     * Show the profiler window for this frame's project.
+     */
+    public void doShowProfiler()
+    {
+        getProject().getProfilerWindow().show();
+    }
+
     /**
      * Prompts the user with a dialog asking for the name of a package to
      * create. Package name can be fully qualified in which case all
@@ -2393,15 +2439,46 @@ public class PkgMgrFrame
      */
     public void doTest()
     {
+        runTests(false);
+    }
+
+    /**
+     * The user function to run the tests in a package which are affected by changes made
+     * since they last passed (see TestImpact).  The tests are run in worker VMs, since
+     * that is where the classes used by each test class are recorded.
+     */
+    public void doTestAffected()
+    {
+        runTests(true);
+    }
+
+    /**
+     * Run the tests in this package.
+     * 
+     * @param affectedOnly  true to run only the affected test classes
+     */
+    private void runTests(boolean affectedOnly)
+    {
+        TestImpact testImpact = getProject().getTestImpact();
+        List<ClassTarget> l = getPackage().getTestTargets();
+        if (affectedOnly)
+        {
+            l.removeIf(ct -> ! testImpact.isAffected(ct.getQualifiedName()));
+            if (l.isEmpty())
+            {
+                setStatus(Config.getString("pkgmgr.test.noneAffected"));
+                return;
+            }
+        }
+
         runTestsAction.setAvailable(false);
+        runAffectedTestsAction.setAvailable(false);
         Terminal terminal = this.getPackage().getProject().getTerminal();
         if (terminal.clearOnMethodCall())
         {
             terminal.clear();
         }
 
-        List<ClassTarget> l = getPackage().getTestTargets();
-
         // Find the number of tests
         int numTests = 0;
         ListIterator<ClassTarget> i = l.listIterator();
@@ -2421,8 +2498,20 @@ public class PkgMgrFrame
         Project projFinal = getProject();
         TestDisplayFrame.getTestDisplay().startMultipleTests(projFinal, numTestsFinal);
 
-        TestRunnerThread trt = new TestRunnerThread(this, it);
-        trt.start();
+        int parallelWorkers = Config.getPropInteger("bluej.testing.parallelWorkers", 0);
+        if (affectedOnly)
+        {
+            new ParallelTestRunnerThread(this, l, Math.max(1, parallelWorkers)).start();
+        }
+        else if (parallelWorkers > 0)
+        {
+            new ParallelTestRunnerThread(this, l, parallelWorkers).start();
+        }
+        else
+        {
+            TestRunnerThread trt = new TestRunnerThread(this, it);
+            trt.start();
+        }
     }
     
     /**
@@ -2433,6 +2522,7 @@ public class PkgMgrFrame
     {
         TestDisplayFrame.getTestDisplay().endMultipleTests();
         runTestsAction.setAvailable(true);
+        runAffectedTestsAction.setAvailable(true);
     }
 
     /**
@@ -3014,6 +3104,8 @@ public class PkgMgrFrame
             menu.getItems().add(new SeparatorMenuItem());
 
             menu.getItems().add(newInheritsAction.makeMenuItem());
+            menu.getItems().add(new SeparatorMenuItem());
+            menu.getItems().add(findInProjectAction.makeMenuItem());
         }
 
         ExtensionsManager extMgr = ExtensionsManager.getInstance();
@@ -3028,10 +3120,12 @@ public class PkgMgrFrame
             toolsMenu.getItems().add(new SeparatorMenuItem());
             toolsMenu.getItems().add(useLibraryAction.makeMenuItem());
             toolsMenu.getItems().add(generateDocsAction.makeMenuItem());
+            toolsMenu.getItems().add(showProfilerAction.makeMenuItem());
 
             Menu testingMenu = new Menu(Config.getString("menu.tools.testing"));
             {
                 testingMenu.getItems().add(runTestsAction.makeMenuItem());
+                testingMenu.getItems().add(runAffectedTestsAction.makeMenuItem());
                 testingMenu.getItems().add(endTestRecordAction.makeMenuItem());
                 testingMenu.getItems().add(cancelTestRecordAction.makeMenuItem());
             }
@@ -3175,13 +3269,16 @@ public class PkgMgrFrame
         actionsToDisable.add(addClassAction);
         actionsToDisable.add(removeAction);
         actionsToDisable.add(newInheritsAction);
+        actionsToDisable.add(findInProjectAction);
         actionsToDisable.add(compileAction);
         actionsToDisable.add(compileSelectedAction);
         actionsToDisable.add(rebuildAction);
         actionsToDisable.add(restartVMAction);
         actionsToDisable.add(useLibraryAction);
         actionsToDisable.add(generateDocsAction);
+        actionsToDisable.add(showProfilerAction);
         actionsToDisable.add(runTestsAction);
+        actionsToDisable.add(runAffectedTestsAction);
     }
 
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -32,6 +32,7 @@ import bluej.compiler.CompileType;
 import bluej.debugger.*;
 import bluej.debugmgr.ExecControls;
 import bluej.debugmgr.ExpressionInformation;
+import bluej.debugmgr.ProfilerWindow;
 import bluej.debugmgr.inspector.*;
 import bluej.debugmgr.objectbench.ObjectBench;
 import bluej.debugmgr.objectbench.ObjectWrapper;
@@ -55,6 +56,7 @@ import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.Target;
 import bluej.prefmgr.PrefMgr;
 import bluej.terminal.Terminal;
+import bluej.testmgr.TestImpact;
 import bluej.testmgr.record.ClassInspectInvokerRecord;
 import bluej.testmgr.record.InvokerRecord;
 import bluej.utility.*;
@@ -94,6 +96,7 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A BlueJ Project.
@@ -141,6 +144,9 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
     private ExecControls execControls = null;
     /** the Terminal for this project */
     private Terminal terminal = null;
+    /** the "Find in Project" window for this project */
+    private ProjectSearchWindow projectSearchWindow = null;
+    private ProfilerWindow profilerWindow = null;
     /** the documentation generator for this project. */
     private DocuGenerator docuGenerator;
     /** when a project is opened, the user may specify a
@@ -160,6 +166,16 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
     private Map<Object,Inspector> inspectors;
     @OnThread(value = Tag.Any, requireSynchronized = true)
     private boolean inTestMode = false;
+    // The run time (in milliseconds) of each test class, the last time all its tests were run
+    // (saved with the package properties, by ClassTarget):
+    @OnThread(Tag.Any)
+    private final Map<String, Integer> testClassRunTimes = new ConcurrentHashMap<>();
+    // Which test classes are affected by recompiled classes:
+    @OnThread(Tag.Any)
+    private final TestImpact testImpact = new TestImpact();
+    // The index used to search the project's source files:
+    @OnThread(Tag.Any)
+    private final ProjectSearch projectSearch = new ProjectSearch();
     private BPClassLoader currentClassLoader;
     private List<URL> libraryUrls;
     // the TeamSettingsController for this project
@@ -622,6 +638,13 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
             project.statusFrame.close();
         }
 
+        if (project.projectSearchWindow != null) {
+            project.projectSearchWindow.hide();
+        }
+        if (project.profilerWindow != null) {
+            project.profilerWindow.hide();
+        }
+
         project.removeAllInspectors();
         project.getDebugger().removeDebuggerListener(project);
         project.getDebugger().close(false);
@@ -1755,6 +1778,28 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         return terminal;
     }
 
+    /**
+     * Get the "Find in Project" window for this project, creating it if necessary.
+     */
+    public ProjectSearchWindow getProjectSearchWindow()
+    {
+        if (projectSearchWindow == null) {
+            projectSearchWindow = new ProjectSearchWindow(this);
+        }
+        return projectSearchWindow;
+    }
+
+    /**
+     * Get the profiler window for this project, creating it if necessary.
+     */
+    public ProfilerWindow getProfilerWindow()
+    {
+        if (profilerWindow == null) {
+            profilerWindow = new ProfilerWindow(this);
+        }
+        return profilerWindow;
+    }
+
     /**
      * Loads a class using the current classLoader
      */
@@ -1787,6 +1832,104 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         inTestMode = mode;
     }
 
+    /**
+     * Record how long it took to run all the tests in a test class.
+     */
+    @OnThread(Tag.Any)
+    public void recordTestClassRunTime(String className, int runTimeMs)
+    {
+        testClassRunTimes.put(className, runTimeMs);
+    }
+
+    /**
+     * Get how long it took to run all the tests in a test class the last
+     * time they were run, in milliseconds, or -1 if not known.
+     */
+    @OnThread(Tag.Any)
+    public int getTestClassRunTime(String className)
+    {
+        return testClassRunTimes.getOrDefault(className, -1);
+    }
+
+    /**
+     * Get the record of test coverage and recompiled classes, used to find which
+     * tests are affected by changes to the project.
+     */
+    @OnThread(Tag.Any)
+    public TestImpact getTestImpact()
+    {
+        return testImpact;
+    }
+
+    /**
+     * Get the service used to search the project's source files.
+     */
+    @OnThread(Tag.Any)
+    public ProjectSearch getProjectSearch()
+    {
+        return projectSearch;
+    }
+
+    /**
+     * Get the source files of all the classes in the project which can be searched,
+     * in package order.  For a Stride class, this is the Java generated from it.
+     * Packages which have not been opened are not loaded: their Java files are
+     * found by listing the package directory instead.
+     */
+    public List<ProjectSearch.SourceFile> getSearchableSourceFiles()
+    {
+        List<ProjectSearch.SourceFile> files = new ArrayList<>();
+        addSearchableSourceFiles("", projectDir, files);
+        return files;
+    }
+
+    /**
+     * Add the searchable source files in the given package, and the packages nested
+     * within it, to the list.
+     */
+    private void addSearchableSourceFiles(String packageName, File packageDir, List<ProjectSearch.SourceFile> files)
+    {
+        Package pkg = getCachedPackage(packageName);
+        if (pkg != null)
+        {
+            for (ClassTarget ct : pkg.getClassTargets())
+            {
+                if (ct.hasSourceCode())
+                {
+                    files.add(new ProjectSearch.SourceFile(ct.getQualifiedName(), ct.getJavaSourceFile(), getProjectCharset()));
+                }
+            }
+        }
+        else
+        {
+            File[] javaFiles = packageDir.listFiles((dir, name) -> name.endsWith(".java"));
+            if (javaFiles != null)
+            {
+                Arrays.sort(javaFiles);
+                for (File javaFile : javaFiles)
+                {
+                    String className = JavaNames.stripSuffix(javaFile.getName(), ".java");
+                    if (JavaNames.isIdentifier(className))
+                    {
+                        files.add(new ProjectSearch.SourceFile(JavaNames.combineNames(packageName, className),
+                                javaFile, getProjectCharset()));
+                    }
+                }
+            }
+        }
+
+        File[] subDirs = packageDir.listFiles(f -> f.isDirectory() && Package.isPackage(f)
+                && JavaNames.isIdentifier(f.getName()));
+        if (subDirs != null)
+        {
+            Arrays.sort(subDirs);
+            for (File subDir : subDirs)
+            {
+                addSearchableSourceFiles(JavaNames.combineNames(packageName, subDir.getName()), subDir, files);
+            }
+        }
+    }
+
     /**
      * Returns a list of URL having in it all libraries that are in the +libs directory
      * of this project.
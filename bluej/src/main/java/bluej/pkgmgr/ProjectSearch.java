@@ -0,0 +1,413 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import bluej.Config;
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Searches the source files of a project for a piece of text.
+ *
+ * The files are searched in parallel on a fork-join pool.  To avoid reading files which
+ * cannot contain the search text, a trigram index is kept for each file: the set of all
+ * three-character sequences in the file (ignoring case).  A file is only read if it contains
+ * all the trigrams of the search text.  An index entry is rebuilt when a file is saved, or
+ * when it is found to have changed on disk since it was indexed, so repeated searches
+ * of an unchanged project only read the files which actually contain matches.
+ */
+@OnThread(Tag.Any)
+public class ProjectSearch
+{
+    // The longest line text kept for a match:
+    private static final int MAX_LINE_TEXT = 200;
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    private final Map<File, FileIndex> index = new ConcurrentHashMap<>();
+
+    /**
+     * A source file to be searched.
+     */
+    @OnThread(Tag.Any)
+    public static class SourceFile
+    {
+        private final String className;
+        private final File file;
+        private final Charset charset;
+
+        /**
+         * @param className  the fully-qualified name of the class in the file
+         */
+        public SourceFile(String className, File file, Charset charset)
+        {
+            this.className = className;
+            this.file = file;
+            this.charset = charset;
+        }
+
+        public String getClassName()
+        {
+            return className;
+        }
+    }
+
+    /**
+     * A match of the search text within a line.
+     */
+    @OnThread(Tag.Any)
+    public static class LineMatch
+    {
+        private final int lineNumber;
+        private final int column;
+        private final int length;
+        private final String lineText;
+
+        private LineMatch(int lineNumber, int column, int length, String lineText)
+        {
+            this.lineNumber = lineNumber;
+            this.column = column;
+            this.length = length;
+            this.lineText = lineText;
+        }
+
+        /**
+         * Get the line number of the match (the first line is 1).
+         */
+        public int getLineNumber()
+        {
+            return lineNumber;
+        }
+
+        /**
+         * Get the column of the start of the match (the first column is 1).
+         */
+        public int getColumn()
+        {
+            return column;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        /**
+         * Get the text of the line containing the match (possibly truncated).
+         */
+        public String getLineText()
+        {
+            return lineText;
+        }
+    }
+
+    /**
+     * All the matches of the search text in one source file.
+     */
+    @OnThread(Tag.Any)
+    public static class FileMatches
+    {
+        private final SourceFile sourceFile;
+        private final List<LineMatch> matches;
+
+        private FileMatches(SourceFile sourceFile, List<LineMatch> matches)
+        {
+            this.sourceFile = sourceFile;
+            this.matches = matches;
+        }
+
+        public SourceFile getSourceFile()
+        {
+            return sourceFile;
+        }
+
+        public List<LineMatch> getMatches()
+        {
+            return matches;
+        }
+    }
+
+    /**
+     * The index entry for one file: the trigrams it contains, and the modification time
+     * and length of the file when they were found.
+     */
+    @OnThread(Tag.Any)
+    private static class FileIndex
+    {
+        private final long lastModified;
+        private final long length;
+        // Sorted, with no duplicates:
+        private final long[] trigrams;
+
+        private FileIndex(long lastModified, long length, long[] trigrams)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.trigrams = trigrams;
+        }
+
+        private boolean isUpToDate(File file)
+        {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
+        private boolean containsAll(long[] queryTrigrams)
+        {
+            for (long trigram : queryTrigrams)
+            {
+                if (Arrays.binarySearch(trigrams, trigram) < 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Search the given files for the given text.  This blocks until the search is complete,
+     * so should not be called on the FX thread.
+     *
+     * @return the matches in each file which has any, in the same order as the files were given.
+     */
+    @OnThread(Tag.Worker)
+    public List<FileMatches> search(List<SourceFile> files, String searchFor, boolean ignoreCase)
+    {
+        if (searchFor.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        long[] queryTrigrams = trigrams(searchFor);
+        try
+        {
+            return pool.submit(() -> files.parallelStream()
+                    .map(f -> searchFile(f, searchFor, ignoreCase, queryTrigrams))
+                    .filter(m -> m != null)
+                    .collect(Collectors.toList())).get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            Debug.reportError("Problem searching project", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Note that a file has been saved, so that its index entry can be brought up to date
+     * (in the background) ready for the next search.
+     */
+    public void fileSaved(File file, Charset charset)
+    {
+        pool.execute(() -> {
+            FileIndex entry = index.get(file);
+            if (entry == null || !entry.isUpToDate(file))
+            {
+                CharSequence content = read(file, charset);
+                if (content != null)
+                {
+                    addToIndex(file, content);
+                }
+            }
+        });
+    }
+
+    /**
+     * Search a single file, updating its index entry if necessary.  Returns null if
+     * there are no matches.
+     */
+    private FileMatches searchFile(SourceFile sourceFile, String searchFor, boolean ignoreCase, long[] queryTrigrams)
+    {
+        File file = sourceFile.file;
+        if (!file.exists())
+        {
+            index.remove(file);
+            return null;
+        }
+        FileIndex entry = index.get(file);
+        CharSequence content = null;
+        if (entry == null || !entry.isUpToDate(file))
+        {
+            content = read(file, sourceFile.charset);
+            if (content == null)
+            {
+                return null;
+            }
+            entry = addToIndex(file, content);
+        }
+        if (!entry.containsAll(queryTrigrams))
+        {
+            return null;
+        }
+        if (content == null)
+        {
+            content = read(file, sourceFile.charset);
+            if (content == null)
+            {
+                return null;
+            }
+        }
+
+        String text = content.toString();
+        List<LineMatch> matches = new ArrayList<>();
+        int lineNumber = 1;
+        int lineStart = 0;
+        // The position up to which we have counted lines:
+        int counted = 0;
+        int pos = find(text, searchFor, ignoreCase, 0);
+        while (pos != -1)
+        {
+            for (; counted < pos; counted++)
+            {
+                if (text.charAt(counted) == '\n')
+                {
+                    lineNumber += 1;
+                    lineStart = counted + 1;
+                }
+            }
+            int lineEnd = text.indexOf('\n', pos);
+            if (lineEnd == -1)
+            {
+                lineEnd = text.length();
+            }
+            else if (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r')
+            {
+                lineEnd -= 1;
+            }
+            String lineText = text.substring(lineStart, Math.min(lineEnd, lineStart + MAX_LINE_TEXT));
+            matches.add(new LineMatch(lineNumber, pos - lineStart + 1, searchFor.length(), lineText));
+            pos = find(text, searchFor, ignoreCase, pos + searchFor.length());
+        }
+        return matches.isEmpty() ? null : new FileMatches(sourceFile, matches);
+    }
+
+    /**
+     * Find the next occurrence of searchFor in text, starting at the given position.
+     * Returns -1 if there is none.
+     */
+    private static int find(String text, String searchFor, boolean ignoreCase, int from)
+    {
+        if (!ignoreCase)
+        {
+            return text.indexOf(searchFor, from);
+        }
+        for (int pos = from; pos + searchFor.length() <= text.length(); pos++)
+        {
+            if (text.regionMatches(true, pos, searchFor, 0, searchFor.length()))
+            {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private FileIndex addToIndex(File file, CharSequence content)
+    {
+        // Get the modification details before working out the trigrams, so if the file is modified
+        // in the meantime, it will be seen to be out of date:
+        FileIndex entry = new FileIndex(file.lastModified(), file.length(), trigrams(content));
+        index.put(file, entry);
+        return entry;
+    }
+
+    /**
+     * Get the sorted, distinct trigrams of the given text, ignoring case.  Each trigram is
+     * packed into a long, 16 bits per character.
+     */
+    private static long[] trigrams(CharSequence text)
+    {
+        if (text.length() < 3)
+        {
+            return new long[0];
+        }
+        long[] all = new long[text.length() - 2];
+        long a = fold(text.charAt(0));
+        long b = fold(text.charAt(1));
+        for (int i = 2; i < text.length(); i++)
+        {
+            long c = fold(text.charAt(i));
+            all[i - 2] = (a << 32) | (b << 16) | c;
+            a = b;
+            b = c;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++)
+        {
+            if (i == 0 || all[i] != all[distinct - 1])
+            {
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    /**
+     * Fold the case of a character, such that two characters are equal after folding
+     * if String.regionMatches (ignoring case) considers them equal.
+     */
+    private static char fold(char c)
+    {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Read the content of a file.  Returns null (having reported the problem) if it cannot be read.
+     */
+    private static CharSequence read(File file, Charset charset)
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            // On Windows, a file cannot be replaced while it is memory-mapped, and the mapping
+            // lasts until it is garbage collected, which could stop the editor saving the file:
+            ByteBuffer bytes = Config.isWinOS() ? ByteBuffer.wrap(Files.readAllBytes(file.toPath()))
+                    : channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Problem reading " + file + " for search", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import bluej.BlueJTheme;
+import bluej.Config;
+import bluej.editor.Editor;
+import bluej.extensions2.SourceType;
+import bluej.parser.SourceLocation;
+import bluej.pkgmgr.ProjectSearch.FileMatches;
+import bluej.pkgmgr.ProjectSearch.LineMatch;
+import bluej.pkgmgr.target.ClassTarget;
+import bluej.pkgmgr.target.Target;
+import bluej.utility.Utility;
+import bluej.utility.javafx.JavaFXUtil;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.List;
+
+/**
+ * A window for searching all the source files of a project (see ProjectSearch).
+ * The results are shown grouped by class, and double-clicking a result (or pressing
+ * Enter) shows it in the class's editor.
+ *
+ * A search is made each time the search text changes.  Only saved source files are searched.
+ */
+@OnThread(Tag.FXPlatform)
+public class ProjectSearchWindow
+{
+    private final Project project;
+    private final Stage window;
+    private final TextField searchField;
+    private final CheckBox matchCase;
+    private final TreeView<ResultItem> results;
+    private final Label status;
+    // Incremented for each search, so that results from an out-of-date search can be ignored:
+    private int searchNumber = 0;
+
+    /**
+     * An item in the results tree: either a class, or a match within it.
+     */
+    @OnThread(Tag.FXPlatform)
+    private static class ResultItem
+    {
+        private final String className;
+        // Null for the item for a class:
+        private final LineMatch match;
+        private final String label;
+
+        private ResultItem(String className, LineMatch match, String label)
+        {
+            this.className = className;
+            this.match = match;
+            this.label = label;
+        }
+
+        @Override
+        @OnThread(Tag.Any)
+        public String toString()
+        {
+            return label;
+        }
+    }
+
+    public ProjectSearchWindow(Project project)
+    {
+        this.project = project;
+        window = new Stage();
+        window.setTitle(Config.getString("projectsearch.title") + " - " + project.getProjectName());
+        BlueJTheme.setWindowIconFX(window);
+        Config.loadAndTrackPositionAndSize(window, "bluej.projectsearch");
+
+        searchField = new TextField();
+        searchField.setPromptText(Config.getString("projectsearch.prompt"));
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        matchCase = new CheckBox(Config.getString("editor.findpanel.matchCase"));
+        JavaFXUtil.addChangeListenerPlatform(searchField.textProperty(), s -> search());
+        JavaFXUtil.addChangeListenerPlatform(matchCase.selectedProperty(), s -> search());
+        HBox searchBar = new HBox(6, searchField, matchCase);
+
+        results = new TreeView<>(new TreeItem<>());
+        results.setShowRoot(false);
+        results.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2)
+            {
+                showSelected();
+            }
+        });
+        results.addEventHandler(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.ENTER)
+            {
+                showSelected();
+                e.consume();
+            }
+        });
+        VBox.setVgrow(results, Priority.ALWAYS);
+
+        status = new Label();
+        VBox content = new VBox(6, searchBar, results, status);
+        content.setPadding(new Insets(8));
+        JavaFXUtil.addStyleClass(content, "project-search");
+        content.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.ESCAPE)
+            {
+                window.hide();
+                e.consume();
+            }
+        });
+        window.setScene(new Scene(new BorderPane(content), 600, 450));
+        JavaFXUtil.addMacMinimiseShortcutHandler(window);
+    }
+
+    /**
+     * Show the window, and put the focus in the search field.
+     */
+    public void show()
+    {
+        window.show();
+        window.toFront();
+        searchField.requestFocus();
+        searchField.selectAll();
+    }
+
+    public void hide()
+    {
+        window.hide();
+    }
+
+    /**
+     * Start a search in the background for the current search text.
+     */
+    private void search()
+    {
+        searchNumber += 1;
+        int thisSearch = searchNumber;
+        String searchFor = searchField.getText();
+        boolean ignoreCase = !matchCase.isSelected();
+        if (searchFor.isEmpty())
+        {
+            results.getRoot().getChildren().clear();
+            status.setText("");
+            return;
+        }
+        status.setText(Config.getString("projectsearch.searching"));
+        List<ProjectSearch.SourceFile> files = project.getSearchableSourceFiles();
+        ProjectSearch projectSearch = project.getProjectSearch();
+        Utility.runBackground(() -> {
+            List<FileMatches> found = projectSearch.search(files, searchFor, ignoreCase);
+            Platform.runLater(() -> showResults(thisSearch, found));
+        });
+    }
+
+    private void showResults(int forSearch, List<FileMatches> found)
+    {
+        if (forSearch != searchNumber)
+        {
+            // A newer search has been started:
+            return;
+        }
+        int total = 0;
+        results.getRoot().getChildren().clear();
+        for (FileMatches fileMatches : found)
+        {
+            String className = fileMatches.getSourceFile().getClassName();
+            List<LineMatch> matches = fileMatches.getMatches();
+            TreeItem<ResultItem> classItem = new TreeItem<>(new ResultItem(className, null, className + " (" + matches.size() + ")"));
+            for (LineMatch match : matches)
+            {
+                classItem.getChildren().add(new TreeItem<>(new ResultItem(className, match, match.getLineNumber() + ": " + match.getLineText().trim())));
+            }
+            classItem.setExpanded(true);
+            results.getRoot().getChildren().add(classItem);
+            total += matches.size();
+        }
+        status.setText(Config.getString("projectsearch.matches").replace("$", Integer.toString(total))
+                .replace("#", Integer.toString(found.size())));
+    }
+
+    /**
+     * Show the selected result in the editor for its class.  If a class is selected, its
+     * first result is shown.
+     */
+    private void showSelected()
+    {
+        TreeItem<ResultItem> selected = results.getSelectionModel().getSelectedItem();
+        if (selected == null)
+        {
+            return;
+        }
+        if (selected.getValue().match == null && !selected.getChildren().isEmpty())
+        {
+            selected = selected.getChildren().get(0);
+        }
+        ResultItem item = selected.getValue();
+        int dot = item.className.lastIndexOf('.');
+        Package pkg = project.getPackage(dot == -1 ? "" : item.className.substring(0, dot));
+        Target target = pkg == null ? null : pkg.getTarget(item.className.substring(dot + 1));
+        if (target instanceof ClassTarget)
+        {
+            ClassTarget ct = (ClassTarget) target;
+            ct.open();
+            Editor editor = ct.getEditor();
+            // The matches for a Stride class are in its generated Java, so we can't select them:
+            if (editor != null && ct.getSourceType() == SourceType.Java && item.match != null)
+            {
+                LineMatch match = item.match;
+                editor.assumeText().setSelection(new SourceLocation(match.getLineNumber(), match.getColumn()),
+                        new SourceLocation(match.getLineNumber(), match.getColumn() + match.getLength()));
+            }
+        }
+    }
+}
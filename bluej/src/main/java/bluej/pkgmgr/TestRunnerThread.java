@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2014,2016,2018,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2014,2016,2018,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -135,6 +135,10 @@ public class TestRunnerThread extends Thread
                 }
                 Platform.runLater(() -> TestDisplayFrame.getTestDisplay()
                         .updateTotalTimeMs(lastResults.getTotalRunTime()));
+                if (methodName == null)
+                {
+                    project.recordTestClassRunTime(ct.getQualifiedName(), lastResults.getTotalRunTime());
+                }
             }
         }
 
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -759,33 +759,43 @@ public class ClassTarget extends DependentTarget
             ClassInfo classInfo = sourceInfo.getInfoIfAvailable();
 
             if (classInfo != null) {
-                if (classInfo.isUnitTest()) {
-                    setRole(new UnitTestClassRole(UnitTestFramework.JUnit3));
-                }
-                else if (classInfo.isInterface()) {
-                    setRole(new InterfaceClassRole());
-                }
-                else if (classInfo.isEnum()) {
-                    setRole(new EnumClassRole());
-                }
-                else if (classInfo.isAbstract()) {
-                    setRole(new AbstractClassRole());
-                }
-                else {
-                    // We shouldn't override applet/unit test class roles based only
-                    // on source analysis: if they inherit only indirectly from Applet
-                    // or UnitTest, source analysis won't give the correct role
-                    if (!(role instanceof UnitTestClassRole))
-                    {
-                        setRole(new StdClassRole());
-                    }
-                }
+                determineRoleFromSource(classInfo.isUnitTest(), classInfo.isInterface(),
+                        classInfo.isEnum(), classInfo.isAbstract());
             }
             // If no information gained from parsing the file (classInfo = null),
             // then we don't really know the role: let's leave it as it was
         }
     }
 
+    /**
+     * Set the role of this class according to what the source says it is.
+     */
+    private void determineRoleFromSource(boolean isUnitTest, boolean isInterface, boolean isEnum,
+            boolean isAbstractClass)
+    {
+        if (isUnitTest) {
+            setRole(new UnitTestClassRole(UnitTestFramework.JUnit3));
+        }
+        else if (isInterface) {
+            setRole(new InterfaceClassRole());
+        }
+        else if (isEnum) {
+            setRole(new EnumClassRole());
+        }
+        else if (isAbstractClass) {
+            setRole(new AbstractClassRole());
+        }
+        else {
+            // We shouldn't override applet/unit test class roles based only
+            // on source analysis: if they inherit only indirectly from Applet
+            // or UnitTest, source analysis won't give the correct role
+            if (!(role instanceof UnitTestClassRole))
+            {
+                setRole(new StdClassRole());
+            }
+        }
+    }
+
     /**
      * Load existing information about this class target
      * 
@@ -827,6 +837,18 @@ public class ClassTarget extends DependentTarget
         }
 
         getRole().load(props, prefix);
+        String runTime = props.getProperty(prefix + ".testRunTime");
+        if (runTime != null && isUnitTest())
+        {
+            try
+            {
+                getPackage().getProject().recordTestClassRunTime(getQualifiedName(), Integer.parseInt(runTime));
+            }
+            catch (NumberFormatException e)
+            {
+                // Just don't know the run time, then
+            }
+        }
         String value=props.getProperty(prefix + ".naviview.expanded");
         if (value!=null){
             setNaviviewExpanded(Boolean.parseBoolean(value));
@@ -889,6 +911,13 @@ public class ClassTarget extends DependentTarget
         
         props.put(prefix + ".showInterface", Boolean.valueOf(intf).toString());
 
+        // The run time of a test class, so that test runs can start with the slowest classes:
+        int runTime = isUnitTest() ? getPackage().getProject().getTestClassRunTime(getQualifiedName()) : -1;
+        if (runTime != -1)
+        {
+            props.put(prefix + ".testRunTime", Integer.toString(runTime));
+        }
+
         List<Integer> breakpoints;
         if (editor != null && editor instanceof FrameEditor)
         {
@@ -1438,6 +1467,8 @@ public class ClassTarget extends DependentTarget
     @Override
     public void saveEvent(Editor editor)
     {
+        Project project = getPackage().getProject();
+        project.getProjectSearch().fileSaved(getJavaSourceFile(), project.getProjectCharset());
         ClassInfo info = analyseSource();
         if (info != null) {
             updateTargetFile(info);
@@ -1727,8 +1758,10 @@ public class ClassTarget extends DependentTarget
             // will not modify the classes source code
             determineRole(null);
             setTypeParameters(info);
-            analyseDependencies(info);
+            analyseDependencies(info.getSuperclass(), info.getImplements(), info.getUsed(), info.getPermits());
         }
+        getPackage().getAnalysisCache().record(getBaseName(), getJavaSourceFile(), info,
+                getPackage().getNamesHash());
 
         // getPackage().repaint();
 
@@ -1736,6 +1769,21 @@ public class ClassTarget extends DependentTarget
         return info;
     }
     
+    /**
+     * Apply the cached result of an earlier analysis of the (unchanged) source,
+     * instead of analysing the source again: see {@link ClassAnalysisCache}.
+     * The source will still be parsed if more information is needed later.
+     */
+    public void applyAnalysis(ClassAnalysisCache.Analysis analysis)
+    {
+        isAbstract = false;
+        determineRoleFromSource(analysis.isUnitTest(), analysis.isInterface(), analysis.isEnum(),
+                analysis.isAbstract());
+        setTypeParameters(analysis.getTypeParameters());
+        analyseDependencies(analysis.getSuperclass(), analysis.getImplements(), analysis.getUsed(),
+                analysis.getPermits());
+    }
+    
     /**
      * Change file name and package to match that found in the source file.
      * @param info  The information from source analysis
@@ -1773,6 +1821,14 @@ public class ClassTarget extends DependentTarget
             }
             newTypeParameters += ">";
         }
+        setTypeParameters(newTypeParameters);
+    }
+
+    /**
+     * Sets the type parameters as displayed, eg "&lt;T&gt;", or "" if none.
+     */
+    private void setTypeParameters(String newTypeParameters)
+    {
         if (!newTypeParameters.equals(typeParameters))
         {
             typeParameters = newTypeParameters;
@@ -1811,10 +1867,11 @@ public class ClassTarget extends DependentTarget
     }
 
     /**
-     * Analyse the current dependencies in the source code and update the
-     * dependencies in the graphical display accordingly.
+     * Update the dependencies in the graphical display according to those
+     * found in the source code.
      */
-    private void analyseDependencies(ClassInfo info)
+    private void analyseDependencies(String superclass, List<String> implemented, List<String> uses,
+            List<String> permitted)
     {
         // Now that uses dependencies are calculated-only, we remove all of them
         // and add back those which remain:
@@ -1825,19 +1882,19 @@ public class ClassTarget extends DependentTarget
         pkgPrefix = (pkgPrefix.length() == 0) ? pkgPrefix : pkgPrefix + ".";
         
         // handle superclass dependency
-        if (info.getSuperclass() != null) {
-            setSuperClass(info.getSuperclass());
+        if (superclass != null) {
+            setSuperClass(superclass);
         }
 
         // handle implemented interfaces
-        List<String> vect = info.getImplements();
+        List<String> vect = implemented;
         for (Iterator<String> it = vect.iterator(); it.hasNext();) {
             String name = it.next();
             addInterface(name);
         }
 
         // handle used classes
-        vect = info.getUsed();
+        vect = uses;
         for (Iterator<String> it = vect.iterator(); it.hasNext();) {
             String name = it.next();
             DependentTarget used = getPackage().getDependentTarget(name);
@@ -1849,7 +1906,7 @@ public class ClassTarget extends DependentTarget
         }
 
         // handle permits classes
-        vect = info.getPermits();
+        vect = permitted;
         for (Iterator<String> it = vect.iterator(); it.hasNext();) {
             String name = it.next();
             DependentTarget permits = getPackage().getDependentTarget(name);
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2018,2019,2021,2023  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2016,2017,2018,2019,2021,2023,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -169,6 +169,9 @@ public class ExecServer
     public static final int NEW_LOADER    = 3;
     // EXIT_VM ( = 4) is also used in the worker thread
     public static final int LOAD_ALL      = 5; // load class and inner classes
+    public static final int START_PROFILER = 6;
+    public static final int STOP_PROFILER  = 7;
+    public static final int GET_PROFILE    = 8; // snapshot of the profile, see Profiler
 
     // the current class loader
     private static ClassLoader currentLoader;
@@ -255,6 +258,16 @@ public class ExecServer
                             System.exit(0);
                         case LOAD_ALL:
                             workerReturn = loadAllClasses(className);
+                            break;
+                        case START_PROFILER:
+                            Profiler.start();
+                            break;
+                        case STOP_PROFILER:
+                            Profiler.stop();
+                            break;
+                        case GET_PROFILE:
+                            workerReturn = Profiler.getSnapshot();
+                            break;
                     }
                     // After any action, set the next action to exit. If connection to
                     // primary VM is lost, the secondary VM (i.e. this VM) will then exit.
@@ -755,9 +768,11 @@ public class ExecServer
      *  [7] = the line number where the exception/failure occurred (a string), blank if success<br>
      *  [8] = "failure" or "error" or "success" (string)<br>
      *      
+     * This is also used by TestWorkerServer, which runs tests outside the debug VM.
+     *
      * @return an array of length [1 + 9*(number of tests run)]
      */
-    private static Object[] runTestMethod(String className, String methodName)
+    static Object[] runTestMethod(String className, String methodName)
     {
         LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
                 .selectors((methodName != null) ? selectMethod(className + "#" +  methodName) : selectClass(className))
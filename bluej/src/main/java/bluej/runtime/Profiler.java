@@ -0,0 +1,313 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A sampling profiler which runs in the debug VM. A daemon thread periodically
+ * takes the stacks of the running user threads, using the ThreadMXBean rather than
+ * suspending the threads through the debugger, and counts how often each stack
+ * is seen. BlueJ fetches the counts using ExecServer's GET_PROFILE worker action,
+ * and adds them to a call tree (see bluej.debugger.Profile). Each fetch only returns
+ * the counts since the previous fetch, so the profiler does not keep every stack it
+ * has seen, and the cost of a fetch does not grow the longer the program runs.
+ *
+ * <p>The sampling interval is adjusted so that sampling takes at most 5% of the
+ * elapsed time: if taking a sample is slow (e.g. because there are many threads,
+ * or deep stacks) we sample less often.
+ */
+@OnThread(Tag.Any)
+public class Profiler
+{
+    /** The name of the sampling thread; the debugger treats this as a system thread. */
+    public static final String THREAD_NAME = "BlueJ profiler thread";
+
+    private static final int MAX_DEPTH = 64;
+    private static final long MIN_INTERVAL_NANOS = 10_000_000L;
+    private static final long MAX_INTERVAL_NANOS = 1_000_000_000L;
+    // The interval is at least this multiple of the time taken to sample,
+    // which keeps the overhead at around 4%:
+    private static final int INTERVAL_COST_RATIO = 25;
+    // Once this many different stacks have been seen since the last fetch, further
+    // stacks are counted without line numbers, so that the counts stay small even
+    // if nothing fetches them for a while:
+    private static final int MAX_PENDING_STACKS = 5000;
+
+    private static Profiler current;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Thread samplerThread;
+    private volatile boolean running = true;
+    private final long startNanos = System.nanoTime();
+
+    // Each distinct frame is given an id, its index in this list:
+    private final Map<StackTraceElement, Integer> frameIds = new HashMap<>();
+    private final List<StackTraceElement> frames = new ArrayList<>();
+    // The number of frames which have been included in a snapshot:
+    private int framesSent;
+    // Sample counts since the last snapshot, keyed by the frame ids (outermost first) joined with commas:
+    private final Map<String, int[]> pendingCounts = new HashMap<>();
+    // The number of snapshots taken so far:
+    private int snapshots;
+    private int samples;
+    private long samplingNanos;
+    // Only used by the sampler thread:
+    private long averageCost;
+
+    private Profiler()
+    {
+        samplerThread = new Thread(this::run, THREAD_NAME);
+        samplerThread.setDaemon(true);
+        samplerThread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * Start profiling, discarding the results of any previous profiling.
+     */
+    public static synchronized void start()
+    {
+        stop();
+        current = new Profiler();
+        current.samplerThread.start();
+    }
+
+    /**
+     * Stop profiling. The results so far remain available from {@link #getSnapshot()}.
+     */
+    public static synchronized void stop()
+    {
+        if (current != null) {
+            current.running = false;
+            current.samplerThread.interrupt();
+        }
+    }
+
+    /**
+     * Get the results of profiling since the last call, as text, or null if profiling has
+     * not been started. Each line is a tab-separated record:
+     * <ul>
+     * <li>"P", the number of this snapshot (starting from 0 when profiling is started),
+     *     and, since profiling was started, the number of samples, the time spent sampling
+     *     and the elapsed time (both in nanoseconds);
+     * <li>"F", a frame id, the class name, the method name and the line number (-1 if unknown),
+     *     for each frame which was not included in an earlier snapshot;
+     * <li>"S", a count, and the comma-separated ids of the frames of a stack, outermost first,
+     *     for each stack seen since the last snapshot.
+     * </ul>
+     */
+    public static synchronized String getSnapshot()
+    {
+        return current == null ? null : current.snapshot();
+    }
+
+    @OnThread(Tag.Worker)
+    private void run()
+    {
+        // The first call is much slower than later ones, as classes are loaded and
+        // initialised; get that out of the way so that it doesn't affect the sampling rate:
+        threadBean.getThreadInfo(new long[] {Thread.currentThread().getId()}, MAX_DEPTH);
+        while (running) {
+            long before = System.nanoTime();
+            try {
+                sample();
+            }
+            catch (RuntimeException e) {
+                // A thread may have died while we were looking at it; just try again later.
+            }
+            long cost = System.nanoTime() - before;
+            // Use a moving average of the cost, so that one slow sample (e.g. one delayed
+            // by garbage collection) doesn't hold up sampling for long:
+            averageCost = averageCost == 0 ? cost : (averageCost * 3 + cost) / 4;
+            long sleepNanos = Math.max(MIN_INTERVAL_NANOS, Math.min(MAX_INTERVAL_NANOS,
+                    averageCost * INTERVAL_COST_RATIO)) - cost;
+            synchronized (this) {
+                samplingNanos += cost;
+            }
+            try {
+                sleepNanos = Math.max(sleepNanos, 1_000_000L);
+                Thread.sleep(sleepNanos / 1_000_000L, (int)(sleepNanos % 1_000_000L));
+            }
+            catch (InterruptedException ie) {
+                // Either stopped, or spurious; loop condition checks which.
+            }
+        }
+    }
+
+    /**
+     * Take a sample of each running user thread.
+     */
+    @OnThread(Tag.Worker)
+    private void sample()
+    {
+        Thread[] threads = userThreads();
+        long[] ids = new long[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            ids[i] = threads[i].getId();
+        }
+        ThreadInfo[] infos = threadBean.getThreadInfo(ids, MAX_DEPTH);
+
+        synchronized (this) {
+            samples++;
+            for (ThreadInfo info : infos) {
+                // Only count threads which are actually using the CPU. Threads which are
+                // suspended by the debugger, or blocked in native code (e.g. waiting for
+                // input) are not of interest.
+                if (info == null || info.getThreadState() != Thread.State.RUNNABLE
+                        || info.isSuspended() || info.isInNative()) {
+                    continue;
+                }
+                String key = stackKey(info.getStackTrace(), true);
+                if (key != null && pendingCounts.size() >= MAX_PENDING_STACKS && !pendingCounts.containsKey(key)) {
+                    key = stackKey(info.getStackTrace(), false);
+                }
+                if (key != null) {
+                    pendingCounts.computeIfAbsent(key, k -> new int[1])[0]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the threads in the user thread group, other than those belonging to BlueJ.
+     */
+    @OnThread(Tag.Worker)
+    private Thread[] userThreads()
+    {
+        ThreadGroup group = samplerThread.getThreadGroup();
+        if (group == null) {
+            return new Thread[0];
+        }
+        Thread[] threads = new Thread[group.activeCount() + 8];
+        int count = group.enumerate(threads, true);
+        List<Thread> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Thread t = threads[i];
+            if (t != samplerThread && t != ExecServer.workerThread && !isSystemThread(t.getName())) {
+                result.add(t);
+            }
+        }
+        return result.toArray(new Thread[0]);
+    }
+
+    /**
+     * Check whether a thread belongs to the Java runtime or to BlueJ, rather than
+     * running user code. This matches JdiThread.isKnownSystemThread().
+     */
+    private static boolean isSystemThread(String name)
+    {
+        if (name.startsWith("AWT-Event")) {
+            return false;
+        }
+        return name.startsWith("AWT-") ||
+                name.equals("DestroyJavaVM") ||
+                name.equals("Timer Queue") ||
+                name.equals("Screen Updater") ||
+                name.startsWith("SunToolkit.") ||
+                name.startsWith("Native Carbon") ||
+                name.equals("JavaFX-Launcher") ||
+                name.startsWith("QuantumRenderer") ||
+                name.equals("JavaFX BlueJ Helper") ||
+                name.equals("Java2D Disposer") ||
+                name.equals("InvokeLaterDispatcher");
+    }
+
+    /**
+     * Work out the key for a stack (see pendingCounts). Frames at the outer end which
+     * belong to BlueJ's execution machinery, or to reflection, are left out. If no
+     * frames remain (e.g. a thread idling in ExecServer), returns null.
+     *
+     * @param withLines  whether to include the line numbers; if false, all the
+     *                   frames are given a line number of -1.
+     */
+    private String stackKey(StackTraceElement[] stack, boolean withLines)
+    {
+        int outer = stack.length - 1;
+        while (outer >= 0 && isInfrastructure(stack[outer].getClassName())) {
+            outer--;
+        }
+        if (outer < 0) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = outer; i >= 0; i--) {
+            if (i != outer) {
+                key.append(',');
+            }
+            StackTraceElement frame = stack[i];
+            if (!withLines) {
+                frame = new StackTraceElement(frame.getClassName(), frame.getMethodName(), frame.getFileName(), -1);
+            }
+            key.append(frameId(frame));
+        }
+        return key.toString();
+    }
+
+    private static boolean isInfrastructure(String className)
+    {
+        return className.equals("java.lang.Thread") || className.startsWith("bluej.runtime.")
+                || className.startsWith("jdk.internal.reflect.") || className.startsWith("java.lang.reflect.")
+                || className.startsWith("java.lang.invoke.") || className.startsWith("__SHELL");
+    }
+
+    private int frameId(StackTraceElement frame)
+    {
+        Integer id = frameIds.get(frame);
+        if (id == null) {
+            id = frames.size();
+            frames.add(frame);
+            frameIds.put(frame, id);
+        }
+        return id;
+    }
+
+    private synchronized String snapshot()
+    {
+        long before = System.nanoTime();
+        StringBuilder result = new StringBuilder();
+        for (int i = framesSent; i < frames.size(); i++) {
+            StackTraceElement frame = frames.get(i);
+            result.append("F\t").append(i).append('\t').append(frame.getClassName())
+                    .append('\t').append(frame.getMethodName())
+                    .append('\t').append(frame.getLineNumber() > 0 ? frame.getLineNumber() : -1)
+                    .append('\n');
+        }
+        framesSent = frames.size();
+        for (Map.Entry<String, int[]> stack : pendingCounts.entrySet()) {
+            result.append("S\t").append(stack.getValue()[0]).append('\t').append(stack.getKey()).append('\n');
+        }
+        pendingCounts.clear();
+        long now = System.nanoTime();
+        samplingNanos += now - before;
+        result.insert(0, "P\t" + snapshots++ + "\t" + samples + "\t" + samplingNanos + "\t" + (now - startNanos) + "\n");
+        return result.toString();
+    }
+}
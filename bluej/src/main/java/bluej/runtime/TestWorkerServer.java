@@ -0,0 +1,225 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.runtime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The main class of a test worker VM.  BlueJ can run the unit tests of a project
+ * in several worker VMs at once (see bluej.testmgr.TestWorkerVM), rather than one
+ * at a time in the debug VM.  A worker VM has the project classes on its classpath.
+ *
+ * <p>The protocol is line-based.  BlueJ writes the name of a test class to standard
+ * input, and the worker runs all its tests (via ExecServer.runTestMethod).  The worker
+ * writes one RESULT line per test to standard output as the tests finish, each with the
+ * nine fields described in ExecServer.runTestMethod, followed by a DONE line with the
+ * class name and the total run time in milliseconds.  Fields are separated by tabs and
+ * escaped using escape().  An empty line or end of input makes the worker exit.
+ *
+ * <p>If the project class directories are given as the (path-separated) first argument,
+ * rather than on the classpath of the worker VM, each test class is run in a fresh class
+ * loader for those directories.  This keeps the static state of one test class from
+ * affecting the next, and lets the worker record which project classes each test class
+ * loaded: these are written in a LOADED line (top-level class names, comma-separated)
+ * before the DONE line, and are used to decide which tests are affected by a change.
+ *
+ * <p>Output from the tests themselves is sent to standard error.
+ */
+public class TestWorkerServer
+{
+    public static final String RESULT = "RESULT";
+    public static final String DONE = "DONE";
+    public static final String LOADED = "LOADED";
+    public static final int FIELDS_PER_RESULT = 9;
+
+    public static void main(String[] args) throws IOException
+    {
+        PrintStream resultStream = new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8");
+        System.setOut(System.err);
+
+        URL[] userClassPath = null;
+        if (args.length > 0)
+        {
+            String[] paths = args[0].split(File.pathSeparator);
+            userClassPath = new URL[paths.length];
+            for (int i = 0; i < paths.length; i++)
+            {
+                userClassPath[i] = Paths.get(paths[i]).toUri().toURL();
+            }
+        }
+
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String className = commands.readLine();
+        while (className != null && ! className.isEmpty())
+        {
+            String runTime;
+            CoverageClassLoader loader = null;
+            if (userClassPath != null)
+            {
+                loader = new CoverageClassLoader(userClassPath);
+                Thread.currentThread().setContextClassLoader(loader);
+            }
+            try
+            {
+                Object[] results = ExecServer.runTestMethod(className, null);
+                for (int i = 1; i + FIELDS_PER_RESULT <= results.length; i += FIELDS_PER_RESULT)
+                {
+                    String[] details = new String[FIELDS_PER_RESULT];
+                    for (int j = 0; j < FIELDS_PER_RESULT; j++)
+                    {
+                        details[j] = results[i + j] == null ? "" : results[i + j].toString();
+                    }
+                    resultStream.println(resultLine(details));
+                }
+                runTime = results[0].toString();
+            }
+            catch (Throwable t)
+            {
+                // Failure in the test framework itself; report it as an error against the class:
+                StringWriter trace = new StringWriter();
+                t.printStackTrace(new PrintWriter(trace));
+                resultStream.println(resultLine(className, "", String.valueOf(t.getMessage()), trace.toString(),
+                        "", "", "", "0", "error"));
+                runTime = "0";
+            }
+            if (loader != null)
+            {
+                resultStream.println(LOADED + "\t" + escape(String.join(",", loader.getLoadedClasses())));
+                loader.close();
+            }
+            resultStream.println(DONE + "\t" + escape(className) + "\t" + runTime);
+            className = commands.readLine();
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * A class loader for the project classes which records the (top-level) names of
+     * the classes it has loaded.
+     */
+    private static class CoverageClassLoader extends URLClassLoader
+    {
+        private final Set<String> loadedClasses = new TreeSet<>();
+
+        public CoverageClassLoader(URL[] urls)
+        {
+            super(urls);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException
+        {
+            Class<?> c = super.findClass(name);
+            int dollar = name.indexOf('$');
+            synchronized (loadedClasses)
+            {
+                loadedClasses.add(dollar == -1 ? name : name.substring(0, dollar));
+            }
+            return c;
+        }
+
+        public Set<String> getLoadedClasses()
+        {
+            synchronized (loadedClasses)
+            {
+                return new TreeSet<>(loadedClasses);
+            }
+        }
+    }
+
+    /**
+     * Make the RESULT line for a test, from its FIELDS_PER_RESULT fields.
+     */
+    public static String resultLine(String... details)
+    {
+        StringBuilder line = new StringBuilder(RESULT);
+        for (String detail : details)
+        {
+            line.append('\t').append(escape(detail));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Escape a string so that it contains no tabs or line breaks.
+     */
+    public static String escape(String s)
+    {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch (c)
+            {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reverse the escaping done by escape().
+     */
+    public static String unescape(String s)
+    {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length())
+            {
+                i++;
+                switch (s.charAt(i))
+                {
+                    case 't': sb.append('\t'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    default: sb.append(s.charAt(i));
+                }
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
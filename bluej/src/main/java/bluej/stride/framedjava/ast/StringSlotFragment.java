@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,12 +24,16 @@ package bluej.stride.framedjava.ast;
 import bluej.stride.framedjava.errors.CodeError;
 import bluej.stride.framedjava.errors.ErrorShower;
 import bluej.stride.slots.EditableSlot;
+import bluej.utility.javafx.FXPlatformRunnable;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
 public abstract class StringSlotFragment extends SlotFragment
 {
     protected final String content;
+    // If this fragment's frame has not been created yet (see MethodFrameWithBody.deferContents),
+    // this will create it, so that errors can be shown.  Null otherwise.
+    private FXPlatformRunnable deferredSlotCreator;
     
     public StringSlotFragment(String content)
     {
@@ -55,10 +59,25 @@ public abstract class StringSlotFragment extends SlotFragment
     @OnThread(Tag.FXPlatform)
     public final void addError(CodeError error)
     {
+        if (getSlot() == null && deferredSlotCreator != null)
+        {
+            FXPlatformRunnable creator = deferredSlotCreator;
+            deferredSlotCreator = null;
+            creator.run();
+        }
         if (getSlot() != null)
             getSlot().addError(error);
     }
 
+    /**
+     * Sets the action which will create the slot for this fragment, if it is needed to show
+     * an error before the slot has otherwise been created.
+     */
+    public void setDeferredSlotCreator(FXPlatformRunnable creator)
+    {
+        this.deferredSlotCreator = creator;
+    }
+
     @Override
     protected final JavaFragment getCompileErrorRedirect()
     {
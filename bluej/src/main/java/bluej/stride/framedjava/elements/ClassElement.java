@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2018,2019,2020,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2018,2019,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -54,6 +54,7 @@ import bluej.stride.framedjava.frames.ClassFrame;
 import bluej.stride.framedjava.frames.ConstructorFrame;
 import bluej.stride.framedjava.slots.ExpressionSlot;
 import bluej.parser.AssistContentThreadSafe;
+import bluej.stride.generic.Frame;
 import bluej.stride.generic.Frame.ShowReason;
 import bluej.stride.generic.InteractionManager;
 import bluej.utility.Utility;
@@ -81,6 +82,11 @@ import java.util.stream.Stream;
 public class ClassElement extends DocumentContainerCodeElement implements TopLevelCodeElement
 {
     public static final String ELEMENT = "class";
+    /**
+     * Classes with at least this many elements only create the frames for each method body
+     * when needed (see MethodFrameWithBody.deferContents), to make large classes quicker to open.
+     */
+    private static final int DEFER_METHOD_BODIES_THRESHOLD = 250;
     /** The name of this class */
     private final NameDefSlotFragment className;
     /** The type we extend (null if none) */
@@ -307,16 +313,26 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
     public ClassFrame createFrame(InteractionManager editor)
     {
         frame = new ClassFrame(editor, projectResolver, packageName, imports, documentation, abstractModifier, className, extendsName, implementsList, isEnable());
+        boolean deferBodies = streamContained().count() >= DEFER_METHOD_BODIES_THRESHOLD;
         fields.forEach(member -> frame.getfieldsCanvas().insertBlockAfter(member.createFrame(editor), null));
         constructors.forEach(member ->{
-                    frame.getConstructorsCanvas().insertBlockAfter(member.createFrame(editor), null);
+                    frame.getConstructorsCanvas().insertBlockAfter(createMemberFrame(member, editor, deferBodies), null);
                 }
         );
         methods.forEach(member -> {
-            frame.getMethodsCanvas().insertBlockAfter(member.createFrame(editor), null);
+            frame.getMethodsCanvas().insertBlockAfter(createMemberFrame(member, editor, deferBodies), null);
         });
         return frame;
     }
+
+    @OnThread(Tag.FX)
+    private static Frame createMemberFrame(CodeElement member, InteractionManager editor, boolean deferBody)
+    {
+        if (member instanceof MethodWithBodyElement)
+            return ((MethodWithBodyElement)member).createFrame(editor, deferBody);
+        else
+            return member.createFrame(editor);
+    }
     
     @Override
     public ClassFrame createTopLevelFrame(InteractionManager editor)
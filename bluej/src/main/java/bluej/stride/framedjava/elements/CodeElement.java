@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -37,6 +37,7 @@ import nu.xom.Attribute;
 import nu.xom.Element;
 import threadchecker.OnThread;
 import threadchecker.Tag;
+import bluej.stride.framedjava.ast.ASTUtility;
 import bluej.stride.framedjava.ast.FrameFragment;
 import bluej.stride.framedjava.ast.JavaFragment;
 import bluej.stride.framedjava.ast.JavaSource;
@@ -199,6 +200,18 @@ public abstract class CodeElement
     
     @OnThread(Tag.FX)
     public abstract void show(ShowReason reason);
+
+    /**
+     * Makes sure this element has a frame, in case it is in the body of a method
+     * whose frames have not yet been created (see MethodWithBodyElement.createFrame).
+     */
+    @OnThread(Tag.FX)
+    public void createDeferredFrame()
+    {
+        MethodWithBodyElement method = ASTUtility.getMethodElement(this);
+        if (method != null)
+            method.createDeferredBody();
+    }
     
     // Streams all contained elements, excluding this element.
     public Stream<CodeElement> streamContained() { return Stream.empty(); }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -139,10 +139,10 @@ public class ConstructorElement extends MethodWithBodyElement
     }
 
     @Override
-    public Frame createFrame(InteractionManager editor)
+    public Frame createFrame(InteractionManager editor, boolean deferBody)
     {
         frame = new ConstructorFrame(editor, access, documentation.toString(), delegate, delegateParams, isEnable());
-        setupFrame(editor);
+        setupFrame(editor, deferBody);
         return frame;
     }
     
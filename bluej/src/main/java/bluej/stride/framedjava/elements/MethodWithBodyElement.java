@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -30,6 +30,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import bluej.stride.framedjava.ast.JavaFragment;
+import bluej.stride.generic.Frame;
 import bluej.stride.generic.InteractionManager;
 import bluej.utility.Utility;
 import nu.xom.Element;
@@ -44,6 +45,7 @@ import bluej.stride.framedjava.ast.JavadocUnit;
 import bluej.stride.framedjava.ast.Loader;
 import bluej.stride.framedjava.ast.NameDefSlotFragment;
 import bluej.stride.framedjava.ast.ParamFragment;
+import bluej.stride.framedjava.ast.StringSlotFragment;
 import bluej.stride.framedjava.ast.ThrowsTypeFragment;
 import bluej.stride.framedjava.ast.TypeSlotFragment;
 import bluej.stride.framedjava.frames.DebugInfo;
@@ -212,21 +214,62 @@ public abstract class MethodWithBodyElement extends DocumentContainerCodeElement
         return typesAndCommas;
     }
 
+    @Override
+    @OnThread(Tag.FX)
+    public Frame createFrame(InteractionManager editor)
+    {
+        return createFrame(editor, false);
+    }
+
+    /**
+     * Creates the frame for this method.  If deferBody is true, the frames for the
+     * method body are not created yet (see MethodFrameWithBody.deferContents).
+     */
+    @OnThread(Tag.FX)
+    public abstract Frame createFrame(InteractionManager editor, boolean deferBody);
+
     /**
      * Helper method for subclasses when generating a Frame (in our frame field)
      */
     @OnThread(Tag.FX)
-    protected void setupFrame(InteractionManager editor)
+    protected void setupFrame(InteractionManager editor, boolean deferBody)
     {
         frame.setAccess(access.getValue());
         
         frame.setDocumentation(documentation.toString());
         
         params.forEach(item -> frame.getParamsPane().addFormal(item.getParamType(), item.getParamName()));
-        contents.forEach(c -> frame.getCanvas().insertBlockAfter(c.createFrame(editor), null));
+        if (deferBody)
+            deferContentsIn(frame);
+        else
+            contents.forEach(c -> frame.getCanvas().insertBlockAfter(c.createFrame(editor), null));
         throwsTypes.forEach(t -> frame.addThrows(t.getType()));
     }
 
+    /**
+     * Sets our contents as the body of the given frame, without creating their frames yet.
+     * Showing an error in the body needs the frames, so they are created if any slot
+     * in the body is given an error.
+     */
+    @OnThread(Tag.FX)
+    public void deferContentsIn(MethodFrameWithBody<?> bodyFrame)
+    {
+        streamContained().flatMap(CodeElement::getDirectSlotFragments)
+            .filter(f -> f instanceof StringSlotFragment)
+            .forEach(f -> ((StringSlotFragment)f).setDeferredSlotCreator(bodyFrame::createDeferredFrames));
+        bodyFrame.deferContents(contents);
+    }
+
+    /**
+     * Creates the frames for our body, if they have been deferred.
+     */
+    @OnThread(Tag.FX)
+    public void createDeferredBody()
+    {
+        if (frame != null)
+            frame.createDeferredFrames();
+    }
+
     @Override
     public List<LocalParamInfo> getDeclaredVariablesWithin(CodeElement child)
     {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -137,11 +137,11 @@ public class NormalMethodElement extends MethodWithBodyElement
     }
     
     @Override
-    public Frame createFrame(InteractionManager editor)
+    public Frame createFrame(InteractionManager editor, boolean deferBody)
     {
         frame = new NormalMethodFrame(editor, access, staticModifier, finalModifier,
                 returnType.getContent(), name.getContent(), documentation.toString(), isEnable());
-        setupFrame(editor);
+        setupFrame(editor, deferBody);
         return frame;
     }
     
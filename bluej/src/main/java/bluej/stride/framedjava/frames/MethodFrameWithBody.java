@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
-  Copyright (C) 2014,2015,2016,2020,2021 Michael Kölling and John Rosenberg
+  Copyright (C) 2014,2015,2016,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -57,6 +57,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.binding.DoubleExpression;
 import javafx.beans.binding.ObjectBinding;
@@ -64,6 +65,7 @@ import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.effect.Effect;
 import javafx.scene.input.MouseEvent;
@@ -92,6 +94,13 @@ public abstract class MethodFrameWithBody<T extends MethodWithBodyElement>
     private ObjectBinding<Effect> dropShadowEffectBinding;
     protected FormalParameters paramsPane;
     private FXRunnable headerCleanup;
+    // The elements of the body, while their frames have not been created yet
+    // (see deferContents).  Null once the frames have been created.
+    private List<CodeElement> deferredContents;
+    // A blank stand-in for the body frames, while they are deferred:
+    private Region deferredPlaceholder;
+    private FXRunnable deferredCleanup;
+    private boolean deferredCheckScheduled;
     
     /**
      * Default constructor.
@@ -373,6 +382,9 @@ public abstract class MethodFrameWithBody<T extends MethodWithBodyElement>
     @SuppressWarnings("unchecked")
     protected List<CodeElement> getContents()
     {
+        if (deferredContents != null)
+            return new ArrayList<>(deferredContents);
+
         List<CodeElement> contents = new ArrayList<CodeElement>();
         getMembersFrames().forEach(f -> {
             f.regenerateCode();
@@ -383,8 +395,144 @@ public abstract class MethodFrameWithBody<T extends MethodWithBodyElement>
 
     public List<CodeFrame> getMembersFrames()
     {
+        createDeferredFrames();
         return canvas.getBlocksSubtype(CodeFrame.class);
     }
+
+    @Override
+    public FrameCanvas getCanvas()
+    {
+        // Anyone asking for the canvas is going to want the frames in it:
+        createDeferredFrames();
+        return super.getCanvas();
+    }
+
+    /**
+     * Sets the given elements as the body of this method, but without creating their frames yet.
+     * Creating the frames is most of the time taken to open a class, so for large classes
+     * (see ClassElement.createFrame) the body frames are only created once the body is scrolled
+     * near to view, is focused, or is needed for something else (see createDeferredFrames).
+     * Until then the canvas shows a blank placeholder of roughly the height of the frames.
+     *
+     * The body canvas should be empty when this is called.
+     */
+    public void deferContents(List<CodeElement> elements)
+    {
+        if (elements.isEmpty())
+        {
+            // Nothing to defer; just get rid of any placeholder:
+            createDeferredFrames();
+            return;
+        }
+
+        if (deferredContents == null)
+        {
+            InteractionManager editor = getEditor();
+            deferredPlaceholder = new Region();
+            canvas.getSpecialBefore((FrameCursor)null).getChildren().add(deferredPlaceholder);
+
+            InvalidationListener scrolled = o -> scheduleDeferredCheck();
+            editor.getObservableScroll().addListener(scrolled);
+            FXRunnable removeTransform = JavaFXUtil.addChangeListener(deferredPlaceholder.localToSceneTransformProperty(), t -> scheduleDeferredCheck());
+            FXRunnable removeScene = JavaFXUtil.addChangeListener(deferredPlaceholder.sceneProperty(), sc -> scheduleDeferredCheck());
+            FXRunnable removeViewport = JavaFXUtil.addChangeListener(editor.getObservableViewportHeight(), h -> scheduleDeferredCheck());
+            FXRunnable removeView = JavaFXUtil.addChangeListener(editor.viewProperty(), v -> scheduleDeferredCheck());
+            FXRunnable removeFocus = JavaFXUtil.addChangeListener(canvas.getFirstCursor().getNode().focusedProperty(), focused -> {
+                if (focused)
+                    createDeferredFrames();
+            });
+            deferredCleanup = () -> {
+                editor.getObservableScroll().removeListener(scrolled);
+                removeTransform.run();
+                removeScene.run();
+                removeViewport.run();
+                removeView.run();
+                removeFocus.run();
+            };
+        }
+        deferredContents = new ArrayList<>(elements);
+        // Estimate one header-row height per contained element:
+        long estimatedRows = elements.stream().mapToLong(e -> 1 + e.streamContained().count()).sum();
+        deferredPlaceholder.prefHeightProperty().bind(getHeaderRow().getNode().heightProperty().multiply(estimatedRows));
+    }
+
+    /**
+     * Creates the frames for the body of this method, if they were deferred by
+     * deferContents.  Does nothing if the frames have already been created.
+     */
+    public void createDeferredFrames()
+    {
+        if (deferredContents == null)
+            return;
+
+        List<CodeElement> elements = deferredContents;
+        deferredContents = null;
+        deferredCleanup.run();
+        deferredCleanup = null;
+        deferredPlaceholder.prefHeightProperty().unbind();
+        canvas.getSpecialBefore((FrameCursor)null).getChildren().remove(deferredPlaceholder);
+        deferredPlaceholder = null;
+
+        // The code is unchanged, so this is not an edit:
+        getEditor().runAsLoading(() ->
+            elements.forEach(c -> canvas.insertBlockAfter(c.createFrame(getEditor()), null)));
+    }
+
+    /**
+     * Checks whether the frames for the body have not been created yet (see deferContents).
+     */
+    public boolean isContentsDeferred()
+    {
+        return deferredContents != null;
+    }
+
+    private void scheduleDeferredCheck()
+    {
+        if (deferredCheckScheduled)
+            return;
+        deferredCheckScheduled = true;
+        JavaFXUtil.runPlatformLater(() -> {
+            deferredCheckScheduled = false;
+            if (deferredContents != null && isDeferredBodyNearView())
+                createDeferredFrames();
+        });
+    }
+
+    /**
+     * Checks whether the placeholder for the deferred body is on screen, or within
+     * a screen's height of it (so that the frames are ready by the time they are scrolled to).
+     */
+    @OnThread(Tag.FXPlatform)
+    private boolean isDeferredBodyNearView()
+    {
+        InteractionManager editor = getEditor();
+        if (deferredPlaceholder.getScene() == null || editor.getWindowOverlayPane() == null
+                || editor.viewProperty().get().isBirdseye())
+            return false;
+
+        double viewportHeight = editor.getObservableViewportHeight().get();
+        if (viewportHeight <= 0)
+            return false;
+
+        Bounds sceneBounds = deferredPlaceholder.localToScene(deferredPlaceholder.getBoundsInLocal());
+        double top = editor.getWindowOverlayPane().sceneYToWindowOverlayY(sceneBounds.getMinY());
+        double bottom = editor.getWindowOverlayPane().sceneYToWindowOverlayY(sceneBounds.getMaxY());
+        return bottom >= -viewportHeight && top <= 2 * viewportHeight;
+    }
+
+    @Override
+    public void setFrameEnabled(boolean enabled)
+    {
+        // The body frames need to be there to have their state copied:
+        createDeferredFrames();
+        super.setFrameEnabled(enabled);
+    }
+
+    @Override
+    public boolean isAlmostBlank()
+    {
+        return deferredContents == null && super.isAlmostBlank();
+    }
         
     @Override
     public void checkForEmptySlot()
@@ -478,13 +626,21 @@ public abstract class MethodFrameWithBody<T extends MethodWithBodyElement>
         access.setValue(nme.getAccessPermission());
         throwsPane.setTypes(nme.getThrowsTypes());
         paramsPane.setParams(nme.getParams(), f -> f.getParamType().getContent(), f -> f.getParamName().getContent());
-        canvas.restore(nme.getContents(), getEditor());
+        if (deferredContents != null)
+            nme.deferContentsIn(this);
+        else
+            canvas.restore(nme.getContents(), getEditor());
     }
 
     @Override
     protected void cleanupFrame()
     {
         headerCleanup.run();
+        if (deferredCleanup != null)
+        {
+            deferredCleanup.run();
+            deferredCleanup = null;
+        }
 
         super.cleanupFrame();
     }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -33,6 +33,7 @@ import bluej.editor.fixes.SuggestionList.SuggestionListParent;
 import bluej.utility.BackgroundConsumer;
 import bluej.utility.javafx.FXPlatformConsumer;
 import bluej.utility.javafx.FXPlatformRunnable;
+import bluej.utility.javafx.FXRunnable;
 import bluej.utility.javafx.FXSupplier;
 import javafx.beans.Observable;
 import javafx.beans.binding.DoubleExpression;
@@ -274,6 +275,13 @@ public interface InteractionManager extends SuggestionListParent
     @OnThread(Tag.FX)
     public boolean isLoading();
 
+    /**
+     * Runs the given action as if the frame were being loaded.  Used when creating
+     * frames for existing code, which should not count as a modification.
+     */
+    @OnThread(Tag.FX)
+    public void runAsLoading(FXRunnable action);
+
     public StringExpression getFontCSS();
 
     public ReadOnlyObjectProperty<Frame.View> viewProperty();
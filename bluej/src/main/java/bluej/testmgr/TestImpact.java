@@ -0,0 +1,131 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.testmgr;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Keeps track of which project classes each test class used the last time it was run
+ * (its coverage, as recorded by a test worker VM) and which classes have been recompiled
+ * since, so that only the tests affected by a change need to be run again.
+ *
+ * <p>A test class is affected if it has not been run in a worker VM, if it did not pass
+ * the last time it was run, or if any class it loaded has been recompiled since it was
+ * started.  Compilations are numbered, so that a compilation which completes while a
+ * test class is running still counts as a change for that test class.
+ */
+@OnThread(Tag.Any)
+public class TestImpact
+{
+    // The number of compilations so far.
+    private long compilation = 0;
+    // Maps class name to the number of the compilation which last produced it.
+    private final Map<String, Long> lastCompiled = new HashMap<>();
+    // Maps test class name to the details of its last run.
+    private final Map<String, Coverage> coverage = new HashMap<>();
+
+    @OnThread(Tag.Any)
+    private static class Coverage
+    {
+        private final Set<String> loadedClasses;
+        private final long compilation;
+        private final boolean passed;
+
+        private Coverage(Set<String> loadedClasses, long compilation, boolean passed)
+        {
+            this.loadedClasses = loadedClasses;
+            this.compilation = compilation;
+            this.passed = passed;
+        }
+    }
+
+    /**
+     * Note that a class has been successfully compiled.
+     *
+     * @param className  the fully-qualified name of the class
+     */
+    public synchronized void classCompiled(String className)
+    {
+        compilation += 1;
+        lastCompiled.put(className, compilation);
+    }
+
+    /**
+     * Get the current compilation number, to be passed to recordRun() once the test class
+     * which is about to be run has finished.
+     */
+    public synchronized long getCompilation()
+    {
+        return compilation;
+    }
+
+    /**
+     * Record the result of running a test class.
+     *
+     * @param testClass      the fully-qualified name of the test class
+     * @param loadedClasses  the names of the project classes loaded while running the tests
+     * @param compilation    the compilation number when the test class was started
+     * @param passed         whether all tests in the class passed
+     */
+    public synchronized void recordRun(String testClass, Collection<String> loadedClasses, long compilation, boolean passed)
+    {
+        coverage.put(testClass, new Coverage(new HashSet<>(loadedClasses), compilation, passed));
+    }
+
+    /**
+     * Check whether a test class needs to be run again: that is, whether it might give a
+     * different result than it did the last time it was run.
+     */
+    public synchronized boolean isAffected(String testClass)
+    {
+        Coverage c = coverage.get(testClass);
+        if (c == null || ! c.passed)
+        {
+            return true;
+        }
+        for (String loadedClass : c.loadedClasses)
+        {
+            Long compiled = lastCompiled.get(loadedClass);
+            if (compiled != null && compiled > c.compilation)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a test class had a failing (or erroneous) test the last time it was run.
+     */
+    public synchronized boolean hasFailed(String testClass)
+    {
+        Coverage c = coverage.get(testClass);
+        return c != null && ! c.passed;
+    }
+}
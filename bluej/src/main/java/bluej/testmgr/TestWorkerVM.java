@@ -0,0 +1,266 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.testmgr;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import bluej.Config;
+import bluej.debugger.DebuggerTestResult;
+import bluej.debugger.jdi.JdiTestResult;
+import bluej.runtime.TestWorkerServer;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A separate VM used to run unit tests, so that several test classes can be run
+ * at once without occupying the debug VM.  The VM is a plain Java process (it is not
+ * debugged) running TestWorkerServer.  The project classes are loaded separately for
+ * each test class, so that the worker can report which of them each test class used.
+ *
+ * Each instance should be used by one thread only.
+ */
+@OnThread(Tag.Worker)
+public class TestWorkerVM
+{
+    // The amount of output (from the end) kept from the worker's standard error:
+    private static final int MAX_ERROR_OUTPUT = 4000;
+
+    private final Process process;
+    private final Writer commands;
+    private final BufferedReader results;
+    // The most recent output written to standard error by the worker:
+    private final StringBuilder errorOutput = new StringBuilder();
+    private final Thread errorReader;
+
+    /**
+     * The outcome of running a test class in a worker VM.
+     */
+    @OnThread(Tag.Any)
+    public static class ClassRun
+    {
+        private final int runTimeMs;
+        private final List<String> loadedClasses;
+
+        private ClassRun(int runTimeMs, List<String> loadedClasses)
+        {
+            this.runTimeMs = runTimeMs;
+            this.loadedClasses = loadedClasses;
+        }
+
+        /**
+         * Get the total run time of the tests in milliseconds.
+         */
+        public int getRunTimeMs()
+        {
+            return runTimeMs;
+        }
+
+        /**
+         * Get the names of the project classes which were loaded while running the tests.
+         */
+        public List<String> getLoadedClasses()
+        {
+            return loadedClasses;
+        }
+    }
+
+    /**
+     * Launch a new worker VM.
+     *
+     * @param classPath      the classpath for the VM, including the BlueJ runtime and libraries
+     * @param userClassPath  the project class directories, loaded afresh for each test class
+     * @param workingDir     the working directory for the VM (the project directory)
+     */
+    public TestWorkerVM(String classPath, String userClassPath, File workingDir) throws IOException
+    {
+        List<String> params = new ArrayList<>();
+        params.add(Config.getJDKExecutablePath(null, "java"));
+        params.addAll(Config.getDebugVMArgs());
+        params.add("-classpath");
+        params.add(classPath);
+        params.add(TestWorkerServer.class.getName());
+        params.add(userClassPath);
+
+        ProcessBuilder builder = new ProcessBuilder(params);
+        builder.directory(workingDir);
+        process = builder.start();
+        commands = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        results = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+        // Output from the tests is not shown when running tests in parallel, but we keep
+        // the end of it so that it can be reported if the worker fails:
+        errorReader = new Thread(this::readErrorOutput, "Test worker output");
+        errorReader.setDaemon(true);
+        errorReader.start();
+    }
+
+    /**
+     * Read the worker's standard error until it is closed, keeping the last part of it.
+     */
+    private void readErrorOutput()
+    {
+        char[] buffer = new char[1024];
+        try (Reader errors = new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))
+        {
+            int n = errors.read(buffer);
+            while (n != -1)
+            {
+                synchronized (errorOutput)
+                {
+                    errorOutput.append(buffer, 0, n);
+                    if (errorOutput.length() > MAX_ERROR_OUTPUT)
+                    {
+                        errorOutput.delete(0, errorOutput.length() - MAX_ERROR_OUTPUT);
+                    }
+                }
+                n = errors.read(buffer);
+            }
+        }
+        catch (IOException e)
+        {
+            // VM has gone; nothing more to read
+        }
+    }
+
+    /**
+     * Run all the tests in the given class.  Each result is passed to the given consumer as soon as
+     * it has been received.
+     *
+     * @throws IOException  if the worker VM has failed
+     */
+    public ClassRun runTestClass(String className, Consumer<DebuggerTestResult> resultConsumer) throws IOException
+    {
+        synchronized (errorOutput)
+        {
+            // Only keep output from this class, for reporting a failure:
+            errorOutput.setLength(0);
+        }
+        commands.write(className + "\n");
+        commands.flush();
+
+        List<String> loadedClasses = Collections.emptyList();
+        String line = results.readLine();
+        while (line != null)
+        {
+            String[] fields = line.split("\t", -1);
+            if (fields[0].equals(TestWorkerServer.DONE) && fields.length == 3)
+            {
+                return new ClassRun(Integer.parseInt(fields[2]), loadedClasses);
+            }
+            else if (fields[0].equals(TestWorkerServer.LOADED) && fields.length == 2)
+            {
+                String names = TestWorkerServer.unescape(fields[1]);
+                loadedClasses = names.isEmpty() ? Collections.emptyList() : Arrays.asList(names.split(","));
+            }
+            else if (fields[0].equals(TestWorkerServer.RESULT))
+            {
+                DebuggerTestResult result = decodeResult(className, fields);
+                if (result != null)
+                {
+                    resultConsumer.accept(result);
+                }
+            }
+            line = results.readLine();
+        }
+        throw new IOException(getFailureMessage());
+    }
+
+    /**
+     * Decode the fields of a RESULT line (made by TestWorkerServer.resultLine) for a test in
+     * the given class.
+     *
+     * @return The result, or null if the line has the wrong number of fields
+     */
+    static DebuggerTestResult decodeResult(String className, String[] fields)
+    {
+        if (fields.length != TestWorkerServer.FIELDS_PER_RESULT + 1)
+        {
+            return null;
+        }
+        String[] details = new String[TestWorkerServer.FIELDS_PER_RESULT];
+        for (int i = 0; i < details.length; i++)
+        {
+            details[i] = TestWorkerServer.unescape(fields[i + 1]);
+        }
+        return JdiTestResult.fromDetails(className, details);
+    }
+
+    /**
+     * Describe the failure of a worker VM which has stopped unexpectedly, including its
+     * exit code and the end of its error output, if available.
+     */
+    private String getFailureMessage()
+    {
+        StringBuilder message = new StringBuilder("Test worker VM terminated unexpectedly");
+        try
+        {
+            if (process.waitFor(1, TimeUnit.SECONDS))
+            {
+                message.append(" (exit code ").append(process.exitValue()).append(")");
+                // Let the rest of the error output be read:
+                errorReader.join(1000);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Just leave out the exit code
+        }
+        synchronized (errorOutput)
+        {
+            if (errorOutput.length() > 0)
+            {
+                message.append("\n").append(errorOutput);
+            }
+        }
+        return message.toString();
+    }
+
+    /**
+     * Shut down the worker VM.
+     */
+    public void close()
+    {
+        try
+        {
+            commands.write("\n");
+            commands.close();
+        }
+        catch (IOException e)
+        {
+            // VM has presumably already gone
+        }
+        process.destroy();
+    }
+}
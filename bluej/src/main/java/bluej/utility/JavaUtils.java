@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2012,2014,2015,2016,2018,2019,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2012,2014,2015,2016,2018,2019,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -34,7 +34,6 @@ import bluej.parser.lexer.LocatableToken;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -821,7 +820,7 @@ public abstract class JavaUtils
     @OnThread(Tag.FXPlatform)
     public static String blankCodeCommentsAndStringLiterals(String codeStr, char obfChar)
     {
-        JavaLexer l = new JavaLexer(new StringReader(codeStr));
+        JavaLexer l = new JavaLexer(codeStr);
         StringBuilder sb = new StringBuilder();
         int currReaderPosition = 0;
         LocatableToken lastToken = null;
@@ -0,0 +1,135 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger;
+
+import java.util.List;
+import java.util.Map;
+
+import bluej.debugger.Profile.MethodStats;
+import bluej.debugger.Profile.Node;
+import junit.framework.TestCase;
+
+public class ProfileTest extends TestCase
+{
+    // main calls loop, which calls act (which sometimes calls draw in a nested class) and sqrt:
+    private static final String SNAPSHOT = "P\t0\t100\t2000000\t1000000000\n"
+            + "F\t0\tdemo.Main\tmain\t10\n"
+            + "F\t1\tdemo.Main\tloop\t20\n"
+            + "F\t2\tdemo.World\tact\t30\n"
+            + "F\t3\tdemo.World$Inner\tdraw\t40\n"
+            + "F\t4\tjava.lang.Math\tsqrt\t-1\n"
+            + "S\t50\t0,1,2\n"
+            + "S\t30\t0,1,2,3\n"
+            + "S\t15\t0,1,4\n"
+            + "S\t5\t0\n";
+
+    public void testCallTree()
+    {
+        Profile profile = Profile.parse(SNAPSHOT);
+        assertEquals(100, profile.getTotalSamples());
+        assertEquals(100, profile.getSampleRounds());
+        assertEquals(0.002, profile.getOverhead(), 1e-9);
+
+        List<Node> roots = profile.getCallTree().getChildren();
+        assertEquals(1, roots.size());
+        Node main = roots.get(0);
+        assertEquals("Main.main", main.getDisplayName());
+        assertEquals(100, main.getTotal());
+        assertEquals(5, main.getSelf());
+
+        Node loop = main.getChildren().get(0);
+        assertEquals(95, loop.getTotal());
+        assertEquals(0, loop.getSelf());
+        // Children are sorted by total, most first:
+        List<Node> called = loop.getChildren();
+        assertEquals("World.act", called.get(0).getDisplayName());
+        assertEquals(80, called.get(0).getTotal());
+        assertEquals(50, called.get(0).getSelf());
+        assertEquals("Math.sqrt", called.get(1).getDisplayName());
+        assertEquals(15, called.get(1).getSelf());
+        assertEquals(30, called.get(0).getChildren().get(0).getSelf());
+    }
+
+    public void testMethodsAndLines()
+    {
+        Profile profile = Profile.parse(SNAPSHOT);
+        List<MethodStats> methods = profile.getMethods();
+        assertEquals("World.act", methods.get(0).getDisplayName());
+        assertEquals(30, methods.get(0).getHottestLine());
+        assertEquals(-1, methods.get(2).getHottestLine());
+
+        // Nested classes are counted in the source of their outer class:
+        Map<Integer, Integer> world = profile.getLineSamples("demo.World");
+        assertEquals(Integer.valueOf(80), world.get(30));
+        assertEquals(Integer.valueOf(30), world.get(40));
+        assertEquals(Integer.valueOf(100), profile.getLineSamples("demo.Main").get(10));
+        assertTrue(profile.getLineSamples("java.lang.Math").isEmpty());
+    }
+
+    public void testRecursionCountedOnce()
+    {
+        Profile profile = Profile.parse("P\t0\t10\t0\t1\n"
+                + "F\t0\tdemo.Tree\tvisit\t5\n"
+                + "F\t1\tdemo.Tree\tvisit\t7\n"
+                + "S\t10\t0,1,1\n");
+        MethodStats visit = profile.getMethods().get(0);
+        assertEquals(10, visit.getTotal());
+        assertEquals(10, visit.getSelf());
+        assertEquals(Integer.valueOf(10), profile.getLineSamples("demo.Tree").get(7));
+        // But each level of the recursion has its own node in the call tree:
+        Node outer = profile.getCallTree().getChildren().get(0);
+        assertEquals(0, outer.getSelf());
+        assertEquals(10, outer.getChildren().get(0).getChildren().get(0).getSelf());
+    }
+
+    public void testUpdates()
+    {
+        Profile profile = Profile.parse(SNAPSHOT);
+        // Only the new frames and the samples since the last update are sent:
+        assertTrue(profile.addUpdate(Profile.Update.parse("P\t1\t150\t3000000\t1500000000\n"
+                + "F\t5\tdemo.World\tact\t31\n"
+                + "S\t20\t0,1,2\n"
+                + "S\t10\t0,1,5\n")));
+        assertEquals(130, profile.getTotalSamples());
+        assertEquals(150, profile.getSampleRounds());
+        assertEquals(0.002, profile.getOverhead(), 1e-9);
+        Node act = profile.getCallTree().getChildren().get(0).getChildren().get(0).getChildren().get(0);
+        assertEquals("World.act", act.getDisplayName());
+        assertEquals(110, act.getTotal());
+        assertEquals(80, act.getSelf());
+        assertEquals(Integer.valueOf(10), profile.getLineSamples("demo.World").get(31));
+
+        // An update which is not the next one (e.g. after profiling was restarted) is rejected:
+        assertFalse(profile.addUpdate(Profile.Update.parse("P\t0\t10\t0\t1\n"
+                + "F\t0\tdemo.Other\trun\t1\n"
+                + "S\t10\t0\n")));
+        assertFalse(profile.addUpdate(Profile.Update.parse("P\t3\t10\t0\t1\n")));
+        assertEquals(130, profile.getTotalSamples());
+    }
+
+    public void testMalformedInput()
+    {
+        Profile profile = Profile.parse("nonsense\nS\tx\t1\n");
+        assertEquals(0, profile.getTotalSamples());
+        assertTrue(profile.getCallTree().getChildren().isEmpty());
+    }
+}
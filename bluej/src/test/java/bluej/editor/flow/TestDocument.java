@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2019,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2019,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -77,9 +77,9 @@ public class TestDocument
     public void propDocumentStringReplace(@From(GenRandom.class) Random r)
     {
         // Documents with identical content to test alongside each other:
-        Document[] documents = new Document[] { new SlowDocument(), new HoleDocument() };
+        Document[] documents = new Document[] { new SlowDocument(), new HoleDocument(), new PieceTreeDocument() };
         // Keep an undo stack for each:
-        DocumentUndoStack[] undoStacks = new DocumentUndoStack[] { new DocumentUndoStack(documents[0]), new DocumentUndoStack(documents[1])}; 
+        DocumentUndoStack[] undoStacks = Arrays.stream(documents).map(DocumentUndoStack::new).toArray(DocumentUndoStack[]::new);
         String curContent = "";
         GenString stringMaker = new GenString();
         
@@ -126,6 +126,9 @@ public class TestDocument
             
             prevContent.add(curContent);
 
+            // A snapshot should be unaffected by the replacement:
+            CharSequence snapshot = ((PieceTreeDocument)documents[2]).getSnapshot();
+
             // Calculate desired content and check the document matches:
             curContent = curContent.substring(0, start) + newContent + curContent.substring(end);
             for (Document document : documents)
@@ -133,6 +136,12 @@ public class TestDocument
                 document.replaceText(start, end, newContent);
                 assertEquals(curContent, document.getFullContent());
             }
+            assertEquals(prevContent.get(prevContent.size() - 1), snapshot.toString());
+            if (snapshot.length() > 0)
+            {
+                int snapshotPos = r.nextInt(snapshot.length());
+                assertEquals(prevContent.get(prevContent.size() - 1).charAt(snapshotPos), snapshot.charAt(snapshotPos));
+            }
             // What is the position if we kept on typing?
             lastInsert = start + newContent.length();
             
@@ -199,6 +208,7 @@ public class TestDocument
                 assertEquals(curContent, lines.stream().collect(Collectors.joining("\n")));
                 assertEquals(lines.size(), document.getLineCount());
             }
+            assertEquals(((HoleDocument)documents[1]).getLongestLine(), ((PieceTreeDocument)documents[2]).getLongestLine());
             
             // Check that document reader on a random sub-part does the right thing:
             int startRead = curContent.length() <= 1 ? 0 : r.nextInt(curContent.length() - 1);
@@ -260,8 +270,11 @@ public class TestDocument
             }
             
             // Try some undo/redo:
-            assertEquals(undoStacks[0].canUndoCount(), undoStacks[1].canUndoCount());
-            assertEquals(undoStacks[0].canRedoCount(), undoStacks[1].canRedoCount());
+            for (int doc = 1; doc < undoStacks.length; doc++)
+            {
+                assertEquals(undoStacks[0].canUndoCount(), undoStacks[doc].canUndoCount());
+                assertEquals(undoStacks[0].canRedoCount(), undoStacks[doc].canRedoCount());
+            }
             MatcherAssert.assertThat(undoStacks[0].canUndoCount(), Matchers.lessThanOrEqualTo(prevContent.size()));
             // No redo since we're on latest:
             assertEquals(undoStacks[0].canRedoCount(), 0);
@@ -323,10 +336,8 @@ public class TestDocument
     public void propDocumentTripleQuotes(@From(GenRandom.class) Random r)
     {
         // Documents with identical content to test alongside each other:
-        Document[] documents = new Document[]{new SlowDocument(), new HoleDocument()};
-        MultilineStringTracker[] trackers = new MultilineStringTracker[]{
-                new MultilineStringTracker(documents[0], () -> {}), new MultilineStringTracker(documents[1], () -> {})
-        };
+        Document[] documents = new Document[]{new SlowDocument(), new HoleDocument(), new PieceTreeDocument()};
+        MultilineStringTracker[] trackers = Arrays.stream(documents).map(d -> new MultilineStringTracker(d, () -> {})).toArray(MultilineStringTracker[]::new);
 
         GenString stringMaker = new GenString();
         String curContent = "";
@@ -402,6 +413,53 @@ public class TestDocument
         }
     }
 
+    @Property(trials = 20, shrink = false)
+    public void propLongestLineSingleLineEdits(@From(GenRandom.class) Random r)
+    {
+        // Typing and deleting within lines (often the longest one), which PieceTreeDocument
+        // handles without recalculating the longest line:
+        HoleDocument expected = new HoleDocument();
+        PieceTreeDocument actual = new PieceTreeDocument();
+        StringBuilder initial = new StringBuilder();
+        for (int i = 0; i < 5 + r.nextInt(20); i++)
+        {
+            initial.append("x".repeat(r.nextInt(30))).append('\n');
+        }
+        expected.replaceText(0, 0, initial.toString());
+        actual.replaceText(0, 0, initial.toString());
+
+        for (int i = 0; i < 200; i++)
+        {
+            String content = expected.getFullContent();
+            int line;
+            if (r.nextInt(3) == 0)
+            {
+                line = r.nextInt(expected.getLineCount());
+            }
+            else
+            {
+                line = expected.getLineFromPosition(content.indexOf(expected.getLongestLine() + "\n"));
+            }
+            int lineStart = expected.getLineStart(line);
+            int lineEnd = expected.getLineEnd(line);
+            int pos = lineStart + r.nextInt(lineEnd - lineStart + 1);
+            if (r.nextBoolean() || pos == lineEnd)
+            {
+                String typed = "y".repeat(1 + r.nextInt(3));
+                expected.replaceText(pos, pos, typed);
+                actual.replaceText(pos, pos, typed);
+            }
+            else
+            {
+                int end = pos + 1 + r.nextInt(lineEnd - pos);
+                expected.replaceText(pos, end, "");
+                actual.replaceText(pos, end, "");
+            }
+            assertEquals(expected.getFullContent(), actual.getFullContent());
+            assertEquals(expected.getLongestLine(), actual.getLongestLine());
+        }
+    }
+
     private String makeQuotes(int num)
     {
         char[] cs = new char[num];
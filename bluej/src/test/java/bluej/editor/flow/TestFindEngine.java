@@ -0,0 +1,328 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.flow.gen.GenRandom;
+import com.pholser.junit.quickcheck.From;
+import com.pholser.junit.quickcheck.Property;
+import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnitQuickcheck.class)
+public class TestFindEngine
+{
+    // Searches as {search text, ignore case, regex, whole word}.  No match of these can
+    // span more than two lines, which is as far as FindEngine looks after an edit:
+    private static final Object[][] SEARCHES = {
+        {"ab", false, false, false},
+        {"AB", true, false, false},
+        {"aa", false, false, false},
+        {"ab", false, false, true},
+        {"a+b?", false, true, false},
+        {"a+b?", false, true, true},
+        {"\\bc[a-c]*", false, true, false},
+        {"(?<=c)a", false, true, false},
+        {"b(?=\\n)", false, true, false},
+        {"^a", false, true, false},
+        {"b$", false, true, false},
+        {"b\\na", false, true, false},
+        // Matches empty strings as well, which are ignored:
+        {"x*", false, true, false},
+        {"(?:ab)?", false, true, false},
+    };
+
+    // The search being done in each trial, and its pattern:
+    private Object[] search;
+    private Pattern pattern;
+    // The queued background searches, and batches of results waiting to be passed back:
+    private final ArrayDeque<Runnable> background = new ArrayDeque<>();
+    private final ArrayDeque<Runnable> fxThread = new ArrayDeque<>();
+
+    private FindEngine makeEngine(PieceTreeDocument document, Random r)
+    {
+        background.clear();
+        fxThread.clear();
+        search = SEARCHES[r.nextInt(SEARCHES.length)];
+        pattern = FindEngine.makePattern((String)search[0], (Boolean)search[1], (Boolean)search[2], (Boolean)search[3]);
+        FindEngine engine = new FindEngine(document, () -> {}, background::add, fxThread::add);
+        engine.search(pattern, (Boolean)search[2]);
+        return engine;
+    }
+
+    private static String randomText(Random r, int maxLength)
+    {
+        String chars = "aaabbbcx_ \n\nAB";
+        StringBuilder s = new StringBuilder();
+        for (int i = r.nextInt(maxLength + 1); i > 0; i--)
+        {
+            s.append(chars.charAt(r.nextInt(chars.length())));
+        }
+        return s.toString();
+    }
+
+    /**
+     * Find the non-empty matches of the pattern in the given text, as FindEngine should.
+     */
+    private static List<String> findAll(Pattern pattern, CharSequence text)
+    {
+        List<String> matches = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find())
+        {
+            if (matcher.end() > matcher.start())
+            {
+                matches.add(matcher.start() + "-" + matcher.end());
+            }
+        }
+        return matches;
+    }
+
+    private static List<String> getMatches(FindEngine engine)
+    {
+        List<String> matches = new ArrayList<>();
+        for (int i = 0; i < engine.getMatchCount(); i++)
+        {
+            matches.add(engine.getStart(i) + "-" + engine.getEnd(i));
+        }
+        return matches;
+    }
+
+    private void assertMatches(FindEngine engine, PieceTreeDocument document)
+    {
+        assertTrue(engine.isComplete());
+        String content = document.getFullContent();
+        List<String> expected = findAll(pattern, content);
+        assertEquals("Searching for " + search[0] + " in \"" + content + "\"", expected, getMatches(engine));
+
+        // Check the lookups of matches by position:
+        for (int pos = 0; pos <= content.length(); pos++)
+        {
+            int next = 0;
+            while (next < engine.getMatchCount() && engine.getStart(next) < pos)
+            {
+                next += 1;
+            }
+            assertEquals(next == engine.getMatchCount() ? -1 : next, engine.findNext(pos, true));
+            assertEquals(next - 1, engine.findPrevious(pos));
+        }
+        // Check the matches overlapping various ranges (as for the visible lines):
+        for (int from = 0; from <= content.length(); from += 17)
+        {
+            int fromPos = from;
+            int toPos = Math.min(content.length(), from + 40);
+            List<String> expectedBetween = expected.stream().filter(m -> {
+                String[] ends = m.split("-");
+                return Integer.parseInt(ends[1]) > fromPos && Integer.parseInt(ends[0]) < toPos;
+            }).collect(Collectors.toList());
+            assertEquals(expectedBetween, engine.getMatchesBetween(fromPos, toPos).stream()
+                    .map(m -> m[0] + "-" + m[1]).collect(Collectors.toList()));
+        }
+    }
+
+    private static void replaceRandomly(PieceTreeDocument document, Random r)
+    {
+        int length = document.getLength();
+        int start = r.nextInt(length + 1);
+        int end = start + r.nextInt(Math.min(10, length - start) + 1);
+        document.replaceText(start, end, randomText(r, 5));
+    }
+
+    @Property(trials = 100, shrink = false)
+    public void propMatchesKeptUpToDate(@From(GenRandom.class) Random r)
+    {
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, randomText(r, 300));
+        FindEngine engine = makeEngine(document, r);
+        background.poll().run();
+        fxThread.poll().run();
+        assertMatches(engine, document);
+
+        for (int i = 0; i < 100; i++)
+        {
+            replaceRandomly(document, r);
+            assertMatches(engine, document);
+        }
+    }
+
+    @Property(trials = 100, shrink = false)
+    public void propEditsDuringBackgroundSearch(@From(GenRandom.class) Random r)
+    {
+        // Large enough that the background search passes back several batches:
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, randomText(r, r.nextBoolean() ? 300 : 8000));
+        FindEngine engine = makeEngine(document, r);
+
+        // Edit the document before the search starts, between the batches passed back,
+        // and after it has finished:
+        while (!background.isEmpty() || !fxThread.isEmpty())
+        {
+            int action = r.nextInt(4);
+            if (action == 0)
+            {
+                replaceRandomly(document, r);
+            }
+            else if (!background.isEmpty())
+            {
+                background.poll().run();
+            }
+            else if (!fxThread.isEmpty())
+            {
+                fxThread.poll().run();
+            }
+        }
+        assertMatches(engine, document);
+        for (int i = 0; i < 20; i++)
+        {
+            replaceRandomly(document, r);
+            assertMatches(engine, document);
+        }
+    }
+
+    @Property(trials = 20, shrink = false)
+    public void propNewSearchDiscardsOld(@From(GenRandom.class) Random r)
+    {
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, randomText(r, 2000));
+        FindEngine engine = makeEngine(document, r);
+        background.poll().run();
+        // A second search, before the first one's results have been passed back:
+        pattern = FindEngine.makePattern("b", false, false, false);
+        engine.search(pattern, false);
+        while (!background.isEmpty() || !fxThread.isEmpty())
+        {
+            (background.isEmpty() ? fxThread : background).poll().run();
+        }
+        assertMatches(engine, document);
+    }
+
+    @Test
+    public void testWholeWord()
+    {
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, "int x = xy + x_1 + x;\nx");
+        pattern = FindEngine.makePattern("x", false, false, true);
+        FindEngine engine = new FindEngine(document, () -> {}, Runnable::run, Runnable::run);
+        engine.search(pattern, false);
+        assertEquals(List.of("4-5", "19-20", "22-23"), getMatches(engine));
+
+        // Joining words removes the match; separating them adds it:
+        document.replaceText(19, 19, "y");
+        assertEquals(List.of("4-5", "23-24"), getMatches(engine));
+        document.replaceText(9, 10, " ");
+        assertEquals(List.of("4-5", "8-9", "23-24"), getMatches(engine));
+    }
+
+    @Test
+    public void testEmptyMatchesIgnored()
+    {
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, "axxbx\n\nx");
+        pattern = FindEngine.makePattern("x*", false, true, false);
+        FindEngine engine = new FindEngine(document, () -> {}, Runnable::run, Runnable::run);
+        engine.search(pattern, true);
+        assertEquals(List.of("1-3", "4-5", "7-8"), getMatches(engine));
+        assertEquals(3, engine.replaceAll("y"));
+        assertEquals("ayby\n\ny", document.getFullContent());
+    }
+
+    @Property(trials = 50, shrink = false)
+    public void propReplaceAll(@From(GenRandom.class) Random r)
+    {
+        String[][] searches = {
+            // {regex, replacement}
+            {"(a)(b)", "$2$1"},
+            {"(a+)(b?)", "[$1|$2]"},
+            {"(?<first>c)(x|_)", "${first}\\$"},
+            {"b\\n(a)", "\\\\$1"},
+            {"a", "$0$0"},
+        };
+        String[] search = searches[r.nextInt(searches.length)];
+        String content = randomText(r, 500);
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, content);
+        pattern = FindEngine.makePattern(search[0], false, true, false);
+        FindEngine engine = new FindEngine(document, () -> {}, Runnable::run, Runnable::run);
+        engine.search(pattern, true);
+
+        // The replacement for each match on its own (none of these patterns match empty strings):
+        Matcher matcher = pattern.matcher(content);
+        StringBuilder replaced = new StringBuilder();
+        int lastEnd = 0;
+        for (int i = 0; matcher.find(); i++)
+        {
+            int before = replaced.length() + matcher.start() - lastEnd;
+            matcher.appendReplacement(replaced, search[1]);
+            assertEquals(replaced.substring(before), engine.getReplacement(i, search[1]));
+            lastEnd = matcher.end();
+        }
+
+        int count = engine.getMatchCount();
+        assertEquals(count, engine.replaceAll(search[1]));
+        assertEquals(pattern.matcher(content).replaceAll(search[1]), document.getFullContent());
+        assertEquals(0, engine.getMatchCount());
+    }
+
+    @Test
+    public void testInvalidReplacementUsedLiterally()
+    {
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, "ab ab");
+        pattern = FindEngine.makePattern("(a)b", false, true, false);
+        FindEngine engine = new FindEngine(document, () -> {}, Runnable::run, Runnable::run);
+        engine.search(pattern, true);
+
+        Matcher matcher = pattern.matcher("ab");
+        assertTrue(matcher.find());
+        assertNull(FindEngine.expand(matcher, "$2", 0));
+        assertNull(FindEngine.expand(matcher, "x\\", 0));
+        assertEquals("[a]", FindEngine.expand(matcher, "[$1]", 0));
+
+        assertEquals("$2", engine.getReplacement(1, "$2"));
+        assertEquals("a", engine.getReplacement(1, "$1"));
+        assertEquals(2, engine.replaceAll("$2"));
+        assertEquals("$2 $2", document.getFullContent());
+    }
+
+    @Test
+    public void testLiteralReplacementNotExpanded()
+    {
+        PieceTreeDocument document = new PieceTreeDocument();
+        document.replaceText(0, 0, "a.b a.b");
+        pattern = FindEngine.makePattern("a.b", false, false, false);
+        FindEngine engine = new FindEngine(document, () -> {}, Runnable::run, Runnable::run);
+        engine.search(pattern, false);
+        assertEquals("$1\\", engine.getReplacement(0, "$1\\"));
+        assertEquals(2, engine.replaceAll("$1\\"));
+        assertEquals("$1\\ $1\\", document.getFullContent());
+    }
+}
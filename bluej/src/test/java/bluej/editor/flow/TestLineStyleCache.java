@@ -0,0 +1,112 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import bluej.parser.Token.TokenType;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestLineStyleCache
+{
+    private static List<StyledSegment> style(LineStyleCache cache, int lineIndex, String content)
+    {
+        assertNull(cache.get(lineIndex, content));
+        int space = content.indexOf(' ');
+        if (space == -1)
+        {
+            cache.addRun(content.length(), TokenType.KEYWORD1);
+        }
+        else
+        {
+            cache.addRun(space, TokenType.KEYWORD1);
+            cache.addRun(content.length() - space, TokenType.DEFAULT);
+        }
+        return cache.store(lineIndex, content);
+    }
+    
+    @Test
+    public void testStoreAndGet()
+    {
+        LineStyleCache cache = new LineStyleCache();
+        List<StyledSegment> segments = style(cache, 2, "int x;");
+        assertEquals(List.of(new StyledSegment(List.of("token-keyword1"), "int"),
+                new StyledSegment(List.of("token-default"), " x;")), segments);
+        assertSame(segments, cache.get(2, "int x;"));
+        assertNull(cache.get(0, ""));
+        assertNull(cache.get(5, "int x;"));
+        // A different length means the line must have changed:
+        assertNull(cache.get(2, "int xy;"));
+        
+        // Blank lines get a single blank segment:
+        assertNull(cache.get(3, ""));
+        assertEquals(List.of(new StyledSegment(Collections.emptyList(), "")), cache.store(3, ""));
+    }
+    
+    @Test
+    public void testLinesMove()
+    {
+        LineStyleCache cache = new LineStyleCache();
+        for (int i = 0; i < 5; i++)
+        {
+            style(cache, i, "line " + i);
+        }
+        // Two lines added after line 1:
+        cache.linesAdded(1, 2);
+        assertNotNull(cache.get(0, "line 0"));
+        assertNull(cache.get(1, "line 1"));
+        assertNull(cache.get(2, "line 1"));
+        assertNull(cache.get(3, "line 1"));
+        assertNotNull(cache.get(4, "line 2"));
+        assertNotNull(cache.get(6, "line 4"));
+        
+        // Three lines removed after line 2 (one of the lines added, and the old lines 2 and 3):
+        cache.linesRemoved(2, 3);
+        assertNull(cache.get(2, "line 1"));
+        assertEquals(" 4", cache.get(3, "line 4").get(1).getText());
+        assertNull(cache.get(4, "line 4"));
+        
+        cache.invalidate(0, 0);
+        assertNull(cache.get(0, "line 0"));
+        assertNotNull(cache.get(3, "line 4"));
+        cache.invalidateAll();
+        assertNull(cache.get(3, "line 4"));
+    }
+    
+    @Test
+    public void testSegmentsDiscardedOffScreen()
+    {
+        LineStyleCache cache = new LineStyleCache();
+        List<StyledSegment> line0 = style(cache, 0, "int a;");
+        List<StyledSegment> line1 = style(cache, 1, "int b;");
+        cache.rendered(1, 1);
+        assertSame(line1, cache.get(1, "int b;"));
+        // Line 0 is remade from its runs, without being styled again:
+        List<StyledSegment> remade = cache.get(0, "int a;");
+        assertNotSame(line0, remade);
+        assertEquals(line0, remade);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.Config;
+import bluej.editor.base.TextLine;
+import bluej.editor.base.TextLine.StyledSegment;
+import bluej.editor.base.TextMetrics;
+import bluej.parser.InitConfig;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the measurements from TextMetrics match those of a real TextLine.
+ */
+public class TestTextMetrics extends FXTest
+{
+    private static final String MONOSPACE = "-fx-font-size: 12pt;-fx-font-family: \"Roboto Mono\";";
+    private static final String PROPORTIONAL = "-fx-font-size: 12pt;-fx-font-family: \"Source Sans Pro\";";
+    private static final List<String> LINES = List.of(
+        "",
+        "}",
+        "    public static void main(String[] args)",
+        "        AVATAR = Wavy.yoyo(\"To\", 'W', 1.0f); // Kerning: AV Wa yo To",
+        "\tint x = 8;\t// with tabs",
+        "String s = \"éèü αβγ 中文\";"
+    );
+    // Allows for rounding differences between the measuring node and a TextLine:
+    private static final double TOLERANCE = 0.5;
+
+    @Override
+    public void start(Stage stage) throws Exception
+    {
+        super.start(stage);
+        InitConfig.init();
+        Config.loadFXFonts();
+    }
+
+    @Test
+    public void testMonospace()
+    {
+        checkAgainstTextLine(MONOSPACE);
+        fx_(() -> {
+            TextMetrics metrics = TextMetrics.forFont(MONOSPACE);
+            assertEquals(metrics.getLineWidth("m") * 10, metrics.getLineWidth("iiiiiWWWWW"), 0.001);
+        });
+    }
+
+    @Test
+    public void testProportional()
+    {
+        checkAgainstTextLine(PROPORTIONAL);
+    }
+
+    @Test
+    public void testCaching()
+    {
+        fx_(() -> {
+            TextMetrics metrics = TextMetrics.forFont(MONOSPACE);
+            assertSame(metrics, TextMetrics.forFont(MONOSPACE));
+            List<StyledSegment> content = List.of(new StyledSegment(List.of(), LINES.get(3)));
+            double height = metrics.getLineHeight(content, 100);
+            assertEquals(height, metrics.getLineHeight(content, 100), 0.0);
+
+            // After invalidating, the font is measured afresh, with the same results:
+            TextMetrics.invalidate(MONOSPACE);
+            TextMetrics remeasured = TextMetrics.forFont(MONOSPACE);
+            assertNotSame(metrics, remeasured);
+            assertEquals(metrics.getLineHeight(), remeasured.getLineHeight(), 0.0);
+            assertEquals(height, remeasured.getLineHeight(content, 100), 0.0);
+            assertEquals(metrics.getLineWidth(LINES.get(2)), remeasured.getLineWidth(LINES.get(2)), 0.0);
+        });
+    }
+
+    private void checkAgainstTextLine(String fontCSS)
+    {
+        fx_(() -> {
+            TextMetrics metrics = TextMetrics.forFont(fontCSS);
+            assertEquals(fontCSS, measure(fontCSS, "Xy").prefHeight(-1), metrics.getLineHeight(), TOLERANCE);
+            for (String line : LINES)
+            {
+                List<StyledSegment> content = List.of(new StyledSegment(List.of(), line));
+                TextLine textLine = measure(fontCSS, line);
+                assertEquals(fontCSS + ": " + line, textLine.prefWidth(-1), metrics.getLineWidth(line), TOLERANCE);
+                for (double maxWidth : new double[] {-1, 60, 150, 400})
+                {
+                    assertEquals(fontCSS + ": " + line + " wrapped at " + maxWidth,
+                            textLine.prefHeight(maxWidth), metrics.getLineHeight(content, maxWidth), TOLERANCE);
+                }
+                // The width of a line should not depend on what was measured before:
+                assertEquals(fontCSS + ": " + line, textLine.prefWidth(-1), metrics.getLineWidth(line), TOLERANCE);
+            }
+        });
+    }
+
+    /**
+     * Lay out the given text in a TextLine, as the editor does.
+     */
+    private static TextLine measure(String fontCSS, String text)
+    {
+        TextLine textLine = new TextLine(false);
+        // Must be in a scene for CSS (for font family/size) to get applied correctly:
+        new Scene(textLine);
+        textLine.setText(List.of(new StyledSegment(List.of(), text)), 0, true, new ReadOnlyStringWrapper(fontCSS));
+        textLine.applyCss();
+        textLine.layout();
+        return textLine;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.extmgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bluej.extensions2.event.ExtensionEvent;
+import bluej.utility.javafx.FXPlatformRunnable;
+import junit.framework.TestCase;
+
+/**
+ * Tests for ExtensionEventQueue.  Instead of running on the FX thread, the queue's
+ * drains are collected and run by the test.
+ */
+public class ExtensionEventQueueTest extends TestCase
+{
+    private static class NumberedEvent implements ExtensionEvent
+    {
+        private final int number;
+
+        private NumberedEvent(int number)
+        {
+            this.number = number;
+        }
+    }
+
+    private final List<FXPlatformRunnable> scheduled = new ArrayList<>();
+    private final List<Integer> delivered = new ArrayList<>();
+
+    private ExtensionEventQueue makeQueue(long handlingMillis)
+    {
+        return new ExtensionEventQueue(e -> {
+            delivered.add(((NumberedEvent) e).number);
+            if (handlingMillis > 0)
+            {
+                try
+                {
+                    Thread.sleep(handlingMillis);
+                }
+                catch (InterruptedException ex)
+                {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }, scheduled::add);
+    }
+
+    private void runScheduled()
+    {
+        List<FXPlatformRunnable> toRun = new ArrayList<>(scheduled);
+        scheduled.clear();
+        toRun.forEach(FXPlatformRunnable::run);
+    }
+
+    private static List<Integer> range(int from, int to)
+    {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = from; i < to; i++)
+        {
+            numbers.add(i);
+        }
+        return numbers;
+    }
+
+    public void testDeliveredInOrderLater()
+    {
+        ExtensionEventQueue queue = makeQueue(0);
+        for (int i = 0; i < 100; i++)
+        {
+            queue.post(new NumberedEvent(i));
+        }
+        // Nothing is delivered by post, and only one drain is scheduled:
+        assertEquals(List.of(), delivered);
+        assertEquals(1, scheduled.size());
+        assertEquals(100, queue.getQueued());
+
+        runScheduled();
+        assertEquals(range(0, 100), delivered);
+        assertEquals(0, queue.getQueued());
+        assertEquals(100, queue.getDelivered());
+        assertEquals(List.of(), scheduled);
+    }
+
+    public void testEventsFromHandlerComeAfter()
+    {
+        List<ExtensionEventQueue> queueHolder = new ArrayList<>();
+        ExtensionEventQueue queue = new ExtensionEventQueue(e -> {
+            int number = ((NumberedEvent) e).number;
+            delivered.add(number);
+            if (number == 0)
+            {
+                queueHolder.get(0).post(new NumberedEvent(100));
+                // Mustn't deliver the rest of the queue inside this handler:
+                queueHolder.get(0).flush();
+            }
+        }, scheduled::add);
+        queueHolder.add(queue);
+        for (int i = 0; i < 3; i++)
+        {
+            queue.post(new NumberedEvent(i));
+        }
+        runScheduled();
+        assertEquals(List.of(0, 1, 2, 100), delivered);
+    }
+
+    public void testFullQueueDeliveredByCaller()
+    {
+        ExtensionEventQueue queue = makeQueue(0);
+        for (int i = 0; i < ExtensionEventQueue.CAPACITY; i++)
+        {
+            queue.post(new NumberedEvent(i));
+        }
+        assertEquals(List.of(), delivered);
+        assertEquals(0, queue.getOverflows());
+
+        // The queue is full, so posting another delivers those queued, then queues the new one:
+        queue.post(new NumberedEvent(ExtensionEventQueue.CAPACITY));
+        assertEquals(range(0, ExtensionEventQueue.CAPACITY), delivered);
+        assertEquals(1, queue.getQueued());
+        assertEquals(1, queue.getOverflows());
+
+        runScheduled();
+        assertEquals(range(0, ExtensionEventQueue.CAPACITY + 1), delivered);
+        assertEquals(0, queue.getQueued());
+    }
+
+    public void testDrainStopsAfterTimeSlice()
+    {
+        // Each event takes longer to handle than a whole time slice, so each drain
+        // delivers one event and schedules another drain for the rest:
+        long handlingMillis = ExtensionEventQueue.TIME_SLICE_NANOS / 1_000_000 + 5;
+        ExtensionEventQueue queue = makeQueue(handlingMillis);
+        for (int i = 0; i < 3; i++)
+        {
+            queue.post(new NumberedEvent(i));
+        }
+        for (int drains = 1; drains <= 3; drains++)
+        {
+            assertEquals(1, scheduled.size());
+            runScheduled();
+            assertEquals(range(0, drains), delivered);
+        }
+        assertEquals(List.of(), scheduled);
+        assertEquals(0, queue.getQueued());
+    }
+
+    public void testClearDiscardsQueued()
+    {
+        ExtensionEventQueue queue = makeQueue(0);
+        queue.post(new NumberedEvent(0));
+        queue.clear();
+        runScheduled();
+        assertEquals(List.of(), delivered);
+        queue.post(new NumberedEvent(1));
+        runScheduled();
+        assertEquals(List.of(1), delivered);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.graph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import javafx.geometry.Rectangle2D;
+import junit.framework.TestCase;
+
+public class SpatialGridTest extends TestCase
+{
+    public void testQuery()
+    {
+        SpatialGrid<String> grid = new SpatialGrid<>(100);
+        grid.put("a", new Rectangle2D(10, 10, 20, 20));
+        grid.put("b", new Rectangle2D(150, 10, 20, 20));
+        // Spans several cells, including negative ones:
+        grid.put("c", new Rectangle2D(-50, -50, 400, 30));
+        assertEquals(3, grid.size());
+
+        assertEquals(set("a", "c"), new HashSet<>(grid.query(new Rectangle2D(0, -30, 50, 50))));
+        assertEquals(set("a"), new HashSet<>(grid.query(new Rectangle2D(0, 0, 50, 50))));
+        assertEquals(set("b"), new HashSet<>(grid.query(new Rectangle2D(160, 20, 1, 1))));
+        assertTrue(grid.query(new Rectangle2D(500, 500, 10, 10)).isEmpty());
+        // Each item only once, even though it is in several cells:
+        assertEquals(3, grid.query(new Rectangle2D(-100, -100, 1000, 1000)).size());
+
+        // Moving and removing:
+        grid.put("a", new Rectangle2D(505, 505, 5, 5));
+        assertEquals(Arrays.asList("a"), grid.query(new Rectangle2D(500, 500, 10, 10)));
+        assertEquals(set("c"), new HashSet<>(grid.query(new Rectangle2D(0, -30, 50, 50))));
+        grid.remove("c");
+        assertTrue(grid.query(new Rectangle2D(0, -30, 50, 50)).isEmpty());
+        assertNull(grid.getBounds("c"));
+        assertEquals(2, grid.size());
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertTrue(grid.query(new Rectangle2D(-100, -100, 1000, 1000)).isEmpty());
+    }
+
+    public void testMatchesLinearSearch()
+    {
+        Random random = new Random(42);
+        SpatialGrid<String> grid = new SpatialGrid<>(64);
+        // Items are compared by identity, so we must use the same objects each time:
+        String[] items = new String[200];
+        Rectangle2D[] bounds = new Rectangle2D[items.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            items[i] = "item" + i;
+            bounds[i] = randomRect(random);
+            grid.put(items[i], bounds[i]);
+        }
+        // Move some:
+        for (int i = 0; i < items.length; i += 3)
+        {
+            bounds[i] = randomRect(random);
+            grid.put(items[i], bounds[i]);
+        }
+
+        for (int q = 0; q < 100; q++)
+        {
+            Rectangle2D area = randomRect(random);
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < items.length; i++)
+            {
+                if (bounds[i].intersects(area))
+                {
+                    expected.add(items[i]);
+                }
+            }
+            List<String> found = grid.query(area);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    private static Rectangle2D randomRect(Random random)
+    {
+        return new Rectangle2D(random.nextInt(2000) - 200, random.nextInt(2000) - 200,
+                1 + random.nextInt(300), 1 + random.nextInt(300));
+    }
+
+    private static Set<String> set(String... items)
+    {
+        return new HashSet<>(Arrays.asList(items));
+    }
+}
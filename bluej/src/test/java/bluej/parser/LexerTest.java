@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2009,2010,2011,2012,2014,2016,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2009,2010,2011,2012,2014,2016,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,10 +21,12 @@
  */
 package bluej.parser;
 
+import bluej.parser.lexer.JavaLexer;
 import bluej.parser.lexer.JavaTokenFilter;
 import bluej.parser.lexer.JavaTokenTypes;
 import bluej.parser.lexer.LineColPos;
 import bluej.parser.lexer.LocatableToken;
+import bluej.parser.lexer.TokenBuffer;
 import com.google.common.collect.LinkedListMultimap;
 
 import java.io.StringReader;
@@ -1058,4 +1060,70 @@ public class LexerTest extends junit.framework.TestCase
             }
         }
     }
+    
+    /**
+     * Check that lexing directly from a CharSequence gives the same tokens as lexing
+     * from a Reader, including for unicode escapes and hyphenated keywords.
+     */
+    public void testSourceLexer()
+    {
+        String [] sources = {
+                "class A extends B { int x = 0x1F + 1.5e3f; }",
+                "a\\u0062c \\\\u0041 \\u00zz \\uuuu0041bc x\\",
+                "non-sealed-pipe a-b non-sealed non-x",
+                "\"abc\\u0022 + \"\"\" \n text \"\"\" '\\u0041' \"broken\n x",
+                "/* \\u002a/ */ // comment\r\n a\\u000ab"
+        };
+        
+        for (String source : sources) {
+            for (boolean whitespace : new boolean[] {false, true}) {
+                JavaLexer readerLexer = new JavaLexer(new StringReader(source));
+                readerLexer.setGenerateWhitespaceTokens(whitespace);
+                JavaLexer sourceLexer = new JavaLexer(source);
+                sourceLexer.setGenerateWhitespaceTokens(whitespace);
+                
+                LocatableToken expected;
+                do {
+                    expected = readerLexer.nextToken();
+                    LocatableToken actual = sourceLexer.nextToken();
+                    assertEquals(source, expected.getType(), actual.getType());
+                    assertEquals(source, expected.getText(), actual.getText());
+                    assertEquals(source, expected.getLine(), actual.getLine());
+                    assertEquals(source, expected.getColumn(), actual.getColumn());
+                    assertEquals(source, expected.getEndLine(), actual.getEndLine());
+                    assertEquals(source, expected.getEndColumn(), actual.getEndColumn());
+                    assertEquals(source, expected.getPosition(), actual.getPosition());
+                    assertEquals(source, expected.getLength(), actual.getLength());
+                }
+                while (expected.getType() != JavaTokenTypes.EOF);
+            }
+        }
+    }
+    
+    public void testScanIntoBuffer()
+    {
+        String source = "int \\u0061b = c-d; // done";
+        TokenBuffer buffer = new TokenBuffer(2);
+        new JavaLexer(source).scanInto(buffer);
+        
+        int [] types = {JavaTokenTypes.LITERAL_int, JavaTokenTypes.IDENT, JavaTokenTypes.ASSIGN,
+                JavaTokenTypes.IDENT, JavaTokenTypes.MINUS, JavaTokenTypes.IDENT, JavaTokenTypes.SEMI,
+                JavaTokenTypes.SL_COMMENT};
+        String [] texts = {"int", "ab", "=", "c", "-", "d", ";", "// done"};
+        assertEquals(types.length, buffer.size());
+        for (int i = 0; i < types.length; i++) {
+            assertEquals(types[i], buffer.getType(i));
+            assertEquals(texts[i], buffer.getText(i));
+        }
+        // The escaped identifier is longer in the source than its text:
+        assertEquals(4, buffer.getOffset(1));
+        assertEquals(7, buffer.getLength(1));
+        assertEquals(source.length(), buffer.getOffset(7) + buffer.getLength(7));
+        
+        // The buffer is re-used:
+        new JavaLexer("x y", 2, 3, 1, 3).scanInto(buffer);
+        assertEquals(1, buffer.size());
+        assertEquals("y", buffer.getText(0));
+        assertEquals(2, buffer.getOffset(0));
+    }
 }
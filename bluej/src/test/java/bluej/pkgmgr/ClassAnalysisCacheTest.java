@@ -0,0 +1,125 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import bluej.parser.symtab.ClassInfo;
+import bluej.parser.symtab.Selection;
+import bluej.pkgmgr.ClassAnalysisCache.Analysis;
+import junit.framework.TestCase;
+
+public class ClassAnalysisCacheTest extends TestCase
+{
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("analysis").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private File write(String className, String content) throws IOException
+    {
+        File file = new File(dir, className + ".java");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    public void testRecordAndLookup() throws IOException
+    {
+        File a = write("A", "abstract class A<T> extends Base implements Runnable { B b; }");
+        File b = write("B", "class B { }");
+        String namesHash = ClassAnalysisCache.hashNames(Arrays.asList("A", "B", "Base"));
+
+        ClassInfo info = new ClassInfo();
+        info.setName("A", false);
+        info.setSuperclass("Base");
+        info.addImplements("java.lang.Runnable");
+        info.addUsed("B");
+        info.setAbstract(true);
+        info.setTypeParametersSelection(new Selection(1, 17, 3));
+        info.addTypeParameterText("T");
+
+        ClassAnalysisCache cache = new ClassAnalysisCache(dir);
+        cache.record("A", a, info, namesHash);
+        cache.record("B", b, null, namesHash);
+        cache.save(Arrays.asList("A", "B"));
+        assertTrue(new File(dir, ClassAnalysisCache.FILE_NAME).exists());
+
+        // Read it back:
+        Map<String, File> sources = new HashMap<>();
+        sources.put("A", a);
+        sources.put("B", b);
+        Map<String, Analysis> found = new ClassAnalysisCache(dir).lookup(sources);
+        assertEquals(1, found.size());
+        Analysis analysis = found.get("A");
+        assertTrue(analysis.isAbstract());
+        assertFalse(analysis.isInterface());
+        assertFalse(analysis.isUnitTest());
+        assertEquals("", analysis.getPackage());
+        assertEquals("Base", analysis.getSuperclass());
+        assertEquals(Arrays.asList("java.lang.Runnable"), analysis.getImplements());
+        assertEquals(Arrays.asList("B"), analysis.getUsed());
+        assertTrue(analysis.getPermits().isEmpty());
+        assertEquals("<T>", analysis.getTypeParameters());
+        assertTrue(analysis.isCurrentFor(ClassAnalysisCache.hashNames(Arrays.asList("Base", "B", "A"))));
+        assertFalse(analysis.isCurrentFor(ClassAnalysisCache.hashNames(Arrays.asList("A", "B"))));
+
+        // Once the source changes, the entry is no longer used:
+        write("A", "class A { }");
+        assertTrue(new ClassAnalysisCache(dir).lookup(sources).isEmpty());
+    }
+
+    public void testRemovedClassesDropped() throws IOException
+    {
+        File a = write("A", "interface A { }");
+        ClassInfo info = new ClassInfo();
+        info.setName("A", false);
+        info.setInterface(true);
+
+        ClassAnalysisCache cache = new ClassAnalysisCache(dir);
+        cache.record("A", a, info, "");
+        cache.save(Arrays.asList("A"));
+        cache.save(Arrays.asList("Other"));
+
+        Map<String, File> sources = new HashMap<>();
+        sources.put("A", a);
+        assertTrue(new ClassAnalysisCache(dir).lookup(sources).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import bluej.pkgmgr.ProjectSearch.FileMatches;
+import bluej.pkgmgr.ProjectSearch.LineMatch;
+import bluej.pkgmgr.ProjectSearch.SourceFile;
+import junit.framework.TestCase;
+
+public class ProjectSearchTest extends TestCase
+{
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("search").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private SourceFile write(String className, String content) throws IOException
+    {
+        File file = new File(dir, className + ".java");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new SourceFile(className, file, StandardCharsets.UTF_8);
+    }
+
+    public void testSearch() throws IOException
+    {
+        ProjectSearch search = new ProjectSearch();
+        List<SourceFile> files = Arrays.asList(
+                write("A", "class A\n{\n    int count;\n    void inc() { count++; }\n}\n"),
+                write("B", "class B\r\n{\r\n    String name;\r\n}\r\n"),
+                write("C", "class C { int Count; }"));
+
+        List<FileMatches> found = search.search(files, "count", false);
+        assertEquals(1, found.size());
+        assertEquals("A", found.get(0).getSourceFile().getClassName());
+        List<LineMatch> matches = found.get(0).getMatches();
+        assertEquals(2, matches.size());
+        assertEquals(3, matches.get(0).getLineNumber());
+        assertEquals(9, matches.get(0).getColumn());
+        assertEquals("    int count;", matches.get(0).getLineText());
+        assertEquals(4, matches.get(1).getLineNumber());
+        assertEquals(18, matches.get(1).getColumn());
+
+        found = search.search(files, "COUNT", true);
+        assertEquals(2, found.size());
+        assertEquals("C", found.get(1).getSourceFile().getClassName());
+        assertEquals(15, found.get(1).getMatches().get(0).getColumn());
+
+        found = search.search(files, "name", false);
+        assertEquals(1, found.size());
+        assertEquals("    String name;", found.get(0).getMatches().get(0).getLineText());
+
+        assertTrue(search.search(files, "nothing", true).isEmpty());
+        // Shorter than a trigram:
+        assertEquals(3, search.search(files, "{", false).size());
+    }
+
+    public void testChangedFile() throws IOException
+    {
+        ProjectSearch search = new ProjectSearch();
+        SourceFile a = write("A", "class A { }");
+        List<SourceFile> files = Arrays.asList(a);
+        assertTrue(search.search(files, "field", false).isEmpty());
+
+        // Make sure the modification is seen even if the time stamp doesn't change:
+        write("A", "class A { int field; }");
+        assertEquals(1, search.search(files, "field", false).size());
+
+        new File(dir, "A.java").delete();
+        assertTrue(search.search(files, "field", false).isEmpty());
+    }
+}
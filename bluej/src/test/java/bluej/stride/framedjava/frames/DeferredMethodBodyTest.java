@@ -0,0 +1,217 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.framedjava.frames;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import bluej.JavaFXThreadingRule;
+import bluej.stride.framedjava.ast.ExpressionSlotFragment;
+import bluej.stride.framedjava.ast.Parser;
+import bluej.stride.framedjava.elements.ClassElement;
+import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.elements.MethodWithBodyElement;
+import bluej.stride.framedjava.errors.SyntaxCodeError;
+import bluej.stride.generic.Frame;
+import bluej.stride.generic.FrameCanvas;
+import bluej.stride.generic.FrameCursor;
+import bluej.stride.generic.InteractionManager;
+import bluej.utility.javafx.FXRunnable;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the deferred creation of method body frames in large classes
+ * (see MethodFrameWithBody.deferContents).
+ */
+public class DeferredMethodBodyTest
+{
+    @Rule
+    public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    /**
+     * Makes a class with the given number of methods, each with a few statements.
+     */
+    private static ClassElement makeClass(int methods)
+    {
+        StringBuilder java = new StringBuilder("public class Big {\n");
+        for (int i = 0; i < methods; i++)
+        {
+            java.append("public int method").append(i).append("(int x) {\n")
+                .append("  int y = x * ").append(i).append(";\n")
+                .append("  if (y > 10) {\n    y = y - 1;\n  }\n")
+                .append("  return y + ").append(i).append(";\n}\n");
+        }
+        java.append("}\n");
+        return (ClassElement)Parser.javaToStride(java.toString(), Parser.JavaContext.TOP_LEVEL, true).getElements().get(0);
+    }
+
+    /**
+     * Makes an editor which does nothing, apart from running actions passed to runAsLoading.
+     */
+    private static InteractionManager makeEditor()
+    {
+        return (InteractionManager)Proxy.newProxyInstance(InteractionManager.class.getClassLoader(),
+            new Class<?>[] {InteractionManager.class}, (proxy, method, args) -> {
+                switch (method.getName())
+                {
+                    case "runAsLoading":
+                        ((FXRunnable)args[0]).run();
+                        return null;
+                    case "getObservableScroll":
+                    case "getObservableViewportHeight":
+                        return new SimpleDoubleProperty(0);
+                    case "viewProperty":
+                        return new SimpleObjectProperty<>(Frame.View.NORMAL);
+                    case "getFontCSS":
+                    case "nameProperty":
+                        return new SimpleStringProperty("");
+                    case "cheatSheetShowingProperty":
+                        return new SimpleBooleanProperty(false);
+                    case "createCursor":
+                        return new FrameCursor((InteractionManager)proxy, (FrameCanvas)args[0]);
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                }
+                Class<?> type = method.getReturnType();
+                if (type == boolean.class)
+                    return false;
+                else if (type == int.class)
+                    return 0;
+                else if (type == double.class)
+                    return 0.0;
+                return null;
+            });
+    }
+
+    private static List<MethodFrameWithBody<?>> getMethodFrames(ClassFrame classFrame)
+    {
+        return classFrame.getMethodsCanvas().getBlocksSubtype(MethodFrameWithBody.class).stream()
+            .map(f -> (MethodFrameWithBody<?>)f)
+            .collect(Collectors.toList());
+    }
+
+    private static String toXML(CodeElement element)
+    {
+        return element.toXML().toXML();
+    }
+
+    @Test
+    public void testSmallClassIsNotDeferred()
+    {
+        ClassFrame frame = makeClass(3).createFrame(makeEditor());
+        for (MethodFrameWithBody<?> method : getMethodFrames(frame))
+        {
+            assertFalse(method.isContentsDeferred());
+        }
+    }
+
+    @Test
+    public void testLargeClassDefersBodies()
+    {
+        ClassElement element = makeClass(60);
+        ClassFrame frame = element.createFrame(makeEditor());
+        List<MethodFrameWithBody<?>> methods = getMethodFrames(frame);
+        assertEquals(60, methods.size());
+        for (MethodFrameWithBody<?> method : methods)
+        {
+            assertTrue(method.isContentsDeferred());
+        }
+
+        // The code can be generated without creating the frames:
+        frame.regenerateCode();
+        ClassElement regenerated = frame.getCode();
+        assertEquals(element.toJavaSource().toDiskJavaCodeString(), regenerated.toJavaSource().toDiskJavaCodeString());
+        assertEquals(toXML(element), toXML(regenerated));
+        for (MethodFrameWithBody<?> method : methods)
+        {
+            assertTrue(method.isContentsDeferred());
+        }
+    }
+
+    @Test
+    public void testCreatedFramesMatchEagerLoad()
+    {
+        ClassElement element = makeClass(60);
+        ClassFrame frame = element.createFrame(makeEditor());
+        List<MethodFrameWithBody<?>> deferred = getMethodFrames(frame);
+        deferred.forEach(MethodFrameWithBody::createDeferredFrames);
+
+        // Compare with creating the method frames straight away:
+        InteractionManager editor = makeEditor();
+        List<String> eager = makeClass(60).getMethods().stream()
+            .map(e -> (MethodFrameWithBody<?>)((MethodWithBodyElement)e).createFrame(editor, false))
+            .map(f -> {
+                assertFalse(f.isContentsDeferred());
+                f.regenerateCode();
+                return toXML(f.getCode());
+            })
+            .collect(Collectors.toList());
+
+        assertEquals(60, eager.size());
+        for (int i = 0; i < deferred.size(); i++)
+        {
+            MethodFrameWithBody<?> method = deferred.get(i);
+            assertFalse(method.isContentsDeferred());
+            assertEquals(3, method.getMembersFrames().size());
+            method.regenerateCode();
+            assertEquals(eager.get(i), toXML(method.getCode()));
+        }
+    }
+
+    @Test
+    public void testErrorCreatesDeferredFrames()
+    {
+        ClassElement element = makeClass(60);
+        ClassFrame frame = element.createFrame(makeEditor());
+        MethodFrameWithBody<?> method = getMethodFrames(frame).get(5);
+        assertTrue(method.isContentsDeferred());
+
+        // Find the expression in the return statement of the method body, as compile error display does:
+        frame.regenerateCode();
+        ExpressionSlotFragment expression = frame.getCode().toJavaSource().getAllFragments()
+            .filter(f -> f instanceof ExpressionSlotFragment && ((ExpressionSlotFragment)f).getContent().equals("y + 5"))
+            .map(f -> (ExpressionSlotFragment)f)
+            .findFirst().get();
+        assertEquals(null, expression.getSlot());
+
+        // Making the error adds it to the fragment:
+        new SyntaxCodeError(expression, "Test error");
+        assertFalse(method.isContentsDeferred());
+        assertNotNull(expression.getSlot());
+        assertEquals(1, expression.getSlot().getCurrentErrors().count());
+        // Other methods are still deferred:
+        assertTrue(getMethodFrames(frame).get(6).isContentsDeferred());
+    }
+}
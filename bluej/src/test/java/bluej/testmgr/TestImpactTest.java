@@ -0,0 +1,67 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.testmgr;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class TestImpactTest extends TestCase
+{
+    public void testNeverRun()
+    {
+        TestImpact impact = new TestImpact();
+        assertTrue(impact.isAffected("CalcTest"));
+        assertFalse(impact.hasFailed("CalcTest"));
+    }
+
+    public void testRecompiledClasses()
+    {
+        TestImpact impact = new TestImpact();
+        impact.classCompiled("Calc");
+        impact.classCompiled("Other");
+        impact.recordRun("CalcTest", Arrays.asList("Calc", "CalcTest"), impact.getCompilation(), true);
+        assertFalse(impact.isAffected("CalcTest"));
+
+        impact.classCompiled("Other");
+        assertFalse(impact.isAffected("CalcTest"));
+        impact.classCompiled("Calc");
+        assertTrue(impact.isAffected("CalcTest"));
+    }
+
+    public void testCompiledDuringRun()
+    {
+        TestImpact impact = new TestImpact();
+        long compilation = impact.getCompilation();
+        impact.classCompiled("Calc");
+        impact.recordRun("CalcTest", Arrays.asList("Calc", "CalcTest"), compilation, true);
+        assertTrue(impact.isAffected("CalcTest"));
+    }
+
+    public void testFailed()
+    {
+        TestImpact impact = new TestImpact();
+        impact.recordRun("CalcTest", Arrays.asList("Calc", "CalcTest"), impact.getCompilation(), false);
+        assertTrue(impact.isAffected("CalcTest"));
+        assertTrue(impact.hasFailed("CalcTest"));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.testmgr;
+
+import java.util.Random;
+
+import bluej.debugger.DebuggerTestResult;
+import bluej.runtime.TestWorkerServer;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the line protocol between TestWorkerServer and TestWorkerVM.
+ */
+public class TestWorkerVMTest extends TestCase
+{
+    private static final String AWKWARD = "a\tb\nc\r\nd\\e\\tf\\\\n\\";
+
+    public void testEscapeRoundTrip()
+    {
+        for (String s : new String[] {"", "plain", "\t", "\n", "\\", "\\t", "\\\\", AWKWARD})
+        {
+            assertRoundTrip(s);
+        }
+
+        String chars = "ab\t\n\r\\ tn";
+        Random r = new Random(1);
+        for (int i = 0; i < 1000; i++)
+        {
+            StringBuilder s = new StringBuilder();
+            for (int j = r.nextInt(20); j > 0; j--)
+            {
+                s.append(chars.charAt(r.nextInt(chars.length())));
+            }
+            assertRoundTrip(s.toString());
+        }
+    }
+
+    private static void assertRoundTrip(String s)
+    {
+        String escaped = TestWorkerServer.escape(s);
+        assertEquals(-1, escaped.indexOf('\t'));
+        assertEquals(-1, escaped.indexOf('\n'));
+        assertEquals(-1, escaped.indexOf('\r'));
+        assertEquals(s, TestWorkerServer.unescape(escaped));
+    }
+
+    public void testDecodeSuccess()
+    {
+        DebuggerTestResult result = decode(TestWorkerServer.resultLine("testAdd", "add works", "", "", "", "", "", "0", "success"));
+        assertTrue(result.isSuccess());
+        assertEquals("CalcTest", result.getQualifiedClassName());
+        assertEquals("testAdd", result.getMethodName());
+        assertEquals("add works", result.getDisplayName());
+    }
+
+    public void testDecodeFailure()
+    {
+        String trace = "junit.framework.AssertionFailedError: expected:<1>\n\tat CalcTest.testAdd(CalcTest.java:12)";
+        DebuggerTestResult result = decode(TestWorkerServer.resultLine("testAdd", "", AWKWARD, trace,
+                "CalcTest", "CalcTest.java", "testAdd", "12", "failure"));
+        assertTrue(result.isFailure());
+        assertEquals(AWKWARD, result.getExceptionMessage());
+        assertEquals(trace, result.getTrace());
+        assertEquals(12, result.getExceptionLocation().getLineNumber());
+        assertEquals("CalcTest.java", result.getExceptionLocation().getFileName());
+    }
+
+    public void testDecodeError()
+    {
+        DebuggerTestResult result = decode(TestWorkerServer.resultLine("CalcTest", "", "null", "java.lang.NullPointerException\n\tat Calc.add(Calc.java:5)",
+                "", "", "", "0", "error"));
+        assertTrue(result.isError());
+        assertEquals("java.lang.NullPointerException\n\tat Calc.add(Calc.java:5)", result.getTrace());
+    }
+
+    public void testDecodeWrongFieldCount()
+    {
+        assertNull(decode(TestWorkerServer.RESULT + "\ttestAdd\t\tsuccess"));
+        assertNull(decode(TestWorkerServer.resultLine("testAdd", "", "", "", "", "", "", "0", "success") + "\textra"));
+    }
+
+    private static DebuggerTestResult decode(String line)
+    {
+        String[] fields = line.split("\t", -1);
+        assertEquals(TestWorkerServer.RESULT, fields[0]);
+        return TestWorkerVM.decodeResult("CalcTest", fields);
+    }
+}
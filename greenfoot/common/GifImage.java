@@ -1,10 +1,14 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This class can be used to read animated gif image files and extract the individual
@@ -13,10 +17,16 @@ import java.util.ArrayList;
  * @author Michael Berry
  * @author Neil Brown
  * 
- * Copyright (c) 2011,2013,2014,2018,2021
+ * Copyright (c) 2011,2013,2014,2018,2021,2026
  */
 public class GifImage
 {
+    /**
+     * The decoded frames of each GIF file which has been loaded, by the URL of the file.
+     * The frames are only held softly, so they can be discarded if memory runs short.
+     */
+    private static final Map<String, SoftReference<GifFrames>> decodedFiles = new HashMap<String, SoftReference<GifFrames>>();
+    
     /** The images used in the animation. */
     private GreenfootImage[] images;
     /** The delay between each frame. */
@@ -121,842 +131,483 @@ public class GifImage
      */
     private void loadImages(String file)
     {
-        GifDecoder decode = new GifDecoder();
-        decode.read(file);
-        int numFrames = decode.getFrameCount();
-        if(numFrames>0) {
+        GifFrames frames = getFrames(file);
+        int numFrames = frames.pixels.length;
+        if (numFrames > 0) {
             images = new GreenfootImage[numFrames];
-            delay = new int[numFrames];
+            for (int i = 0; i < numFrames; i++) {
+                images[i] = new GreenfootImage(frames.width, frames.height);
+                images[i].setPixels(0, 0, frames.width, frames.height, frames.pixels[i], 0, frames.width);
+            }
+            delay = frames.delays.clone();
         }
         else {
-            images = new GreenfootImage[1];
-            images[0] = new GreenfootImage(1, 1);
+            images = new GreenfootImage[] {new GreenfootImage(1, 1)};
+            delay = new int[] {1000};
         }
+        time = System.currentTimeMillis();
+    }
 
-        for (int i=0 ; i<numFrames ; i++) {
-            GreenfootImage image = new GreenfootImage(decode.getFrame(i).getWidth(), decode.getFrame(i).getHeight());
-            image.drawImage(decode.getFrame(i), 0, 0);
-            delay[i] = decode.getDelay(i);
-            images[i] = image;
+    /**
+     * Get the decoded frames of a GIF file.  Each file is only decoded once, unless
+     * it changes: the frames are shared by all the GifImages which load it.
+     */
+    private static GifFrames getFrames(String file)
+    {
+        URL url = GifImage.class.getResource(file);
+        if (url == null) {
+            file = "images/" + file;
+            url = GifImage.class.getResource(file);
+            if (url == null) {
+                throw new RuntimeException("The gif file \"" + file + "\" doesn't exist.");
+            }
+        }
+        
+        try {
+            URLConnection connection = url.openConnection();
+            long lastModified = connection.getLastModified();
+            String key = url.toString();
+            synchronized (decodedFiles) {
+                // Forget any files whose frames have been discarded:
+                decodedFiles.values().removeIf(r -> r.get() == null);
+                SoftReference<GifFrames> ref = decodedFiles.get(key);
+                GifFrames frames = (ref == null) ? null : ref.get();
+                if (frames != null && frames.lastModified == lastModified) {
+                    // Finding the modification time may have opened the file:
+                    connection.getInputStream().close();
+                    return frames;
+                }
+            }
+            
+            byte[] data;
+            InputStream in = connection.getInputStream();
+            try {
+                data = in.readAllBytes();
+            }
+            finally {
+                in.close();
+            }
+            GifFrames frames = new GifDecoder(data).decode(lastModified);
+            synchronized (decodedFiles) {
+                decodedFiles.put(key, new SoftReference<GifFrames>(frames));
+            }
+            return frames;
+        }
+        catch (IOException e) {
+            throw new RuntimeException("The gif file \"" + file + "\" could not be read.", e);
         }
-        time = System.currentTimeMillis();
     }
 
     /**
-     * The Rectangle class represents rectangles. This is essentially a re-implementation
-     * of the java.awt.Rectangle class, created in order to avoid any dependency on AWT.
+     * The decoded frames of a GIF file.  These are not changed once decoded.
      */
-    private static class Rectangle
+    private static class GifFrames
     {
-        public int x;
-        public int y;
-        public int width;
-        public int height;
+        /** The size of every frame. */
+        final int width;
+        final int height;
+        /** The colour of each pixel of each frame, as ARGB, row by row. */
+        final int[][] pixels;
+        /** The time to show each frame for, in milliseconds. */
+        final int[] delays;
+        /** The modification time of the file which was decoded. */
+        final long lastModified;
         
-        public Rectangle(int x, int y, int width, int height)
+        GifFrames(int width, int height, int[][] pixels, int[] delays, long lastModified)
         {
-            this.x = x;
-            this.y = y;
             this.width = width;
             this.height = height;
+            this.pixels = pixels;
+            this.delays = delays;
+            this.lastModified = lastModified;
         }
     }
-    
+
     /**
-     * Class GifDecoder - Decodes a GIF file into one or more frames. <br><br>
-     * 
-     * <i>I (Michael) edited this slightly on 10/09/08 to bring class up to date with generics and therefore remove warnings.
-     * Also edited so that resources are grabbed from the jar file and not externally, so no security exceptions.</i>
-     * <br><br>
-     * <pre>
-     *  Example:
-     *     GifDecoder d = new GifDecoder();
-     *     d.read(&quot;sample.gif&quot;);
-     *     int n = d.getFrameCount();
-     *     for (int i = 0; i &lt; n; i++) {
-     *        BufferedImage frame = d.getFrame(i);  // frame i
-     *        int t = d.getDelay(i);  // display duration of frame in milliseconds
-     *        // do something with frame
-     *     }
-     * </pre>
-     * 
-     * No copyright asserted on the source code of this class. May be used for any
-     * purpose, however, refer to the Unisys LZW patent for any additional
-     * restrictions. Please forward any corrections to kweiner@fmsware.com.
-     * 
-     * @author Kevin Weiner, FM Software; LZW decoder adapted from John Cristy's
-     *         ImageMagick.
-     * @version 1.03 November 2003
+     * Decodes a GIF file into its frames.  The file is first read through to find the frames,
+     * then the LZW-compressed data of each frame is decompressed (in parallel, since each is
+     * independent of the others), and finally each frame is drawn over the previous ones,
+     * according to their disposal methods, to give the complete images of the animation.
      * 
+     * The LZW decoder is adapted from the GifDecoder by Kevin Weiner, FM Software, which
+     * was in turn adapted from John Cristy's ImageMagick.
      */
-    private class GifDecoder
+    private static class GifDecoder
     {
-        /**
-         * File read status: No errors.
-         */
-        public static final int STATUS_OK = 0;
-
-        /**
-         * File read status: Error decoding file (may be partially decoded)
-         */
-        public static final int STATUS_FORMAT_ERROR = 1;
-
-        /**
-         * File read status: Unable to open source.
-         */
-        public static final int STATUS_OPEN_ERROR = 2;
-
-        private BufferedInputStream in;
-
-        private int status;
-
-        private int width; // full image width
-
-        private int height; // full image height
-
-        private boolean gctFlag; // global color table used
-
-        private int gctSize; // size of global color table
-
-        private int loopCount = 1; // iterations; 0 = repeat forever
-
-        private int[] gct; // global color table
-
-        private int[] lct; // local color table
-
-        private int[] act; // active color table
-
-        private int bgIndex; // background color index
-
-        private Color bgColor; // background color
-
-        private Color lastBgColor; // previous bg color
-
-        private int pixelAspect; // pixel aspect ratio
-
-        private boolean lctFlag; // local color table flag
-
-        private boolean interlace; // interlace flag
-
-        private int lctSize; // local color table size
-
-        private int ix, iy, iw, ih; // current image rectangle
-
-        private Rectangle lastRect; // last image rect
-
-        private GreenfootImage image; // current frame
-
-        private GreenfootImage lastImage; // previous frame
-
-        private byte[] block = new byte[256]; // current data block
-
-        private int blockSize = 0; // block size
-
-        // last graphic control extension info
-        private int dispose = 0;
-
-        // 0=no action; 1=leave in place; 2=restore to bg; 3=restore to prev
-        private int lastDispose = 0;
-
-        private boolean transparency = false; // use transparent color
-
-        private int delay = 0; // delay in milliseconds
-
-        private int transIndex; // transparent color index
-
-        private static final int MaxStackSize = 4096;
-
-        // max decoder pixel stack size
-
-        // LZW decoder working arrays
-        private short[] prefix;
-
-        private byte[] suffix;
-
-        private byte[] pixelStack;
-
-        private byte[] pixels;
-
-        private ArrayList<GifFrame> frames; // frames read from current file
-
-        private int frameCount;
-
-        /**
-         * A single frame
-         */
-        private class GifFrame {
-            public GifFrame(GreenfootImage im, int del) {
-                image = im;
-                delay = del;
-            }
-
-            private GreenfootImage image;
-
-            private int delay;
-        }
-
-        /**
-         * Convert an RGB integer value to a Color.
-         */
-        private Color colorFromInt(int rgb)
-        {
-            int r = (rgb & 0xFF0000) >> 16;
-            int g = (rgb & 0xFF00) >> 8;
-            int b = (rgb & 0xFF);
-            return new Color(r,g,b);
-        }
+        private static final int MAX_CODES = 4096;
         
-        /**
-         * Gets display duration for specified frame.
-         * 
-         * @param n
-         *          int index of frame
-         * @return delay in milliseconds
-         */
-        public int getDelay(int n) {
-            //
-            delay = -1;
-            if ((n >= 0) && (n < frameCount)) {
-                delay = (frames.get(n)).delay;
-            }
-            return delay;
-        }
-
-        /**
-         * Gets the number of frames read from file.
-         * 
-         * @return frame count
-         */
-        public int getFrameCount() {
-            return frameCount;
-        }
-
-        /**
-         * Gets the first (or only) image read.
-         * 
-         * @return BufferedImage containing first frame, or null if none.
-         */
-        public GreenfootImage getImage() {
-            return getFrame(0);
-        }
-
-        /**
-         * Gets the "Netscape" iteration count, if any. A count of 0 means repeat
-         * indefinitiely.
-         * 
-         * @return iteration count if one was specified, else 1.
-         */
-        public int getLoopCount() {
-            return loopCount;
-        }
+        // Disposal methods, from the graphic control extension:
+        private static final int DISPOSE_LEAVE = 1;
+        private static final int DISPOSE_BACKGROUND = 2;
+        private static final int DISPOSE_PREVIOUS = 3;
+        // Like web browsers, we treat a frame delay of less than MIN_DELAY ms (which
+        // many GIFs use, often 0, meaning "as fast as possible") as DEFAULT_DELAY ms:
+        private static final int MIN_DELAY = 20;
+        private static final int DEFAULT_DELAY = 100;
+        
+        private final byte[] data;
+        private int pos;
+        // Set if we reach the end of the data unexpectedly, or find something invalid:
+        private boolean error;
+        
+        private int width;
+        private int height;
+        private int[] globalColors;
+        private final List<GifFrame> frames = new ArrayList<GifFrame>();
+        
+        // Graphic control extension values, which apply to the next image only:
+        private int dispose;
+        private int delay;
+        private int transparentIndex = -1;
 
         /**
-         * Creates new frame image from current data (and previous frames as specified
-         * by their disposition codes).
+         * A single frame, as found in the file.
          */
-        protected void setPixels() {
-            // fill in starting image contents based on last image's dispose code
-            if (lastDispose > 0) {
-                if (lastDispose == 3) {
-                    // use image before last
-                    int n = frameCount - 2;
-                    if (n > 0) {
-                        lastImage = getFrame(n - 1);
-                    } else {
-                        lastImage = null;
-                    }
+        private class GifFrame
+        {
+            int x, y, w, h;
+            boolean interlaced;
+            int[] colors;
+            int transparentIndex;
+            int dispose;
+            int delay;
+            // The position of the compressed data (starting with the minimum code size),
+            // and the position just after it:
+            int dataStart;
+            int dataEnd;
+            // The colour index of each pixel, once decompressed:
+            byte[] indices;
+            
+            /**
+             * Decompress the LZW-encoded image data into the colour indices.
+             */
+            void decompress()
+            {
+                int npix = w * h;
+                indices = new byte[npix];
+                int p = dataStart;
+                int dataSize = data[p++] & 0xff;
+                if (dataSize > 11) {
+                    return;
                 }
-
-                if (lastImage != null) {
-                    image.clear();
-                    image.drawImage(lastImage, 0, 0);
-                    
-                    // copy pixels
-
-                    if (lastDispose == 2) {
-                        // fill last image rect area with background color
-                        Color c = null;
-                        if (transparency) {
-                            c = new Color(0, 0, 0, 0); // assume background is transparent
-                        } else {
-                            c = lastBgColor; // use given background color
-                        }
-                        for (int x = 0; x < lastRect.width; x++)
-                        {
-                            for (int y = 0; y < lastRect.height; y++)
-                            {
-                                image.setColorAt(lastRect.x + x, lastRect.y + y, c);
+                int clear = 1 << dataSize;
+                int endOfInformation = clear + 1;
+                int available = clear + 2;
+                int oldCode = -1;
+                int codeSize = dataSize + 1;
+                int codeMask = (1 << codeSize) - 1;
+                short[] prefix = new short[MAX_CODES];
+                byte[] suffix = new byte[MAX_CODES];
+                byte[] pixelStack = new byte[MAX_CODES + 1];
+                for (int code = 0; code < clear; code++) {
+                    suffix[code] = (byte) code;
+                }
+                
+                int datum = 0, bits = 0, blockRemaining = 0, first = 0, top = 0, pi = 0;
+                decode:
+                while (pi < npix) {
+                    if (top == 0) {
+                        // Load bytes until there are enough bits for a code:
+                        while (bits < codeSize) {
+                            if (blockRemaining == 0) {
+                                if (p >= dataEnd) {
+                                    break decode;
+                                }
+                                blockRemaining = data[p++] & 0xff;
+                                if (blockRemaining == 0) {
+                                    break decode;
+                                }
+                            }
+                            if (p >= dataEnd) {
+                                break decode;
                             }
+                            datum |= (data[p++] & 0xff) << bits;
+                            bits += 8;
+                            blockRemaining--;
                         }
-                    }
-                }
-            }
-
-            // copy each source line to the appropriate place in the destination
-            int pass = 1;
-            int inc = 8;
-            int iline = 0;
-            for (int i = 0; i < ih; i++) {
-                int line = i;
-                if (interlace) {
-                    if (iline >= ih) {
-                        pass++;
-                        switch (pass) {
-                        case 2:
-                            iline = 4;
-                            break;
-                        case 3:
-                            iline = 2;
-                            inc = 4;
+                        int code = datum & codeMask;
+                        datum >>= codeSize;
+                        bits -= codeSize;
+                        
+                        if (code > available || code == endOfInformation) {
                             break;
-                        case 4:
-                            iline = 1;
-                            inc = 2;
-                        }
-                    }
-                    line = iline;
-                    iline += inc;
-                }
-                line += iy;
-                if (line < height) {
-                    int k = line * width;
-                    int dlim = Math.min(ix + iw, width);
-                    int sx = i * iw;
-                    
-                    for (int dx = ix; dx < dlim; dx++) {
-                        int index = ((int) pixels[sx++]) & 0xff;
-                        int c = act[index];
-                        if (c != 0) {
-                            image.setColorAt(dx, line, colorFromInt(c));
-                        }
-                    }
-                }
-            }
-        }
-
-        /**
-         * Gets the image contents of frame n.
-         * 
-         * @return BufferedImage representation of frame, or null if n is invalid.
-         */
-        public GreenfootImage getFrame(int n) {
-            GreenfootImage im = null;
-            if ((n >= 0) && (n < frameCount)) {
-                im = ((GifFrame) frames.get(n)).image;
-            }
-            return im;
-        }
-
-        /**
-         * Gets image size.
-         * 
-         * @return GIF image dimensions as an array - [0] = width, [1] = height
-         */
-        public int[] getFrameSize() {
-            return new int[]{width, height};
-        }
-
-        /**
-         * Reads GIF image from stream
-         * 
-         * @param BufferedInputStream
-         *          containing GIF file.
-         * @return read status code (0 = no errors)
-         */
-        public int read(BufferedInputStream is) {
-            init();
-            if (is != null) {
-                in = is;
-                readHeader();
-                if (!err()) {
-                    readContents();
-                    if (frameCount < 0) {
-                        status = STATUS_FORMAT_ERROR;
-                    }
-                }
-            } else {
-                status = STATUS_OPEN_ERROR;
-            }
-            try {
-                is.close();
-            } catch (IOException e) {
-            }
-            return status;
-        }
-
-        /**
-         * Reads GIF image from stream
-         * 
-         * @param InputStream
-         *          containing GIF file.
-         * @return read status code (0 = no errors)
-         */
-        public int read(InputStream is) {
-            init();
-            if (is != null) {
-                if (!(is instanceof BufferedInputStream))
-                    is = new BufferedInputStream(is);
-                in = (BufferedInputStream) is;
-                readHeader();
-                if (!err()) {
-                    readContents();
-                    if (frameCount < 0) {
-                        status = STATUS_FORMAT_ERROR;
-                    }
-                }
-            } else {
-                status = STATUS_OPEN_ERROR;
-            }
-            try {
-                is.close();
-            } catch (IOException e) {
-            }
-            return status;
-        }
-
-        /**
-         * Reads GIF file from specified file/URL source (URL assumed if name contains
-         * ":/" or "file:")
-         * 
-         * @param name
-         *          String containing source
-         * @return read status code (0 = no errors)
-         */
-        public int read(String name) {
-            status = STATUS_OK;
-            InputStream resource = this.getClass().getResourceAsStream(name);
-            if (resource == null) {
-                name = "images/" + name;
-                resource = this.getClass().getResourceAsStream(name);
-                if (resource == null) {
-                    throw new RuntimeException("The gif file \"" + name + "\" doesn't exist.");
-                }
-            }
-            in = new BufferedInputStream(resource);
-            status = read(in);
-
-            return status;
-        }
-
-        /**
-         * Decodes LZW image data into pixel array. Adapted from John Cristy's
-         * ImageMagick.
-         */
-        protected void decodeImageData() {
-            int NullCode = -1;
-            int npix = iw * ih;
-            int available, clear, code_mask, code_size, end_of_information, in_code, old_code, bits, code, count, i, datum, data_size, first, top, bi, pi;
-
-            if ((pixels == null) || (pixels.length < npix)) {
-                pixels = new byte[npix]; // allocate new pixel array
-            }
-            if (prefix == null)
-                prefix = new short[MaxStackSize];
-            if (suffix == null)
-                suffix = new byte[MaxStackSize];
-            if (pixelStack == null)
-                pixelStack = new byte[MaxStackSize + 1];
-
-            // Initialize GIF data stream decoder.
-
-            data_size = read();
-            clear = 1 << data_size;
-            end_of_information = clear + 1;
-            available = clear + 2;
-            old_code = NullCode;
-            code_size = data_size + 1;
-            code_mask = (1 << code_size) - 1;
-            for (code = 0; code < clear; code++) {
-                prefix[code] = 0;
-                suffix[code] = (byte) code;
-            }
-
-            // Decode GIF pixel stream.
-
-            datum = bits = count = first = top = pi = bi = 0;
-
-            for (i = 0; i < npix;) {
-                if (top == 0) {
-                    if (bits < code_size) {
-                        // Load bytes until there are enough bits for a code.
-                        if (count == 0) {
-                            // Read a new data block.
-                            count = readBlock();
-                            if (count <= 0)
-                                break;
-                            bi = 0;
                         }
-                        datum += (((int) block[bi]) & 0xff) << bits;
-                        bits += 8;
-                        bi++;
-                        count--;
-                        continue;
-                    }
-
-                    // Get the next code.
-
-                    code = datum & code_mask;
-                    datum >>= code_size;
-                        bits -= code_size;
-
-                        // Interpret the code
-
-                        if ((code > available) || (code == end_of_information))
-                            break;
                         if (code == clear) {
-                            // Reset decoder.
-                            code_size = data_size + 1;
-                            code_mask = (1 << code_size) - 1;
+                            codeSize = dataSize + 1;
+                            codeMask = (1 << codeSize) - 1;
                             available = clear + 2;
-                            old_code = NullCode;
+                            oldCode = -1;
                             continue;
                         }
-                        if (old_code == NullCode) {
+                        if (oldCode == -1) {
                             pixelStack[top++] = suffix[code];
-                            old_code = code;
+                            oldCode = code;
                             first = code;
                             continue;
                         }
-                        in_code = code;
+                        int inCode = code;
                         if (code == available) {
                             pixelStack[top++] = (byte) first;
-                            code = old_code;
+                            code = oldCode;
                         }
                         while (code > clear) {
                             pixelStack[top++] = suffix[code];
                             code = prefix[code];
                         }
-                        first = ((int) suffix[code]) & 0xff;
-
-                        // Add a new string to the string table,
-
-                        if (available >= MaxStackSize)
+                        first = suffix[code] & 0xff;
+                        if (available >= MAX_CODES) {
                             break;
+                        }
                         pixelStack[top++] = (byte) first;
-                        prefix[available] = (short) old_code;
+                        prefix[available] = (short) oldCode;
                         suffix[available] = (byte) first;
                         available++;
-                        if (((available & code_mask) == 0) && (available < MaxStackSize)) {
-                            code_size++;
-                            code_mask += available;
+                        if ((available & codeMask) == 0 && available < MAX_CODES) {
+                            codeSize++;
+                            codeMask += available;
                         }
-                        old_code = in_code;
+                        oldCode = inCode;
+                    }
+                    top--;
+                    indices[pi++] = pixelStack[top];
                 }
-
-                // Pop a pixel off the pixel stack.
-
-                top--;
-                pixels[pi++] = pixelStack[top];
-                i++;
+                // Any missing pixels are left as index 0.
             }
-
-            for (i = pi; i < npix; i++) {
-                pixels[i] = 0; // clear missing pixels
+            
+            /**
+             * Draw this frame onto the canvas (which has the full size of the image).
+             * Transparent pixels leave the canvas as it was.
+             */
+            void drawOnto(int[] canvas)
+            {
+                if (! interlaced) {
+                    for (int row = 0; row < h; row++) {
+                        drawRow(canvas, row, row);
+                    }
+                }
+                else {
+                    // The rows are stored in four passes: every 8th row from row 0, then
+                    // every 8th from row 4, then every 4th from row 2, then every 2nd from row 1.
+                    int row = 0;
+                    int[][] passes = {{0, 8}, {4, 8}, {2, 4}, {1, 2}};
+                    for (int[] pass : passes) {
+                        for (int line = pass[0]; line < h; line += pass[1]) {
+                            drawRow(canvas, row++, line);
+                        }
+                    }
+                }
+            }
+            
+            private void drawRow(int[] canvas, int row, int line)
+            {
+                int destY = y + line;
+                if (destY >= height) {
+                    return;
+                }
+                int dest = destY * width + x;
+                int src = row * w;
+                int end = src + Math.min(w, width - x);
+                for (; src < end; src++, dest++) {
+                    int index = indices[src] & 0xff;
+                    if (index != transparentIndex) {
+                        canvas[dest] = colors[index];
+                    }
+                }
+            }
+            
+            /**
+             * Fill the area of this frame on the canvas with the given colour.
+             */
+            void fill(int[] canvas, int color)
+            {
+                int right = Math.min(x + w, width);
+                int bottom = Math.min(y + h, height);
+                for (int row = y; row < bottom && x < right; row++) {
+                    Arrays.fill(canvas, row * width + x, row * width + right, color);
+                }
             }
-
-        }
-
-        /**
-         * Returns true if an error was encountered during reading/decoding
-         */
-        protected boolean err() {
-            return status != STATUS_OK;
-        }
-
-        /**
-         * Initializes or re-initializes reader
-         */
-        protected void init() {
-            status = STATUS_OK;
-            frameCount = 0;
-            frames = new ArrayList<GifFrame>();
-            gct = null;
-            lct = null;
         }
 
-        /**
-         * Reads a single byte from the input stream.
-         */
-        protected int read() {
-            int curByte = 0;
-            try {
-                curByte = in.read();
-            } catch (IOException e) {
-                status = STATUS_FORMAT_ERROR;
-            }
-            return curByte;
+        GifDecoder(byte[] data)
+        {
+            this.data = data;
         }
 
         /**
-         * Reads next variable length block from input.
-         * 
-         * @return number of bytes stored in "buffer"
+         * Decode the frames.  If the file is not a valid GIF, or is truncated, the frames
+         * which could be read are returned.
          */
-        protected int readBlock() {
-            blockSize = read();
-            int n = 0;
-            if (blockSize > 0) {
-                try {
-                    int count = 0;
-                    while (n < blockSize) {
-                        count = in.read(block, n, blockSize - n);
-                        if (count == -1)
-                            break;
-                        n += count;
-                    }
-                } catch (IOException e) {
+        GifFrames decode(long lastModified)
+        {
+            readHeader();
+            readContents();
+            
+            frames.parallelStream().forEach(frame -> frame.decompress());
+            
+            int[][] pixels = new int[frames.size()][];
+            int[] delays = new int[frames.size()];
+            int[] canvas = new int[width * height];
+            int[] beforeFrame = null;
+            GifFrame previous = null;
+            for (int i = 0; i < frames.size(); i++) {
+                GifFrame frame = frames.get(i);
+                if (previous != null && previous.dispose == DISPOSE_BACKGROUND) {
+                    // Like web browsers, we ignore the background colour and make the area transparent:
+                    previous.fill(canvas, 0);
                 }
-
-                if (n < blockSize) {
-                    status = STATUS_FORMAT_ERROR;
+                else if (previous != null && previous.dispose == DISPOSE_PREVIOUS && beforeFrame != null) {
+                    System.arraycopy(beforeFrame, 0, canvas, 0, canvas.length);
                 }
+                if (frame.dispose == DISPOSE_PREVIOUS) {
+                    beforeFrame = canvas.clone();
+                }
+                frame.drawOnto(canvas);
+                pixels[i] = canvas.clone();
+                delays[i] = frame.delay;
+                previous = frame;
             }
-            return n;
+            return new GifFrames(width, height, pixels, delays, lastModified);
         }
 
         /**
-         * Reads color table as 256 RGB integer values
-         * 
-         * @param ncolors
-         *          int number of colors to read
-         * @return int array containing 256 colors (packed ARGB with full alpha)
+         * Read the header and logical screen descriptor.
          */
-        protected int[] readColorTable(int ncolors) {
-            int nbytes = 3 * ncolors;
-            int[] tab = null;
-            byte[] c = new byte[nbytes];
-            int n = 0;
-            try {
-                n = in.read(c);
-            } catch (IOException e) {
+        private void readHeader()
+        {
+            if (read() != 'G' || read() != 'I' || read() != 'F') {
+                error = true;
+                return;
             }
-            if (n < nbytes) {
-                status = STATUS_FORMAT_ERROR;
-            } else {
-                tab = new int[256]; // max size to avoid bounds checks
-                int i = 0;
-                int j = 0;
-                while (i < ncolors) {
-                    int r = ((int) c[j++]) & 0xff;
-                    int g = ((int) c[j++]) & 0xff;
-                    int b = ((int) c[j++]) & 0xff;
-                    tab[i++] = 0xff000000 | (r << 16) | (g << 8) | b;
-                }
+            pos += 3; // version
+            width = readShort();
+            height = readShort();
+            int packed = read();
+            read(); // background colour index
+            read(); // pixel aspect ratio
+            if ((packed & 0x80) != 0) {
+                globalColors = readColorTable(2 << (packed & 7));
             }
-            return tab;
         }
 
         /**
-         * Main file parser. Reads GIF content blocks.
+         * Read the blocks of the file, up to the terminator.
          */
-        protected void readContents() {
-            // read GIF file content blocks
-            boolean done = false;
-            while (!(done || err())) {
+        private void readContents()
+        {
+            while (! error) {
                 int code = read();
                 switch (code) {
-
                 case 0x2C: // image separator
                     readImage();
                     break;
-
                 case 0x21: // extension
-                    code = read();
-                    switch (code) {
-                    case 0xf9: // graphics control extension
+                    if (read() == 0xF9) {
                         readGraphicControlExt();
-                        break;
-
-                    case 0xff: // application extension
-                        readBlock();
-                        String app = "";
-                        for (int i = 0; i < 11; i++) {
-                            app += (char) block[i];
-                        }
-                        if (app.equals("NETSCAPE2.0")) {
-                            readNetscapeExt();
-                        } else
-                            skip(); // don't care
-                        break;
-
-                    default: // uninteresting extension
-                        skip();
+                    }
+                    else {
+                        skipBlocks();
                     }
                     break;
-
-                case 0x3b: // terminator
-                    done = true;
-                    break;
-
+                case 0x3B: // terminator
+                    return;
                 case 0x00: // bad byte, but keep going and see what happens
                     break;
-
                 default:
-                    status = STATUS_FORMAT_ERROR;
+                    error = true;
                 }
             }
         }
 
-        /**
-         * Reads Graphics Control Extension values
-         */
-        protected void readGraphicControlExt() {
+        private void readGraphicControlExt()
+        {
             read(); // block size
-            int packed = read(); // packed fields
-            dispose = (packed & 0x1c) >> 2; // disposal method
-            if (dispose == 0) {
-                dispose = 1; // elect to keep old image if discretionary
-            }
-            transparency = (packed & 1) != 0;
-            delay = readShort() * 10; // delay in milliseconds
-            transIndex = read(); // transparent color index
-            read(); // block terminator
-        }
-
-        /**
-         * Reads GIF file header information.
-         */
-        protected void readHeader() {
-            String id = "";
-            for (int i = 0; i < 6; i++) {
-                id += (char) read();
-            }
-            if (!id.startsWith("GIF")) {
-                status = STATUS_FORMAT_ERROR;
-                return;
-            }
-
-            readLSD();
-            if (gctFlag && !err()) {
-                gct = readColorTable(gctSize);
-                bgColor = colorFromInt(gct[bgIndex]);
-            }
+            int packed = read();
+            dispose = (packed & 0x1C) >> 2;
+            delay = readShort() * 10;
+            int index = read();
+            transparentIndex = (packed & 1) != 0 ? index : -1;
+            skipBlocks();
         }
 
         /**
-         * Reads next frame image
+         * Read an image descriptor, and find its compressed data (which is decompressed later).
          */
-        protected void readImage() {
-            ix = readShort(); // (sub)image position & size
-            iy = readShort();
-            iw = readShort();
-            ih = readShort();
-
+        private void readImage()
+        {
+            GifFrame frame = new GifFrame();
+            frame.x = readShort();
+            frame.y = readShort();
+            frame.w = readShort();
+            frame.h = readShort();
             int packed = read();
-            lctFlag = (packed & 0x80) != 0; // 1 - local color table flag
-            interlace = (packed & 0x40) != 0; // 2 - interlace flag
-            // 3 - sort flag
-            // 4-5 - reserved
-            lctSize = 2 << (packed & 7); // 6-8 - local color table size
-
-            if (lctFlag) {
-                lct = readColorTable(lctSize); // read table
-                act = lct; // make local table active
-            } else {
-                act = gct; // make global table active
-                if (bgIndex == transIndex)
-                    bgColor = colorFromInt(0);
+            frame.interlaced = (packed & 0x40) != 0;
+            frame.colors = (packed & 0x80) != 0 ? readColorTable(2 << (packed & 7)) : globalColors;
+            frame.transparentIndex = transparentIndex;
+            // A disposal method of 0 means no disposal is specified, so we leave the frame in place:
+            frame.dispose = dispose == 0 ? DISPOSE_LEAVE : dispose;
+            frame.delay = delay < MIN_DELAY ? DEFAULT_DELAY : delay;
+            frame.dataStart = pos;
+            read(); // minimum code size
+            skipBlocks();
+            frame.dataEnd = Math.min(pos, data.length);
+            if (frame.colors == null) {
+                error = true;
             }
-            int save = 0;
-            if (transparency) {
-                save = act[transIndex];
-                act[transIndex] = 0; // set transparent color if specified
+            else if (frame.dataStart < data.length) {
+                frames.add(frame);
             }
-
-            if (act == null) {
-                status = STATUS_FORMAT_ERROR; // no color table defined
-            }
-
-            if (err())
-                return;
-
-            decodeImageData(); // decode pixel data
-            skip();
-
-            if (err())
-                return;
-
-            frameCount++;
-
-            // create new image to receive frame data
-            image = new GreenfootImage(width, height);
-
-            setPixels(); // transfer pixel data to image
-
-            frames.add(new GifFrame(image, delay)); // add image to frame list
-
-            if (transparency) {
-                act[transIndex] = save;
-            }
-            resetFrame();
-
+            
+            dispose = 0;
+            delay = 0;
+            transparentIndex = -1;
         }
 
         /**
-         * Reads Logical Screen Descriptor
+         * Read a colour table, as ARGB values with full alpha.  The table always has 256 entries,
+         * so that any index can be looked up; the unused ones are transparent.
          */
-        protected void readLSD() {
-
-            // logical screen size
-            width = readShort();
-            height = readShort();
-
-            // packed fields
-            int packed = read();
-            gctFlag = (packed & 0x80) != 0; // 1 : global color table flag
-            // 2-4 : color resolution
-            // 5 : gct sort flag
-            gctSize = 2 << (packed & 7); // 6-8 : gct size
-
-            bgIndex = read(); // background color index
-            pixelAspect = read(); // pixel aspect ratio
+        private int[] readColorTable(int numColors)
+        {
+            int[] table = new int[256];
+            for (int i = 0; i < numColors; i++) {
+                int r = read();
+                int g = read();
+                int b = read();
+                table[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+            return error ? null : table;
         }
 
         /**
-         * Reads Netscape extenstion to obtain iteration count
+         * Skip data sub-blocks, up to and including the zero-length terminating block.
          */
-        protected void readNetscapeExt() {
+        private void skipBlocks()
+        {
+            int blockSize;
             do {
-                readBlock();
-                if (block[0] == 1) {
-                    // loop count sub-block
-                    int b1 = ((int) block[1]) & 0xff;
-                    int b2 = ((int) block[2]) & 0xff;
-                    loopCount = (b2 << 8) | b1;
-                }
-            } while ((blockSize > 0) && !err());
+                blockSize = read();
+                pos += blockSize;
+            } while (blockSize > 0 && ! error);
         }
 
         /**
-         * Reads next 16-bit value, LSB first
+         * Read a byte, or return 0 (and set the error flag) at the end of the data.
          */
-        protected int readShort() {
-            // read 16-bit value, LSB first
-            return read() | (read() << 8);
-        }
-
-        /**
-         * Resets frame state for reading next image.
-         */
-        protected void resetFrame() {
-            lastDispose = dispose;
-            lastRect = new Rectangle(ix, iy, iw, ih);
-            lastImage = image;
-            lastBgColor = bgColor;
-            int dispose = 0;
-            boolean transparency = false;
-            int delay = 0;
-            lct = null;
+        private int read()
+        {
+            if (pos >= data.length) {
+                error = true;
+                return 0;
+            }
+            return data[pos++] & 0xFF;
         }
 
         /**
-         * Skips variable length blocks up to and including next zero length block.
+         * Read a 16-bit value, least significant byte first.
          */
-        protected void skip() {
-            do {
-                readBlock();
-            } while ((blockSize > 0) && !err());
+        private int readShort()
+        {
+            return read() | (read() << 8);
         }
     }
-
 }
@@ -0,0 +1,144 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the actors in a world by class. For each class or interface which
+ * an actor in the world is an instance of, the index holds the set of actors which
+ * are instances of it. The sets are updated as actors are added and removed, so
+ * finding all the actors of a class takes time proportional to the number found,
+ * rather than to the number of actors in the world.
+ * 
+ * <p>The list of actors of a class is kept once made, until an actor of that class
+ * is added or removed, so repeated queries (such as every actor asking the world
+ * for the same class of actors each act round) do not allocate anything.
+ */
+class ActorClassIndex
+{
+    /**
+     * The actors which are instances of one class, and the read-only list of them
+     * given out by getObjects (null if it must be made afresh).
+     */
+    private static class ClassEntry
+    {
+        private final ActorSet actors = new ActorSet();
+        private List<Actor> list;
+    }
+    
+    private static final ClassEntry[] NO_ENTRIES = new ClassEntry[0];
+    
+    /** The entry for each class or interface, including Object (for all actors) */
+    private final Map<Class<?>, ClassEntry> entries = new HashMap<Class<?>, ClassEntry>();
+    
+    /** The entries which the actors of each actor class belong to */
+    private final Map<Class<?>, ClassEntry[]> entriesForActorClass = new HashMap<Class<?>, ClassEntry[]>();
+    
+    /**
+     * Add an actor to the index.
+     */
+    public void add(Actor actor)
+    {
+        for (ClassEntry entry : entriesFor(actor.getClass())) {
+            if (entry.actors.add(actor)) {
+                entry.list = null;
+            }
+        }
+    }
+    
+    /**
+     * Remove an actor from the index.
+     */
+    public void remove(Actor actor)
+    {
+        ClassEntry[] actorEntries = entriesForActorClass.getOrDefault(actor.getClass(), NO_ENTRIES);
+        for (ClassEntry entry : actorEntries) {
+            if (entry.actors.remove(actor)) {
+                entry.list = null;
+            }
+        }
+    }
+    
+    /**
+     * Get a read-only list of the actors which are instances of the given class
+     * (or all actors, if the class is null). The list does not change when actors
+     * are later added or removed.
+     */
+    @SuppressWarnings("unchecked")
+    public <A> List<A> getObjects(Class<A> cls)
+    {
+        ClassEntry entry = entries.get(cls == null ? Object.class : cls);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        if (entry.list == null) {
+            entry.list = Collections.unmodifiableList(new ArrayList<Actor>(entry.actors));
+        }
+        return (List<A>) entry.list;
+    }
+    
+    /**
+     * Get the number of actors which are instances of the given class (or of all
+     * actors, if the class is null).
+     */
+    public int size(Class<?> cls)
+    {
+        ClassEntry entry = entries.get(cls == null ? Object.class : cls);
+        return entry == null ? 0 : entry.actors.size();
+    }
+    
+    /**
+     * Get the entries for all the superclasses and interfaces of an actor class.
+     */
+    private ClassEntry[] entriesFor(Class<?> actorClass)
+    {
+        ClassEntry[] actorEntries = entriesForActorClass.get(actorClass);
+        if (actorEntries == null) {
+            Set<Class<?>> supertypes = new LinkedHashSet<Class<?>>();
+            addSupertypes(actorClass, supertypes);
+            actorEntries = new ClassEntry[supertypes.size()];
+            int i = 0;
+            for (Class<?> supertype : supertypes) {
+                actorEntries[i++] = entries.computeIfAbsent(supertype, c -> new ClassEntry());
+            }
+            entriesForActorClass.put(actorClass, actorEntries);
+        }
+        return actorEntries;
+    }
+    
+    private static void addSupertypes(Class<?> cls, Set<Class<?>> supertypes)
+    {
+        if (cls != null && supertypes.add(cls)) {
+            addSupertypes(cls.getSuperclass(), supertypes);
+            for (Class<?> iface : cls.getInterfaces()) {
+                addSupertypes(iface, supertypes);
+            }
+        }
+    }
+}
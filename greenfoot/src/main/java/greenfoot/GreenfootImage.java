@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2017,2019  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2017,2019,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,6 +21,8 @@
  */
 package greenfoot;
 
+import greenfoot.core.ImagePreloader;
+import greenfoot.core.ImagePreloader.PreloadedImage;
 import greenfoot.util.GraphicsUtilities;
 import greenfoot.util.GreenfootUtil;
 
@@ -40,6 +42,7 @@ import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
 import java.awt.image.VolatileImage;
+import java.awt.image.WritableRaster;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
@@ -82,6 +85,16 @@ public class GreenfootImage
      * Value from 0 to 255, with 0 being completely transparent and 255 being opaque.
      */
     private int transparency = 255;
+    
+    /**
+     * Incremented whenever the content of the image is changed, so that a cached rendering
+     * of it can be recognised as out of date.  Set to -1 once the backing BufferedImage has
+     * been handed out by getAwtImage(), since it may then be changed without our knowledge.
+     */
+    private int modCount = 0;
+    
+    /** Used to read and write single pixels without allocating an array each time. */
+    private final int[] pixelScratch = new int[1];
 
     /**
      * Create an image from an image file. Supported file formats are JPEG, GIF
@@ -105,7 +118,9 @@ public class GreenfootImage
         else 
         {
             try{
-                loadFile(filename);
+                if (! loadPreloaded(filename)) {
+                    loadFile(filename);
+                }
             }
             catch(IllegalArgumentException ile){
                 GreenfootUtil.addCachedImage(filename, null);
@@ -142,7 +157,7 @@ public class GreenfootImage
             setImage(GraphicsUtilities.createCompatibleTranslucentImage(image.getWidth(), image.getHeight()));
             Graphics2D g = getGraphics();
             g.setComposite(AlphaComposite.Src);
-            g.drawImage(image.getAwtImage(), 0, 0, null);
+            g.drawImage(image.image, 0, 0, null);
             g.dispose();
         }
         else {
@@ -278,6 +293,26 @@ public class GreenfootImage
         }
     }
 
+    /**
+     * Use the image preloaded for the given file name, if there is one.
+     * 
+     * @return true if the image was preloaded, false if the file must be loaded.
+     */
+    private boolean loadPreloaded(String filename)
+    {
+        if (filename == null) {
+            return false;
+        }
+        PreloadedImage preloaded = ImagePreloader.getInstance().take(filename);
+        if (preloaded == null) {
+            return false;
+        }
+        imageFileName = filename;
+        imageUrl = preloaded.getURL();
+        image = preloaded.getImage();
+        return true;
+    }
+
     /**
      * Tries to find the filename using the classloader. It first searches in
      * 'projectdir/images/', then in the 'projectdir' and last as an absolute
@@ -314,6 +349,7 @@ public class GreenfootImage
             throw new IllegalArgumentException("Image must not be null.");
         }
         this.image = getBufferedImage(image);
+        modified();
         copyOnWrite = false;
     }
 
@@ -328,6 +364,7 @@ public class GreenfootImage
     public BufferedImage getAwtImage()
     {
         ensureWritableImage();
+        modCount = -1;
         return image;
     }
     
@@ -339,6 +376,7 @@ public class GreenfootImage
         if (copyOnWrite) {
         ensureWritableImage();
         }
+        modified();
         Graphics2D graphics = image.createGraphics();
         initGraphics(graphics);
         return graphics;
@@ -505,7 +543,10 @@ public class GreenfootImage
     public greenfoot.Font getFont()
     {
         if (currentFont == null) {
-            currentFont = new greenfoot.Font(getGraphics().getFont());
+            // Not getGraphics(), since reading the font doesn't change the image:
+            Graphics2D g = image.createGraphics();
+            currentFont = new greenfoot.Font(g.getFont());
+            g.dispose();
         }
         return currentFont;
     }
@@ -559,6 +600,203 @@ public class GreenfootImage
         setRGBAt(x, y, color.getColorObject().getRGB());
     }
 
+    /**
+     * Copy the colours of a rectangle of pixels into an array, as ARGB ints (alpha in the
+     * top 8 bits, then red, green and blue).  This is much quicker than calling getColorAt
+     * for each pixel.
+     * 
+     * @param x The left edge of the rectangle.
+     * @param y The top edge of the rectangle.
+     * @param width The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @param pixels The array to copy the colours into.  The colour of pixel (x + i, y + j)
+     *            is put at <code>pixels[offset + j * scansize + i]</code>.
+     * @param offset The position in the array for the top-left pixel.
+     * @param scansize The distance in the array from each row to the next.
+     * @throws IndexOutOfBoundsException If the rectangle is not within the image,
+     *             or the array is too small.
+     */
+    public void getPixels(int x, int y, int width, int height, int[] pixels, int offset, int scansize)
+    {
+        checkRegion(x, y, width, height, pixels, offset, scansize);
+        if (width == 0 || height == 0) {
+            return;
+        }
+        if (! hasIntPixels()) {
+            image.getRGB(x, y, width, height, pixels, offset, scansize);
+            return;
+        }
+        
+        // Using the raster, rather than its data buffer, lets Java2D keep the image accelerated:
+        WritableRaster raster = image.getRaster();
+        if (offset == 0 && scansize == width) {
+            raster.getDataElements(x, y, width, height, pixels);
+        }
+        else {
+            int[] row = new int[width];
+            for (int j = 0; j < height; j++) {
+                raster.getDataElements(x, y + j, width, 1, row);
+                System.arraycopy(row, 0, pixels, offset + j * scansize, width);
+            }
+        }
+        if (image.isAlphaPremultiplied()) {
+            for (int j = 0; j < height; j++) {
+                int rowStart = offset + j * scansize;
+                for (int i = rowStart; i < rowStart + width; i++) {
+                    pixels[i] = unpremultiply(pixels[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the colours of a rectangle of pixels from an array of ARGB ints (alpha in the
+     * top 8 bits, then red, green and blue).  This is much quicker than calling setColorAt
+     * for each pixel.
+     * 
+     * @param x The left edge of the rectangle.
+     * @param y The top edge of the rectangle.
+     * @param width The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @param pixels The colours to set.  Pixel (x + i, y + j) is set to the colour at
+     *            <code>pixels[offset + j * scansize + i]</code>.
+     * @param offset The position in the array of the top-left pixel's colour.
+     * @param scansize The distance in the array from each row to the next.
+     * @throws IndexOutOfBoundsException If the rectangle is not within the image,
+     *             or the array is too small.
+     */
+    public void setPixels(int x, int y, int width, int height, int[] pixels, int offset, int scansize)
+    {
+        checkRegion(x, y, width, height, pixels, offset, scansize);
+        if (width == 0 || height == 0) {
+            return;
+        }
+        ensureWritableImage();
+        modified();
+        if (! hasIntPixels()) {
+            image.setRGB(x, y, width, height, pixels, offset, scansize);
+            return;
+        }
+        
+        WritableRaster raster = image.getRaster();
+        boolean premultiplied = image.isAlphaPremultiplied();
+        if (offset == 0 && scansize == width && ! premultiplied) {
+            raster.setDataElements(x, y, width, height, pixels);
+        }
+        else {
+            int[] row = new int[width];
+            for (int j = 0; j < height; j++) {
+                int rowStart = offset + j * scansize;
+                if (premultiplied) {
+                    for (int i = 0; i < width; i++) {
+                        row[i] = premultiply(pixels[rowStart + i]);
+                    }
+                }
+                else {
+                    System.arraycopy(pixels, rowStart, row, 0, width);
+                }
+                raster.setDataElements(x, y + j, width, 1, row);
+            }
+        }
+    }
+
+    /**
+     * Get a cursor for reading and changing the pixels of this image one at a time,
+     * without creating a Color object for each.  The cursor starts at the top-left pixel.
+     * 
+     * @return A new cursor for this image.
+     */
+    public PixelCursor getPixelCursor()
+    {
+        return new PixelCursor(this);
+    }
+    
+    /**
+     * Get the colour of a pixel as an ARGB int, without checking the coordinates
+     * (beyond what the underlying image does).
+     */
+    int readARGB(int x, int y)
+    {
+        if (! hasIntPixels()) {
+            return image.getRGB(x, y);
+        }
+        image.getRaster().getDataElements(x, y, pixelScratch);
+        return image.isAlphaPremultiplied() ? unpremultiply(pixelScratch[0]) : pixelScratch[0];
+    }
+
+    /**
+     * Set the colour of a pixel from an ARGB int, without checking the coordinates
+     * (beyond what the underlying image does).
+     */
+    void writeARGB(int x, int y, int argb)
+    {
+        ensureWritableImage();
+        modified();
+        if (! hasIntPixels()) {
+            image.setRGB(x, y, argb);
+            return;
+        }
+        pixelScratch[0] = image.isAlphaPremultiplied() ? premultiply(argb) : argb;
+        image.getRaster().setDataElements(x, y, pixelScratch);
+    }
+
+    /**
+     * Check whether the image stores its pixels as ARGB ints (premultiplied or not),
+     * which we can copy directly to and from its raster.
+     */
+    private boolean hasIntPixels()
+    {
+        int type = image.getType();
+        return type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE;
+    }
+    
+    private void checkRegion(int x, int y, int width, int height, int[] pixels, int offset, int scansize)
+    {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > getWidth() || y + height > getHeight()) {
+            throw new IndexOutOfBoundsException("The rectangle (" + x + ", " + y + ", " + width + ", " + height
+                    + ") is not within the image, which is " + getWidth() + "x" + getHeight());
+        }
+        if (height > 0 && (offset < 0 || scansize < width || offset + (long)(height - 1) * scansize + width > pixels.length)) {
+            throw new IndexOutOfBoundsException("The array is too small for the rectangle, with offset " + offset
+                    + " and scansize " + scansize);
+        }
+    }
+
+    /**
+     * Convert a premultiplied ARGB colour to a plain one, as DirectColorModel does.
+     */
+    private static int unpremultiply(int argb)
+    {
+        int a = argb >>> 24;
+        if (a == 255) {
+            return argb;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        float scale = 255.0f / a;
+        int r = (int) (((argb >> 16) & 0xFF) * scale + 0.5f);
+        int g = (int) (((argb >> 8) & 0xFF) * scale + 0.5f);
+        int b = (int) ((argb & 0xFF) * scale + 0.5f);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Convert a plain ARGB colour to a premultiplied one, as DirectColorModel does.
+     */
+    private static int premultiply(int argb)
+    {
+        int a = argb >>> 24;
+        if (a == 255) {
+            return argb;
+        }
+        float scale = a / 255.0f;
+        int r = (int) (((argb >> 16) & 0xFF) * scale + 0.5f);
+        int g = (int) (((argb >> 8) & 0xFF) * scale + 0.5f);
+        int b = (int) ((argb & 0xFF) * scale + 0.5f);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
     /**
      * Set the transparency of the image.
      * 
@@ -572,6 +810,7 @@ public class GreenfootImage
         }
 
         this.transparency = t;
+        modified();
     }
 
     /**
@@ -627,6 +866,7 @@ public class GreenfootImage
         }
 
         ensureWritableImage();
+        modified();
         image.setRGB(x,y,rgb);
     }
  
@@ -845,6 +1085,25 @@ public class GreenfootImage
         }
     }
 
+    /**
+     * Note that the content of the image has changed.
+     */
+    private void modified()
+    {
+        if (modCount != -1) {
+            modCount++;
+        }
+    }
+    
+    /**
+     * Get the modification count, which changes whenever the content of the image changes,
+     * or -1 if changes cannot be tracked (see getAwtImage()).
+     */
+    int getModCount()
+    {
+        return modCount;
+    }
+
     /**
      * Ensure we have an image which we are allowed to write to. If we are
      * a copy-on-write image, create a copy of the image (and set up the
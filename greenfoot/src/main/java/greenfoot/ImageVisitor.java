@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -45,4 +45,13 @@ public class ImageVisitor
     {
         return GreenfootImage.equal(image1, image2);
     }
+    
+    /**
+     * Get a count which changes whenever the image's content changes, or -1 if
+     * its changes cannot be tracked.
+     */
+    public static int getModCount(GreenfootImage image)
+    {
+        return image.getModCount();
+    }
 }
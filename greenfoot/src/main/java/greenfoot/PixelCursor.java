@@ -0,0 +1,169 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+/**
+ * A cursor for reading and changing the pixels of a GreenfootImage one at a time.
+ * This is quicker than using getColorAt and setColorAt, since no Color objects
+ * are created.  Colours are given as ARGB ints: the alpha (transparency) in the top
+ * 8 bits, then the red, green and blue components.
+ * 
+ * <p>The cursor starts at the top-left pixel.  It can be moved to any pixel with
+ * moveTo, or through all the pixels, row by row, with next:
+ * 
+ * <pre>
+ *     PixelCursor cursor = image.getPixelCursor();
+ *     do {
+ *         int argb = cursor.getARGB();
+ *         // Swap the red and blue components:
+ *         cursor.setARGB((argb &amp; 0xFF00FF00) | ((argb &gt;&gt; 16) &amp; 0xFF) | ((argb &amp; 0xFF) &lt;&lt; 16));
+ *     } while (cursor.next());
+ * </pre>
+ * 
+ * <p>To work on a whole row or rectangle of pixels at once, use GreenfootImage's
+ * getPixels and setPixels methods.  A cursor should not be used after its image
+ * has changed size (e.g. by scaling).
+ */
+public class PixelCursor
+{
+    private final GreenfootImage image;
+    private int x;
+    private int y;
+
+    /**
+     * Create a cursor at the top-left pixel of the given image.
+     */
+    PixelCursor(GreenfootImage image)
+    {
+        this.image = image;
+    }
+
+    /**
+     * Get the horizontal coordinate of the pixel the cursor is at.
+     */
+    public int getX()
+    {
+        return x;
+    }
+
+    /**
+     * Get the vertical coordinate of the pixel the cursor is at.
+     */
+    public int getY()
+    {
+        return y;
+    }
+
+    /**
+     * Move the cursor to the given pixel.
+     * 
+     * @throws IndexOutOfBoundsException If the pixel location is not within the
+     *             image bounds.
+     */
+    public void moveTo(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= image.getWidth() || y >= image.getHeight()) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is not within the image, which is "
+                    + image.getWidth() + "x" + image.getHeight());
+        }
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Move the cursor to the next pixel: the one to the right, or the first one in
+     * the next row if the cursor is at the end of a row.
+     * 
+     * @return true if the cursor has moved, or false if it was already at the last
+     *         (bottom-right) pixel, in which case it stays there.
+     */
+    public boolean next()
+    {
+        if (x + 1 < image.getWidth()) {
+            x++;
+            return true;
+        }
+        if (y + 1 < image.getHeight()) {
+            x = 0;
+            y++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the colour of the pixel as an ARGB int.
+     */
+    public int getARGB()
+    {
+        return image.readARGB(x, y);
+    }
+
+    /**
+     * Set the colour of the pixel from an ARGB int.
+     */
+    public void setARGB(int argb)
+    {
+        image.writeARGB(x, y, argb);
+    }
+
+    /**
+     * Get the alpha (transparency) of the pixel, from 0 (completely transparent)
+     * to 255 (opaque).
+     */
+    public int getAlpha()
+    {
+        return getARGB() >>> 24;
+    }
+
+    /**
+     * Get the red component of the pixel's colour, from 0 to 255.
+     */
+    public int getRed()
+    {
+        return (getARGB() >> 16) & 0xFF;
+    }
+
+    /**
+     * Get the green component of the pixel's colour, from 0 to 255.
+     */
+    public int getGreen()
+    {
+        return (getARGB() >> 8) & 0xFF;
+    }
+
+    /**
+     * Get the blue component of the pixel's colour, from 0 to 255.
+     */
+    public int getBlue()
+    {
+        return getARGB() & 0xFF;
+    }
+
+    /**
+     * Set the colour of the pixel from its components, each from 0 to 255.
+     */
+    public void setColor(int red, int green, int blue, int alpha)
+    {
+        setARGB(((alpha & 0xFF) << 24) | ((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF));
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2013,2014,2015,2016,2021  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2013,2014,2015,2016,2021,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -77,6 +77,9 @@ public abstract class World
     private TreeActorSet objectsInPaintOrder;    
     private TreeActorSet objectsInActOrder;
     
+    // The objects of each class, for getObjects and numberOfObjects:
+    private final ActorClassIndex objectsByClass = new ActorClassIndex();
+    
     // List of text labels displayed over the world
     List<TextLabel> textLabels = new ArrayList<TextLabel>(); 
 
@@ -428,6 +431,7 @@ public abstract class World
         }
         
         objectsDisordered.add(object);
+        objectsByClass.add(object);
         addInPaintOrder(object);
         addInActOrder(object);
 
@@ -456,6 +460,7 @@ public abstract class World
         }
         
         objectsDisordered.remove(object);
+        objectsByClass.remove(object);
         collisionChecker.removeObject(object);
         if (objectsDisordered != objectsInActOrder && objectsInActOrder != null) {
             objectsInActOrder.remove(object);
@@ -485,26 +490,19 @@ public abstract class World
      * <p>
      * If a class is specified as a parameter, only objects of that class (or
      * its subclasses) will be returned.
+     * <p>
+     * The returned list cannot be modified. It does not change if objects
+     * are later added to or removed from the world, so it is safe to add or
+     * remove objects while going through the list.
      *
      * @param <A> The type of objects to look for
      * @param cls Class of objects to look for ('null' will find all objects).
      * 
      * @return A list of objects.
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public <A> List<A> getObjects(Class<A> cls)
     {
-        List result = new ArrayList();
-        
-        Iterator<Actor> i = objectsDisordered.iterator();
-        while (i.hasNext()) {
-            Actor actor = i.next();
-            if (cls == null || cls.isInstance(actor)) {
-                result.add(actor);
-            }
-        }
-        
-        return result;
+        return objectsByClass.getObjects(cls);
     }
     
     /**
@@ -517,6 +515,18 @@ public abstract class World
         return objectsDisordered.size();
     }
     
+    /**
+     * Get the number of actors of a particular class (or its subclasses)
+     * currently in the world.
+     * 
+     * @param cls Class of objects to count ('null' will count all objects).
+     * @return The number of actors of that class
+     */
+    public int numberOfObjects(Class<?> cls)
+    {
+        return objectsByClass.size(cls);
+    }
+    
     /**
      * Repaints the world. 
      */
@@ -799,6 +809,22 @@ public abstract class World
         collisionChecker.startSequence();
     }
 
+    /**
+     * Use the given collision checker in place of the default one.  This is
+     * for comparing the collision checker implementations, and can only be
+     * done while the world is empty.
+     *
+     * @throws IllegalStateException If there are already actors in the world.
+     */
+    void setCollisionChecker(CollisionChecker checker)
+    {
+        if (! objectsDisordered.isEmpty()) {
+            throw new IllegalStateException("The collision checker can only be changed while the world is empty");
+        }
+        checker.initialize(width, height, cellSize, false);
+        collisionChecker = checker;
+    }
+
     Actor getOneObjectAt(Actor object, int dx, int dy, Class<?> cls)
     {
         return collisionChecker.getOneObjectAt(object, dx, dy, (Class)cls);
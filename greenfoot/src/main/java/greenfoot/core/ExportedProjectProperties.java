@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009, 2010  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009, 2010,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Properties;
+import java.util.Set;
 
 
 /**
@@ -87,5 +88,11 @@ public class ExportedProjectProperties implements ReadOnlyProjectProperties
         return properties.getProperty(key, defaultValue);
     }
 
+    @Override
+    public synchronized Set<String> getKeys()
+    {
+        return properties.stringPropertyNames();
+    }
+
 
 }
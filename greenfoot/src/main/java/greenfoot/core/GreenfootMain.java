@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2013,2014,2015,2016,2017,2018,2019,2021  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2013,2014,2015,2016,2017,2018,2019,2021,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -115,6 +115,7 @@ public class GreenfootMain
 
             projectProperties = new ShadowProjectProperties();
             ActorDelegateIDE.setupAsActorDelegate(projectProperties);
+            ImagePreloader.getInstance().setProjectProperties(projectProperties);
 
             EventQueue.invokeLater(new Runnable() {
                 @Override
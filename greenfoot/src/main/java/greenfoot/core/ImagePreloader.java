@@ -0,0 +1,301 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.core;
+
+import greenfoot.util.GraphicsUtilities;
+import greenfoot.util.GreenfootUtil;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the images which a world is likely to use, in parallel on background threads,
+ * so that the world's constructor doesn't have to load them one at a time.
+ * 
+ * <p>When a world is about to be instantiated, preload() starts loading the class images
+ * (from the "class.&lt;name&gt;.image" project properties) and then the other files in the
+ * images directory.  When a GreenfootImage is created from a file which is not in the
+ * ImageCache, it takes the preloaded image from here (waiting for it to finish loading
+ * if necessary), and only loads the file itself if it was not preloaded.
+ * 
+ * <p>The loaded images are only held softly until taken, so preloading images which
+ * are never used cannot exhaust the heap.
+ */
+@OnThread(Tag.Any)
+public class ImagePreloader
+{
+    private static final ImagePreloader instance = new ImagePreloader();
+    
+    /** The most image files (other than class images) to preload. */
+    private static final int MAX_FILES = 500;
+    /** The most bytes of image files (other than class images) to preload. */
+    private static final long MAX_FILE_BYTES = 32L * 1024 * 1024;
+    
+    private static final String[] IMAGE_EXTENSIONS = {".png", ".jpg", ".jpeg", ".gif", ".bmp"};
+
+    private final ExecutorService pool;
+    private volatile ReadOnlyProjectProperties projectProperties;
+    private final Map<String, Preload> preloads = new ConcurrentHashMap<>();
+    
+    /**
+     * An image which has been preloaded: the image, and the URL it was loaded from.
+     */
+    @OnThread(Tag.Any)
+    public static class PreloadedImage
+    {
+        private final URL url;
+        private final BufferedImage image;
+        
+        private PreloadedImage(URL url, BufferedImage image)
+        {
+            this.url = url;
+            this.image = image;
+        }
+
+        public URL getURL()
+        {
+            return url;
+        }
+
+        public BufferedImage getImage()
+        {
+            return image;
+        }
+    }
+    
+    /**
+     * The loading of a single image file.
+     */
+    @OnThread(Tag.Any)
+    private static class Preload
+    {
+        // Completes once the image has been loaded (or has failed to load):
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Null if loading failed:
+        private volatile SoftReference<PreloadedImage> result;
+        // The loading task, once it has been queued:
+        private volatile Future<?> task;
+        // Set by whichever comes first: the loading task starting, or the load being cancelled:
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        /**
+         * Cancel the loading, if it has not started yet.  Anyone waiting for the image
+         * is told that it was not preloaded.
+         * 
+         * @return True if the loading was cancelled, false if it had already started
+         */
+        private boolean cancel()
+        {
+            if (! claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            Future<?> queued = task;
+            if (queued != null) {
+                queued.cancel(false);
+            }
+            done.complete(null);
+            return true;
+        }
+    }
+
+    private ImagePreloader()
+    {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Greenfoot image preloader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    public static ImagePreloader getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Set the project properties, from which the class images are found.  Until this is
+     * called, preload() has no effect.
+     */
+    public void setProjectProperties(ReadOnlyProjectProperties projectProperties)
+    {
+        this.projectProperties = projectProperties;
+    }
+
+    /**
+     * Start preloading the images of the project, replacing any previously preloaded
+     * images (since the files may have changed).  This should be called when a world
+     * is about to be instantiated.  Loads of the previous images which have not started
+     * yet are cancelled, so that they don't hold up the new ones.
+     */
+    public void preload()
+    {
+        ReadOnlyProjectProperties properties = projectProperties;
+        if (properties == null) {
+            return;
+        }
+        for (Preload previous : preloads.values()) {
+            previous.cancel();
+        }
+        preloads.clear();
+        
+        Set<String> classImages = new LinkedHashSet<>();
+        for (String key : properties.getKeys()) {
+            if (key.startsWith("class.") && key.endsWith(".image")) {
+                classImages.add(properties.getString(key));
+            }
+        }
+        for (String file : classImages) {
+            startLoading(file);
+        }
+        
+        int files = 0;
+        long bytes = 0;
+        for (String file : GreenfootUtil.getImageFiles()) {
+            if (files >= MAX_FILES || bytes >= MAX_FILE_BYTES) {
+                break;
+            }
+            if (classImages.contains(file) || ! isImageFile(file)) {
+                continue;
+            }
+            long size = startLoading(file);
+            if (size >= 0) {
+                files += 1;
+                bytes += size;
+            }
+        }
+    }
+
+    /**
+     * Take the preloaded image for the given file name, waiting for it to be loaded if
+     * it is loading now.  If its loading has not started yet, it is cancelled instead,
+     * since the caller can load it sooner than the preloading threads would.  Each
+     * preloaded image can only be taken once: after that, the ImageCache is expected
+     * to hold it.
+     * 
+     * @return The preloaded image, or null if the file was not preloaded, had not started
+     *         loading, or could not be loaded (in which case the caller should try loading
+     *         it, to report the problem).
+     */
+    public PreloadedImage take(String filename)
+    {
+        Preload preload = preloads.remove(filename);
+        if (preload == null) {
+            return null;
+        }
+        if (! preload.done.isDone()) {
+            if (preload.cancel()) {
+                return null;
+            }
+            preload.done.join();
+        }
+        SoftReference<PreloadedImage> result = preload.result;
+        return result == null ? null : result.get();
+    }
+
+    /**
+     * Check whether the given file has been preloaded and not yet taken.  For testing.
+     */
+    boolean isPreloaded(String filename)
+    {
+        Preload preload = preloads.get(filename);
+        return preload != null && preload.done.isDone() && preload.result != null;
+    }
+
+    /**
+     * Start loading the given image file in the background.
+     * 
+     * @return The size of the file, 0 if not known, or -1 if it was not found
+     */
+    private long startLoading(String filename)
+    {
+        URL url;
+        try {
+            url = GreenfootUtil.getURL(filename, "images");
+        }
+        catch (FileNotFoundException e) {
+            return -1;
+        }
+        
+        Preload preload = new Preload();
+        preloads.put(filename, preload);
+        preload.task = pool.submit(() -> {
+            if (! preload.claimed.compareAndSet(false, true)) {
+                // Cancelled before it started:
+                return;
+            }
+            try {
+                BufferedImage image = GraphicsUtilities.loadCompatibleTranslucentImage(url);
+                preload.result = new SoftReference<>(new PreloadedImage(url, image));
+            }
+            catch (IOException | RuntimeException e) {
+                // Leave the result as null, so that the image is loaded again (and the
+                // problem reported) when it is needed.
+            }
+            finally {
+                preload.done.complete(null);
+            }
+        });
+        return fileSize(url);
+    }
+
+    private static long fileSize(URL url)
+    {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return new File(url.toURI()).length();
+            }
+            catch (URISyntaxException | IllegalArgumentException e) {
+                // Fall through
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isImageFile(String filename)
+    {
+        String lower = filename.toLowerCase();
+        for (String extension : IMAGE_EXTENSIONS) {
+            if (lower.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
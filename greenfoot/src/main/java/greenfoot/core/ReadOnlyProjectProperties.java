@@ -5,6 +5,9 @@ import greenfoot.util.GreenfootUtil;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * A read-only interface to access properties of a project.
  * 
@@ -18,6 +21,14 @@ public interface ReadOnlyProjectProperties
      */
     public String getString(String key, String defaultValue);
 
+    /**
+     * Gets the keys of all the properties.  Thread-safe.
+     */
+    public default Set<String> getKeys()
+    {
+        return Collections.emptySet();
+    }
+
     /**
      * Gets a String property.  Returns null if property not present.
      */
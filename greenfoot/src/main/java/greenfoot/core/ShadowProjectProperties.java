@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009, 2010  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009, 2010,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -23,8 +23,10 @@ package greenfoot.core;
 
 import bluej.utility.Debug;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A class which resides on the debug VM.  Its job is to hold copies of the project
@@ -35,7 +37,9 @@ import java.util.Map;
  */
 public class ShadowProjectProperties implements ReadOnlyProjectProperties
 {
-    private final Map<String, String> properties = new HashMap<>();
+    // Concurrent, since changes arrive on the VM communications thread, and properties
+    // are read from the simulation thread:
+    private final Map<String, String> properties = new ConcurrentHashMap<>();
 
     /**
      * Called when a property has changed on the server VM, and the change needs
@@ -58,4 +62,10 @@ public class ShadowProjectProperties implements ReadOnlyProjectProperties
     {
         return properties.getOrDefault(key, defaultValue);
     }
+
+    @Override
+    public Set<String> getKeys()
+    {
+        return new HashSet<>(properties.keySet());
+    }
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2010,2011,2012,2013,2014,2016,2019,2021  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2010,2011,2012,2013,2014,2016,2019,2021,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -80,6 +80,9 @@ public class Simulation extends Thread
     @OnThread(value = Tag.Any, requireSynchronized = true)
     private boolean runOnce;
     
+    /** The number of act cycles started since the simulation was created */
+    private int actCount = 0;
+    
     /** Tasks that are queued to run on the simulation thread */
     @OnThread(value = Tag.Any, requireSynchronized = true)
     private Queue<SimulationRunnable> queuedTasks = new LinkedList<>();
@@ -492,6 +495,7 @@ public class Simulation extends Thread
      */
     private void runOneLoop(World world)
     {
+        actCount += 1;
         fireSimulationEventSync(SyncEvent.NEW_ACT_ROUND);
         
         // We don't want to be interrupted in the middle of an act-loop
@@ -557,6 +561,15 @@ public class Simulation extends Thread
         fireSimulationEventSync(SyncEvent.END_ACT_ROUND);
     }
     
+    /**
+     * Get the number of act cycles which have been started since the simulation was created.
+     * Frames painted during or after a cycle are associated with that cycle's number.
+     */
+    public int getActCount()
+    {
+        return actCount;
+    }
+    
     // The actActor, actWorld and newInstance methods exist as a tagging mechanism
     // that allows them to be found easily in the debugger when we
     // are attempting to reach the next call to user code
@@ -629,6 +642,16 @@ public class Simulation extends Thread
         notifyAll();
     }
 
+    /**
+     * Check whether the simulation is paused, either by the user or by a call to
+     * Greenfoot.stop().
+     */
+    @OnThread(Tag.Any)
+    public synchronized boolean isPaused()
+    {
+        return paused;
+    }
+
     /**
      * Toggles the running/paused state of the simulation.
      */
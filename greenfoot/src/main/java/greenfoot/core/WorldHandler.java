@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -314,6 +314,7 @@ public class WorldHandler
     @OnThread(Tag.Any)
     public void instantiateNewWorld(String className)
     {
+        ImagePreloader.getInstance().preload();
         handlerDelegate.instantiateNewWorld(className, () -> worldInstantiationError());
     }
 
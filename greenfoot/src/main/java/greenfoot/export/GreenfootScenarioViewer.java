@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,6 +26,7 @@ import bluej.utility.javafx.JavaFXUtil;
 import bluej.utility.javafx.UnfocusableScrollPane;
 import greenfoot.World;
 import greenfoot.core.ExportedProjectProperties;
+import greenfoot.core.ImagePreloader;
 import greenfoot.core.Simulation;
 import greenfoot.core.WorldHandler;
 import greenfoot.event.SimulationListener;
@@ -41,8 +42,6 @@ import greenfoot.util.GreenfootUtil;
 import greenfoot.util.StandalonePropStringManager;
 import javafx.application.Platform;
 import javafx.scene.control.ScrollPane;
-import javafx.scene.image.Image;
-import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
@@ -52,7 +51,6 @@ import threadchecker.OnThread;
 import threadchecker.Tag;
 
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -78,6 +76,7 @@ public class GreenfootScenarioViewer extends BorderPane implements ControlPanelL
     private Constructor<?> worldConstructor;
     
     private final WorldDisplay worldDisplay = new WorldDisplay();
+    private final WorldImageBuffer worldImageBuffer = new WorldImageBuffer();
     private boolean updatingSliderFromSimulation = false;
 
     /**
@@ -139,6 +138,7 @@ public class GreenfootScenarioViewer extends BorderPane implements ControlPanelL
 
             ActorDelegateStandAlone.setupAsActorDelegate();
             ActorDelegateStandAlone.initProperties(properties);
+            ImagePreloader.getInstance().setProjectProperties(properties);
 
             // We must construct the simulation before the world, as a call to
             // Greenfoot.setSpeed() requires a call to the simulation instance.
@@ -149,6 +149,7 @@ public class GreenfootScenarioViewer extends BorderPane implements ControlPanelL
             WorldHandler worldHandler = WorldHandler.getInstance();
             Class<?> worldClass = Class.forName(worldClassName);
             worldConstructor = worldClass.getConstructor(new Class[]{});
+            ImagePreloader.getInstance().preload();
             World world = instantiateNewWorld();
             if (! worldHandler.checkWorldSet()) {
                 worldHandler.setWorld(world, false);
@@ -313,36 +314,17 @@ public class GreenfootScenarioViewer extends BorderPane implements ControlPanelL
     /**
      * Sets the latest world image on the screen.
      * 
-     * @param worldImage A Swing BufferedImage which is copied before returning.
+     * @param worldImage A Swing BufferedImage which is copied before returning.  This is
+     *                   quickest if it is premultiplied ARGB (TYPE_INT_ARGB_PRE).
      */
     public void setWorldImage(BufferedImage worldImage)
     {
-        if (worldDisplay.setImage(bufferedImageToFX(worldImage)))
+        if (worldDisplay.setImage(worldImageBuffer.update(worldImage)))
         {
             worldDisplay.getScene().getWindow().sizeToScene();
         }
     }
 
-    /**
-     * Directly copies a BufferedImage, which is assumed to have ARGB format, into a JavaFX image.
-     * @param worldImage The BufferedImage to copy from.  Must be in ARGB format.
-     * @return The JavaFX image with a copy of the BufferedImage
-     */
-    private static Image bufferedImageToFX(BufferedImage worldImage)
-    {
-        WritableImage fxImage = new WritableImage(worldImage.getWidth(), worldImage.getHeight());
-        int [] raw = ((DataBufferInt) worldImage.getData().getDataBuffer()).getData();
-        int offset = 0;
-        for (int y = 0; y < worldImage.getHeight(); y++)
-        {
-            for (int x = 0; x < worldImage.getWidth(); x++)
-            {
-                fxImage.getPixelWriter().setArgb(x, y, raw[offset++]);
-            }
-        }
-        return fxImage;
-    }
-
     @Override
     public @OnThread(Tag.Simulation) void simulationChangedSync(SyncEvent eventType)
     {
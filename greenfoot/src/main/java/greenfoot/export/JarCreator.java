@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2013,2014,2015,2018,2019  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2013,2014,2015,2018,2019,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -50,6 +50,7 @@ import java.util.zip.ZipOutputStream;
 import bluej.Boot;
 import bluej.Config;
 import bluej.extensions2.SourceType;
+import bluej.pkgmgr.ClassAnalysisCache;
 import bluej.pkgmgr.Project;
 import bluej.utility.BlueJFileReader;
 import bluej.utility.Debug;
@@ -192,6 +193,7 @@ public class JarCreator
         addSkipFile(".ctxt");
         addSkipFile("bluej.pkg");
         addSkipFile("bluej.pkh");   
+        addSkipFile(ClassAnalysisCache.FILE_NAME);
         
         // Exlude +libs. These should be added with the addJar() method.
         addSkipDir(Project.projectLibDirName);
@@ -273,6 +275,7 @@ public class JarCreator
         // skip BlueJ files
         addSkipFile("bluej.pkg");
         addSkipFile("bluej.pkh");   
+        addSkipFile(ClassAnalysisCache.FILE_NAME);
         
         includeSource(true);
     }
@@ -0,0 +1,148 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.export;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The JavaFX image which shows the world in a standalone scenario.
+ * 
+ * <p>The image is backed by a PixelBuffer, which shares its pixel array with a
+ * premultiplied ARGB BufferedImage.  Each new world image is copied straight into
+ * that array, and only the rows which have changed are passed to JavaFX to be
+ * updated, so nothing is allocated per frame.  The same JavaFX image is kept until
+ * the world changes size.
+ * 
+ * <p>The copy is needed (rather than the simulation rendering directly into the
+ * shared array) because JavaFX may be reading the array to update its texture
+ * at any time other than during PixelBuffer.updateBuffer.
+ */
+@OnThread(Tag.FXPlatform)
+class WorldImageBuffer
+{
+    private static final int[] MASKS = {0xFF0000, 0xFF00, 0xFF, 0xFF000000};
+    private static final DirectColorModel PREMULTIPLIED_ARGB = new DirectColorModel(
+            ColorSpace.getInstance(ColorSpace.CS_sRGB), 32, MASKS[0], MASKS[1], MASKS[2], MASKS[3],
+            true, DataBuffer.TYPE_INT);
+    
+    private int width;
+    private int height;
+    private int[] pixels;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+    private WritableImage fxImage;
+    // Shares the pixel array, for drawing world images which are not premultiplied ARGB:
+    private BufferedImage sharedImage;
+
+    /**
+     * Update the image to show the given world image.  If the world image is premultiplied
+     * ARGB (TYPE_INT_ARGB_PRE), its pixels are copied directly; otherwise it is drawn.
+     * 
+     * @return The JavaFX image showing the world.  This is the same image as last time,
+     *         unless the size has changed.
+     */
+    public Image update(BufferedImage worldImage)
+    {
+        if (fxImage == null || worldImage.getWidth() != width || worldImage.getHeight() != height)
+        {
+            allocate(worldImage.getWidth(), worldImage.getHeight());
+        }
+        
+        if (worldImage.getType() == BufferedImage.TYPE_INT_ARGB_PRE)
+        {
+            int[] from = ((DataBufferInt) worldImage.getRaster().getDataBuffer()).getData();
+            pixelBuffer.updateBuffer(b -> copyChangedRows(from));
+        }
+        else
+        {
+            pixelBuffer.updateBuffer(b -> {
+                Graphics2D g = sharedImage.createGraphics();
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(worldImage, 0, 0, null);
+                g.dispose();
+                return null;
+            });
+        }
+        return fxImage;
+    }
+
+    /**
+     * Copy the rows of the given pixels which differ from ours.
+     * 
+     * @return The region which has changed, or Rectangle2D.EMPTY if none has.
+     */
+    private Rectangle2D copyChangedRows(int[] from)
+    {
+        int firstRow = 0;
+        while (firstRow < height && rowEquals(from, firstRow))
+        {
+            firstRow++;
+        }
+        if (firstRow == height)
+        {
+            return Rectangle2D.EMPTY;
+        }
+        int lastRow = height - 1;
+        while (rowEquals(from, lastRow))
+        {
+            lastRow--;
+        }
+        System.arraycopy(from, firstRow * width, pixels, firstRow * width, (lastRow + 1 - firstRow) * width);
+        return new Rectangle2D(0, firstRow, width, lastRow + 1 - firstRow);
+    }
+
+    private boolean rowEquals(int[] from, int row)
+    {
+        int start = row * width;
+        return Arrays.mismatch(from, start, start + width, pixels, start, start + width) == -1;
+    }
+
+    private void allocate(int width, int height)
+    {
+        this.width = width;
+        this.height = height;
+        pixels = new int[width * height];
+        pixelBuffer = new PixelBuffer<>(width, height, IntBuffer.wrap(pixels), PixelFormat.getIntArgbPreInstance());
+        fxImage = new WritableImage(pixelBuffer);
+        
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length),
+                width, height, width, MASKS, null);
+        sharedImage = new BufferedImage(PREMULTIPLIED_ARGB, raster, true, null);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.gui;
+
+import greenfoot.Actor;
+import greenfoot.ActorVisitor;
+import greenfoot.GreenfootImage;
+import greenfoot.ImageVisitor;
+import greenfoot.World;
+import greenfoot.WorldVisitor;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cached image of a world's background with the "static" actors painted on it: those which
+ * have not moved, rotated or changed image (or image content) for STATIC_AFTER_FRAMES frames,
+ * such as walls and tiles.  Each frame can then be painted by copying the layer and painting
+ * just the other ("dynamic") actors over it.
+ *
+ * When a static actor changes or is removed from the world, it becomes dynamic again, and
+ * the area it covered in the layer is repainted: the background, then the static actors
+ * overlapping that area, in paint order.  An actor becoming static is added in the same way.
+ * The whole layer is repainted if the background changes.
+ *
+ * The layer can only be used if no static actor should be painted over a dynamic actor which
+ * comes before it in the paint order.  In a frame where that happens, paint() returns false,
+ * and the world must be painted in full.
+ */
+@OnThread(Tag.Simulation)
+class StaticLayer
+{
+    static final int STATIC_AFTER_FRAMES = 30;
+    
+    /**
+     * What we know about an actor, from the last frame in which it was painted.
+     */
+    @OnThread(Tag.Simulation)
+    private static class ActorState
+    {
+        private GreenfootImage image;
+        private int imageModCount;
+        private int x;
+        private int y;
+        private int rotation;
+        private Rectangle bounds;
+        private int unchangedFrames;
+        private boolean isStatic;
+        private int lastFrame;
+    }
+    
+    private final Map<Actor, ActorState> actorStates = new IdentityHashMap<>();
+    private World world;
+    private int cellSize;
+    private GreenfootImage background;
+    private int backgroundModCount;
+    private BufferedImage layer;
+    // The area of the layer which must be repainted, or null if none:
+    private Rectangle dirty;
+    private int frame = 0;
+    // Used while painting a frame:
+    private final List<ActorState> staticActors = new ArrayList<>();
+    private final List<ActorState> dynamicActors = new ArrayList<>();
+
+    /**
+     * Paint the background and actors of the world onto the given image, if possible.
+     * 
+     * @param g Graphics for the image
+     * @return true if painted; false if the world must be painted without the layer.
+     */
+    boolean paint(Graphics2D g, World drawWorld, BufferedImage worldImage)
+    {
+        frame += 1;
+        GreenfootImage newBackground = WorldVisitor.getBackgroundImage(drawWorld);
+        int newBackgroundModCount = newBackground == null ? 0 : ImageVisitor.getModCount(newBackground);
+        if (newBackgroundModCount == -1)
+        {
+            // We can't tell when the background changes, so we can't cache it:
+            actorStates.clear();
+            layer = null;
+            return false;
+        }
+        
+        int width = worldImage.getWidth();
+        int height = worldImage.getHeight();
+        if (drawWorld != world || WorldVisitor.getCellSize(drawWorld) != cellSize
+                || layer == null || layer.getWidth() != width || layer.getHeight() != height
+                || layer.getType() != layerTypeFor(worldImage))
+        {
+            world = drawWorld;
+            cellSize = WorldVisitor.getCellSize(drawWorld);
+            actorStates.clear();
+            layer = new BufferedImage(width, height, layerTypeFor(worldImage));
+            background = newBackground;
+            backgroundModCount = newBackgroundModCount;
+            markDirty(new Rectangle(0, 0, width, height));
+        }
+        if (newBackground != background || newBackgroundModCount != backgroundModCount)
+        {
+            background = newBackground;
+            backgroundModCount = newBackgroundModCount;
+            markDirty(new Rectangle(0, 0, width, height));
+        }
+
+        boolean usable = updateActors(drawWorld);
+        
+        if (dirty != null)
+        {
+            repaintLayer();
+        }
+        if (!usable)
+        {
+            return false;
+        }
+        
+        copyLayer(g, worldImage);
+        for (ActorState state : dynamicActors)
+        {
+            WorldRenderer.paintActor(g, state.image, state.x, state.y, state.rotation, cellSize);
+        }
+        return true;
+    }
+
+    /**
+     * Update the state of each actor, and sort them into static and dynamic actors.
+     * 
+     * @return false if a static actor should be painted over a dynamic one.
+     */
+    private boolean updateActors(World drawWorld)
+    {
+        staticActors.clear();
+        dynamicActors.clear();
+        boolean usable = true;
+        // The area covered by the dynamic actors so far, or null:
+        Rectangle dynamicArea = null;
+        int paintSeq = 0;
+        for (Actor actor : WorldVisitor.getObjectsListInPaintOrder(drawWorld))
+        {
+            GreenfootImage image = ActorVisitor.getDisplayImage(actor);
+            if (image == null)
+            {
+                continue;
+            }
+            ActorVisitor.setLastPaintSeqNum(actor, paintSeq++);
+            int x, y, rotation;
+            try
+            {
+                x = ActorVisitor.getX(actor);
+                y = ActorVisitor.getY(actor);
+                rotation = ActorVisitor.getRotation(actor);
+            }
+            catch (IllegalStateException e)
+            {
+                // The actor has been removed from the world while we are painting (see
+                // WorldRenderer.paintObjects); it will be removed from the layer next time.
+                continue;
+            }
+            int modCount = ImageVisitor.getModCount(image);
+            
+            ActorState state = actorStates.get(actor);
+            if (state == null)
+            {
+                state = new ActorState();
+                actorStates.put(actor, state);
+            }
+            state.lastFrame = frame;
+            if (state.bounds == null || image != state.image || modCount != state.imageModCount || modCount == -1
+                    || x != state.x || y != state.y || rotation != state.rotation)
+            {
+                if (state.isStatic)
+                {
+                    markDirty(state.bounds);
+                    state.isStatic = false;
+                }
+                state.image = image;
+                state.imageModCount = modCount;
+                state.x = x;
+                state.y = y;
+                state.rotation = rotation;
+                state.bounds = WorldRenderer.getActorBounds(image, x, y, rotation, cellSize);
+                state.unchangedFrames = 0;
+            }
+            else if (!state.isStatic && ++state.unchangedFrames >= STATIC_AFTER_FRAMES)
+            {
+                state.isStatic = true;
+                markDirty(state.bounds);
+            }
+            
+            if (state.isStatic)
+            {
+                staticActors.add(state);
+                if (usable && dynamicArea != null && dynamicArea.intersects(state.bounds))
+                {
+                    for (ActorState dynamic : dynamicActors)
+                    {
+                        if (dynamic.bounds.intersects(state.bounds))
+                        {
+                            usable = false;
+                            break;
+                        }
+                    }
+                }
+            }
+            else
+            {
+                dynamicActors.add(state);
+                dynamicArea = dynamicArea == null ? new Rectangle(state.bounds) : dynamicArea.union(state.bounds);
+            }
+        }
+        
+        // Forget actors which weren't painted this time:
+        if (actorStates.size() > staticActors.size() + dynamicActors.size())
+        {
+            for (Iterator<ActorState> i = actorStates.values().iterator(); i.hasNext(); )
+            {
+                ActorState state = i.next();
+                if (state.lastFrame != frame)
+                {
+                    if (state.isStatic)
+                    {
+                        markDirty(state.bounds);
+                    }
+                    i.remove();
+                }
+            }
+        }
+        return usable;
+    }
+
+    private void markDirty(Rectangle area)
+    {
+        dirty = dirty == null ? new Rectangle(area) : dirty.union(area);
+    }
+
+    /**
+     * Repaint the dirty area of the layer.
+     */
+    private void repaintLayer()
+    {
+        Rectangle area = dirty.intersection(new Rectangle(0, 0, layer.getWidth(), layer.getHeight()));
+        dirty = null;
+        if (area.isEmpty())
+        {
+            return;
+        }
+        Graphics2D g = layer.createGraphics();
+        g.setClip(area);
+        g.setComposite(AlphaComposite.Clear);
+        g.fill(area);
+        g.setComposite(AlphaComposite.SrcOver);
+        WorldRenderer.paintBackground(g, world, layer.getWidth(), layer.getHeight());
+        for (ActorState state : staticActors)
+        {
+            if (state.bounds.intersects(area))
+            {
+                WorldRenderer.paintActor(g, state.image, state.x, state.y, state.rotation, cellSize);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Get the type of image to use for the layer: the same as the world image if possible,
+     * so that the layer can be copied onto it directly.
+     */
+    private static int layerTypeFor(BufferedImage worldImage)
+    {
+        return worldImage.getType() == BufferedImage.TYPE_INT_ARGB_PRE ?
+                BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_ARGB;
+    }
+
+    /**
+     * Copy the layer onto the world image, replacing what was there.
+     */
+    private void copyLayer(Graphics2D g, BufferedImage worldImage)
+    {
+        if (worldImage.getType() == layer.getType())
+        {
+            int[] from = ((DataBufferInt) layer.getRaster().getDataBuffer()).getData();
+            int[] to = ((DataBufferInt) worldImage.getRaster().getDataBuffer()).getData();
+            System.arraycopy(from, 0, to, 0, from.length);
+        }
+        else
+        {
+            Composite oldComposite = g.getComposite();
+            Shape oldClip = g.getClip();
+            g.setComposite(AlphaComposite.Src);
+            g.setClip(null);
+            g.drawImage(layer, 0, 0, null);
+            g.setComposite(oldComposite);
+            g.setClip(oldClip);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2018  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2018,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -41,7 +41,8 @@ import java.util.Set;
 
 /**
  * A class which handles the rendering of a World into a BufferedImage, including
- * handling the currently-dragging actor (if any).
+ * handling the currently-dragging actor (if any).  The background and the actors
+ * which are not changing are cached between frames (see StaticLayer).
  */
 @OnThread(Tag.Simulation)
 public class WorldRenderer
@@ -54,6 +55,8 @@ public class WorldRenderer
     private Point dragLocation;
     /** Image used when dragging new actors on the world. Includes the drop shadow.*/
     private BufferedImage dragImage;
+    /** The cached background and unchanging actors */
+    private final StaticLayer staticLayer = new StaticLayer();
 
     @OnThread(Tag.Any)
     public WorldRenderer()
@@ -80,8 +83,12 @@ public class WorldRenderer
         }
         else
         {
-            paintBackground(g2, drawWorld, worldImage.getWidth(), worldImage.getHeight());
-            paintObjects(g2, drawWorld);
+            // The static layer paints the background and all the actors, unless it can't be used:
+            if (!staticLayer.paint(g2, drawWorld, worldImage))
+            {
+                paintBackground(g2, drawWorld, worldImage.getWidth(), worldImage.getHeight());
+                paintObjects(g2, drawWorld);
+            }
             paintDraggedObject(g2, drawWorld);
             WorldVisitor.paintDebug(drawWorld, g2);
             paintWorldText(g2, drawWorld);
@@ -101,35 +108,16 @@ public class WorldRenderer
 
         Set<Actor> objects = WorldVisitor.getObjectsListInPaintOrder(drawWorld);
         int paintSeq = 0;
+        int cellSize = WorldVisitor.getCellSize(drawWorld);
         for (Iterator<Actor> iter = objects.iterator(); iter.hasNext();) {
             Actor thing = iter.next();
-            int cellSize = WorldVisitor.getCellSize(drawWorld);
 
             GreenfootImage image = ActorVisitor.getDisplayImage(thing);
             if (image != null) {
                 ActorVisitor.setLastPaintSeqNum(thing, paintSeq++);
-
-                double halfWidth = image.getWidth() / 2.;
-                double halfHeight = image.getHeight() / 2.;
-
-                AffineTransform oldTx = null;
                 try {
-                    int ax = ActorVisitor.getX(thing);
-                    int ay = ActorVisitor.getY(thing);
-                    double xCenter = ax * cellSize + cellSize / 2.;
-                    int paintX = (int) Math.floor(xCenter - halfWidth);
-                    double yCenter = ay * cellSize + cellSize / 2.;
-                    int paintY = (int) Math.floor(yCenter - halfHeight);
-
-                    int rotation = ActorVisitor.getRotation(thing);
-                    if (rotation != 0) {
-                        // don't bother transforming if it is not rotated at
-                        // all.
-                        oldTx = g.getTransform();
-                        g.rotate(Math.toRadians(rotation), xCenter, yCenter);
-                    }
-
-                    ImageVisitor.drawImage(image, g, paintX, paintY, null, true);
+                    paintActor(g, image, ActorVisitor.getX(thing), ActorVisitor.getY(thing),
+                            ActorVisitor.getRotation(thing), cellSize);
                 }
                 catch (IllegalStateException e) {
                     // We get this if the object has been removed from the
@@ -137,20 +125,61 @@ public class WorldRenderer
                     // method that removes an object from the world, while the
                     // scenario is executing.
                 }
-
-                // Restore the old state of the graphics
-                if (oldTx != null) {
-                    g.setTransform(oldTx);
-                }
             }
         }
     }
 
+    /**
+     * Paint an actor's image, centred in the given cell and rotated.
+     */
+    static void paintActor(Graphics2D g, GreenfootImage image, int ax, int ay, int rotation, int cellSize)
+    {
+        double halfWidth = image.getWidth() / 2.;
+        double halfHeight = image.getHeight() / 2.;
+        double xCenter = ax * cellSize + cellSize / 2.;
+        int paintX = (int) Math.floor(xCenter - halfWidth);
+        double yCenter = ay * cellSize + cellSize / 2.;
+        int paintY = (int) Math.floor(yCenter - halfHeight);
+
+        AffineTransform oldTx = null;
+        if (rotation != 0) {
+            // don't bother transforming if it is not rotated at
+            // all.
+            oldTx = g.getTransform();
+            g.rotate(Math.toRadians(rotation), xCenter, yCenter);
+        }
+
+        ImageVisitor.drawImage(image, g, paintX, paintY, null, true);
+
+        // Restore the old state of the graphics
+        if (oldTx != null) {
+            g.setTransform(oldTx);
+        }
+    }
+
+    /**
+     * Get the area that paintActor would paint, in pixels (perhaps slightly larger).
+     */
+    static Rectangle getActorBounds(GreenfootImage image, int ax, int ay, int rotation, int cellSize)
+    {
+        double xCenter = ax * cellSize + cellSize / 2.;
+        double yCenter = ay * cellSize + cellSize / 2.;
+        Rectangle bounds = new Rectangle((int) Math.floor(xCenter - image.getWidth() / 2.),
+                (int) Math.floor(yCenter - image.getHeight() / 2.), image.getWidth(), image.getHeight());
+        if (rotation != 0) {
+            bounds = AffineTransform.getRotateInstance(Math.toRadians(rotation), xCenter, yCenter)
+                    .createTransformedShape(bounds).getBounds();
+        }
+        // Allow for rounding when drawing a rotated image:
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
     /**
      * Paint the world background. This takes tiling into account: the
      * world image is painted either once or tiled onto this component.
      */
-    private void paintBackground(Graphics2D g, World drawWorld, int width, int height)
+    static void paintBackground(Graphics2D g, World drawWorld, int width, int height)
     {
         if (drawWorld != null) {
             GreenfootImage backgroundImage = WorldVisitor.getBackgroundImage(drawWorld);
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2017,2018,2019,2019,2020,2021,2022,2023  Poul Henriksen and Michael Kolling
+ Copyright (C) 2017,2018,2019,2019,2020,2021,2022,2023,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -1157,6 +1157,9 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
         }
 
         Menu toolsMenu = new Menu(Config.getString("menu.tools"), null);
+        MenuItem recordFramesItem = JavaFXUtil.makeMenuItem("menu.recordFrames", null, this::toggleFrameRecording, hasNoProject);
+        toolsMenu.setOnShowing(e -> recordFramesItem.setText(Config.getString(
+                debugHandler != null && debugHandler.getVmComms().isRecordingFrames() ? "menu.recordFrames.stop" : "menu.recordFrames")));
         toolsMenu.getItems().addAll(
                 JavaFXUtil.makeMenuItem(Config.getString("save.world"), () -> {
                     FXPlatformFunction<String, Editor> fetchEditorByName = className -> {
@@ -1182,6 +1185,7 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
                         soundRecorder.getShowingProperty(),
                         new KeyCodeCombination(KeyCode.U, KeyCombination.SHORTCUT_DOWN),
                         this::toggleSoundRecorder),
+                recordFramesItem,
                 JavaFXUtil.makeCheckMenuItem(Config.getString("menu.debugger"),
                         showingDebugger,
                         new KeyCodeCombination(KeyCode.B, KeyCombination.SHORTCUT_DOWN)),
@@ -1255,6 +1259,30 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
         }
     }
 
+    /**
+     * Start recording the world frames to a file chosen by the user, or stop recording
+     * if we already are.  Recordings can be replayed using FrameRecording.
+     */
+    private void toggleFrameRecording()
+    {
+        VMCommsMain vmComms = debugHandler.getVmComms();
+        if (vmComms.isRecordingFrames())
+        {
+            vmComms.stopRecordingFrames();
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(Config.getString("menu.recordFrames.title"));
+        chooser.getExtensionFilters().setAll(new FileChooser.ExtensionFilter("Greenfoot Frame Recordings (*.gfrec)", "*.gfrec"));
+        chooser.setInitialDirectory(project.getProjectDir());
+        chooser.setInitialFileName(project.getProjectName() + ".gfrec");
+        File chosen = chooser.showSaveDialog(this);
+        if (chosen != null)
+        {
+            vmComms.startRecordingFrames(chosen);
+        }
+    }
+
     /**
      * Generates the Documentation for the current scenario
      */
@@ -1676,7 +1704,7 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
             if (worldViewScroll.getWidth() < worldImg[nextWorldImgToWrite].getWidth() ||
                     worldViewScroll.getHeight() < worldImg[nextWorldImgToWrite].getHeight())
             {
-                // We don't call sizeToScene() directly while holding the file lock because it can
+                // We don't call sizeToScene() directly while reading the frame because it can
                 // cause us to re-enter the animation timer (see commit comment).  So we set this
                 // flag to true as a way of queueing up the request:
                 JavaFXUtil.runAfterCurrent(() -> sizeToScene());
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2012,2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -59,6 +59,14 @@ public interface GreenfootUtilDelegate
     @OnThread(Tag.Any)
     public Iterable<String> getSoundFiles();
 
+    /**
+     * Gets a list of image files (as plain names, e.g. "foo.png") in the images directory
+     * of this scenario, for preloading.  As with getSoundFiles, the result will not be null,
+     * but may be empty and should not be relied upon to be accurate.
+     */
+    @OnThread(Tag.Any)
+    public Iterable<String> getImageFiles();
+
     /**
      * Get the project-relative path of the Greenfoot logo.
      */
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2013,2014,2015,2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2013,2014,2015,2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -88,11 +88,27 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
     @Override
     @OnThread(Tag.Any)
     public Iterable<String> getSoundFiles()
+    {
+        return listResourceDir("sounds");
+    }
+    
+    @Override
+    @OnThread(Tag.Any)
+    public Iterable<String> getImageFiles()
+    {
+        return listResourceDir("images");
+    }
+    
+    /**
+     * List the files in a directory of the project.
+     */
+    @OnThread(Tag.Any)
+    private List<String> listResourceDir(String dir)
     {
         ArrayList<String> files = new ArrayList<>();
         try
         {
-            URL url = getResource("sounds");
+            URL url = getResource(dir);
             if (url != null && "file".equals(url.getProtocol()))
             {
                 for (String file : new File(url.toURI()).list())
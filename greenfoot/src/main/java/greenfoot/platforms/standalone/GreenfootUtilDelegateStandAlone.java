@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2015,2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2012,2015,2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -41,6 +41,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.security.AccessControlException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -140,6 +141,15 @@ public class GreenfootUtilDelegateStandAlone implements GreenfootUtilDelegate
         // May just be blank if there's a problem:
         return r;
     }    
+    
+    @Override
+    @OnThread(Tag.Any)
+    public Iterable<String> getImageFiles()
+    {
+        // There is no index of the images in an exported scenario; only the class
+        // images (from the project properties) are preloaded:
+        return Collections.emptyList();
+    }
 
     /**
      * Returns the path to a small version of the greenfoot logo.
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2014,2018  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009,2010,2011,2012,2014,2018,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -167,7 +167,8 @@ public class WorldHandlerDelegateStandAlone implements WorldHandlerDelegate
         if (worldImage == null || worldImage.getHeight() != imageHeight
                 || worldImage.getWidth() != imageWidth)
         {
-            worldImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+            // Premultiplied, so that the viewer can copy it directly into its JavaFX image:
+            worldImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
         }
 
         worldRenderer.renderWorld(world, worldImage);
@@ -0,0 +1,279 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.record;
+
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Records world frames to a file, so that a run of a scenario can be replayed later
+ * (see FrameRecording).
+ *
+ * Frames are handed over on the simulation thread, just after they are rendered, and are
+ * copied into a spare image from the pool of world images.  They are then encoded and written
+ * on the recorder's own thread, which returns the image to the pool afterwards.  If the
+ * encoder falls behind, frames are dropped rather than slowing the simulation.
+ *
+ * Each frame is compressed with deflate.  Every KEY_FRAME_INTERVAL-th frame (and any frame
+ * which changes size) is a key frame, holding all its pixels.  The others are delta frames,
+ * holding the exclusive-or of their pixels with those of the previous frame.  That is zero
+ * wherever the world has not changed, so delta frames are usually very small.  A reader
+ * only needs to decode forward from the nearest earlier key frame to reach any frame.
+ *
+ * The file is a header (MAGIC, then VERSION) followed by the frames.  Each frame is a kind
+ * byte (KEY_FRAME or DELTA_FRAME), then four ints: the act cycle (see Simulation.getActCount()),
+ * width, height and compressed length, then the compressed data.  The pixels are ARGB ints, and
+ * everything is big-endian.
+ */
+public class FrameRecorder
+{
+    static final int MAGIC = 0x47465246; // "GFRF"
+    static final int VERSION = 1;
+    static final byte KEY_FRAME = 0;
+    static final byte DELTA_FRAME = 1;
+    // The kind byte, then four ints:
+    static final int FRAME_HEADER_SIZE = 17;
+    static final int KEY_FRAME_INTERVAL = 60;
+    // The number of frames which can be waiting to be encoded:
+    private static final int QUEUE_SIZE = 4;
+    
+    /**
+     * A frame waiting to be encoded.
+     */
+    @OnThread(Tag.Any)
+    private static class PendingFrame
+    {
+        private final BufferedImage image;
+        private final int actCycle;
+        // The pool to return the image to once it is encoded:
+        private final BlockingQueue<BufferedImage> imagePool;
+
+        private PendingFrame(BufferedImage image, int actCycle, BlockingQueue<BufferedImage> imagePool)
+        {
+            this.image = image;
+            this.actCycle = actCycle;
+            this.imagePool = imagePool;
+        }
+    }
+    
+    // Put on the queue to stop the encoder thread:
+    private static final PendingFrame END = new PendingFrame(null, 0, null);
+    
+    private final File file;
+    private final DataOutputStream out;
+    private final BlockingQueue<PendingFrame> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Thread encoderThread;
+    private volatile boolean stopped = false;
+    
+    // The rest are only used by the encoder thread:
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private int[] previousPixels;
+    private int previousWidth;
+    private int previousHeight;
+    private int framesSinceKeyFrame;
+    private ByteBuffer pixelBytes = ByteBuffer.allocate(0);
+    private byte[] compressed = new byte[0];
+    private IOException error;
+
+    /**
+     * Create a recorder writing to the given file, and start its encoder thread.
+     * 
+     * @throws IOException if the file cannot be created.
+     */
+    @OnThread(Tag.Any)
+    public FrameRecorder(File file) throws IOException
+    {
+        this.file = file;
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        encoderThread = new Thread("FrameRecorder") {
+            @Override
+            @OnThread(value = Tag.Worker, ignoreParent = true)
+            public void run()
+            {
+                encodeFrames();
+            }
+        };
+        encoderThread.setDaemon(true);
+        encoderThread.start();
+    }
+
+    /**
+     * Record a frame.  The image is copied (into an image taken from the given pool if there
+     * is a suitable one), so it may be re-used as soon as this returns.
+     * 
+     * @param image The rendered world image, of TYPE_INT_ARGB.
+     * @param actCycle The act cycle that the frame belongs to.
+     * @param imagePool A pool of spare images, to take one from and to return it to afterwards.
+     */
+    @OnThread(Tag.Simulation)
+    public void record(BufferedImage image, int actCycle, BlockingQueue<BufferedImage> imagePool)
+    {
+        if (stopped)
+        {
+            return;
+        }
+        BufferedImage copy = imagePool.poll();
+        if (copy == null || copy.getWidth() != image.getWidth() || copy.getHeight() != image.getHeight())
+        {
+            copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+        int[] pixels = getPixels(image);
+        System.arraycopy(pixels, 0, getPixels(copy), 0, pixels.length);
+        if (!queue.offer(new PendingFrame(copy, actCycle, imagePool)))
+        {
+            imagePool.offer(copy);
+        }
+    }
+
+    /**
+     * Stop recording.  This waits for the frames already recorded to be written, then closes
+     * the file.
+     */
+    public void stop()
+    {
+        if (stopped)
+        {
+            return;
+        }
+        stopped = true;
+        try
+        {
+            queue.put(END);
+            encoderThread.join();
+        }
+        catch (InterruptedException e)
+        {
+            // The encoder thread will still finish the file.
+        }
+    }
+
+    @OnThread(Tag.Worker)
+    private void encodeFrames()
+    {
+        try
+        {
+            for (PendingFrame frame = queue.take(); frame != END; frame = queue.take())
+            {
+                if (error == null)
+                {
+                    try
+                    {
+                        writeFrame(getPixels(frame.image), frame.image.getWidth(), frame.image.getHeight(), frame.actCycle);
+                    }
+                    catch (IOException e)
+                    {
+                        error = e;
+                        Debug.reportError("Problem recording frames to " + file, e);
+                    }
+                }
+                frame.imagePool.offer(frame.image);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Just finish the file
+        }
+        
+        try
+        {
+            out.close();
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Problem recording frames to " + file, e);
+        }
+        deflater.end();
+    }
+
+    @OnThread(Tag.Worker)
+    private void writeFrame(int[] pixels, int width, int height, int actCycle) throws IOException
+    {
+        boolean keyFrame = previousPixels == null || width != previousWidth || height != previousHeight
+                || framesSinceKeyFrame >= KEY_FRAME_INTERVAL - 1;
+        
+        if (pixelBytes.capacity() < pixels.length * 4)
+        {
+            pixelBytes = ByteBuffer.allocate(pixels.length * 4);
+        }
+        IntBuffer pixelInts = pixelBytes.asIntBuffer();
+        if (keyFrame)
+        {
+            pixelInts.put(pixels);
+            previousPixels = Arrays.copyOf(pixels, pixels.length);
+            previousWidth = width;
+            previousHeight = height;
+            framesSinceKeyFrame = 0;
+        }
+        else
+        {
+            for (int i = 0; i < pixels.length; i++)
+            {
+                pixelInts.put(pixels[i] ^ previousPixels[i]);
+            }
+            System.arraycopy(pixels, 0, previousPixels, 0, pixels.length);
+            framesSinceKeyFrame += 1;
+        }
+        
+        deflater.reset();
+        deflater.setInput(pixelBytes.array(), 0, pixels.length * 4);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished())
+        {
+            if (length == compressed.length)
+            {
+                compressed = Arrays.copyOf(compressed, Math.max(4096, compressed.length * 2));
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        
+        out.writeByte(keyFrame ? KEY_FRAME : DELTA_FRAME);
+        out.writeInt(actCycle);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(length);
+        out.write(compressed, 0, length);
+    }
+
+    @OnThread(Tag.Any)
+    private static int[] getPixels(BufferedImage image)
+    {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
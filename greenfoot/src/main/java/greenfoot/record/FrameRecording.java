@@ -0,0 +1,310 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.record;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a recording of world frames made by FrameRecorder, for replay.  Any frame can be
+ * read, either by its index or by the act cycle it belongs to.
+ *
+ * The file is scanned once when opened, to find where each frame is.  Reading a frame
+ * decodes forward from the nearest key frame before it, or from the frame most recently
+ * read if that is nearer, so reading frames in order only decodes each frame once.  If the
+ * recording was cut short (e.g. because the debug VM was terminated), any incomplete
+ * frame at the end is ignored.
+ */
+@OnThread(Tag.Any)
+public class FrameRecording implements Closeable
+{
+    /**
+     * A decoded frame.
+     */
+    @OnThread(Tag.Any)
+    public static class Frame
+    {
+        private final int actCycle;
+        private final int width;
+        private final int height;
+        private final int[] pixels;
+
+        private Frame(int actCycle, int width, int height, int[] pixels)
+        {
+            this.actCycle = actCycle;
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+
+        public int getActCycle()
+        {
+            return actCycle;
+        }
+
+        public int getWidth()
+        {
+            return width;
+        }
+
+        public int getHeight()
+        {
+            return height;
+        }
+
+        /**
+         * Get the pixels of the frame, as ARGB ints, row by row.
+         */
+        public int[] getPixels()
+        {
+            return pixels;
+        }
+    }
+
+    /**
+     * The position and details of a frame within the file.
+     */
+    @OnThread(Tag.Any)
+    private static class FrameInfo
+    {
+        private final long dataPosition;
+        private final boolean keyFrame;
+        private final int actCycle;
+        private final int width;
+        private final int height;
+        private final int length;
+
+        private FrameInfo(long dataPosition, boolean keyFrame, int actCycle, int width, int height, int length)
+        {
+            this.dataPosition = dataPosition;
+            this.keyFrame = keyFrame;
+            this.actCycle = actCycle;
+            this.width = width;
+            this.height = height;
+            this.length = length;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final List<FrameInfo> frames = new ArrayList<>();
+    private final Inflater inflater = new Inflater();
+    // The most recently decoded frame, -1 if none:
+    private int currentIndex = -1;
+    private int[] currentPixels;
+    private byte[] compressed = new byte[0];
+    private ByteBuffer pixelBytes = ByteBuffer.allocate(0);
+
+    /**
+     * Open a recording.
+     * 
+     * @throws IOException if the file cannot be read or is not a frame recording.
+     */
+    public FrameRecording(File recordingFile) throws IOException
+    {
+        file = new RandomAccessFile(recordingFile, "r");
+        try
+        {
+            if (file.length() < 8 || file.readInt() != FrameRecorder.MAGIC)
+            {
+                throw new IOException(recordingFile + " is not a frame recording");
+            }
+            int version = file.readInt();
+            if (version != FrameRecorder.VERSION)
+            {
+                throw new IOException("Unsupported frame recording version " + version);
+            }
+            
+            long length = file.length();
+            long pos = file.getFilePointer();
+            while (pos + FrameRecorder.FRAME_HEADER_SIZE <= length)
+            {
+                byte kind = file.readByte();
+                int actCycle = file.readInt();
+                int width = file.readInt();
+                int height = file.readInt();
+                int dataLength = file.readInt();
+                long dataPosition = pos + FrameRecorder.FRAME_HEADER_SIZE;
+                if (dataPosition + dataLength > length)
+                {
+                    break;
+                }
+                // We can't decode a delta frame without a key frame before it:
+                if (kind == FrameRecorder.KEY_FRAME || !frames.isEmpty())
+                {
+                    frames.add(new FrameInfo(dataPosition, kind == FrameRecorder.KEY_FRAME, actCycle, width, height, dataLength));
+                }
+                pos = dataPosition + dataLength;
+                file.seek(pos);
+            }
+        }
+        catch (IOException e)
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of frames in the recording.
+     */
+    public int getFrameCount()
+    {
+        return frames.size();
+    }
+
+    /**
+     * Get the act cycle that a frame belongs to, without decoding it.
+     */
+    public int getActCycle(int index)
+    {
+        return frames.get(index).actCycle;
+    }
+
+    /**
+     * Get the frame showing the world as it was at the given act cycle: that is, the last frame
+     * from that cycle or before it (or the first frame, if the recording starts after the cycle).
+     * 
+     * @return The frame, or null if the recording has no frames.
+     */
+    public synchronized Frame seekToActCycle(int actCycle) throws IOException
+    {
+        if (frames.isEmpty())
+        {
+            return null;
+        }
+        // Find the first frame after the act cycle:
+        int low = 0;
+        int high = frames.size();
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (frames.get(mid).actCycle <= actCycle)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return getFrame(Math.max(0, low - 1));
+    }
+
+    /**
+     * Decode the frame with the given index.
+     */
+    public synchronized Frame getFrame(int index) throws IOException
+    {
+        int start = index;
+        while (!frames.get(start).keyFrame)
+        {
+            start -= 1;
+        }
+        if (currentIndex >= start && currentIndex <= index)
+        {
+            // Carry on from the current frame:
+            start = currentIndex + 1;
+        }
+        for (int i = start; i <= index; i++)
+        {
+            decode(i);
+        }
+        FrameInfo info = frames.get(index);
+        return new Frame(info.actCycle, info.width, info.height, Arrays.copyOf(currentPixels, info.width * info.height));
+    }
+
+    private void decode(int index) throws IOException
+    {
+        FrameInfo info = frames.get(index);
+        int pixelCount = info.width * info.height;
+        if (compressed.length < info.length)
+        {
+            compressed = new byte[info.length];
+        }
+        file.seek(info.dataPosition);
+        file.readFully(compressed, 0, info.length);
+        if (pixelBytes.capacity() < pixelCount * 4)
+        {
+            pixelBytes = ByteBuffer.allocate(pixelCount * 4);
+        }
+        
+        inflater.reset();
+        inflater.setInput(compressed, 0, info.length);
+        try
+        {
+            int inflated = 0;
+            while (inflated < pixelCount * 4 && !inflater.finished())
+            {
+                int n = inflater.inflate(pixelBytes.array(), inflated, pixelCount * 4 - inflated);
+                if (n == 0 && inflater.needsInput())
+                {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != pixelCount * 4)
+            {
+                throw new IOException("Frame " + index + " is corrupt");
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("Frame " + index + " is corrupt", e);
+        }
+        
+        pixelBytes.clear();
+        if (info.keyFrame)
+        {
+            if (currentPixels == null || currentPixels.length < pixelCount)
+            {
+                currentPixels = new int[pixelCount];
+            }
+            pixelBytes.asIntBuffer().get(currentPixels, 0, pixelCount);
+        }
+        else
+        {
+            for (int i = 0; i < pixelCount; i++)
+            {
+                currentPixels[i] ^= pixelBytes.getInt(i * 4);
+            }
+        }
+        currentIndex = index;
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        inflater.end();
+        file.close();
+    }
+}
@@ -82,8 +82,22 @@ public class GraphicsUtilities {
     private GraphicsUtilities() {
     }
 
-    // Returns the graphics configuration for the primary screen
+    // The graphics configuration of an image, used when headless; created when first needed
+    private static volatile GraphicsConfiguration headlessConfiguration;
+
+    // Returns the graphics configuration for the primary screen, or (if there
+    // is no screen, as when running scenarios headless) for an image
     private static GraphicsConfiguration getGraphicsConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration configuration = headlessConfiguration;
+            if (configuration == null) {
+                Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+                configuration = g.getDeviceConfiguration();
+                g.dispose();
+                headlessConfiguration = configuration;
+            }
+            return configuration;
+        }
         return GraphicsEnvironment.getLocalGraphicsEnvironment().
                     getDefaultScreenDevice().getDefaultConfiguration();
     }
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2014,2015,2016,2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2009,2010,2011,2012,2014,2015,2016,2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -122,6 +122,16 @@ public class GreenfootUtil
     {
         return delegate.getSoundFiles();
     }
+    
+    /**
+     * Gets a list of the image files in this scenario
+     * @return A list of files in the images subdirectory, without the path prefix (e.g. "foo.png")
+     */
+    @OnThread(Tag.Any)
+    public static Iterable<String> getImageFiles()
+    {
+        return delegate.getImageFiles();
+    }
 
     /**
      * Tries to find the specified file using the classloader. It first searches in
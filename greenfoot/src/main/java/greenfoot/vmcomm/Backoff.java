@@ -0,0 +1,80 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An adaptive wait for a thread polling shared memory for work from the other VM.
+ * While there has been recent work, the thread spins (keeping latency low); as it
+ * stays idle, it yields and then parks for increasing periods, up to a maximum, so
+ * that an idle thread uses almost no CPU.  Work arising within the same VM can wake
+ * a parked thread immediately with LockSupport.unpark.
+ */
+@OnThread(Tag.Any)
+class Backoff
+{
+    private static final int SPINS = 200;
+    private static final int YIELDS = 50;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    
+    private int idleCount = 0;
+
+    /**
+     * Wait after a round of polling.
+     * 
+     * @param didWork  Whether any work was found in this round; if so, the next
+     *                 waits will be short again.
+     */
+    @OnThread(Tag.Worker)
+    void idle(boolean didWork)
+    {
+        if (didWork)
+        {
+            idleCount = 0;
+            return;
+        }
+        
+        if (idleCount < SPINS)
+        {
+            Thread.onSpinWait();
+        }
+        else if (idleCount < SPINS + YIELDS)
+        {
+            Thread.yield();
+        }
+        else
+        {
+            int doublings = Math.min(idleCount - SPINS - YIELDS, 20);
+            LockSupport.parkNanos(Math.min(MIN_PARK_NANOS << doublings, MAX_PARK_NANOS));
+        }
+        if (idleCount < Integer.MAX_VALUE)
+        {
+            idleCount++;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2018  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2018,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -75,6 +75,13 @@ public class Command
 
     public static final int COMMAND_WORLD_FOCUS_GAINED = 40;
     public static final int COMMAND_WORLD_FOCUS_LOST = 41;
+    // Use a different frame segment.  Followed by the segment generation, the size
+    // of the segment in integers, then the codepoints of the segment's file path
+    // (none, to use the frame area in the main shared memory file).
+    public static final int COMMAND_FRAME_SEGMENT = 50;
+    // Start recording frames (see FrameRecorder).  Followed by the codepoints of the file path:
+    public static final int COMMAND_RECORD_FRAMES_START = 51;
+    public static final int COMMAND_RECORD_FRAMES_STOP = 52;
     
     
     // Commands are assigned a stricly increasing ID:
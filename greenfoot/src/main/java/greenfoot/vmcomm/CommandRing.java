@@ -0,0 +1,131 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A single-producer, single-consumer ring buffer of commands in shared memory, used to send
+ * commands from the server VM (the producer) to the debug VM (the consumer) without locking.
+ * 
+ * <p>The producer's write count (head) and the consumer's read count (tail) are each written
+ * only by their owner, and are kept on separate cache lines.  Both count integers since the
+ * ring was last cleared, and are allowed to overflow: the capacity is a power of two, so the
+ * position in the ring is always the count modulo the capacity.  Each record is a length,
+ * followed by that many integers: the command sequence ID, the command type and any extra
+ * information.  A record may wrap around the end of the ring.
+ */
+@OnThread(Tag.Any)
+class CommandRing
+{
+    private static final int HEAD = 0;
+    private static final int TAIL = 16;
+    private static final int DATA = 32;
+    
+    /** The number of integers used by the ring's header (before the data) */
+    static final int HEADER_SIZE = DATA;
+    
+    private final SharedMemory shm;
+    private final int base;
+    private final int mask;
+
+    /**
+     * @param base      The position of the ring in shared memory
+     * @param capacity  The data capacity in integers; must be a power of two.
+     *                  The ring occupies HEADER_SIZE + capacity integers in total.
+     */
+    CommandRing(SharedMemory shm, int base, int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.shm = shm;
+        this.base = base;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Add a command to the ring (called by the producer only).
+     * 
+     * @return true if the command was added, false if there is not currently enough space.
+     * @throws IllegalArgumentException if the command could never fit in the ring.
+     */
+    boolean offer(Command command)
+    {
+        int length = command.extraInfo.length + 2;
+        if (length + 1 > mask + 1)
+        {
+            throw new IllegalArgumentException("Single command exceeds buffer size");
+        }
+        int head = shm.get(base + HEAD);
+        int tail = shm.getAcquire(base + TAIL);
+        if (head - tail + length + 1 > mask + 1)
+        {
+            return false;
+        }
+        write(head, length);
+        write(head + 1, command.commandSequence);
+        write(head + 2, command.commandType);
+        for (int i = 0; i < command.extraInfo.length; i++)
+        {
+            write(head + 3 + i, command.extraInfo[i]);
+        }
+        shm.putRelease(base + HEAD, head + length + 1);
+        return true;
+    }
+
+    /**
+     * Remove the next command from the ring (called by the consumer only).
+     * 
+     * @return The command's sequence ID, type and extra information, in that order,
+     *         or null if the ring is empty.
+     */
+    int[] poll()
+    {
+        int tail = shm.get(base + TAIL);
+        int head = shm.getAcquire(base + HEAD);
+        if (head == tail)
+        {
+            return null;
+        }
+        int length = read(tail);
+        int[] record = new int[length];
+        for (int i = 0; i < length; i++)
+        {
+            record[i] = read(tail + 1 + i);
+        }
+        shm.putRelease(base + TAIL, tail + length + 1);
+        return record;
+    }
+
+    private void write(int count, int value)
+    {
+        shm.put(base + DATA + (count & mask), value);
+    }
+
+    private int read(int count)
+    {
+        return shm.get(base + DATA + (count & mask));
+    }
+}
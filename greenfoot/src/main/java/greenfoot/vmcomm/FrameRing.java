@@ -0,0 +1,202 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.nio.IntBuffer;
+
+/**
+ * A single-producer, single-consumer ring of world image frames in shared memory, sent from
+ * the debug VM (the producer) to the server VM (the consumer).
+ * 
+ * <p>There are two frame slots, so the debug VM can paint the next frame while the server VM
+ * is still displaying the previous one.  The producer counts the frames it has published and
+ * the consumer counts those it has consumed; frame N goes in slot N % 2, and the producer may
+ * only write a frame when fewer than two are unconsumed.  The consumer always takes the most
+ * recent frame, skipping any older one.  Each slot also has a sequence number, as in
+ * {@link SeqLockBlock}, so the consumer can detect (and discard) a frame which was
+ * changed while it was being read.
+ * 
+ * <p>Layout: published count, consumed count (on a separate cache line), then the slots.
+ * Each slot is a sequence number, the width (W) and height (H) of the image, then W * H
+ * pixels one row at a time with no gaps, each pixel an ARGB integer.
+ */
+@OnThread(Tag.Any)
+class FrameRing
+{
+    private static final int PUBLISHED = 0;
+    private static final int CONSUMED = 16;
+    private static final int SLOTS = 32;
+    private static final int SLOT_COUNT = 2;
+    
+    private static final int SLOT_SEQ = 0;
+    private static final int SLOT_WIDTH = 1;
+    private static final int SLOT_HEIGHT = 2;
+    private static final int SLOT_PIXELS = 3;
+    
+    /** The largest size of a frame ring, in integers (so that it can be mapped in one buffer) */
+    static final int MAX_SIZE = Integer.MAX_VALUE / 4;
+    
+    /**
+     * Receives a frame read from the ring.
+     */
+    @OnThread(Tag.Any)
+    interface FrameReader
+    {
+        /**
+         * Read a frame of the given size, from the given buffer.  The frame is only valid if
+         * the read succeeds, but may be read and displayed regardless.
+         */
+        @OnThread(Tag.FXPlatform)
+        void readFrame(int width, int height, IntBuffer pixels);
+    }
+    
+    private final SharedMemory shm;
+    private final int base;
+    private final int size;
+    private final int slotSize;
+
+    /**
+     * @param size  The total size of the ring in integers, including all slots.
+     */
+    FrameRing(SharedMemory shm, int base, int size)
+    {
+        this.shm = shm;
+        this.base = base;
+        this.size = size;
+        this.slotSize = (size - SLOTS) / SLOT_COUNT;
+    }
+
+    /**
+     * Get the size of a frame ring which would hold frames with the given number of pixels.
+     * 
+     * @return The size in integers, or a number larger than MAX_SIZE if it would be too large.
+     */
+    static long sizeFor(int pixelCount)
+    {
+        return SLOTS + SLOT_COUNT * (SLOT_PIXELS + (long)pixelCount);
+    }
+
+    /**
+     * Get the total size of this ring in integers.
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Check whether a frame with the given number of pixels fits in a slot.
+     */
+    boolean fits(int pixelCount)
+    {
+        return pixelCount >= 0 && pixelCount <= slotSize - SLOT_PIXELS;
+    }
+
+    /**
+     * Check whether there is a free slot to publish a frame into (producer only).
+     */
+    boolean canPublish()
+    {
+        return shm.get(base + PUBLISHED) - shm.getAcquire(base + CONSUMED) < SLOT_COUNT;
+    }
+
+    /**
+     * Publish a frame (producer only).  canPublish() must have returned true, and
+     * the frame must fit.
+     */
+    void publish(int width, int height, int[] pixels)
+    {
+        int frame = shm.get(base + PUBLISHED);
+        int slot = slotPos(frame);
+        int seq = shm.get(slot + SLOT_SEQ);
+        shm.putBeforeWrites(slot + SLOT_SEQ, seq + 1);
+        shm.put(slot + SLOT_WIDTH, width);
+        shm.put(slot + SLOT_HEIGHT, height);
+        shm.put(slot + SLOT_PIXELS, pixels, 0, width * height);
+        shm.putRelease(slot + SLOT_SEQ, seq + 2);
+        shm.putRelease(base + PUBLISHED, frame + 1);
+    }
+
+    /**
+     * Check whether there is a frame which has not yet been consumed (consumer only).
+     */
+    boolean hasFrame()
+    {
+        return shm.getAcquire(base + PUBLISHED) != shm.get(base + CONSUMED);
+    }
+
+    /**
+     * Read the most recent frame, if there is one which has not been consumed (consumer only).
+     * If the frame is read consistently, it and any older frames are marked as consumed.
+     * 
+     * @return true if a frame was read consistently, false if there was none or it was
+     *         changed during reading (in which case it should be read again later).
+     */
+    @OnThread(Tag.FXPlatform)
+    boolean consume(FrameReader reader)
+    {
+        int published = shm.getAcquire(base + PUBLISHED);
+        if (published == shm.get(base + CONSUMED))
+        {
+            return false;
+        }
+        int slot = slotPos(published - 1);
+        int seq = shm.getAcquire(slot + SLOT_SEQ);
+        if ((seq & 1) != 0)
+        {
+            return false;
+        }
+        int width = shm.get(slot + SLOT_WIDTH);
+        int height = shm.get(slot + SLOT_HEIGHT);
+        if (!fits(width * height) || width <= 0 || height <= 0)
+        {
+            // Not a valid frame; skip it rather than retrying forever:
+            shm.putRelease(base + CONSUMED, published);
+            return false;
+        }
+        reader.readFrame(width, height, shm.view(slot + SLOT_PIXELS, width * height));
+        if (shm.getAfterReads(slot + SLOT_SEQ) != seq)
+        {
+            return false;
+        }
+        shm.putRelease(base + CONSUMED, published);
+        return true;
+    }
+
+    /**
+     * Mark all published frames as consumed, without reading them (consumer only).
+     * Used before the ring is used again after another has been used for a while, so
+     * that any old frame left in it is not shown.
+     */
+    void discard()
+    {
+        shm.putRelease(base + CONSUMED, shm.getAcquire(base + PUBLISHED));
+    }
+
+    private int slotPos(int frame)
+    {
+        return base + SLOTS + (frame & (SLOT_COUNT - 1)) * slotSize;
+    }
+}
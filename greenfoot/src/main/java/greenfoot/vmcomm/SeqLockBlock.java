@@ -0,0 +1,132 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A block of shared memory written by one VM and read by the other, guarded by a sequence
+ * lock rather than a file lock.  The writer makes the sequence number odd while it writes,
+ * and even (and larger) once it has finished.  A reader copies the data and then checks that
+ * the sequence number was even and has not changed; if it has, the copy may be inconsistent
+ * and is discarded.  The writer never waits for the reader.
+ * 
+ * <p>The sequence number also tells the reader whether anything has been written since it
+ * last looked.  Sequence numbers only increase, including across restarts of the writer
+ * (which is told where to start).
+ * 
+ * <p>Layout: the sequence number, then the length of the data (L), then L integers of data.
+ */
+@OnThread(Tag.Any)
+class SeqLockBlock
+{
+    private static final int SEQ = 0;
+    private static final int LENGTH = 1;
+    private static final int DATA = 2;
+    // How many times a reader retries when it sees a write in progress:
+    private static final int READ_ATTEMPTS = 100;
+    
+    private final SharedMemory shm;
+    private final int base;
+    private final int capacity;
+
+    /**
+     * @param size  The total size of the block, in integers (including the header).
+     */
+    SeqLockBlock(SharedMemory shm, int base, int size)
+    {
+        this.shm = shm;
+        this.base = base;
+        this.capacity = size - DATA;
+    }
+
+    /**
+     * Get the maximum length of data that can be written.
+     */
+    int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Set the initial sequence number (writer only).  Must be called before the first write.
+     */
+    void startAt(int seq)
+    {
+        shm.putRelease(base + SEQ, seq & ~1);
+    }
+
+    /**
+     * Write the given data (writer only).
+     */
+    void write(int[] data, int length)
+    {
+        int seq = shm.get(base + SEQ);
+        shm.putBeforeWrites(base + SEQ, seq + 1);
+        shm.put(base + LENGTH, length);
+        shm.put(base + DATA, data, 0, length);
+        shm.putRelease(base + SEQ, seq + 2);
+    }
+
+    /**
+     * Get the sequence number of the most recently completed write, without reading the data.
+     */
+    int getSeq()
+    {
+        return shm.getAcquire(base + SEQ) & ~1;
+    }
+
+    /**
+     * Read a consistent copy of the data, if it has been written since the given sequence number.
+     * 
+     * @param afterSeq  The sequence number of the last copy that the reader has.
+     * @param dest      The array to copy into; must have space for getCapacity() + 1 integers.
+     * @return The sequence number of the copy (with the data length in dest's first element
+     *         and the data after it), or -1 if there is nothing newer or no consistent copy
+     *         could be made (because the writer is busy).
+     */
+    @OnThread(Tag.Worker)
+    int read(int afterSeq, int[] dest)
+    {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++)
+        {
+            int seq = shm.getAcquire(base + SEQ);
+            if (seq <= afterSeq)
+            {
+                return -1;
+            }
+            if ((seq & 1) == 0)
+            {
+                int length = Math.min(Math.max(shm.get(base + LENGTH), 0), capacity);
+                dest[0] = length;
+                shm.get(base + DATA, dest, 1, length);
+                if (shm.getAfterReads(base + SEQ) == seq)
+                {
+                    return seq;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * A view of the memory-mapped file shared between the server VM and the debug VM, addressed
+ * in integer positions (i.e. bytes divided by four).  Both VMs run on the same machine, so
+ * native byte order is used throughout.
+ * 
+ * <p>As well as plain reads and writes, this provides the ordered (acquire/release) accesses
+ * needed by the lock-free structures kept in the shared memory ({@link CommandRing},
+ * {@link SeqLockBlock} and {@link FrameRing}).  Plain writes made before a release write are
+ * visible to the other VM once it has seen the release write with an acquire read.
+ */
+@OnThread(Tag.Any)
+class SharedMemory
+{
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    
+    private final ByteBuffer buffer;
+    private final IntBuffer ints;
+
+    /**
+     * Construct a view of the given (memory-mapped) buffer.
+     */
+    SharedMemory(ByteBuffer buffer)
+    {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.ints = this.buffer.asIntBuffer();
+    }
+
+    /**
+     * Get the size of the shared memory, in integers.
+     */
+    int size()
+    {
+        return ints.capacity();
+    }
+
+    int get(int pos)
+    {
+        return ints.get(pos);
+    }
+
+    void put(int pos, int value)
+    {
+        ints.put(pos, value);
+    }
+
+    /**
+     * Read a value, such that plain reads following it see everything written
+     * before the matching release write.
+     */
+    int getAcquire(int pos)
+    {
+        return (int)INT.getAcquire(buffer, pos * 4);
+    }
+
+    /**
+     * Write a value, such that everything written before it is visible to a
+     * reader who sees the value with an acquire read.
+     */
+    void putRelease(int pos, int value)
+    {
+        INT.setRelease(buffer, pos * 4, value);
+    }
+
+    /**
+     * Write a value, such that it is visible before anything written after it.
+     * Used to mark the start of a write guarded by a sequence number.
+     */
+    void putBeforeWrites(int pos, int value)
+    {
+        INT.setOpaque(buffer, pos * 4, value);
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Read a value after everything read before it.  Used to check, after reading
+     * data guarded by a sequence number, that the sequence number has not changed.
+     */
+    int getAfterReads(int pos)
+    {
+        VarHandle.loadLoadFence();
+        return (int)INT.getOpaque(buffer, pos * 4);
+    }
+
+    void get(int pos, int[] dest, int offset, int length)
+    {
+        ints.get(pos, dest, offset, length);
+    }
+
+    void put(int pos, int[] src, int offset, int length)
+    {
+        ints.put(pos, src, offset, length);
+    }
+
+    /**
+     * Get a read-only view of part of the shared memory, positioned at its start.
+     */
+    IntBuffer view(int pos, int length)
+    {
+        return ints.slice(pos, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Set the whole of the shared memory to zero.
+     */
+    void clear()
+    {
+        int[] zeroes = new int[Math.min(ints.capacity(), 0x10000)];
+        for (int pos = 0; pos < ints.capacity(); pos += zeroes.length)
+        {
+            ints.put(pos, zeroes, 0, Math.min(zeroes.length, ints.capacity() - pos));
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2018,2021 Poul Henriksen and Michael Kolling 
+ Copyright (C) 2018,2021,2026 Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -25,15 +25,15 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.IntBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import bluej.pkgmgr.Project;
 import bluej.utility.Debug;
@@ -52,58 +52,64 @@ import static greenfoot.vmcomm.Command.*;
  */
 public class VMCommsMain implements Closeable
 {
-    // The server-debug VM protocol relies on locking three distinct areas of the file:
-    //  A - the server VM "put" area
-    //  B - the debug VM "put" area
-    //  C - a small region not used for data but to ensure synchronisation
+    // The shared memory is divided into three areas, none of which needs locking:
+    //  - The command ring, through which the server VM sends commands to the debug VM
+    //    (see CommandRing).
+    //  - The status block, in which the debug VM publishes its state (see SeqLockBlock, and
+    //    VMCommsSimulation for the contents).  Its sequence number increases with each update.
+    //  - The frame ring, through which the debug VM sends world images (see FrameRing).
+    //    This takes up the remainder of the file.
     //
-    //    Server                          Debug
-    //   (holds A, C)                     (holds B)
-    // [command issued/want update]
-    //                                       [updates data while B is held]
-    //     -> release A
-    //                                    -> acquire A   (commands are available...)
-    //                                    -> release B   (ensures server can get data)
-    //     -> acquire B
-    //        (read image)
-    //                                       (read commands)
-    //     -> release C
-    //                                    -> acquire C   (Server has acquired B)
-    //                                    -> release A
-    //     -> acquire A
-    //     -> release B
-    //                                    -> acquire B (Server has A and C)
-    //                                    -> release C
-    //     -> acquire C
+    // If a world image is too large for the frame ring, the debug VM asks for a larger one
+    // via its status.  We then create a separate frame segment file big enough for it, and
+    // send COMMAND_FRAME_SEGMENT to tell the debug VM to map it and use it instead.  When
+    // the world gets smaller again, the debug VM asks for a smaller ring, and we move back
+    // to the main file (or to a smaller segment) and delete the old segment file.  Each
+    // switch has a generation number, which the debug VM reports back once it has switched.
     //
-    // The acquisition order is B-->A, A-->C, and C-->B. This ensures that there can never
-    // be deadlock. No process holds all three locks at once and each process always holds at
-    // least one lock.
+    // Each VM has a thread which polls the areas it reads, waiting adaptively in between
+    // (see Backoff) so that it responds quickly when busy but uses almost no CPU when idle.
 
     public static final int DEFAULT_MAPPED_SIZE = 20_000_000;
-    public static final int USER_AREA_OFFSET = 0x1000; // offset in 4-byte chunks; 16KB worth.
-    public static final int USER_AREA_OFFSET_BYTES = USER_AREA_OFFSET * 4;
-
-    public static final int SERVER_AREA_OFFSET_BYTES = 4;
-    public static final int SERVER_AREA_SIZE_BYTES = USER_AREA_OFFSET_BYTES - SERVER_AREA_OFFSET_BYTES;
     
-    public static final int SYNC_AREA_OFFSET_BYTES = 0;
-    public static final int SYNC_AREA_SIZE_BYTES = 4;
+    // Positions and sizes, in integers:
+    static final int COMMAND_RING_OFFSET = 0;
+    static final int COMMAND_RING_CAPACITY = 0x1000;
+    static final int STATUS_OFFSET = COMMAND_RING_OFFSET + CommandRing.HEADER_SIZE + COMMAND_RING_CAPACITY;
+    static final int STATUS_SIZE = 0x1000;
+    static final int FRAME_RING_OFFSET = STATUS_OFFSET + STATUS_SIZE;
+    // A frame segment is made larger than requested by this fraction, so that a world which
+    // keeps growing a little does not need a new segment each time:
+    private static final int FRAME_SEGMENT_HEADROOM_DIVISOR = 4;
     
     private final int fileSize;
     private File shmFile;
     private FileChannel fc;
     private MappedByteBuffer sharedMemoryByte;
-    private IntBuffer sharedMemory;
-    private FileLock putLock;
-    private FileLock syncLock;
+    private final SharedMemory sharedMemory;
+    private final CommandRing commandRing;
+    private final SeqLockBlock statusBlock;
+    // The frame ring in the main file:
+    private final FrameRing mainFrameRing;
+    // The frame ring in use, either mainFrameRing or one in a separate frame segment:
+    private FrameRing frameRing;
+    // The separate frame segment file in use, or null if the main file is in use:
+    private File frameSegmentFile;
+    // Frame segment files which the debug VM may still be using, to delete once it has switched:
+    private final List<File> oldFrameSegmentFiles = new ArrayList<>();
+    private int frameSegmentGeneration = 0;
+    // The frame ring size requested by the debug VM which we have acted on (0 if none):
+    private int handledFrameRingRequest = 0;
+    // A copy of the status block, with its data length first:
+    private final int[] status;
+    private final Backoff backoff = new Backoff();
 
     // Needs to be AtomicInteger because it's modified from multiple threads:
     private final AtomicInteger lastSeq = new AtomicInteger(0);
     private final List<Command> pendingCommands = new ArrayList<>();
+    // How many of the pending commands have been written to the command ring:
+    private int commandsWritten = 0;
     private int setSpeedCommandCount = 0;
-    private int lastPaintSeq = -1;
-    private int lastConsumedImg = -1;
     
     private boolean checkingIO = false;
     
@@ -135,7 +141,7 @@ public class VMCommsMain implements Closeable
     private boolean delayLoop;
     private boolean vmReadyForInvocations = false;
     private int askId = -1;
-    private boolean workerWaiting = false;
+    private boolean recordingFrames = false;
 
     /**
      * Constructor for VMCommsMain. Creates a temporary file and maps it into memory.
@@ -151,11 +157,12 @@ public class VMCommsMain implements Closeable
         shmFile.deleteOnExit();
         fc = new RandomAccessFile(shmFile, "rw").getChannel();
         sharedMemoryByte = fc.map(MapMode.READ_WRITE, 0, fileSize);
-        sharedMemory = sharedMemoryByte.asIntBuffer();
-        
-        // Obtain the put-area lock right from the start:
-        putLock = fc.lock(SERVER_AREA_OFFSET_BYTES, SERVER_AREA_SIZE_BYTES, false);
-        syncLock = fc.lock(SYNC_AREA_OFFSET_BYTES, SYNC_AREA_SIZE_BYTES, false);
+        sharedMemory = new SharedMemory(sharedMemoryByte);
+        commandRing = new CommandRing(sharedMemory, COMMAND_RING_OFFSET, COMMAND_RING_CAPACITY);
+        statusBlock = new SeqLockBlock(sharedMemory, STATUS_OFFSET, STATUS_SIZE);
+        mainFrameRing = new FrameRing(sharedMemory, FRAME_RING_OFFSET, sharedMemory.size() - FRAME_RING_OFFSET);
+        frameRing = mainFrameRing;
+        status = new int[statusBlock.getCapacity() + 1];
         
         ioThread = new Thread("VMCommsMain") {
             @OnThread(Tag.Worker)
@@ -187,10 +194,15 @@ public class VMCommsMain implements Closeable
             // is no longer needed, so we just ignore the exception.
         }
         
-        shmFile = null;
-        fc = null;
-        sharedMemoryByte = null;
-        sharedMemory = null;
+        synchronized (this)
+        {
+            shmFile = null;
+            fc = null;
+            sharedMemoryByte = null;
+            useMainFrameRing();
+            deleteOldFrameSegments();
+        }
+        LockSupport.unpark(ioThread);
     }
     
     /**
@@ -226,41 +238,20 @@ public class VMCommsMain implements Closeable
     }
 
     /**
-     * Write commands into the shared memory buffer.
+     * Write as many pending commands as there is space for into the command ring.
+     * 
+     * @return true if any commands were written.
      */
-    private synchronized void writeCommands(List<Command> pendingCommands)
+    private synchronized boolean writeCommands()
     {
-        // Number of commands:
-        int pendingCountPos = sharedMemory.position();
-        sharedMemory.put(pendingCommands.size());
-        
-        int numIssued = 0;
-        for (Command pendingCommand : pendingCommands)
+        boolean wroteAny = false;
+        while (commandsWritten < pendingCommands.size()
+                && commandRing.offer(pendingCommands.get(commandsWritten)))
         {
-            // sequence, type, extra info:
-            int totalLength = pendingCommand.extraInfo.length + 2;
-            if (sharedMemory.position() + totalLength > USER_AREA_OFFSET)
-            {
-                // We can't write all commands in the available buffer:
-                sharedMemory.put(pendingCountPos, numIssued);
-                if (numIssued == 0)
-                {
-                    // I don't imagine this should ever happen, but let's make sure we get
-                    // something meaningful in the log if it does:
-                    throw new RuntimeException("Single command exceeds buffer size");
-                }
-                return;
-            }
-            
-            // Start with sequence ID:
-            sharedMemory.put(pendingCommand.commandSequence);
-            // Put size of this command (measured in integers), including command type:
-            sharedMemory.put(pendingCommand.extraInfo.length + 1);
-            // Then put that many integers:
-            sharedMemory.put(pendingCommand.commandType);
-            sharedMemory.put(pendingCommand.extraInfo);
-            numIssued++;
+            commandsWritten += 1;
+            wroteAny = true;
         }
+        return wroteAny;
     }
     
     /**
@@ -297,14 +288,9 @@ public class VMCommsMain implements Closeable
         
         if (haveUpdatedImage && shouldDraw)
         {
-            // skip: sequence number, last paint sequence, then:
-            IntBuffer copy = sharedMemory.asReadOnlyBuffer();
-            copy.position(USER_AREA_OFFSET + 2);
-            int width = copy.get();
-            int height = copy.get();
-            stage.receivedWorldImage(width, height, copy);
-            haveUpdatedImage = false;
-            lastConsumedImg = lastPaintSeq;
+            // If the frame changed as we read it, we'll still have a frame to read next time:
+            frameRing.consume(stage::receivedWorldImage);
+            haveUpdatedImage = frameRing.hasFrame();
         }
         
         if (haveUpdatedErrorCount)
@@ -322,7 +308,6 @@ public class VMCommsMain implements Closeable
         if (promptCodepoints != null && askId > lastAnswer)
         {
             stage.receivedAsk(askId, promptCodepoints);
-            promptCodepoints = null;
         }
         else
         {
@@ -333,7 +318,6 @@ public class VMCommsMain implements Closeable
             
         checkingIO = false;
         
-        notifyAll(); // wake IO thread
         return vmReadyForInvocations;
     }
 
@@ -344,153 +328,228 @@ public class VMCommsMain implements Closeable
     @OnThread(Tag.Worker)
     private boolean checkIO()
     {
-        FileChannel sharedMemoryLock = this.fc;
-
-        // We are holding the lock for the main put area:
-        sharedMemory.position(1);
-        sharedMemory.put(-lastSeq.get());
-        sharedMemory.put(lastConsumedImg);
-        writeCommands(pendingCommands);
+        boolean didWork;
+        synchronized (this)
+        {
+            if (shmFile == null)
+            {
+                return false;
+            }
+            didWork = writeCommands();
+            didWork |= readStatus();
+            if (!haveUpdatedImage && frameRing.hasFrame())
+            {
+                // The debug VM has painted a new frame for us:
+                haveUpdatedImage = true;
+                didWork = true;
+            }
+        }
         
-        FileLock fileLock = null;
+        backoff.idle(didWork);
+        return true;
+    }
+
+    /**
+     * Read the status block, if the debug VM has updated it.
+     * 
+     * @return true if there was an update.
+     */
+    @OnThread(Tag.Worker)
+    private synchronized boolean readStatus()
+    {
+        int seq = statusBlock.read(lastSeq.get(), status);
+        if (seq == -1)
+        {
+            return false;
+        }
+        lastSeq.set(seq);
+        // Position 0 is the length:
+        int pos = 1;
         
-        try
+        // Get rid of all commands that the client has confirmed it has seen:
+        int lastAckCommand = status[pos++];
+        if (lastAckCommand != -1)
         {
-            putLock.release();
-            fileLock = sharedMemoryLock.lock(USER_AREA_OFFSET_BYTES, fileSize - USER_AREA_OFFSET_BYTES, false);
-            syncLock.release();
-
-            int seq = sharedMemory.get(USER_AREA_OFFSET);
-            if (seq > lastSeq.get())
+            for (Iterator<Command> iterator = pendingCommands.iterator(); iterator.hasNext(); )
             {
-                // The client VM has painted a new frame for us:
-                lastSeq.set(seq);
-
-                synchronized (this)
+                Command pendingCommand = iterator.next();
+                if (pendingCommand.commandSequence <= lastAckCommand)
                 {
-                    sharedMemory.position(USER_AREA_OFFSET + 1);
-                    int paintSeq = sharedMemory.get();
-                    int width = sharedMemory.get();
-                    int height = sharedMemory.get();
-                    if (width != 0 && height != 0 && paintSeq != lastPaintSeq)
-                    {
-                        lastPaintSeq = paintSeq;
-                        haveUpdatedImage = true;
-                    }
-                    sharedMemory.position(sharedMemory.position() + width * height);
-    
-                    // Get rid of all commands that the client has confirmed it has seen:
-                    int lastAckCommand = sharedMemory.get();
-                    if (lastAckCommand != -1)
-                    {
-                        for (Iterator<Command> iterator = pendingCommands.iterator(); iterator.hasNext(); )
-                        {
-                            Command pendingCommand = iterator.next();
-                            if (pendingCommand.commandSequence <= lastAckCommand)
-                            {
-                                if(pendingCommand.commandType == COMMAND_SET_SPEED)
-                                {
-                                    setSpeedCommandCount = setSpeedCommandCount - 1;
-                                }
-                                iterator.remove();
-                            }
-                        }
-                    }
-                    
-                    // If there's a new error, show the terminal at the front so that the user sees it: 
-                    int latestStoppedWithErrorCount = sharedMemory.get();
-                    if (latestStoppedWithErrorCount != previousStoppedWithErrorCount)
-                    {
-                        //stage.bringTerminalToFront();
-                        previousStoppedWithErrorCount = latestStoppedWithErrorCount;
-                        haveUpdatedErrorCount = true;
-                    }
-                    
-                    int highTime = sharedMemory.get();
-                    int lowTime = sharedMemory.get();
-                    lastExecStartTime = (((long)highTime) << 32) | ((long)lowTime & 0xFFFFFFFFL);
-    
-                    int simSpeed = sharedMemory.get();
-                    // Only send the new speed value if the pendingCommands does not include setSpeed commands
-                    if (setSpeedCommandCount == 0)
-                    {
-                        updatedSimulationSpeed = simSpeed;
-                    }
-    
-                    int worldCounter = sharedMemory.get();
-                    // If the new counter is different (zero/non-zero change, or incremented),
-                    // store that into our fields:
-                    if (worldCounter != prevWorldCounter)
+                    if(pendingCommand.commandType == COMMAND_SET_SPEED)
                     {
-                        worldChanged = true;
-                        worldPresentAfterChange = worldCounter != 0;
-                        prevWorldCounter = worldCounter;
+                        setSpeedCommandCount = setSpeedCommandCount - 1;
                     }
-                    
-                    worldCellSize = sharedMemory.get();
-                    
-                    int askId = sharedMemory.get();
-                    if (askId > 0)
-                    {
-                        if (askId > lastAnswer)
-                            this.askId = askId;
-                        // Length followed by codepoints for the prompt string:
-                        int askLength = sharedMemory.get();
-                        promptCodepoints = new int[askLength];
-                        sharedMemory.get(promptCodepoints);
-                    }
-
-                    int delayLoopStatus = sharedMemory.get();
-                    delayLoop = delayLoopStatus == 1;
-                    int vmReadyStatus = sharedMemory.get();
-                    vmReadyForInvocations = vmReadyStatus == 1;
+                    iterator.remove();
+                    commandsWritten -= 1;
                 }
             }
         }
-        catch (IOException ex)
+        
+        // If there's a new error, show the terminal at the front so that the user sees it: 
+        int latestStoppedWithErrorCount = status[pos++];
+        if (latestStoppedWithErrorCount != previousStoppedWithErrorCount)
+        {
+            previousStoppedWithErrorCount = latestStoppedWithErrorCount;
+            haveUpdatedErrorCount = true;
+        }
+        
+        int highTime = status[pos++];
+        int lowTime = status[pos++];
+        lastExecStartTime = (((long)highTime) << 32) | ((long)lowTime & 0xFFFFFFFFL);
+
+        int simSpeed = status[pos++];
+        // Only send the new speed value if the pendingCommands does not include setSpeed commands
+        if (setSpeedCommandCount == 0)
+        {
+            updatedSimulationSpeed = simSpeed;
+        }
+
+        int worldCounter = status[pos++];
+        // If the new counter is different (zero/non-zero change, or incremented),
+        // store that into our fields:
+        if (worldCounter != prevWorldCounter)
+        {
+            worldChanged = true;
+            worldPresentAfterChange = worldCounter != 0;
+            prevWorldCounter = worldCounter;
+        }
+        
+        worldCellSize = status[pos++];
+        
+        int delayLoopStatus = status[pos++];
+        delayLoop = delayLoopStatus == 1;
+        int vmReadyStatus = status[pos++];
+        vmReadyForInvocations = vmReadyStatus == 1;
+        
+        int requestedFrameRingSize = status[pos++];
+        int switchedFrameSegmentGeneration = status[pos++];
+        if (switchedFrameSegmentGeneration == frameSegmentGeneration)
+        {
+            deleteOldFrameSegments();
+        }
+        if (requestedFrameRingSize == 0)
         {
-            Debug.reportError(ex);
+            handledFrameRingRequest = 0;
         }
-        catch (IllegalArgumentException ex)
+        else if (requestedFrameRingSize != handledFrameRingRequest)
         {
-            // Happens when world size is too large: swallow quietly, as will happen repeatedly.
-            // The exception will be reported to the user from the debug VM side.
+            handledFrameRingRequest = requestedFrameRingSize;
+            switchFrameSegment(requestedFrameRingSize);
         }
-        finally
+        
+        int askId = status[pos++];
+        if (askId > 0)
         {
-            // Re-acquire the put-area lock (A), and then release the get-area lock (B)
-            // before re-acquiring the sync lock (C):
+            if (askId > lastAnswer)
+                this.askId = askId;
+            // Length followed by codepoints for the prompt string:
+            int askLength = status[pos++];
+            promptCodepoints = Arrays.copyOfRange(status, pos, pos + askLength);
+        }
+        else
+        {
+            // The status is only sent when it changes, so we keep the prompt until the ask is over:
+            promptCodepoints = null;
+        }
+        return true;
+    }
+    
+    /**
+     * Switch to a frame ring of (at least) the given size, and tell the debug VM to do the same.
+     * The frame ring in the main file is used if it is large enough, otherwise a new frame
+     * segment file is created.  Any frames which the debug VM publishes before it switches
+     * may be lost, but once it has switched it publishes its latest frame again (if it
+     * has not painted a newer one).
+     */
+    @OnThread(Tag.Worker)
+    private synchronized void switchFrameSegment(int requestedSize)
+    {
+        File newFile = null;
+        FrameRing newRing;
+        if (requestedSize <= mainFrameRing.size())
+        {
+            newRing = mainFrameRing;
+            // Don't show any frame left from when the main file was last in use:
+            newRing.discard();
+        }
+        else
+        {
+            int size = (int)Math.min(FrameRing.MAX_SIZE,
+                    (long)requestedSize + requestedSize / FRAME_SEGMENT_HEADROOM_DIVISOR);
             try
             {
-                putLock = fc.lock(SERVER_AREA_OFFSET_BYTES, SERVER_AREA_SIZE_BYTES, false);
-                if (fileLock != null)
+                newFile = File.createTempFile("greenfoot", "frames");
+                newFile.deleteOnExit();
+                try (FileChannel segmentChannel = new RandomAccessFile(newFile, "rw").getChannel())
                 {
-                    fileLock.release();
+                    // The mapping remains valid after the channel is closed:
+                    newRing = new FrameRing(new SharedMemory(segmentChannel.map(MapMode.READ_WRITE, 0, size * 4L)), 0, size);
                 }
-                syncLock = fc.lock(SYNC_AREA_OFFSET_BYTES, SYNC_AREA_SIZE_BYTES, false);
             }
-            catch (IOException ex)
+            catch (IOException e)
             {
-                Debug.reportError(ex);
+                Debug.reportError("Could not create frame segment of size " + size, e);
+                if (newFile != null)
+                {
+                    newFile.delete();
+                }
+                return;
             }
         }
         
+        if (frameSegmentFile != null)
+        {
+            oldFrameSegmentFiles.add(frameSegmentFile);
+        }
+        frameSegmentFile = newFile;
+        frameRing = newRing;
+        haveUpdatedImage = false;
+        frameSegmentGeneration += 1;
         
-        // To avoid consuming close to 100% CPU, we wait on the animation timer:
-        synchronized (this)
+        // Generation, size, then path:
+        int[] path = newFile == null ? new int[0] : newFile.getAbsolutePath().codePoints().toArray();
+        int[] data = new int[2 + path.length];
+        data[0] = frameSegmentGeneration;
+        data[1] = newRing.size();
+        System.arraycopy(path, 0, data, 2, path.length);
+        addCommand(new Command(COMMAND_FRAME_SEGMENT, data));
+    }
+    
+    /**
+     * Go back to using the frame ring in the main file, without telling the debug VM
+     * (because it has terminated, or we are closing).
+     */
+    private synchronized void useMainFrameRing()
+    {
+        if (frameSegmentFile != null)
         {
-            try
-            {
-                workerWaiting = true;
-                wait();
-                workerWaiting = false;
-            }
-            catch (InterruptedException ie)
-            {
-                // Nothing needs to be done.
-            }
-            return shmFile != null;
+            oldFrameSegmentFiles.add(frameSegmentFile);
+            frameSegmentFile = null;
+        }
+        frameRing = mainFrameRing;
+        handledFrameRingRequest = 0;
+    }
+    
+    /**
+     * Delete any frame segment files which are no longer in use.  If a file cannot be deleted
+     * yet (on Windows, because it is still mapped) it will be deleted on exit.
+     */
+    private synchronized void deleteOldFrameSegments()
+    {
+        for (File oldFile : oldFrameSegmentFiles)
+        {
+            oldFile.delete();
         }
+        oldFrameSegmentFiles.clear();
+    }
+    
+    /**
+     * Add a command to be sent, and wake the IO thread to send it.
+     */
+    private synchronized void addCommand(Command command)
+    {
+        pendingCommands.add(command);
+        LockSupport.unpark(ioThread);
     }
     
     /**
@@ -498,7 +557,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void instantiateWorld(String className)
     {
-        pendingCommands.add(new Command(COMMAND_INSTANTIATE_WORLD, className.codePoints().toArray()));
+        addCommand(new Command(COMMAND_INSTANTIATE_WORLD, className.codePoints().toArray()));
     }
     
     /**
@@ -506,7 +565,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void discardWorld()
     {
-        pendingCommands.add(new Command(COMMAND_DISCARD_WORLD));
+        addCommand(new Command(COMMAND_DISCARD_WORLD));
     }
     
     /**
@@ -515,7 +574,7 @@ public class VMCommsMain implements Closeable
     public synchronized void sendAnswer(int askIdBeingAnswered, String answer)
     {
         Command answerCommand = new Command(COMMAND_ANSWERED, answer.codePoints().toArray());
-        pendingCommands.add(answerCommand);
+        addCommand(answerCommand);
         // Remember that we've now answered:
         lastAnswer = askIdBeingAnswered;
     }
@@ -534,7 +593,7 @@ public class VMCommsMain implements Closeable
         System.arraycopy(keyCodepoints, 0, combined, 1, keyCodepoints.length);
         combined[1 + keyCodepoints.length] = value == null ? -1 : valueCodepoints.length;
         System.arraycopy(valueCodepoints, 0, combined, 2 + keyCodepoints.length, valueCodepoints.length);
-        pendingCommands.add(new Command(COMMAND_PROPERTY_CHANGED, combined));
+        addCommand(new Command(COMMAND_PROPERTY_CHANGED, combined));
     }
     
     /**
@@ -542,7 +601,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void act()
     {
-        pendingCommands.add(new Command(COMMAND_ACT));
+        addCommand(new Command(COMMAND_ACT));
     }
     
     /**
@@ -550,7 +609,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void runSimulation()
     {
-        pendingCommands.add(new Command(COMMAND_RUN));
+        addCommand(new Command(COMMAND_RUN));
     }
 
     /**
@@ -558,7 +617,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void pauseSimulation()
     {
-        pendingCommands.add(new Command(COMMAND_PAUSE));
+        addCommand(new Command(COMMAND_PAUSE));
     }
     
     /**
@@ -569,7 +628,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void continueDrag(int dragId, int x, int y)
     {
-        pendingCommands.add(new Command(COMMAND_CONTINUE_DRAG, dragId, x, y));
+        addCommand(new Command(COMMAND_CONTINUE_DRAG, dragId, x, y));
     }
     
     /**
@@ -577,7 +636,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void endDrag(int dragId)
     {
-        pendingCommands.add(new Command(COMMAND_END_DRAG, dragId));
+        addCommand(new Command(COMMAND_END_DRAG, dragId));
     }
     
     /**
@@ -596,7 +655,7 @@ public class VMCommsMain implements Closeable
         data[0] = keyCode.ordinal();
         System.arraycopy(textCodePoints, 0, data, 1, textCodePoints.length);
         
-        pendingCommands.add(new Command(eventType, data));
+        addCommand(new Command(eventType, data));
     }
     
     /**
@@ -610,7 +669,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void sendMouseEvent(int eventType, int x, int y, int button, int clickCount)
     {
-        pendingCommands.add(new Command(eventType, x, y, button, clickCount));
+        addCommand(new Command(eventType, x, y, button, clickCount));
     }
 
     /**
@@ -620,7 +679,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void setSimulationSpeed(int speed)
     {
-        pendingCommands.add(new Command(COMMAND_SET_SPEED, speed));
+        addCommand(new Command(COMMAND_SET_SPEED, speed));
         // Keeps track of how many setSpeed commands exist in the pendingCommand list.
         // This is useful to avoid speedSlider jittering movement.
         setSpeedCommandCount = setSpeedCommandCount + 1;
@@ -633,37 +692,59 @@ public class VMCommsMain implements Closeable
     @OnThread(Tag.VMEventHandler)
     public synchronized void vmTerminated()
     {
-        // We should only interfere with the worker thread's state if it's currently in its waiting phase:
-        while (!workerWaiting)
-        {
-            try
-            {
-                wait();
-            }
-            catch (InterruptedException e)
-            {
-            }
-        }
+        // The IO thread only accesses the shared memory while synchronized, so it is safe to reset:
         lastSeq.addAndGet(1000);
         pendingCommands.clear();        
+        commandsWritten = 0;
+        haveUpdatedImage = false;
         setSpeedCommandCount = 0;
         lastAnswer = -1;
         previousStoppedWithErrorCount = 0;
         prevWorldCounter = 0;
+        recordingFrames = false;
+        // The next debug VM will start with the frame ring in the main file:
+        useMainFrameRing();
+        deleteOldFrameSegments();
         
-        // Zero the buffer:
-        sharedMemoryByte.position(0);
-        sharedMemoryByte.put(new byte[fileSize], 0, fileSize);
+        // Zero the buffer, which empties the command and frame rings:
+        sharedMemory.clear();
         vmReadyForInvocations = false;
     }
 
+    /**
+     * Start recording the world frames to the given file (see FrameRecorder).
+     */
+    public synchronized void startRecordingFrames(File file)
+    {
+        addCommand(new Command(COMMAND_RECORD_FRAMES_START, file.getAbsolutePath().codePoints().toArray()));
+        recordingFrames = true;
+    }
+
+    /**
+     * Stop recording the world frames.
+     */
+    public synchronized void stopRecordingFrames()
+    {
+        addCommand(new Command(COMMAND_RECORD_FRAMES_STOP));
+        recordingFrames = false;
+    }
+
+    /**
+     * Check whether the world frames are being recorded.  Recording stops if the debug VM
+     * terminates.
+     */
+    public synchronized boolean isRecordingFrames()
+    {
+        return recordingFrames;
+    }
+
     /**
      * The world display has gained or lost focus
      * @param focused true if the world display gained focus, false if it lost focus
      */
     public synchronized void worldFocusChanged(boolean focused)
     {
-        pendingCommands.add(new Command(focused ? COMMAND_WORLD_FOCUS_GAINED : COMMAND_WORLD_FOCUS_LOST));
+        addCommand(new Command(focused ? COMMAND_WORLD_FOCUS_GAINED : COMMAND_WORLD_FOCUS_LOST));
     }
 
     /**
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018,2019,2021  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018,2019,2021,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -30,6 +30,7 @@ import greenfoot.core.WorldHandler;
 import greenfoot.gui.WorldRenderer;
 import greenfoot.gui.input.KeyboardManager;
 import greenfoot.gui.input.mouse.MousePollingManager;
+import greenfoot.record.FrameRecorder;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
 import threadchecker.OnThread;
@@ -37,17 +38,16 @@ import threadchecker.Tag;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.BufferOverflowException;
-import java.nio.IntBuffer;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.util.Arrays;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Lives on the Simulation VM (aka debug VM), and handles communications with the server
@@ -78,65 +78,61 @@ public class VMCommsSimulation
 
     private final ShadowProjectProperties projectProperties;
     
+    // We ask for a smaller frame segment once the one in use is this many times larger than needed:
+    private static final int SHRINK_FACTOR = 4;
+    
     /**
      * Shared memory documentation (this comment may get moved to somewhere more appropriate later).
      *
-     * The shared memory consists of two successive lumps of memory. One is used by the server VM to
-     * transmit data, and the other is used by the debug VM for the same purpose. File locks protect
-     * both regions to prevent (in cases where it matters) either side from reading a potentially
-     * incomplete data frame while the other side is still writing it. The locking protocol is
-     * described in VMCommsMain.
-     * 
-     * Its format is as follows, where each position is an integer position (i.e. bytes times four):
-     * 
-     * Server area (16kb):
-     * Pos 0: Reserved. Currently this region is locked independently; the "real" server area starts
-     *        following this position.
-     * Pos 1: When the number is negative, it indicates that the server VM has sent back
-     *        information to the debug VM to read.  This includes keyboard and mouse events,
-     *        as shown below.
-     * Pos 2: The last consumed image frame received from the debug VM. Note that the debug VM
-     *        should not update the image in the buffer until the current image is consumed
-     *        (otherwise there may be paint artifacts such as tearing). 
-     * Pos 3: Count of commands (C), can be zero
-     * Pos 4 onwards:
-     *        Commands.  Each command begins with an integer sequence ID, then has
-     *        an integer length (L), followed by L integers (L >= 1).
-     *        The first integer of the L integers is always the
-     *        command type, and the amount of other integers depend on the command.  For example,
-     *        GreenfootStage.COMMAND_RUN just has the command type integer and no more, whereas
-     *        mouse events have four integers.
+     * The shared memory is laid out as described in VMCommsMain.  The server VM sends commands
+     * through the command ring.  Each command is a sequence ID, the command type, then
+     * any other integers depending on the command.  For example, GreenfootStage.COMMAND_RUN
+     * just has the command type integer and no more, whereas mouse events have four integers.
+     * World images are sent to the server VM through the frame ring.
      *
-     * Debug VM area (10M - 16kb): [Positions relative to beginning]
-     * 
-     * Pos 0: Sequence index when the current (included) image was painted (the image is included
-     *        unchanged in subsequent frames).
-     * Pos 1: Width of world image in pixels (W)
-     * Pos 2: Height of world image in pixels (H)
-     * Pos 3 incl to 3+(W*H) excl, if W and H are both greater than zero:
-     *        W * H pixels one row at a time with no gaps, each pixel is one
-     *        integer, in BGRA form, i.e. blue is highest 8 bits, alpha is lowest.
-     * Pos 3+(W*H): Sequence ID of most recently processed command, or -1 if N/A.
-     * Pos 4+(W*H): Stopped-with-error count.  (If this goes up, server VM will bring terminal to front)
-     * Pos 5+(W*H) and 6+(W*H): Two ints (highest bits first) with value of System.currentTimeMillis()
-     *                          at the point when some execution that may contain user code last started on
-     *                          the simulation thread, or 0L if user code is not currently running.
-     * Pos 7+(W*H): The current simulation speed (1 to 100)
-     * Pos 8+(W*H): world counter if a world is currently installed, or 0 if there is no world.
-     * Pos 9+(W*H): The world cell size in pixels
-     * Pos 10+(W*H): -1 if not currently awaiting a Greenfoot.ask() answer.
-     *              If awaiting, it is count (P) of following codepoints which make up prompt.
-     * Pos 11+(W*H) to 11+(W*H)+P excl: codepoints making up ask prompt.
-     * Pos 11+(W*H)+P: 1 if the the delay loop is currently running, or 0 otherwise.
+     * The status block is written whenever its contents change, and holds:
+     *
+     * Pos 0: Sequence ID of most recently processed command, or -1 if N/A.
+     * Pos 1: Stopped-with-error count.  (If this goes up, server VM will bring terminal to front)
+     * Pos 2 and 3: Two ints (highest bits first) with value of System.currentTimeMillis()
+     *              at the point when some execution that may contain user code last started on
+     *              the simulation thread, or 0L if user code is not currently running.
+     * Pos 4: The current simulation speed (1 to 100)
+     * Pos 5: world counter if a world is currently installed, or 0 if there is no world.
+     * Pos 6: The world cell size in pixels
+     * Pos 7: 1 if the the delay loop is currently running, or 0 otherwise.
+     * Pos 8: 1 if the VM is ready for invocations, or 0 otherwise.
+     * Pos 9: The size of frame ring needed for the current world image, if the current frame ring
+     *        is too small (or much too large) for it, or 0 otherwise.  See VMCommsMain.
+     * Pos 10: The generation of the frame segment most recently switched to.
+     * Pos 11: -1 if not currently awaiting a Greenfoot.ask() answer, otherwise the ask ID.
+     * Pos 12: If awaiting, the count (P) of following codepoints which make up the prompt.
+     * Pos 13 to 13+P excl: codepoints making up ask prompt.
      */
-    private final IntBuffer sharedMemory;
-    private int seq = 1;
-    private final FileChannel shmFileChannel;
-    private FileLock putLock;
+    private final SharedMemory sharedMemory;
+    private final CommandRing commandRing;
+    private final SeqLockBlock statusBlock;
+    // The frame ring in the main file:
+    private final FrameRing mainFrameRing;
+    // The frame ring in use, either mainFrameRing or one in a frame segment sent by the server VM:
+    private FrameRing frameRing;
+    private int frameSegmentGeneration = 0;
+    // The frame ring size we have asked the server VM for (0 if none):
+    private int requestedFrameRingSize = 0;
+    // A copy of the frame most recently published, kept while we wait to switch to a smaller
+    // frame ring (as a frame published to the old ring may not be seen), else null:
+    private int[] frameToRepublish;
+    private int frameToRepublishWidth;
+    private int frameToRepublishHeight;
+    private final Thread commsThread;
+    private final Backoff backoff = new Backoff();
     private long lastPaintNanos = System.nanoTime();
+    // The status most recently written, and the status being prepared:
+    private int[] lastStatus = new int[0];
+    private final int[] status;
     private int lastAckCommand = -1;
-    private int lastPaintSeq = -1; // last paint sequence
-    private int lastPaintSize; // number of ints last transmitted as image
+    // The pixel count of a world image too large to send at all, if we have told the user about it:
+    private int reportedTooLarge = -1;
     
     // How many times have we stopped with an error?  We continuously send the count to the
     // server VM, so that the server VM can observe changes in the count (only ever increases).
@@ -146,47 +142,52 @@ public class VMCommsSimulation
     // A strictly incrementing counter, incremented each time the world changes.
     private int worldCounter = 0;
     private World world;
-    // Size of the shared memory file
-    private final int fileSize;
     private final AtomicBoolean userVMReadyForInvocations = new AtomicBoolean(false);
+    // The recorder to pass painted frames to, if recording:
+    private volatile FrameRecorder frameRecorder;
 
     /**
      * Construct a VMCommsSimulation.
      * 
      * @param world The world which we are the canvas for.
      * @param shmFilePath The path to the shared-memory file to be mmap-ed for communication
+     * @param seqStart The sequence number to start the status block at; must be at least the
+     *                 last one seen by the server VM.
      */
     @SuppressWarnings("resource")
     @OnThread(Tag.Any)
     public VMCommsSimulation(ShadowProjectProperties projectProperties, String shmFilePath, int fileSize, int seqStart)
     {
         this.projectProperties = projectProperties;
-        this.seq = seqStart;
         worldRenderer = new WorldRenderer();
-        try
+        try (FileChannel shmFileChannel = new RandomAccessFile(shmFilePath, "rw").getChannel())
         {
-            shmFileChannel = new RandomAccessFile(shmFilePath, "rw").getChannel();
-            this.fileSize = fileSize;
-            MappedByteBuffer mbb = shmFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
-            sharedMemory = mbb.asIntBuffer();
-            putLock = shmFileChannel.lock(VMCommsMain.USER_AREA_OFFSET_BYTES,
-                    fileSize - VMCommsMain.USER_AREA_OFFSET_BYTES, false);
-            
-            new Thread("VMCommsSimulation") {
-                @OnThread(value = Tag.Worker,ignoreParent = true)
-                public void run()
-                {
-                    while (true)
-                    {
-                        doInterVMComms();
-                    }
-                }
-            }.start();
+            // The mapping remains valid after the channel is closed:
+            sharedMemory = new SharedMemory(shmFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize));
         }
         catch (IOException e)
         {
             throw new RuntimeException(e);
         }
+        commandRing = new CommandRing(sharedMemory, VMCommsMain.COMMAND_RING_OFFSET, VMCommsMain.COMMAND_RING_CAPACITY);
+        statusBlock = new SeqLockBlock(sharedMemory, VMCommsMain.STATUS_OFFSET, VMCommsMain.STATUS_SIZE);
+        mainFrameRing = new FrameRing(sharedMemory, VMCommsMain.FRAME_RING_OFFSET, sharedMemory.size() - VMCommsMain.FRAME_RING_OFFSET);
+        frameRing = mainFrameRing;
+        status = new int[statusBlock.getCapacity()];
+        statusBlock.startAt(seqStart);
+        
+        commsThread = new Thread("VMCommsSimulation") {
+            @OnThread(value = Tag.Worker,ignoreParent = true)
+            public void run()
+            {
+                while (true)
+                {
+                    doInterVMComms();
+                }
+            }
+        };
+        commsThread.setDaemon(true);
+        commsThread.start();
     }
     
     /**
@@ -201,11 +202,22 @@ public class VMCommsSimulation
             this.worldCounter += 1;
             this.world = world;
         }
+        wake();
     }
 
     public void markVMReady()
     {
         userVMReadyForInvocations.set(true);
+        wake();
+    }
+
+    /**
+     * Wake the communications thread, because there is something new to send.
+     */
+    @OnThread(Tag.Any)
+    private void wake()
+    {
+        LockSupport.unpark(commsThread);
     }
 
     public static enum PaintWhen { FORCE, IF_DUE }
@@ -244,6 +256,12 @@ public class VMCommsSimulation
             
             worldRenderer.renderWorld(world, worldImage);
             
+            FrameRecorder recorder = frameRecorder;
+            if (recorder != null)
+            {
+                recorder.record(worldImage, Simulation.getInstance().getActCount(), worldImagesForPainting);
+            }
+            
             BufferedImage oldImage = worldImageForSending.getAndSet(worldImage);
             // If there was an old image waiting which we've overwritten, put it back in our queue of old images:
             if (oldImage != null)
@@ -251,6 +269,7 @@ public class VMCommsSimulation
                 worldImagesForPainting.offer(oldImage);
                 // If it doesn't fit because the queue is full, just let it get GCed.
             }
+            wake();
         }
     }
 
@@ -260,6 +279,7 @@ public class VMCommsSimulation
         pAskPrompt = askPrompt;
         pAskId = askId;
         askAnswer = null;
+        wake();
         
         try
         {
@@ -278,168 +298,214 @@ public class VMCommsSimulation
     }
     
     /**
-     * Perform communications exchange with the other VM.
+     * Perform communications exchange with the other VM: process any commands received,
+     * send a new frame if one is waiting and there is room for it, and update the status
+     * if it has changed.  Then wait, for a time depending on how busy we are.
      */
     @OnThread(Tag.Worker)
     private void doInterVMComms()
     {
-        // One element array to allow a reference to be set by readCommands:
+        // One element array to allow a reference to be set by readCommand:
         String[] answer = new String[] {null};
+        boolean didWork = false;
         
-        FileLock fileLock = null;
-        FileLock syncLock = null;
-        
-        try
+        if (Simulation.getInstance() != null)
         {
-            // Get lock for our read area:
-            fileLock = shmFileChannel.lock(VMCommsMain.SERVER_AREA_OFFSET_BYTES,
-                    VMCommsMain.SERVER_AREA_SIZE_BYTES, false);
-
-            boolean doUpdateImage;
-            World curWorld;
-            int curWorldCounter;
-            synchronized (this)
-            {
-                // Don't send double-buffered image if world has since disappeared:
-                doUpdateImage = world != null;
-                curWorld = this.world;
-                curWorldCounter = this.worldCounter;
-            }
-            
-            sharedMemory.position(1);
-            int recvSeq = sharedMemory.get();
-            if (recvSeq < 0 && Simulation.getInstance() != null)
+            for (int[] command = commandRing.poll(); command != null; command = commandRing.poll())
             {
-                int lastConsumedImg = sharedMemory.get();
-                // Only update the image if the previous one was consumed:
-                doUpdateImage &= (lastConsumedImg >= lastPaintSeq);
-                int latest = readCommands(answer);
-                if (latest != -1)
-                {
-                    lastAckCommand = latest;
-                }
+                lastAckCommand = command[0];
+                readCommand(Arrays.copyOfRange(command, 1, command.length), answer);
+                didWork = true;
             }
-            
-            BufferedImage img = doUpdateImage ? worldImageForSending.getAndSet(null) : null;
-            int [] raw = (img == null) ? null : ((DataBufferInt) img.getData().getDataBuffer()).getData();
-
-            int imageWidth = 0;
-            int imageHeight = 0;
+        }
+        
+        boolean doUpdateImage;
+        World curWorld;
+        int curWorldCounter;
+        synchronized (this)
+        {
+            // Don't send double-buffered image if world has since disappeared:
+            doUpdateImage = world != null;
+            curWorld = this.world;
+            curWorldCounter = this.worldCounter;
+        }
+        
+        if (doUpdateImage && frameRing.canPublish())
+        {
+            BufferedImage img = worldImageForSending.getAndSet(null);
             if (img != null)
             {
-                imageWidth = img.getWidth();
-                imageHeight = img.getHeight();
-            }
-            
-            sharedMemory.position(VMCommsMain.USER_AREA_OFFSET);
-            sharedMemory.put(this.seq++);
-            if (img == null)
-            {
-                sharedMemory.put(lastPaintSeq);
-                sharedMemory.get(); // skip width
-                sharedMemory.get(); // skip height
-                sharedMemory.position(sharedMemory.position() + lastPaintSize);
-            }
-            else
-            {
-                lastPaintSeq = (seq - 1);
-                sharedMemory.put(lastPaintSeq);
-                sharedMemory.put(imageWidth);
-                sharedMemory.put(imageHeight);
-                for (int i = 0; i < raw.length; i++)
+                int[] raw = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+                long neededSize = FrameRing.sizeFor(raw.length);
+                if (frameRing.fits(raw.length))
                 {
-                    sharedMemory.put(raw[i]);
+                    frameRing.publish(img.getWidth(), img.getHeight(), raw);
+                    reportedTooLarge = -1;
+                    // If the world has got much smaller, ask for a smaller frame ring so
+                    // that the server VM can free the space.  The server VM may discard
+                    // what is left in the old ring when it switches, so we keep the frame
+                    // to publish again afterwards (in case no more frames are painted):
+                    if (frameRing != mainFrameRing && neededSize * SHRINK_FACTOR < frameRing.size())
+                    {
+                        requestedFrameRingSize = (int)neededSize;
+                        frameToRepublish = Arrays.copyOf(raw, raw.length);
+                        frameToRepublishWidth = img.getWidth();
+                        frameToRepublishHeight = img.getHeight();
+                    }
+                    else
+                    {
+                        frameToRepublish = null;
+                    }
+                    // Now that we've sent it, put it back into the old images for re-use:
+                    worldImagesForPainting.offer(img);
+                    // If it doesn't fit, just let it get GCed.
+                    didWork = true;
                 }
-                lastPaintSize = raw.length;
-                
-                // Now that we've rendered from it, put it back into the old images for re-use:
-                worldImagesForPainting.offer(img);
-                // If it doesn't fit, just let it get GCed.
-            }
-            sharedMemory.put(lastAckCommand);
-            sharedMemory.put(stoppedWithErrorCount);
-            sharedMemory.put((int)(startOfCurExecution >> 32));
-            sharedMemory.put((int)(startOfCurExecution & 0xFFFFFFFFL));
-            if (Simulation.getInstance() != null)
-            {
-                sharedMemory.put(Simulation.getInstance().getSpeed());
-            }
-            else
-            {
-                sharedMemory.put(0);
-            }
-            sharedMemory.put(curWorld == null ? 0 : curWorldCounter);
-            sharedMemory.put(curWorld == null ? 0 : WorldVisitor.getCellSize(curWorld));
-            
-            // If not asking, put -1
-            synchronized (this)
-            {
-                if (pAskPrompt == null || answer[0] != null)
+                else if (neededSize > FrameRing.MAX_SIZE)
                 {
-                    sharedMemory.put(-1);
+                    if (reportedTooLarge != raw.length)
+                    {
+                        reportedTooLarge = raw.length;
+                        // Note: the user will see this message in the terminal, so it should be helpful:
+                        Debug.message("World size is too large to display (" + img.getWidth() + "x" + img.getHeight()
+                            + " pixels).  Please use a smaller world.");
+                    }
+                    worldImagesForPainting.offer(img);
                 }
                 else
                 {
-                    // Asking, so put the ask ID, and the prompt string:
-                    int[] codepoints = pAskPrompt.codePoints().toArray();
-                    sharedMemory.put(pAskId);
-                    sharedMemory.put(codepoints.length);
-                    sharedMemory.put(codepoints);
+                    // Ask the server VM for a larger frame ring, and keep the image to send
+                    // once we have it (unless a newer image has been painted meanwhile):
+                    requestedFrameRingSize = (int)neededSize;
+                    if (!worldImageForSending.compareAndSet(null, img))
+                    {
+                        worldImagesForPainting.offer(img);
+                    }
                 }
-
-                // Write the status of the delay loop
-                sharedMemory.put(delayLoopEntered ? 1 : 0);
-                sharedMemory.put(userVMReadyForInvocations.get() ? 1 : 0);
             }
-
-            putLock.release();
-
-            // Lock the synchronisation area (C) to make sure that the server has acquired our put area:
-            syncLock = shmFileChannel.lock(VMCommsMain.SYNC_AREA_OFFSET_BYTES,
-                    VMCommsMain.SYNC_AREA_SIZE_BYTES, false);
-            
-            fileLock.release();
-            putLock = shmFileChannel.lock(VMCommsMain.USER_AREA_OFFSET_BYTES,
-                    fileSize - VMCommsMain.USER_AREA_OFFSET_BYTES, false);
-            syncLock.release();
         }
-        catch (IOException ex)
+        
+        int pos = 0;
+        status[pos++] = lastAckCommand;
+        status[pos++] = stoppedWithErrorCount;
+        status[pos++] = (int)(startOfCurExecution >> 32);
+        status[pos++] = (int)(startOfCurExecution & 0xFFFFFFFFL);
+        status[pos++] = Simulation.getInstance() != null ? Simulation.getInstance().getSpeed() : 0;
+        status[pos++] = curWorld == null ? 0 : curWorldCounter;
+        status[pos++] = curWorld == null ? 0 : WorldVisitor.getCellSize(curWorld);
+        synchronized (this)
         {
-            try
+            // Write the status of the delay loop
+            status[pos++] = delayLoopEntered ? 1 : 0;
+            status[pos++] = userVMReadyForInvocations.get() ? 1 : 0;
+            status[pos++] = requestedFrameRingSize;
+            status[pos++] = frameSegmentGeneration;
+            
+            // If not asking, put -1
+            if (pAskPrompt == null || answer[0] != null)
             {
-                putLock.release();
+                status[pos++] = -1;
             }
-            catch (Exception e) {}
-            Debug.reportError(ex);
-        }
-        catch (BufferOverflowException ex)
-        {
-            try
+            else
             {
-                putLock.release();
-                if (fileLock != null)
-                {
-                    fileLock.release();
-                }
-                if (syncLock != null)
-                {
-                    syncLock.release();
-                }
+                // Asking, so put the ask ID, and the prompt string (as much as fits):
+                int[] codepoints = pAskPrompt.codePoints().limit(status.length - pos - 2).toArray();
+                status[pos++] = pAskId;
+                status[pos++] = codepoints.length;
+                System.arraycopy(codepoints, 0, status, pos, codepoints.length);
+                pos += codepoints.length;
             }
-            catch (Exception e) {}
-            // Note: the user will see this message in the terminal, so it should be helpful:
-            Debug.message("World size is too large.  If your world contains more than around 2.5 million pixels you will need to do the following.\n"
-                + "Close your project, then edit project.greenfoot in a text editor to add the following line:\n"
-                + "shm.size=40000000\n"
-                + "(The default is 20000000, keep increasing if needed.)  Save the file and re-open the project in Greenfoot.");
+        }
+        
+        if (!Arrays.equals(status, 0, pos, lastStatus, 0, lastStatus.length))
+        {
+            statusBlock.write(status, pos);
+            lastStatus = Arrays.copyOf(status, pos);
+            didWork = true;
         }
             
         if (answer[0] != null)
         {
             gotAskAnswer(answer[0]);
         }
+        
+        backoff.idle(didWork);
     }
     
+    /**
+     * Switch to the frame segment sent by the server VM (see VMCommsMain).
+     *
+     * @param generation The generation of the new segment, to report back to the server VM.
+     * @param size The size of the segment in integers.
+     * @param path The path of the segment file, or the empty string to use the main file.
+     */
+    private void switchFrameSegment(int generation, int size, String path)
+    {
+        if (path.isEmpty())
+        {
+            frameRing = mainFrameRing;
+        }
+        else
+        {
+            try (FileChannel segmentChannel = new RandomAccessFile(path, "rw").getChannel())
+            {
+                // The mapping remains valid after the channel is closed, and the old
+                // segment's mapping is released when its frame ring is garbage collected:
+                frameRing = new FrameRing(new SharedMemory(segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, size * 4L)), 0, size);
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Could not map frame segment " + path, e);
+                // The server VM will read from the new segment regardless, so no frames will
+                // be seen until we next ask for a segment.
+            }
+        }
+        frameSegmentGeneration = generation;
+        requestedFrameRingSize = 0;
+
+        if (frameToRepublish != null)
+        {
+            // A newer frame will be published as usual if one has been painted meanwhile:
+            if (worldImageForSending.get() == null && frameRing.fits(frameToRepublish.length) && frameRing.canPublish())
+            {
+                frameRing.publish(frameToRepublishWidth, frameToRepublishHeight, frameToRepublish);
+            }
+            frameToRepublish = null;
+        }
+    }
+
+    /**
+     * Start recording the frames that are painted to the given file (stopping any
+     * recording already in progress).
+     */
+    private void startRecordingFrames(File file)
+    {
+        stopRecordingFrames();
+        try
+        {
+            frameRecorder = new FrameRecorder(file);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not record frames to " + file, e);
+        }
+        // Record the current state of the world straight away:
+        Simulation.getInstance().runLater(() -> paintRemote(PaintWhen.FORCE));
+    }
+
+    /**
+     * Stop recording frames, if we are, and finish writing the recording.
+     */
+    private void stopRecordingFrames()
+    {
+        FrameRecorder recorder = frameRecorder;
+        if (recorder != null)
+        {
+            frameRecorder = null;
+            recorder.stop();
+        }
+    }
+
     /**
      * An "ask" answer has been received from the other VM; record it and signal the simulation
      * thread.
@@ -451,122 +517,122 @@ public class VMCommsSimulation
     }
 
     /**
-     * Read commands from the server VM.  Eventually, at the end of the Greenfoot
+     * Process a command from the server VM.  Eventually, at the end of the Greenfoot
      * rewrite, this should live elsewhere (probably in WorldHandler or similar).
      *
+     * @param data The command type, followed by any other integers for the command
      * @param answer A one-element array in which to store an ask-answer, if received
-     * @return The command acknowledge to write back to the buffer
      */
-    private int readCommands(String[] answer)
+    private void readCommand(int[] data, String[] answer)
     {
-        int lastSeqID = -1;
-        int commandCount = sharedMemory.get();
-        for (int i = 0; i < commandCount; i++)
+        if (Command.isKeyEvent(data[0]))
         {
-            lastSeqID = sharedMemory.get();
-            int commandLength = sharedMemory.get();
-            int data[] = new int[commandLength];
-            sharedMemory.get(data);
-            if (Command.isKeyEvent(data[0]))
+            KeyboardManager keyboardManager = WorldHandler.getInstance().getKeyboardManager();
+            KeyCode keyCode = KeyCode.values()[data[1]];
+            String keyText = new String(data, 2, data.length - 2);
+            switch(data[0])
             {
-                KeyboardManager keyboardManager = WorldHandler.getInstance().getKeyboardManager();
-                KeyCode keyCode = KeyCode.values()[data[1]];
-                String keyText = new String(data, 2, data.length - 2);
-                switch(data[0])
-                {
-                    case Command.KEY_DOWN:
-                        keyboardManager.keyPressed(keyCode, keyText);
-                        break;
-                    case Command.KEY_UP:
-                        keyboardManager.keyReleased(keyCode, keyText);
-                        break;
-                    case Command.KEY_TYPED:
-                        keyboardManager.keyTyped(keyCode, keyText);
-                        break;
-                }
+                case Command.KEY_DOWN:
+                    keyboardManager.keyPressed(keyCode, keyText);
+                    break;
+                case Command.KEY_UP:
+                    keyboardManager.keyReleased(keyCode, keyText);
+                    break;
+                case Command.KEY_TYPED:
+                    keyboardManager.keyTyped(keyCode, keyText);
+                    break;
             }
-            else if (Command.isMouseEvent(data[0]))
+        }
+        else if (Command.isMouseEvent(data[0]))
+        {
+            int x = data[1];
+            int y = data[2];
+            int button = data[3];
+            int clickCount = data[4];
+            MousePollingManager mouseManager = WorldHandler.getInstance().getMouseManager();
+            switch (data[0])
             {
-                int x = data[1];
-                int y = data[2];
-                int button = data[3];
-                int clickCount = data[4];
-                MousePollingManager mouseManager = WorldHandler.getInstance().getMouseManager();
-                switch (data[0])
-                {
-                    case Command.MOUSE_CLICKED:
-                        mouseManager.mouseClicked(x, y, MouseButton.values()[button], clickCount);
-                        break;
-                    case Command.MOUSE_PRESSED:
-                        mouseManager.mousePressed(x, y, MouseButton.values()[button]);
-                        break;
-                    case Command.MOUSE_RELEASED:
-                        mouseManager.mouseReleased(x, y, MouseButton.values()[button]);
-                        break;
-                    case Command.MOUSE_DRAGGED:
-                        mouseManager.mouseDragged(x, y, MouseButton.values()[button]);
-                        break;
-                    case Command.MOUSE_MOVED:
-                        mouseManager.mouseMoved(x, y);
-                        break;
-                    case Command.MOUSE_EXITED:
-                        mouseManager.mouseExited();
-                        break;
-                }
+                case Command.MOUSE_CLICKED:
+                    mouseManager.mouseClicked(x, y, MouseButton.values()[button], clickCount);
+                    break;
+                case Command.MOUSE_PRESSED:
+                    mouseManager.mousePressed(x, y, MouseButton.values()[button]);
+                    break;
+                case Command.MOUSE_RELEASED:
+                    mouseManager.mouseReleased(x, y, MouseButton.values()[button]);
+                    break;
+                case Command.MOUSE_DRAGGED:
+                    mouseManager.mouseDragged(x, y, MouseButton.values()[button]);
+                    break;
+                case Command.MOUSE_MOVED:
+                    mouseManager.mouseMoved(x, y);
+                    break;
+                case Command.MOUSE_EXITED:
+                    mouseManager.mouseExited();
+                    break;
             }
-            else
+        }
+        else
+        {
+            // Commands which are not keyboard or mouse events:
+            switch (data[0])
             {
-                // Commands which are not keyboard or mouse events:
-                switch (data[0])
-                {
-                    case Command.COMMAND_RUN:
-                        Simulation.getInstance().setPaused(false);
-                        break;
-                    case Command.COMMAND_PAUSE:
-                        Simulation.getInstance().setPaused(true);
-                        break;
-                    case Command.COMMAND_ACT:
-                        Simulation.getInstance().runOnce();
-                        break;
-                    case Command.COMMAND_INSTANTIATE_WORLD:
-                        String className = new String(data, 1, data.length - 1);
-                        WorldHandler.getInstance().instantiateNewWorld(className);
-                        break;
-                    case Command.COMMAND_DISCARD_WORLD:
-                        WorldHandler.getInstance().discardWorld();
-                        break;
-                    case Command.COMMAND_CONTINUE_DRAG:
-                        // Will be drag-ID, X, Y:
-                        WorldHandler.getInstance().continueDragging(data[1], data[2], data[3]);
-                        break;
-                    case Command.COMMAND_END_DRAG:
-                        // Will be drag-ID:
-                        WorldHandler.getInstance().finishDrag(data[1]);
-                        break;
-                    case Command.COMMAND_ANSWERED:
-                        // Store the codepoints we received:
-                        answer[0] = new String(data, 1, data.length - 1);
-                        break;
-                    case Command.COMMAND_PROPERTY_CHANGED:
-                        int keyLength = data[1];
-                        String key = new String(data, 2, keyLength);
-                        int valueLength = data[2+keyLength];
-                        String value = valueLength < 0 ? null : new String(data, 3 + keyLength, valueLength);
-                        projectProperties.propertyChangedOnServerVM(key, value);
-                        break;
-                    case Command.COMMAND_SET_SPEED:
-                        Simulation.getInstance().setSpeed(data[1]);
-                        break;
-                    case Command.COMMAND_WORLD_FOCUS_GAINED:
-                        WorldHandler.getInstance().worldFocusChanged(true);
-                        break;
-                    case Command.COMMAND_WORLD_FOCUS_LOST:
-                        WorldHandler.getInstance().worldFocusChanged(false);
-                        break;
-                }
+                case Command.COMMAND_RUN:
+                    Simulation.getInstance().setPaused(false);
+                    break;
+                case Command.COMMAND_PAUSE:
+                    Simulation.getInstance().setPaused(true);
+                    break;
+                case Command.COMMAND_ACT:
+                    Simulation.getInstance().runOnce();
+                    break;
+                case Command.COMMAND_INSTANTIATE_WORLD:
+                    String className = new String(data, 1, data.length - 1);
+                    WorldHandler.getInstance().instantiateNewWorld(className);
+                    break;
+                case Command.COMMAND_DISCARD_WORLD:
+                    WorldHandler.getInstance().discardWorld();
+                    break;
+                case Command.COMMAND_CONTINUE_DRAG:
+                    // Will be drag-ID, X, Y:
+                    WorldHandler.getInstance().continueDragging(data[1], data[2], data[3]);
+                    break;
+                case Command.COMMAND_END_DRAG:
+                    // Will be drag-ID:
+                    WorldHandler.getInstance().finishDrag(data[1]);
+                    break;
+                case Command.COMMAND_ANSWERED:
+                    // Store the codepoints we received:
+                    answer[0] = new String(data, 1, data.length - 1);
+                    break;
+                case Command.COMMAND_PROPERTY_CHANGED:
+                    int keyLength = data[1];
+                    String key = new String(data, 2, keyLength);
+                    int valueLength = data[2+keyLength];
+                    String value = valueLength < 0 ? null : new String(data, 3 + keyLength, valueLength);
+                    projectProperties.propertyChangedOnServerVM(key, value);
+                    break;
+                case Command.COMMAND_SET_SPEED:
+                    Simulation.getInstance().setSpeed(data[1]);
+                    break;
+                case Command.COMMAND_WORLD_FOCUS_GAINED:
+                    WorldHandler.getInstance().worldFocusChanged(true);
+                    break;
+                case Command.COMMAND_WORLD_FOCUS_LOST:
+                    WorldHandler.getInstance().worldFocusChanged(false);
+                    break;
+                case Command.COMMAND_FRAME_SEGMENT:
+                    // Will be generation, size, then the path:
+                    switchFrameSegment(data[1], data[2], new String(data, 3, data.length - 3));
+                    break;
+                case Command.COMMAND_RECORD_FRAMES_START:
+                    startRecordingFrames(new File(new String(data, 1, data.length - 1)));
+                    break;
+                case Command.COMMAND_RECORD_FRAMES_STOP:
+                    stopRecordingFrames();
+                    break;
             }
         }
-        return lastSeqID;
     }
 
     /**
@@ -0,0 +1,165 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+
+import greenfoot.GreenfootImage;
+import greenfoot.TestUtilDelegate;
+import greenfoot.util.GreenfootUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the GIF decoding of GifImage (from the classes copied into scenarios),
+ * against frames read by ImageIO.
+ */
+public class GifImageTest extends TestCase
+{
+    /**
+     * A 10x9 GIF with five frames: a full background (left in place), a partly transparent
+     * frame (restored to previous), an interlaced partly transparent frame (restored to
+     * background), a frame with no disposal specified, and one with no graphic control
+     * extension.
+     */
+    private static final String TEST_GIF = "gifimage-test.gif";
+    
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        GreenfootUtil.initialise(new TestUtilDelegate());
+    }
+    
+    public void testFramesMatchImageIO()
+        throws Exception
+    {
+        List<int[]> expected = readWithImageIO();
+        assertEquals(5, expected.size());
+        
+        List<GreenfootImage> images = new GifImage(TEST_GIF).getImages();
+        assertEquals(expected.size(), images.size());
+        for (int i = 0; i < images.size(); i++) {
+            GreenfootImage image = images.get(i);
+            assertEquals(10, image.getWidth());
+            assertEquals(9, image.getHeight());
+            int[] pixels = new int[10 * 9];
+            image.getPixels(0, 0, 10, 9, pixels, 0, 10);
+            for (int p = 0; p < pixels.length; p++) {
+                assertEquals("Frame " + i + " at (" + (p % 10) + "," + (p / 10) + ")", 
+                        Integer.toHexString(expected.get(i)[p]), Integer.toHexString(pixels[p]));
+            }
+        }
+    }
+    
+    public void testDisposal()
+        throws Exception
+    {
+        List<GreenfootImage> images = new GifImage(TEST_GIF).getImages();
+        // Frame 1 is restored to the previous frame, so (7,7) is back to the first frame's colour:
+        assertFalse(images.get(0).getColorAt(7, 7).equals(images.get(1).getColorAt(7, 7)));
+        assertEquals(images.get(0).getColorAt(7, 7), images.get(2).getColorAt(7, 7));
+        // Frame 2 is restored to background, which (like browsers) we make transparent:
+        assertEquals(255, images.get(2).getColorAt(1, 0).getAlpha());
+        assertEquals(0, images.get(3).getColorAt(1, 0).getAlpha());
+        assertEquals(0, images.get(4).getColorAt(1, 0).getAlpha());
+        // But not where later frames have drawn over it:
+        assertEquals(255, images.get(3).getColorAt(1, 3).getAlpha());
+    }
+    
+    public void testCopiesShareFrames()
+    {
+        GifImage gif = new GifImage(TEST_GIF);
+        List<GreenfootImage> copied = new GifImage(gif).getImages();
+        assertEquals(gif.getImages(), copied);
+        
+        // Loading the file again gives new images, with the same content:
+        List<GreenfootImage> reloaded = new GifImage(TEST_GIF).getImages();
+        int[] original = new int[10 * 9];
+        int[] loaded = new int[10 * 9];
+        for (int i = 0; i < reloaded.size(); i++) {
+            assertNotSame(copied.get(i), reloaded.get(i));
+            copied.get(i).getPixels(0, 0, 10, 9, original, 0, 10);
+            reloaded.get(i).getPixels(0, 0, 10, 9, loaded, 0, 10);
+            assertTrue(Arrays.equals(original, loaded));
+        }
+    }
+    
+    /**
+     * Read the frames of the test GIF with ImageIO, which gives each frame by itself,
+     * and compose them according to their positions and disposal methods.
+     */
+    private static List<int[]> readWithImageIO()
+        throws Exception
+    {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(GifImageTest.class.getResourceAsStream(TEST_GIF))) {
+            reader.setInput(in);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            List<int[]> frames = new ArrayList<>();
+            int[] canvas = new int[width * height];
+            int frameCount = reader.getNumImages(true);
+            for (int i = 0; i < frameCount; i++) {
+                BufferedImage frame = reader.read(i);
+                IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                IIOMetadataNode descriptor = (IIOMetadataNode) root.getElementsByTagName("ImageDescriptor").item(0);
+                int left = Integer.parseInt(descriptor.getAttribute("imageLeftPosition"));
+                int top = Integer.parseInt(descriptor.getAttribute("imageTopPosition"));
+                String disposal = "none";
+                if (root.getElementsByTagName("GraphicControlExtension").getLength() > 0) {
+                    IIOMetadataNode control = (IIOMetadataNode) root.getElementsByTagName("GraphicControlExtension").item(0);
+                    disposal = control.getAttribute("disposalMethod");
+                }
+                
+                int[] before = canvas.clone();
+                for (int y = 0; y < frame.getHeight(); y++) {
+                    for (int x = 0; x < frame.getWidth(); x++) {
+                        int argb = frame.getRGB(x, y);
+                        if ((argb >>> 24) != 0) {
+                            canvas[(top + y) * width + left + x] = argb;
+                        }
+                    }
+                }
+                frames.add(canvas.clone());
+                
+                if (disposal.equals("restoreToPrevious")) {
+                    canvas = before;
+                }
+                else if (disposal.equals("restoreToBackgroundColor")) {
+                    for (int y = 0; y < frame.getHeight(); y++) {
+                        Arrays.fill(canvas, (top + y) * width + left, (top + y) * width + left + frame.getWidth(), 0);
+                    }
+                }
+            }
+            return frames;
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import java.util.Arrays;
+
+import greenfoot.util.GreenfootUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the bulk pixel access of GreenfootImage: getPixels, setPixels and PixelCursor.
+ */
+public class GreenfootImagePixelsTest extends TestCase
+{
+    private GreenfootImage image;
+    
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        GreenfootUtil.initialise(new TestUtilDelegate());
+        image = new GreenfootImage(8, 6);
+    }
+    
+    public void testRegionRoundTrip()
+    {
+        // A 3x2 region, stored with an offset and a wider scan:
+        int[] pixels = new int[20];
+        int[] colours = {0xFF102030, 0xFF405060, 0xFF708090, 0xFFA0B0C0, 0xFFD0E0F0, 0xFF010203};
+        for (int j = 0; j < 2; j++) {
+            System.arraycopy(colours, j * 3, pixels, 2 + j * 5, 3);
+        }
+        image.setPixels(4, 3, 3, 2, pixels, 2, 5);
+        
+        assertEquals(new Color(0x40, 0x50, 0x60), image.getColorAt(5, 3));
+        assertEquals(new Color(0x01, 0x02, 0x03), image.getColorAt(6, 4));
+        assertEquals(0, image.getColorAt(3, 3).getAlpha());
+        
+        int[] read = new int[6];
+        image.getPixels(4, 3, 3, 2, read, 0, 3);
+        assertTrue(Arrays.equals(colours, read));
+    }
+    
+    public void testCursor()
+    {
+        PixelCursor cursor = image.getPixelCursor();
+        int count = 0;
+        do {
+            assertEquals(count % 8, cursor.getX());
+            assertEquals(count / 8, cursor.getY());
+            cursor.setColor(cursor.getX(), cursor.getY(), 0, 255);
+            count++;
+        } while (cursor.next());
+        assertEquals(48, count);
+        // The cursor stays at the last pixel:
+        assertFalse(cursor.next());
+        assertEquals(7, cursor.getX());
+        assertEquals(5, cursor.getY());
+        
+        assertEquals(new Color(3, 2, 0), image.getColorAt(3, 2));
+        cursor.moveTo(6, 1);
+        assertEquals(6, cursor.getRed());
+        assertEquals(1, cursor.getGreen());
+        assertEquals(0, cursor.getBlue());
+        assertEquals(255, cursor.getAlpha());
+        
+        try {
+            cursor.moveTo(8, 0);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+    
+    public void testChangesAreTracked()
+    {
+        int modCount = image.getModCount();
+        image.setPixels(0, 0, 1, 1, new int[] {0xFFFFFFFF}, 0, 1);
+        assertTrue(image.getModCount() != modCount);
+        
+        modCount = image.getModCount();
+        image.getPixelCursor().setARGB(0xFF000000);
+        assertTrue(image.getModCount() != modCount);
+        
+        // Reading doesn't count as a change:
+        modCount = image.getModCount();
+        image.getPixels(0, 0, 8, 6, new int[48], 0, 8);
+        assertEquals(modCount, image.getModCount());
+        image.getFont();
+        assertEquals(modCount, image.getModCount());
+    }
+    
+    public void testCopiesAreUnaffected()
+    {
+        image.setColorAt(0, 0, Color.RED);
+        GreenfootImage copy = new GreenfootImage(image);
+        copy.setPixels(0, 0, 1, 1, new int[] {0xFF0000FF}, 0, 1);
+        assertEquals(Color.RED, image.getColorAt(0, 0));
+        assertEquals(Color.BLUE, copy.getColorAt(0, 0));
+    }
+    
+    public void testBounds()
+    {
+        try {
+            image.getPixels(6, 0, 3, 1, new int[3], 0, 3);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            image.setPixels(0, 0, 4, 2, new int[7], 0, 4);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            image.getPixels(0, 0, 4, 2, new int[8], 0, 3);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2016,2018  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009,2010,2011,2012,2016,2018,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class TestUtilDelegate implements GreenfootUtilDelegate
@@ -69,6 +70,12 @@ public class TestUtilDelegate implements GreenfootUtilDelegate
         return null;
     }
 
+    @Override
+    public Iterable<String> getImageFiles()
+    {
+        return Collections.emptyList();
+    }
+
     @Override
     public boolean isStorageSupported()
     {
@@ -0,0 +1,121 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot;
+
+import java.util.Arrays;
+import java.util.List;
+
+import greenfoot.core.Simulation;
+import greenfoot.util.GreenfootUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests for World.getObjects and World.numberOfObjects.
+ */
+public class WorldObjectsTest extends TestCase
+{
+    interface Edible
+    {
+    }
+    
+    static class Food extends TestObject implements Edible
+    {
+    }
+    
+    static class Cake extends Food
+    {
+    }
+    
+    static class Rock extends TestObject
+    {
+    }
+    
+    private World world;
+    
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        GreenfootUtil.initialise(new TestUtilDelegate());
+        Simulation.initialize();
+        world = WorldCreator.createWorld(10, 10, 10);
+    }
+    
+    public void testByClass()
+    {
+        Food food = new Food();
+        Cake cake = new Cake();
+        Rock rock = new Rock();
+        world.addObject(food, 1, 1);
+        world.addObject(cake, 2, 2);
+        world.addObject(rock, 3, 3);
+        
+        assertEquals(Arrays.asList(food, cake, rock), world.getObjects(null));
+        assertEquals(Arrays.asList(food, cake, rock), world.getObjects(Actor.class));
+        assertEquals(Arrays.asList(food, cake), world.getObjects(Food.class));
+        assertEquals(Arrays.asList(cake), world.getObjects(Cake.class));
+        assertEquals(Arrays.asList(food, cake), world.getObjects(Edible.class));
+        assertTrue(world.getObjects(String.class).isEmpty());
+        
+        assertEquals(3, world.numberOfObjects(null));
+        assertEquals(2, world.numberOfObjects(Edible.class));
+        assertEquals(1, world.numberOfObjects(Rock.class));
+        assertEquals(0, world.numberOfObjects(WorldObjectsTest.class));
+        
+        world.removeObject(food);
+        assertEquals(Arrays.asList(cake), world.getObjects(Food.class));
+        assertEquals(1, world.numberOfObjects(Edible.class));
+        assertEquals(2, world.numberOfObjects());
+        
+        // Moving to another world removes it from this one:
+        World other = WorldCreator.createWorld(10, 10, 10);
+        other.addObject(cake, 1, 1);
+        assertEquals(Arrays.asList(rock), world.getObjects(null));
+        assertEquals(Arrays.asList(cake), other.getObjects(Edible.class));
+    }
+    
+    public void testListUnchangedByWorld()
+    {
+        Food food = new Food();
+        world.addObject(food, 1, 1);
+        List<Food> foods = world.getObjects(Food.class);
+        assertSame(foods, world.getObjects(Food.class));
+        
+        Food food2 = new Food();
+        world.addObject(food2, 2, 2);
+        assertEquals(Arrays.asList(food), foods);
+        assertEquals(Arrays.asList(food, food2), world.getObjects(Food.class));
+        
+        // A common way to clear the world:
+        world.removeObjects(world.getObjects(null));
+        assertEquals(0, world.numberOfObjects());
+        assertTrue(world.getObjects(Food.class).isEmpty());
+        
+        try {
+            foods.clear();
+            fail();
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
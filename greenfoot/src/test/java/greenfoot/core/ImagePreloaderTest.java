@@ -0,0 +1,132 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.core;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import greenfoot.Color;
+import greenfoot.GreenfootImage;
+import greenfoot.TestUtilDelegate;
+import greenfoot.util.GreenfootUtil;
+import junit.framework.TestCase;
+
+/**
+ * Tests for ImagePreloader.
+ */
+public class ImagePreloaderTest extends TestCase
+{
+    private final Map<String, String> properties = new HashMap<>();
+    private File imageFile;
+    
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        GreenfootUtil.initialise(new TestUtilDelegate());
+        ImageCache.getInstance().clearImageCache();
+        
+        imageFile = File.createTempFile("preloadtest", ".png");
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(1, 1, 0xFFFF0000);
+        ImageIO.write(image, "png", imageFile);
+        
+        properties.put("class.Crab.image", imageFile.getAbsolutePath());
+        properties.put("class.Crab.superclass", "greenfoot.Actor");
+        ImagePreloader.getInstance().setProjectProperties(new ReadOnlyProjectProperties() {
+            @Override
+            public String getString(String key, String defaultValue)
+            {
+                return properties.getOrDefault(key, defaultValue);
+            }
+            
+            @Override
+            public Set<String> getKeys()
+            {
+                return properties.keySet();
+            }
+        });
+    }
+    
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        ImagePreloader.getInstance().setProjectProperties(null);
+        imageFile.delete();
+    }
+    
+    public void testClassImagesArePreloaded()
+        throws InterruptedException
+    {
+        ImagePreloader preloader = ImagePreloader.getInstance();
+        preloader.preload();
+        waitForPreload(imageFile.getAbsolutePath());
+        ImagePreloader.PreloadedImage preloaded = preloader.take(imageFile.getAbsolutePath());
+        assertNotNull(preloaded);
+        assertEquals(3, preloaded.getImage().getWidth());
+        assertEquals(0xFFFF0000, preloaded.getImage().getRGB(1, 1));
+        
+        // Each image can only be taken once:
+        assertNull(preloader.take(imageFile.getAbsolutePath()));
+        assertNull(preloader.take("nonexistent.png"));
+    }
+    
+    public void testTakeBeforeLoadingStarts()
+    {
+        // Whether or not the preload has started by now, taking it must not fail, and
+        // creating the image must work either way:
+        ImagePreloader.getInstance().preload();
+        ImagePreloader.PreloadedImage preloaded = ImagePreloader.getInstance().take(imageFile.getAbsolutePath());
+        if (preloaded != null) {
+            assertEquals(3, preloaded.getImage().getWidth());
+        }
+        assertNull(ImagePreloader.getInstance().take(imageFile.getAbsolutePath()));
+        assertEquals(Color.RED, new GreenfootImage(imageFile.getAbsolutePath()).getColorAt(1, 1));
+    }
+    
+    public void testImageUsesPreloaded()
+    {
+        ImagePreloader.getInstance().preload();
+        GreenfootImage image = new GreenfootImage(imageFile.getAbsolutePath());
+        assertEquals(2, image.getHeight());
+        assertEquals(Color.RED, image.getColorAt(1, 1));
+        // Now it is in the image cache rather than the preloader:
+        assertNull(ImagePreloader.getInstance().take(imageFile.getAbsolutePath()));
+        assertEquals(Color.RED, new GreenfootImage(imageFile.getAbsolutePath()).getColorAt(1, 1));
+    }
+    
+    private static void waitForPreload(String filename)
+        throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (! ImagePreloader.getInstance().isPreloaded(filename)) {
+            assertTrue("Image was not preloaded", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.gui;
+
+import greenfoot.Actor;
+import greenfoot.Color;
+import greenfoot.GreenfootImage;
+import greenfoot.TestObject;
+import greenfoot.TestUtilDelegate;
+import greenfoot.World;
+import greenfoot.WorldCreator;
+import greenfoot.core.Simulation;
+import greenfoot.util.GreenfootUtil;
+import junit.framework.TestCase;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests that painting with a StaticLayer gives the same result as painting everything.
+ */
+public class StaticLayerTest extends TestCase
+{
+    static class Wall extends TestObject
+    {
+        Wall(Color color)
+        {
+            super(10, 10);
+            getImage().setColor(color);
+            getImage().fill();
+        }
+    }
+    
+    static class Mover extends TestObject
+    {
+        Mover()
+        {
+            super(14, 6);
+            getImage().setColor(Color.RED);
+            getImage().fill();
+        }
+    }
+    
+    private World world;
+    private StaticLayer staticLayer;
+    private List<Wall> walls;
+    private Mover mover;
+    
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        GreenfootUtil.initialise(new TestUtilDelegate());
+        Simulation.initialize();
+        world = WorldCreator.createWorld(20, 10, 10);
+        world.getBackground().setColor(Color.GREEN);
+        world.getBackground().fillRect(0, 0, 200, 50);
+        staticLayer = new StaticLayer();
+        walls = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            Wall wall = new Wall(new Color(i * 10, 0, 255));
+            walls.add(wall);
+            world.addObject(wall, i, i % 3 == 0 ? 0 : 9);
+        }
+        mover = new Mover();
+        world.addObject(mover, 0, 5);
+    }
+    
+    /**
+     * Paint a frame using the static layer, and check it is the same as painting everything.
+     * 
+     * @return whether the static layer was used.
+     */
+    private boolean paintAndCompare()
+    {
+        BufferedImage layered = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = layered.createGraphics();
+        boolean used = staticLayer.paint(g, world, layered);
+        g.dispose();
+        
+        BufferedImage expected = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        g = expected.createGraphics();
+        WorldRenderer.paintBackground(g, world, 200, 100);
+        for (Actor actor : world.getObjects(Actor.class))
+        {
+            // The walls are painted first (they were added first), and there is no paint order:
+            WorldRenderer.paintActor(g, actor.getImage(), actor.getX(), actor.getY(), actor.getRotation(), 10);
+        }
+        g.dispose();
+        
+        if (used)
+        {
+            assertTrue(Arrays.equals(getPixels(expected), getPixels(layered)));
+        }
+        return used;
+    }
+    
+    private static int[] getPixels(BufferedImage image)
+    {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+    
+    /**
+     * Paint enough frames for unchanged actors to become static, moving the mover each time.
+     */
+    private void paintFrames(int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            mover.setLocation((mover.getX() + 1) % 20, 5);
+            mover.setRotation(mover.getRotation() + 7);
+            assertTrue(paintAndCompare());
+        }
+    }
+
+    public void testStaticActors()
+    {
+        paintFrames(StaticLayer.STATIC_AFTER_FRAMES + 5);
+        
+        // Change a wall's image content:
+        walls.get(3).getImage().setColor(Color.YELLOW);
+        walls.get(3).getImage().fillRect(2, 2, 4, 4);
+        paintFrames(1);
+        
+        // Move, rotate, replace the image of, and remove walls:
+        walls.get(5).setLocation(5, 8);
+        walls.get(6).setRotation(45);
+        walls.get(7).setImage(new GreenfootImage(8, 8));
+        world.removeObject(walls.get(8));
+        paintFrames(StaticLayer.STATIC_AFTER_FRAMES + 5);
+        
+        // Change the background:
+        world.getBackground().setColor(Color.BLUE);
+        world.getBackground().fillRect(50, 50, 20, 20);
+        paintFrames(3);
+        world.setBackground(new GreenfootImage(200, 100));
+        paintFrames(3);
+    }
+    
+    public void testPaintOrder()
+    {
+        // Walls are painted over the mover:
+        world.setPaintOrder(Wall.class);
+        paintFrames(StaticLayer.STATIC_AFTER_FRAMES + 5);
+        
+        // The static walls would have to be painted over the mover, so the layer can't be used:
+        mover.setLocation(3, 9);
+        assertFalse(staticLayer.paint(new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB).createGraphics(),
+                world, new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB)));
+    }
+    
+    public void testUntrackedBackground()
+    {
+        world.getBackground().getAwtImage();
+        assertFalse(paintAndCompare());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.record;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Tests for recording frames and reading them back.
+ */
+public class FrameRecordingTest extends TestCase
+{
+    private File file;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        file = File.createTempFile("greenfoot", "gfrec");
+        file.deleteOnExit();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+    }
+
+    /**
+     * Make the frame for the given act cycle: a moving square, which changes size half way.
+     */
+    private static BufferedImage makeFrame(int actCycle)
+    {
+        int size = actCycle < 100 ? 50 : 60;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, 0xFF102030);
+        for (int y = 10; y < 20; y++)
+        {
+            for (int x = 0; x < 10; x++)
+            {
+                pixels[y * size + (x + actCycle) % size] = 0xFFFF0000 + actCycle;
+            }
+        }
+        return image;
+    }
+    
+    private static int[] getPixels(BufferedImage image)
+    {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    public void testRecordAndReplay() throws Exception
+    {
+        FrameRecorder recorder = new FrameRecorder(file);
+        BlockingQueue<BufferedImage> pool = new ArrayBlockingQueue<>(3);
+        // Every other act cycle, so that seeking to an odd cycle finds the one before:
+        int recorded = 0;
+        for (int actCycle = 0; actCycle < 200; actCycle += 2)
+        {
+            recorder.record(makeFrame(actCycle), actCycle, pool);
+            recorded += 1;
+            // Don't let frames get dropped:
+            Thread.sleep(5);
+        }
+        recorder.stop();
+        
+        try (FrameRecording recording = new FrameRecording(file))
+        {
+            assertEquals(recorded, recording.getFrameCount());
+            assertEquals(10, recording.getActCycle(5));
+            
+            // In order:
+            for (int i = 0; i < recording.getFrameCount(); i++)
+            {
+                FrameRecording.Frame frame = recording.getFrame(i);
+                BufferedImage expected = makeFrame(i * 2);
+                assertEquals(i * 2, frame.getActCycle());
+                assertEquals(expected.getWidth(), frame.getWidth());
+                assertTrue(Arrays.equals(getPixels(expected), frame.getPixels()));
+            }
+            
+            // Seeking backwards and forwards:
+            for (int actCycle : new int[] {151, 3, 0, 199, 120, 98, 101})
+            {
+                FrameRecording.Frame frame = recording.seekToActCycle(actCycle);
+                int expectedCycle = actCycle & ~1;
+                assertEquals(expectedCycle, frame.getActCycle());
+                assertTrue(Arrays.equals(getPixels(makeFrame(expectedCycle)), frame.getPixels()));
+            }
+        }
+    }
+    
+    public void testTruncated() throws Exception
+    {
+        FrameRecorder recorder = new FrameRecorder(file);
+        BlockingQueue<BufferedImage> pool = new ArrayBlockingQueue<>(3);
+        for (int actCycle = 0; actCycle < 3; actCycle++)
+        {
+            recorder.record(makeFrame(actCycle), actCycle, pool);
+            Thread.sleep(5);
+        }
+        recorder.stop();
+        
+        // Cut the last frame short:
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(raf.length() - 5);
+        }
+        try (FrameRecording recording = new FrameRecording(file))
+        {
+            assertEquals(2, recording.getFrameCount());
+            assertTrue(Arrays.equals(getPixels(makeFrame(1)), recording.seekToActCycle(5).getPixels()));
+        }
+    }
+}
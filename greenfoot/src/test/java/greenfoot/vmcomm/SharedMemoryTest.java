@@ -0,0 +1,147 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the structures used to communicate through shared memory.
+ */
+public class SharedMemoryTest extends TestCase
+{
+    private SharedMemory shm;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        shm = new SharedMemory(ByteBuffer.allocateDirect(4 * 1000));
+    }
+    
+    public void testCommandRing()
+    {
+        CommandRing ring = new CommandRing(shm, 10, 16);
+        assertNull(ring.poll());
+        
+        // Each of these takes 5 integers, so the ring wraps around:
+        for (int i = 0; i < 20; i++)
+        {
+            Command command = new Command(Command.COMMAND_CONTINUE_DRAG, i, i * 2);
+            assertTrue(ring.offer(command));
+            int[] received = ring.poll();
+            assertTrue(Arrays.equals(new int[] {command.commandSequence, Command.COMMAND_CONTINUE_DRAG, i, i * 2}, received));
+        }
+        assertNull(ring.poll());
+        
+        // Fill it up:
+        assertTrue(ring.offer(new Command(Command.COMMAND_RUN, 1, 2, 3, 4)));
+        assertTrue(ring.offer(new Command(Command.COMMAND_RUN, 5, 6, 7, 8)));
+        assertFalse(ring.offer(new Command(Command.COMMAND_PAUSE)));
+        assertEquals(Command.COMMAND_RUN, ring.poll()[1]);
+        assertTrue(ring.offer(new Command(Command.COMMAND_PAUSE)));
+        assertEquals(8, ring.poll()[5]);
+        assertEquals(Command.COMMAND_PAUSE, ring.poll()[1]);
+        assertNull(ring.poll());
+        
+        try
+        {
+            ring.offer(new Command(Command.COMMAND_ANSWERED, new int[20]));
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+    
+    public void testSeqLockBlock()
+    {
+        SeqLockBlock block = new SeqLockBlock(shm, 100, 20);
+        int[] copy = new int[block.getCapacity() + 1];
+        block.startAt(1001);
+        assertEquals(1000, block.getSeq());
+        assertEquals(-1, block.read(1000, copy));
+        
+        block.write(new int[] {7, 8, 9}, 3);
+        int seq = block.read(1000, copy);
+        assertEquals(1002, seq);
+        assertTrue(Arrays.equals(new int[] {3, 7, 8, 9}, Arrays.copyOf(copy, 4)));
+        // Nothing newer:
+        assertEquals(-1, block.read(seq, copy));
+        
+        block.write(new int[] {5}, 1);
+        assertEquals(1004, block.read(seq, copy));
+        assertEquals(1, copy[0]);
+        assertEquals(5, copy[1]);
+    }
+    
+    public void testFrameRing()
+    {
+        FrameRing frames = new FrameRing(shm, 200, 800);
+        assertFalse(frames.hasFrame());
+        assertTrue(frames.fits(300));
+        assertFalse(frames.fits(400));
+        
+        int[] pixels = new int[300];
+        Arrays.fill(pixels, 1);
+        assertTrue(frames.canPublish());
+        frames.publish(10, 10, pixels);
+        Arrays.fill(pixels, 2);
+        assertTrue(frames.canPublish());
+        frames.publish(20, 15, pixels);
+        // Both slots are in use:
+        assertFalse(frames.canPublish());
+        assertTrue(frames.hasFrame());
+        
+        // The most recent frame is read, and the older one skipped:
+        int[] read = new int[3];
+        assertTrue(frames.consume((w, h, buffer) -> {
+            read[0] = w;
+            read[1] = h;
+            read[2] = buffer.get(w * h - 1);
+            assertEquals(w * h, buffer.remaining());
+        }));
+        assertTrue(Arrays.equals(new int[] {20, 15, 2}, read));
+        assertFalse(frames.hasFrame());
+        assertTrue(frames.canPublish());
+        assertFalse(frames.consume((w, h, buffer) -> fail()));
+    }
+    
+    public void testFrameRingSize()
+    {
+        int size = (int)FrameRing.sizeFor(250);
+        FrameRing frames = new FrameRing(shm, 100, size);
+        assertEquals(size, frames.size());
+        assertTrue(frames.fits(250));
+        assertFalse(frames.fits(251));
+        assertTrue(FrameRing.sizeFor(Integer.MAX_VALUE) > FrameRing.MAX_SIZE);
+        
+        // Discarding marks published frames as consumed:
+        frames.publish(25, 10, new int[250]);
+        assertTrue(frames.hasFrame());
+        frames.discard();
+        assertFalse(frames.hasFrame());
+        assertTrue(frames.canPublish());
+    }
+}